@@ -24,18 +24,34 @@ package org.dotnetrdf.wiki.checker;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.dotnetrdf.wiki.checker.cache.CheckResultCache;
+import org.dotnetrdf.wiki.checker.checks.AsynchronousLinkCheck;
+import org.dotnetrdf.wiki.checker.checks.CacheableCheck;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
 import org.dotnetrdf.wiki.checker.checks.DocumentCheck;
 import org.dotnetrdf.wiki.checker.checks.LinkCheck;
+import org.dotnetrdf.wiki.checker.checks.TextReadingCheck;
 import org.dotnetrdf.wiki.checker.checks.WikiCheck;
 import org.dotnetrdf.wiki.checker.data.AbstractCheckedWiki;
 import org.dotnetrdf.wiki.checker.data.CheckedWiki;
 import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
 import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
 import org.dotnetrdf.wiki.checker.parser.CheckedWikiScanner;
-import org.dotnetrdf.wiki.data.issues.Warning;
+import org.dotnetrdf.wiki.data.documents.DocumentTextCache;
+import org.dotnetrdf.wiki.data.graph.LinkGraph;
 import org.dotnetrdf.wiki.parser.links.LinkDetector;
 import org.dotnetrdf.wiki.parser.links.LinkDetectorRegistry;
 import org.slf4j.Logger;
@@ -50,6 +66,43 @@ import org.slf4j.LoggerFactory;
  * document checks. This allows for document checks which rely on the whole of
  * the wiki link structure having been validated first to run.
  * </p>
+ * <p>
+ * Document text is read via a {@link DocumentTextCache} so that each document
+ * is read at most once per run provided the cache budget allows, checks which
+ * read the text of other documents are given the cache via
+ * {@link TextReadingCheck}.
+ * </p>
+ * <p>
+ * When an executor is provided via {@link #setExecutor(ExecutorService)} link
+ * detection and link checks for different documents run in parallel on that
+ * executor. All documents have their links checked before any document checks
+ * are run and the document and wiki checks are always run sequentially so
+ * issues are reported in the same order as a sequential run.
+ * </p>
+ * <p>
+ * {@link AsynchronousLinkCheck} implementations are started for the links of
+ * every document before any of them are completed, each document has its
+ * asynchronous link checks completed immediately before its document checks
+ * run so their issues follow the issues of the other link checks.
+ * </p>
+ * <p>
+ * Alternatively when dependency scheduling is enabled via
+ * {@link #setDependencyScheduling(boolean)} checks run as soon as the data
+ * they declare they require is available, see {@link CheckDependencies}.
+ * </p>
+ * <p>
+ * A recheck via {@link #run(boolean)} is incremental, only documents whose
+ * size, last modified time or content have changed since they were last
+ * checked are checked again along with those documents whose inbound links
+ * are affected by the changes. Global wiki checks are always run again.
+ * </p>
+ * <p>
+ * When a {@link CheckResultCache} is provided via
+ * {@link #setResultCache(CheckResultCache)} the detected links and the issues
+ * of cacheable checks are reused across runs for documents whose content has
+ * not changed, inbound links, non-cacheable checks and global wiki checks are
+ * always computed afresh.
+ * </p>
  * 
  * @author rvesse
  * 
@@ -67,6 +120,11 @@ public abstract class AbstractWikiChecker<TLink extends CheckedLink, TDoc extend
     private List<DocumentCheck> documentChecks = new ArrayList<DocumentCheck>();
     private List<LinkCheck> linkChecks = new ArrayList<LinkCheck>();
     private List<WikiCheck> wikiChecks = new ArrayList<WikiCheck>();
+    private DocumentTextCache textCache = new DocumentTextCache();
+    private ExecutorService executor;
+    private boolean dependencyScheduling = false;
+    private Map<String, Fingerprint> fingerprints = new ConcurrentHashMap<String, Fingerprint>();
+    private CheckResultCache resultCache;
 
     /**
      * Creates a new document checker
@@ -99,76 +157,88 @@ public abstract class AbstractWikiChecker<TLink extends CheckedLink, TDoc extend
         if (this.wiki.hasBeenChecked() && !recheck) {
             return;
         } else if (this.wiki.hasBeenChecked() && recheck) {
-            // TODO Reset global issues
+            this.prepareRecheck();
         }
 
-        Iterator<TDoc> documents = this.wiki.getDocuments();
+        // Only documents which have not been checked, or have been reset for
+        // rechecking, need to be checked
+        List<TDoc> documents = new ArrayList<TDoc>();
+        Iterator<TDoc> iter = this.wiki.getDocuments();
+        while (iter.hasNext()) {
+            TDoc document = iter.next();
+            if (!document.hasBeenChecked())
+                documents.add(document);
+        }
+        if (this.resultCache != null)
+            this.resultCache.load(this.getCheckFingerprint());
+        this.shareTextCache();
+
+        if (this.dependencyScheduling) {
+            LOGGER.info("Running checks scheduled by their dependencies");
+            new CheckScheduler<TLink, TDoc>(this.wiki, this.textCache, this.resultCache, this.executor,
+                    this.getLinkChecks(), this.getDocumentChecks(), this.getWikiChecks()).run(documents);
+            LOGGER.info("Finished running checks");
+            LOGGER.info("Document text cache: " + this.textCache.toString());
+            this.recordFingerprints(documents);
+            this.saveResultCache();
+            this.wiki.setChecked(true);
+            return;
+        }
 
         // For each document detect and check links
         LOGGER.info("Checking links in documents");
-        while (documents.hasNext()) {
-            TDoc document = documents.next();
-
-            if (document.hasBeenChecked() && !recheck)
-                continue;
-
-            if (document.hasBeenChecked() && recheck) {
-                // TODO Reset links and issues
-            }
-
-            LOGGER.debug("Checking links in document " + document.getPath());
-
-            // Firstly we need to read in the document text
-            String text = document.getText();
-
-            // Detect Links
-            LinkDetector detector = LinkDetectorRegistry.getLinkDetector(document.getFormat());
-            if (detector == null) {
-                // Issue a warning when no link detector available
-                document.addIssue(new Warning("Page has format " + document.getFormat().toString()
-                        + " which does not have a link detector, no links can be detected for this document"));
-            } else {
-                // Detect links
-                detector.findLinks(document, text);
+        Map<TDoc, DocumentChecking<TLink, TDoc>> checkings =
+                new ConcurrentHashMap<TDoc, DocumentChecking<TLink, TDoc>>();
+        if (this.executor == null) {
+            for (TDoc document : documents) {
+                checkings.put(document, this.checkLinks(document));
             }
-
-            // Check Links
-
-            // Apply link checks
-            Iterator<TLink> links = document.getOutboundLinks();
-            while (links.hasNext()) {
-                TLink link = links.next();
-
-                Iterator<LinkCheck> linkChecks = this.getLinkChecks();
-                while (linkChecks.hasNext()) {
-                    LinkCheck check = linkChecks.next();
-                    check.check(document, link, this.wiki);
-                }
-            }
-
-            LOGGER.debug("Finished checking links in document " + document.getPath());
+        } else {
+            this.checkLinksInParallel(documents, checkings);
         }
         LOGGER.info("Finished checking links in documents");
 
+        // The links of all documents have now been collected so start the
+        // asynchronous link checks in bulk
+        Iterator<LinkCheck> asyncChecks = this.getLinkChecks();
+        while (asyncChecks.hasNext()) {
+            LinkCheck check = asyncChecks.next();
+            if (check instanceof AsynchronousLinkCheck)
+                ((AsynchronousLinkCheck) check).start();
+        }
+
+        // Index the links between documents for use by the document checks
+        LinkGraph<TDoc> graph = LinkGraph.build(this.wiki);
+        this.wiki.setLinkGraph(graph);
+        LOGGER.info("Link graph has " + graph.getDocumentCount() + " document(s) and " + graph.getEdgeCount()
+                + " link(s) between documents");
+
         // Now carry out document checks
-        documents = this.wiki.getDocuments();
         LOGGER.info("Checking documents");
-        while (documents.hasNext()) {
-            TDoc document = documents.next();
-
+        for (TDoc document : documents) {
             LOGGER.debug("Checking document " + document.getPath());
 
+            // Asynchronous link checks for all documents were started before
+            // we complete any of them
+            DocumentChecking<TLink, TDoc> checking = checkings.get(document);
+            Iterator<LinkCheck> linkChecks = this.getLinkChecks();
+            for (int i = 0; linkChecks.hasNext(); i++) {
+                checking.completeLinkCheck(linkChecks.next(), i);
+            }
+
             Iterator<DocumentCheck> docChecks = this.getDocumentChecks();
-            while (docChecks.hasNext()) {
+            for (int i = 0; docChecks.hasNext(); i++) {
                 DocumentCheck check = docChecks.next();
 
-                check.check(document, document.getText(), this.wiki);
+                checking.checkDocument(this.textCache.getContent(document), check, i, this.wiki);
             }
 
             // Finally mark as checked
+            checking.finish();
             document.setChecked(true);
         }
         LOGGER.info("Finished checking documents");
+        LOGGER.info("Document text cache: " + this.textCache.toString());
 
         // Finally carry out wiki checks
         LOGGER.info("Performing global wiki checks");
@@ -179,10 +249,404 @@ public abstract class AbstractWikiChecker<TLink extends CheckedLink, TDoc extend
             check.check(this.wiki);
         }
         LOGGER.info("Finished global wiki checks");
+        this.recordFingerprints(documents);
+        this.saveResultCache();
         this.wiki.setChecked(true);
 
     }
 
+    /**
+     * Provides the text cache to any checks which read document text
+     */
+    private void shareTextCache() {
+        List<Object> checks = new ArrayList<Object>();
+        checks.addAll(this.linkChecks);
+        checks.addAll(this.documentChecks);
+        checks.addAll(this.wikiChecks);
+        for (Object check : checks) {
+            if (check instanceof TextReadingCheck)
+                ((TextReadingCheck) check).setTextCache(this.textCache);
+        }
+    }
+
+    /**
+     * Prepares a previously checked wiki for an incremental recheck
+     * <p>
+     * Documents whose on disk file has been deleted are removed from the
+     * wiki. Documents which have changed since they were last checked have
+     * their links, issues and the inbound links they contributed to other
+     * documents removed. Documents whose inbound links are affected by the
+     * changes, i.e. the previous and current targets of the changed and
+     * deleted documents links plus any documents linking to deleted or newly
+     * added documents or to sections of changed documents, have their issues
+     * removed. All these documents are then marked as unchecked so the next
+     * run checks only them, global issues are always removed.
+     * </p>
+     * 
+     * @throws IOException
+     *             Thrown if a document cannot be read
+     */
+    private void prepareRecheck() throws IOException {
+        LOGGER.info("Determining documents which have changed since they were last checked");
+        List<TDoc> changed = new ArrayList<TDoc>();
+        List<TDoc> added = new ArrayList<TDoc>();
+        List<TDoc> deleted = new ArrayList<TDoc>();
+        Iterator<TDoc> iter = this.wiki.getDocuments();
+        while (iter.hasNext()) {
+            TDoc document = iter.next();
+            Fingerprint fingerprint = this.fingerprints.get(document.getPath());
+            document.resetFileAttributes();
+            if (document.getFile() != null && document.getSize() < 0) {
+                deleted.add(document);
+            } else if (fingerprint == null) {
+                // Added since the last check, or checked by another checker in
+                // which case we know nothing about its state so recheck it
+                if (document.hasBeenChecked()) {
+                    changed.add(document);
+                } else {
+                    added.add(document);
+                }
+            } else if (this.hasChanged(document, fingerprint)) {
+                changed.add(document);
+            }
+        }
+
+        Set<TDoc> affected = new LinkedHashSet<TDoc>();
+        if (!deleted.isEmpty())
+            this.removeDeleted(deleted, affected);
+        for (TDoc document : changed) {
+            LOGGER.debug("Document " + document.getPath() + " has changed");
+
+            // Remove the links from the previous version of the document
+            Iterator<TLink> links = document.getOutboundLinks();
+            while (links.hasNext()) {
+                TLink link = links.next();
+                TDoc target = this.wiki.getLinkTarget(link);
+                if (target != null && target != document) {
+                    target.removeInboundLink(link);
+                    affected.add(target);
+                }
+            }
+            document.clearOutboundLinks();
+            document.setAnchorIndex(null);
+            document.clearIssues();
+            document.setChecked(false);
+        }
+
+        // Detect the links of the current version of changed and added
+        // documents to find the documents they now link to, the checks detect
+        // the links again later but adding an existing link has no effect
+        Set<Integer> addedIds = new HashSet<Integer>();
+        List<TDoc> detect = new ArrayList<TDoc>(changed);
+        for (TDoc document : added) {
+            detect.add(document);
+            addedIds.add(document.getPathId());
+        }
+        for (TDoc document : detect) {
+            LinkDetector detector = LinkDetectorRegistry.getLinkDetector(document.getFormat());
+            if (detector == null)
+                continue;
+            detector.findLinks(document, this.textCache.getContent(document), null);
+            affected.addAll(this.getLinkTargets(document));
+        }
+
+        // Documents with links to added documents previously had broken links,
+        // documents with links to sections of changed documents may now have
+        // broken or fixed section links
+        Set<Integer> changedIds = new HashSet<Integer>();
+        for (TDoc document : changed) {
+            changedIds.add(document.getPathId());
+        }
+        if (!addedIds.isEmpty() || !changedIds.isEmpty()) {
+            iter = this.wiki.getDocuments();
+            while (iter.hasNext()) {
+                TDoc document = iter.next();
+                Iterator<TLink> links = document.getOutboundLinks();
+                while (links.hasNext()) {
+                    TLink link = links.next();
+                    TDoc target = this.wiki.getLinkTarget(link);
+                    if (target == null)
+                        continue;
+                    if (addedIds.contains(target.getPathId())
+                            || (link.getPath().indexOf('#') >= 0 && changedIds.contains(target.getPathId()))) {
+                        affected.add(document);
+                        break;
+                    }
+                }
+            }
+        }
+
+        affected.removeAll(changed);
+        affected.removeAll(added);
+        affected.removeAll(deleted);
+        for (TDoc document : affected) {
+            document.clearIssues();
+            document.setChecked(false);
+        }
+        this.wiki.clearGlobalIssues();
+
+        LOGGER.info(deleted.size() + " deleted document(s) removed, " + changed.size() + " changed, " + added.size()
+                + " added and " + affected.size() + " affected document(s) will be rechecked");
+    }
+
+    /**
+     * Removes documents whose on disk file has been deleted from the wiki
+     * <p>
+     * The inbound links the deleted documents contributed are removed from
+     * their targets, and those targets plus any documents linking to the
+     * deleted documents, whose links are now broken, are added to the affected
+     * documents.
+     * </p>
+     * 
+     * @param deleted
+     *            Deleted documents
+     * @param affected
+     *            Affected documents
+     */
+    private void removeDeleted(List<TDoc> deleted, Set<TDoc> affected) {
+        Set<TDoc> removed = new HashSet<TDoc>(deleted);
+
+        // Links to deleted documents must be resolved before they are removed
+        Iterator<TDoc> iter = this.wiki.getDocuments();
+        while (iter.hasNext()) {
+            TDoc document = iter.next();
+            if (removed.contains(document))
+                continue;
+            Iterator<TLink> links = document.getOutboundLinks();
+            while (links.hasNext()) {
+                if (removed.contains(this.wiki.getLinkTarget(links.next()))) {
+                    affected.add(document);
+                    break;
+                }
+            }
+        }
+
+        for (TDoc document : deleted) {
+            LOGGER.debug("Document " + document.getPath() + " has been deleted");
+            Iterator<TLink> links = document.getOutboundLinks();
+            while (links.hasNext()) {
+                TLink link = links.next();
+                TDoc target = this.wiki.getLinkTarget(link);
+                if (target != null && !removed.contains(target)) {
+                    target.removeInboundLink(link);
+                    affected.add(target);
+                }
+            }
+            document.clearOutboundLinks();
+            document.setAnchorIndex(null);
+            document.clearIssues();
+            this.wiki.removeDocument(document.getPath());
+            this.fingerprints.remove(document.getPath());
+            this.textCache.invalidate(document);
+        }
+    }
+
+    /**
+     * Determines whether a document has changed since it was last checked,
+     * its file attributes must already have been reset, the content is only
+     * compared when the size and last modified time do not already show that
+     * the document has changed
+     * 
+     * @param document
+     *            Document
+     * @param fingerprint
+     *            Fingerprint of the document when it was last checked
+     * @return True if changed, false otherwise
+     * @throws IOException
+     *             Thrown if the document cannot be read
+     */
+    private boolean hasChanged(TDoc document, Fingerprint fingerprint) throws IOException {
+        if (document.getSize() == fingerprint.size && document.getLastModified() == fingerprint.lastModified)
+            return false;
+
+        // The cached text is from the previous version
+        this.textCache.invalidate(document);
+        if (document.getSize() != fingerprint.size || !document.getFormat().isText())
+            return true;
+
+        // Only modified time changed so check whether the content did
+        Fingerprint current = this.fingerprint(document);
+        if (current.hash != fingerprint.hash)
+            return true;
+        this.fingerprints.put(document.getPath(), current);
+        return false;
+    }
+
+    /**
+     * Gets the documents a document links to excluding itself
+     * 
+     * @param document
+     *            Document
+     * @return Link targets
+     */
+    private Set<TDoc> getLinkTargets(TDoc document) {
+        Set<TDoc> targets = new HashSet<TDoc>();
+        Iterator<TLink> links = document.getOutboundLinks();
+        while (links.hasNext()) {
+            TDoc target = this.wiki.getLinkTarget(links.next());
+            if (target != null && target != document)
+                targets.add(target);
+        }
+        return targets;
+    }
+
+    /**
+     * Records the fingerprints of documents which have just been checked so
+     * that a later recheck can tell whether they have changed
+     * 
+     * @param documents
+     *            Checked documents
+     * @throws IOException
+     *             Thrown if a document cannot be read
+     */
+    private void recordFingerprints(List<TDoc> documents) throws IOException {
+        for (TDoc document : documents) {
+            this.fingerprints.put(document.getPath(), this.fingerprint(document));
+        }
+    }
+
+    /**
+     * Computes the fingerprint of a document, textual documents include a
+     * hash of their content which is usually still held by the text cache
+     * 
+     * @param document
+     *            Document
+     * @return Fingerprint
+     * @throws IOException
+     *             Thrown if the document cannot be read
+     */
+    private Fingerprint fingerprint(TDoc document) throws IOException {
+        CharSequence text = document.getFormat().isText() ? this.textCache.getContent(document) : null;
+        long hash = text != null ? CheckResultCache.hash(text) : 0;
+        return new Fingerprint(document.getSize(), document.getLastModified(), hash);
+    }
+
+    /**
+     * Computes the fingerprint of the configured checks used to key the result
+     * cache, this covers the order of the checks since cached issues are
+     * recorded against the index of the check that reported them
+     * 
+     * @return Check fingerprint
+     */
+    private long getCheckFingerprint() {
+        StringBuilder builder = new StringBuilder();
+        Iterator<LinkCheck> linkChecks = this.getLinkChecks();
+        while (linkChecks.hasNext()) {
+            appendCheck(builder.append("Link "), linkChecks.next());
+        }
+        Iterator<DocumentCheck> docChecks = this.getDocumentChecks();
+        while (docChecks.hasNext()) {
+            appendCheck(builder.append("Document "), docChecks.next());
+        }
+        return CheckResultCache.hash(builder);
+    }
+
+    private static void appendCheck(StringBuilder builder, Object check) {
+        builder.append(check.getClass().getName());
+        if (check instanceof CacheableCheck)
+            builder.append(' ').append(((CacheableCheck) check).getConfigurationKey());
+        builder.append('\n');
+    }
+
+    /**
+     * Saves the result cache if there is one, failing to save the cache does
+     * not fail the check
+     */
+    private void saveResultCache() {
+        if (this.resultCache == null)
+            return;
+        try {
+            this.resultCache.save();
+            LOGGER.info("Check result cache: " + this.resultCache.toString());
+        } catch (IOException e) {
+            LOGGER.warn("Unable to save check result cache to " + this.resultCache.getFile(), e);
+        }
+    }
+
+    /**
+     * Detects and checks the links of a single document
+     * 
+     * @param document
+     *            Document
+     * @return Checking of the document to be used for its document checks
+     * @throws IOException
+     *             Thrown if the document cannot be read
+     */
+    private DocumentChecking<TLink, TDoc> checkLinks(TDoc document) throws IOException {
+        LOGGER.debug("Checking links in document " + document.getPath());
+
+        // Firstly we need to read in the document content
+        CharSequence text = this.textCache.getContent(document);
+        DocumentChecking<TLink, TDoc> checking = new DocumentChecking<TLink, TDoc>(document, text, this.resultCache);
+
+        // Detect Links
+        checking.detectLinks(text);
+
+        // Check Links
+
+        // Apply link checks
+        Iterator<TLink> links = document.getOutboundLinks();
+        for (int i = 0; links.hasNext(); i++) {
+            TLink link = links.next();
+
+            Iterator<LinkCheck> linkChecks = this.getLinkChecks();
+            for (int j = 0; linkChecks.hasNext(); j++) {
+                LinkCheck check = linkChecks.next();
+                checking.checkLink(link, i, check, j, this.wiki);
+            }
+        }
+
+        LOGGER.debug("Finished checking links in document " + document.getPath());
+        return checking;
+    }
+
+    /**
+     * Detects and checks the links of documents in parallel using the
+     * configured executor, returns only once all documents have been checked
+     * 
+     * @param documents
+     *            Documents
+     * @param checkings
+     *            Map to which the checking of each document is added
+     * @throws IOException
+     *             Thrown if any document cannot be read
+     */
+    private void checkLinksInParallel(List<TDoc> documents, final Map<TDoc, DocumentChecking<TLink, TDoc>> checkings)
+            throws IOException {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final TDoc document : documents) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    checkings.put(document, checkLinks(document));
+                    return null;
+                }
+            });
+        }
+
+        try {
+            // All documents are finished before any failure is reported so
+            // the wiki is never left with links still being checked
+            for (Future<Void> future : this.executor.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException)
+                        throw (IOException) cause;
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+                    if (cause instanceof Error)
+                        throw (Error) cause;
+                    throw new IOException("Error checking links", cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while checking links");
+        }
+    }
+
     @Override
     public final void addDocumentCheck(DocumentCheck check) {
         if (check != null)
@@ -216,4 +680,59 @@ public abstract class AbstractWikiChecker<TLink extends CheckedLink, TDoc extend
         return this.wikiChecks.iterator();
     }
 
+    @Override
+    public DocumentTextCache getTextCache() {
+        return this.textCache;
+    }
+
+    @Override
+    public void setTextCache(DocumentTextCache cache) {
+        if (cache == null)
+            throw new NullPointerException("Text cache cannot be null");
+        this.textCache = cache;
+    }
+
+    @Override
+    public ExecutorService getExecutor() {
+        return this.executor;
+    }
+
+    @Override
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public CheckResultCache getResultCache() {
+        return this.resultCache;
+    }
+
+    @Override
+    public void setResultCache(CheckResultCache cache) {
+        this.resultCache = cache;
+    }
+
+    @Override
+    public boolean isDependencyScheduling() {
+        return this.dependencyScheduling;
+    }
+
+    @Override
+    public void setDependencyScheduling(boolean enabled) {
+        this.dependencyScheduling = enabled;
+    }
+
+    /**
+     * State of a document when it was last checked
+     */
+    private static final class Fingerprint {
+        final long size, lastModified, hash;
+
+        Fingerprint(long size, long lastModified, long hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
 }
\ No newline at end of file
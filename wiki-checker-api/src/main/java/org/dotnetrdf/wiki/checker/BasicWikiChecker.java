@@ -25,6 +25,8 @@ import org.dotnetrdf.wiki.checker.checks.document.DeadEndDocumentCheck;
 import org.dotnetrdf.wiki.checker.checks.document.IsolatedDocumentCheck;
 import org.dotnetrdf.wiki.checker.checks.document.PoorlyLinkedDocumentCheck;
 import org.dotnetrdf.wiki.checker.checks.document.ShortDocumentCheck;
+import org.dotnetrdf.wiki.checker.checks.LinkCheck;
+import org.dotnetrdf.wiki.checker.checks.links.ConcurrentExternalLinkCheck;
 import org.dotnetrdf.wiki.checker.checks.links.EmailLinkCheck;
 import org.dotnetrdf.wiki.checker.checks.links.ExternalLinkCheck;
 import org.dotnetrdf.wiki.checker.checks.links.MissingFriendlyTextCheck;
@@ -51,7 +53,8 @@ public class BasicWikiChecker<TLink extends CheckedLink, TDoc extends CheckedDoc
         AbstractWikiChecker<TLink, TDoc> {
 
     /**
-     * Creates a new document checker
+     * Creates a new document checker which validates external links
+     * synchronously with an {@link ExternalLinkCheck}
      * 
      * @param wiki
      *            Wiki which is presumed to have already been populated by an
@@ -60,13 +63,30 @@ public class BasicWikiChecker<TLink extends CheckedLink, TDoc extends CheckedDoc
      *            Base Directory
      */
     public BasicWikiChecker(AbstractCheckedWiki<TLink, TDoc> wiki, String dir) {
+        this(wiki, dir, new ExternalLinkCheck());
+    }
+
+    /**
+     * Creates a new document checker
+     * 
+     * @param wiki
+     *            Wiki which is presumed to have already been populated by an
+     *            appropriate {@link CheckedWikiScanner}
+     * @param dir
+     *            Base Directory
+     * @param externalLinkCheck
+     *            Link check used to validate external links, e.g. a
+     *            {@link ConcurrentExternalLinkCheck}, the caller remains
+     *            responsible for shutting it down if necessary
+     */
+    public BasicWikiChecker(AbstractCheckedWiki<TLink, TDoc> wiki, String dir, LinkCheck externalLinkCheck) {
         super(wiki, dir);
 
         // Standard link checks
         this.addLinkCheck(new MissingFriendlyTextCheck());
         this.addLinkCheck(new WikiLinkCheck());
         this.addLinkCheck(new EmailLinkCheck());
-        this.addLinkCheck(new ExternalLinkCheck());
+        this.addLinkCheck(externalLinkCheck);
 
         // Standard document checks
         this.addDocumentCheck(new ShortDocumentCheck());
@@ -0,0 +1,638 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import org.dotnetrdf.wiki.checker.cache.CheckResultCache;
+import org.dotnetrdf.wiki.checker.checks.AsynchronousLinkCheck;
+import org.dotnetrdf.wiki.checker.checks.CheckData;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
+import org.dotnetrdf.wiki.checker.checks.DocumentCheck;
+import org.dotnetrdf.wiki.checker.checks.LinkCheck;
+import org.dotnetrdf.wiki.checker.checks.WikiCheck;
+import org.dotnetrdf.wiki.checker.data.AbstractCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
+import org.dotnetrdf.wiki.data.documents.DocumentTextCache;
+import org.dotnetrdf.wiki.data.graph.LinkGraph;
+import org.dotnetrdf.wiki.data.issues.AbstractIssue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules checks according to the data they declare they read and produce
+ * <p>
+ * Link detection, each link check and each document check form a stage which
+ * is applied to every document, building the link graph and each wiki check
+ * form stages which are run once. The stages are ordered by their
+ * dependencies and each document works through its stages as soon as the data
+ * they require is available, pausing only when no remaining stage can run. A
+ * document check which only needs the link graph therefore runs as soon as all
+ * links have been detected rather than waiting for slow link checks on other
+ * documents. Issues within a document are put into stage order once all its
+ * stages have run so their order is always the same.
+ * </p>
+ * <p>
+ * Asynchronous link checks form two stages, the first passes the links of a
+ * document to the check and the second completes the check for the document.
+ * The second stage requires {@link CheckData#ASYNCHRONOUS_LINKS} so it only
+ * runs once the links of every document have been passed to the check,
+ * allowing the check to validate all the links in bulk.
+ * </p>
+ * <p>
+ * When no executor is given all work runs on the calling thread.
+ * </p>
+ * 
+ * @author rvesse
+ * @param <TLink>
+ *            Checked link type
+ * @param <TDoc>
+ *            Checked document type
+ */
+final class CheckScheduler<TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckScheduler.class);
+
+    private final AbstractCheckedWiki<TLink, TDoc> wiki;
+    private final DocumentTextCache textCache;
+    private final CheckResultCache resultCache;
+    private final Executor executor;
+    private final ConcurrentMap<TDoc, DocumentChecking<TLink, TDoc>> checkings = new ConcurrentHashMap<TDoc, DocumentChecking<TLink, TDoc>>();
+    private final List<Stage> documentStages = new ArrayList<Stage>();
+    private final List<Stage> wikiStages = new ArrayList<Stage>();
+
+    private final Object lock = new Object();
+    private final int[] pending = new int[CheckData.values().length];
+    private final List<List<Runnable>> waiting = new ArrayList<List<Runnable>>();
+    private final Deque<Runnable> queue = new ArrayDeque<Runnable>();
+    private int remaining;
+    private Throwable failure;
+
+    /**
+     * Creates a new scheduler
+     * 
+     * @param wiki
+     *            Wiki
+     * @param textCache
+     *            Document text cache
+     * @param resultCache
+     *            Result cache, may be null
+     * @param executor
+     *            Executor, may be null to run everything on the calling thread
+     * @param linkChecks
+     *            Link checks
+     * @param documentChecks
+     *            Document checks
+     * @param wikiChecks
+     *            Wiki checks
+     * @throws IllegalStateException
+     *             Thrown if the declared dependencies form a cycle
+     */
+    CheckScheduler(AbstractCheckedWiki<TLink, TDoc> wiki, DocumentTextCache textCache, CheckResultCache resultCache,
+            Executor executor, Iterator<LinkCheck> linkChecks, Iterator<DocumentCheck> documentChecks,
+            Iterator<WikiCheck> wikiChecks) {
+        this.wiki = wiki;
+        this.textCache = textCache;
+        this.resultCache = resultCache;
+        this.executor = executor;
+        for (int i = 0; i < this.pending.length; i++) {
+            this.waiting.add(new ArrayList<Runnable>());
+        }
+
+        List<Stage> stages = new ArrayList<Stage>();
+        stages.add(new DetectionStage());
+        for (int i = 0; linkChecks.hasNext(); i++) {
+            LinkCheck check = linkChecks.next();
+            stages.add(new LinkCheckStage(check, i));
+            if (check instanceof AsynchronousLinkCheck)
+                stages.add(new LinkCompletionStage((AsynchronousLinkCheck) check, i));
+        }
+        stages.add(new LinkGraphStage());
+        for (int i = 0; documentChecks.hasNext(); i++) {
+            stages.add(new DocumentCheckStage(documentChecks.next(), i));
+        }
+        while (wikiChecks.hasNext()) {
+            stages.add(new WikiCheckStage(wikiChecks.next()));
+        }
+
+        for (Stage stage : order(stages)) {
+            if (stage.perDocument) {
+                this.documentStages.add(stage);
+            } else {
+                this.wikiStages.add(stage);
+            }
+        }
+    }
+
+    /**
+     * Gets the checking of a document creating it if necessary
+     * 
+     * @param document
+     *            Document
+     * @return Checking
+     * @throws IOException
+     *             Thrown if the document cannot be read
+     */
+    private DocumentChecking<TLink, TDoc> getChecking(TDoc document) throws IOException {
+        DocumentChecking<TLink, TDoc> checking = this.checkings.get(document);
+        if (checking == null) {
+            // Only the task for the document gets its checking so there is no
+            // race to create it
+            checking = new DocumentChecking<TLink, TDoc>(document, this.textCache.getContent(document),
+                    this.resultCache);
+            this.checkings.put(document, checking);
+        }
+        return checking;
+    }
+
+    /**
+     * Gets the data a check requires, checks that do not declare their
+     * dependencies are assumed to require the given defaults
+     */
+    private static Set<CheckData> getRequiredData(Object check, Set<CheckData> defaults) {
+        if (check instanceof CheckDependencies)
+            return ((CheckDependencies) check).getRequiredData();
+        return defaults;
+    }
+
+    /**
+     * Gets the data a check produces
+     */
+    private static Set<CheckData> getProducedData(Object check) {
+        if (check instanceof CheckDependencies)
+            return ((CheckDependencies) check).getProducedData();
+        return Collections.emptySet();
+    }
+
+    /**
+     * Orders stages such that every stage comes after the stages producing the
+     * data it requires, stages whose data is required by others are preferred
+     * and otherwise registration order is preserved
+     * 
+     * @param stages
+     *            Stages in registration order
+     * @return Ordered stages
+     */
+    private List<Stage> order(List<Stage> stages) {
+        int n = stages.size();
+        boolean[][] edges = new boolean[n][n];
+        int[] inDegree = new int[n];
+        boolean[] critical = new boolean[n];
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                if (Collections.disjoint(stages.get(a).produces, stages.get(b).requires))
+                    continue;
+                if (a == b)
+                    throw new IllegalStateException("Check " + stages.get(a).name + " requires data it produces");
+                edges[a][b] = true;
+                inDegree[b]++;
+                critical[a] = true;
+            }
+        }
+
+        List<Stage> ordered = new ArrayList<Stage>();
+        boolean[] done = new boolean[n];
+        while (ordered.size() < n) {
+            int next = -1;
+            for (int i = 0; i < n; i++) {
+                if (done[i] || inDegree[i] > 0)
+                    continue;
+                if (next == -1 || (critical[i] && !critical[next]))
+                    next = i;
+            }
+            if (next == -1)
+                throw new IllegalStateException("Check dependencies form a cycle");
+            done[next] = true;
+            ordered.add(stages.get(next));
+            for (int b = 0; b < n; b++) {
+                if (edges[next][b])
+                    inDegree[b]--;
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Runs the checks, returning once the given documents and the wiki have
+     * been checked
+     * 
+     * @param documents
+     *            Documents to check
+     * @throws IOException
+     *             Thrown if a document cannot be read
+     */
+    void run(List<TDoc> documents) throws IOException {
+        synchronized (this.lock) {
+            for (Stage stage : this.documentStages) {
+                for (CheckData data : stage.produces) {
+                    this.pending[data.ordinal()] += documents.size();
+                }
+            }
+            for (Stage stage : this.wikiStages) {
+                for (CheckData data : stage.produces) {
+                    this.pending[data.ordinal()]++;
+                }
+            }
+            this.remaining = documents.size() + this.wikiStages.size();
+
+            for (TDoc document : documents) {
+                this.submit(new DocumentTask(document));
+            }
+            this.startWikiStages();
+        }
+
+        this.await();
+    }
+
+    /**
+     * Submits a task, callers must hold the lock
+     */
+    private void submit(Runnable task) {
+        if (this.executor != null) {
+            this.executor.execute(task);
+        } else {
+            this.queue.add(task);
+        }
+    }
+
+    /**
+     * Starts any wiki stages whose data is now available, callers must hold
+     * the lock
+     */
+    private void startWikiStages() {
+        for (final Stage stage : this.wikiStages) {
+            if (stage.started || this.getMissing(stage) != null)
+                continue;
+            stage.started = true;
+            this.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        LOGGER.debug("Running " + stage.name);
+                        stage.run(null);
+                        completed(stage);
+                        finished();
+                    } catch (Throwable e) {
+                        failed(e);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets some data a stage requires that is not yet available, callers must
+     * hold the lock
+     * 
+     * @return Missing data or null if all required data is available
+     */
+    private CheckData getMissing(Stage stage) {
+        for (CheckData data : stage.requires) {
+            // Document local data was produced by earlier stages for the
+            // same document
+            if (stage.perDocument && data.isDocumentLocal())
+                continue;
+            if (this.pending[data.ordinal()] > 0)
+                return data;
+        }
+        return null;
+    }
+
+    /**
+     * Records that a stage has completed for one document or for the wiki and
+     * resumes any work waiting on the data it produced
+     */
+    private void completed(Stage stage) {
+        synchronized (this.lock) {
+            for (CheckData data : stage.produces) {
+                if (--this.pending[data.ordinal()] == 0) {
+                    List<Runnable> waiters = this.waiting.get(data.ordinal());
+                    for (Runnable waiter : waiters) {
+                        this.submit(waiter);
+                    }
+                    waiters.clear();
+                }
+            }
+            this.startWikiStages();
+        }
+    }
+
+    private void finished() {
+        synchronized (this.lock) {
+            this.remaining--;
+            this.lock.notifyAll();
+        }
+    }
+
+    private void failed(Throwable e) {
+        synchronized (this.lock) {
+            if (this.failure == null)
+                this.failure = e;
+            this.lock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits for all work to finish, running the work on the calling thread if
+     * there is no executor
+     */
+    private void await() throws IOException {
+        synchronized (this.lock) {
+            while (this.remaining > 0 && this.failure == null) {
+                if (this.executor == null) {
+                    // Only this thread touches the model so it is safe to run
+                    // the task while holding the lock
+                    Runnable task = this.queue.poll();
+                    if (task == null)
+                        throw new IllegalStateException("Checks are waiting on data which is never produced");
+                    task.run();
+                } else {
+                    try {
+                        this.lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while running checks");
+                    }
+                }
+            }
+
+            Throwable cause = this.failure;
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else if (cause != null) {
+                throw new IOException("Error running checks", cause);
+            }
+        }
+    }
+
+    /**
+     * Runs the per-document stages for a single document, stages run as soon
+     * as the data they require is available and the task is parked whenever
+     * no remaining stage can run. Once all stages have run the issues of the
+     * document are put into stage order so the order does not depend on when
+     * data became available.
+     */
+    private final class DocumentTask implements Runnable {
+        private final TDoc document;
+        private final boolean[] done = new boolean[documentStages.size()];
+        private int remainingStages = documentStages.size();
+        private final Map<AbstractIssue, Integer> ranks = new IdentityHashMap<AbstractIssue, Integer>();
+
+        public DocumentTask(TDoc document) {
+            this.document = document;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (this.remainingStages > 0) {
+                    int next = this.next();
+                    if (next < 0)
+                        return;
+
+                    Stage stage = documentStages.get(next);
+                    LOGGER.debug("Running " + stage.name + " on document " + this.document.getPath());
+                    int before = this.document.getIssueCount();
+                    stage.run(this.document);
+                    Iterator<AbstractIssue> issues = this.document.getIssues();
+                    for (int i = 0; issues.hasNext(); i++) {
+                        AbstractIssue issue = issues.next();
+                        if (i >= before)
+                            this.ranks.put(issue, next);
+                    }
+                    this.done[next] = true;
+                    this.remainingStages--;
+                    completed(stage);
+                }
+
+                this.document.sortIssues(new Comparator<AbstractIssue>() {
+                    @Override
+                    public int compare(AbstractIssue a, AbstractIssue b) {
+                        return Integer.compare(rank(a), rank(b));
+                    }
+                });
+                getChecking(this.document).finish();
+                checkings.remove(this.document);
+                this.document.setChecked(true);
+                finished();
+            } catch (Throwable e) {
+                failed(e);
+            }
+        }
+
+        private int rank(AbstractIssue issue) {
+            Integer rank = this.ranks.get(issue);
+            return rank != null ? rank : -1;
+        }
+
+        /**
+         * Finds the first remaining stage which can run, parking the task if
+         * there is none
+         * 
+         * @return Stage index or -1 if the task was parked or checking failed
+         */
+        private int next() {
+            synchronized (lock) {
+                if (failure != null)
+                    return -1;
+                CheckData missing = null;
+                for (int i = 0; i < this.done.length; i++) {
+                    if (this.done[i] || !this.isLocallyReady(i))
+                        continue;
+                    CheckData data = getMissing(documentStages.get(i));
+                    if (data == null)
+                        return i;
+                    if (missing == null)
+                        missing = data;
+                }
+                waiting.get(missing.ordinal()).add(this);
+                return -1;
+            }
+        }
+
+        /**
+         * Gets whether the stages producing document local data a stage
+         * requires have run for this document
+         */
+        private boolean isLocallyReady(int index) {
+            Stage stage = documentStages.get(index);
+            for (int i = 0; i < index; i++) {
+                if (this.done[i])
+                    continue;
+                for (CheckData data : documentStages.get(i).produces) {
+                    if (data.isDocumentLocal() && stage.requires.contains(data))
+                        return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A stage of checking
+     */
+    private abstract class Stage {
+        final String name;
+        final boolean perDocument;
+        final Set<CheckData> requires, produces;
+        boolean started = false;
+
+        Stage(String name, boolean perDocument, Set<CheckData> requires, Set<CheckData> produces) {
+            this.name = name;
+            this.perDocument = perDocument;
+            this.requires = EnumSet.noneOf(CheckData.class);
+            this.requires.addAll(requires);
+            this.produces = EnumSet.noneOf(CheckData.class);
+            this.produces.addAll(produces);
+            if (perDocument)
+                this.produces.add(CheckData.ISSUES);
+        }
+
+        /**
+         * Runs the stage
+         * 
+         * @param document
+         *            Document, null for stages which run once for the wiki
+         * @throws IOException
+         */
+        abstract void run(TDoc document) throws IOException;
+    }
+
+    private final class DetectionStage extends Stage {
+
+        DetectionStage() {
+            super("link detection", true, EnumSet.of(CheckData.TEXT), EnumSet.of(CheckData.OUTBOUND_LINKS));
+        }
+
+        @Override
+        void run(TDoc document) throws IOException {
+            getChecking(document).detectLinks(textCache.getContent(document));
+        }
+    }
+
+    private final class LinkCheckStage extends Stage {
+        private final LinkCheck check;
+        private final int index;
+
+        LinkCheckStage(LinkCheck check, int index) {
+            super(check.getClass().getSimpleName(), true, getRequiredData(check, EnumSet.of(CheckData.OUTBOUND_LINKS)),
+                    check instanceof AsynchronousLinkCheck ? EnumSet.of(CheckData.ASYNCHRONOUS_LINKS)
+                            : getProducedData(check));
+            this.check = check;
+            this.index = index;
+        }
+
+        @Override
+        void run(TDoc document) throws IOException {
+            DocumentChecking<TLink, TDoc> checking = getChecking(document);
+            Iterator<TLink> links = document.getOutboundLinks();
+            for (int i = 0; links.hasNext(); i++) {
+                checking.checkLink(links.next(), i, this.check, this.index, wiki);
+            }
+        }
+    }
+
+    private final class LinkCompletionStage extends Stage {
+        private final AsynchronousLinkCheck check;
+        private final int index;
+
+        LinkCompletionStage(AsynchronousLinkCheck check, int index) {
+            super(check.getClass().getSimpleName() + " completion", true, EnumSet.of(CheckData.ASYNCHRONOUS_LINKS),
+                    getProducedData(check));
+            this.check = check;
+            this.index = index;
+        }
+
+        @Override
+        void run(TDoc document) throws IOException {
+            // Starting is cheap once the collected links have been started so
+            // every document may do it
+            this.check.start();
+            getChecking(document).completeLinkCheck(this.check, this.index);
+        }
+    }
+
+    private final class LinkGraphStage extends Stage {
+
+        LinkGraphStage() {
+            super("link graph", false, EnumSet.of(CheckData.OUTBOUND_LINKS), EnumSet.of(CheckData.LINK_GRAPH));
+        }
+
+        @Override
+        void run(TDoc document) {
+            wiki.setLinkGraph(LinkGraph.build(wiki));
+        }
+    }
+
+    private final class DocumentCheckStage extends Stage {
+        private final DocumentCheck check;
+        private final int index;
+
+        DocumentCheckStage(DocumentCheck check, int index) {
+            super(check.getClass().getSimpleName(), true, getRequiredData(check, EnumSet.range(CheckData.TEXT,
+                    CheckData.EXTERNAL_LINK_STATUS)), getProducedData(check));
+            this.check = check;
+            this.index = index;
+        }
+
+        @Override
+        void run(TDoc document) throws IOException {
+            getChecking(document).checkDocument(textCache.getContent(document), this.check, this.index, wiki);
+        }
+    }
+
+    private final class WikiCheckStage extends Stage {
+        private final WikiCheck check;
+
+        WikiCheckStage(WikiCheck check) {
+            super(check.getClass().getSimpleName(), false, getRequiredData(check, EnumSet.allOf(CheckData.class)),
+                    getProducedData(check));
+            this.check = check;
+        }
+
+        @Override
+        void run(TDoc document) {
+            this.check.check(wiki);
+        }
+    }
+}
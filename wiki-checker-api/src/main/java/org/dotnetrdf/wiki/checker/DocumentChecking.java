@@ -0,0 +1,237 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+
+import org.dotnetrdf.wiki.checker.cache.CachedResult;
+import org.dotnetrdf.wiki.checker.cache.CheckResultCache;
+import org.dotnetrdf.wiki.checker.checks.AbstractDocumentCheck;
+import org.dotnetrdf.wiki.checker.checks.AsynchronousLinkCheck;
+import org.dotnetrdf.wiki.checker.checks.CacheableCheck;
+import org.dotnetrdf.wiki.checker.checks.DocumentCheck;
+import org.dotnetrdf.wiki.checker.checks.LinkCheck;
+import org.dotnetrdf.wiki.checker.data.AbstractCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
+import org.dotnetrdf.wiki.data.issues.AbstractIssue;
+import org.dotnetrdf.wiki.data.issues.Warning;
+import org.dotnetrdf.wiki.parser.links.LinkDetector;
+import org.dotnetrdf.wiki.parser.links.LinkDetectorRegistry;
+
+/**
+ * Carries out link detection and checks upon a single document
+ * <p>
+ * When a {@link CheckResultCache} is in use and holds a result for the current
+ * content of the document the detected links and the issues of
+ * {@link CacheableCheck} implementations are restored from it rather than
+ * being computed again, other checks always run. Otherwise the links and the
+ * issues of cacheable checks are recorded so they can be put into the cache
+ * once the document has been checked.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ * @param <TLink>
+ *            Checked link type
+ * @param <TDoc>
+ *            Checked document type
+ */
+final class DocumentChecking<TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> {
+
+    private final TDoc document;
+    private final CheckResultCache cache;
+    private final CachedResult cached;
+    private CachedResult recorded;
+
+    /**
+     * Creates a new document checking
+     * 
+     * @param document
+     *            Document
+     * @param text
+     *            Content of the document
+     * @param cache
+     *            Result cache, may be null
+     */
+    DocumentChecking(TDoc document, CharSequence text, CheckResultCache cache) {
+        this.document = document;
+        this.cache = cache;
+        if (cache != null) {
+            // Documents without text are keyed by their size
+            long hash = text != null ? CheckResultCache.hash(text) : document.getSize();
+            this.cached = cache.get(document.getPath(), hash);
+            this.recorded = this.cached == null ? new CachedResult(hash) : null;
+        } else {
+            this.cached = null;
+            this.recorded = null;
+        }
+    }
+
+    /**
+     * Detects the links in the document
+     * 
+     * @param text
+     *            Content of the document
+     */
+    void detectLinks(CharSequence text) {
+        if (this.cached != null) {
+            this.cached.restoreLinks(this.document);
+            this.cached.restoreIssues(this.document, CachedResult.DETECTION, -1, 0);
+            return;
+        }
+
+        int before = this.document.getIssueCount();
+        LinkDetector detector = LinkDetectorRegistry.getLinkDetector(this.document.getFormat());
+        if (detector == null) {
+            // Issue a warning when no link detector available
+            this.document.addIssue(new Warning("Page has format " + this.document.getFormat().toString()
+                    + " which does not have a link detector, no links can be detected for this document"));
+        } else {
+            detector.findLinks(this.document, text, null);
+        }
+
+        if (this.recorded != null) {
+            Iterator<TLink> links = this.document.getOutboundLinks();
+            while (links.hasNext()) {
+                this.recorded.addLink(links.next());
+            }
+            this.record(before, CachedResult.DETECTION, -1, 0);
+        }
+    }
+
+    /**
+     * Applies a link check to a link of the document
+     * 
+     * @param link
+     *            Link
+     * @param linkIndex
+     *            Index of the link within the outbound links of the document
+     * @param check
+     *            Link check
+     * @param checkIndex
+     *            Index of the check within the configured link checks
+     * @param wiki
+     *            Wiki
+     */
+    void checkLink(TLink link, int linkIndex, LinkCheck check, int checkIndex, AbstractCheckedWiki<TLink, TDoc> wiki) {
+        boolean cacheable = check instanceof CacheableCheck;
+        if (cacheable && this.cached != null) {
+            this.cached.restoreIssues(this.document, CachedResult.LINK_CHECK, linkIndex, checkIndex);
+            return;
+        }
+
+        int before = this.document.getIssueCount();
+        check.check(this.document, link, wiki);
+        if (cacheable && this.recorded != null)
+            this.record(before, CachedResult.LINK_CHECK, linkIndex, checkIndex);
+    }
+
+    /**
+     * Completes an asynchronous link check for the document, the issues of
+     * asynchronous checks are cached against the check rather than any
+     * individual link
+     * 
+     * @param check
+     *            Link check, ignored if it is not asynchronous
+     * @param checkIndex
+     *            Index of the check within the configured link checks
+     * @throws IOException
+     *             Thrown if interrupted while waiting for the check to
+     *             complete
+     */
+    void completeLinkCheck(LinkCheck check, int checkIndex) throws IOException {
+        if (!(check instanceof AsynchronousLinkCheck))
+            return;
+        boolean cacheable = check instanceof CacheableCheck;
+        if (cacheable && this.cached != null) {
+            this.cached.restoreIssues(this.document, CachedResult.LINK_CHECK, -1, checkIndex);
+            return;
+        }
+
+        int before = this.document.getIssueCount();
+        boolean definitive;
+        try {
+            definitive = ((AsynchronousLinkCheck) check).complete(this.document);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while checking links in document " + this.document.getPath());
+        }
+        if (!definitive) {
+            // Don't cache results for the document so it is fully checked
+            // again next time
+            this.recorded = null;
+        } else if (cacheable && this.recorded != null) {
+            this.record(before, CachedResult.LINK_CHECK, -1, checkIndex);
+        }
+    }
+
+    /**
+     * Applies a document check to the document
+     * 
+     * @param text
+     *            Content of the document
+     * @param check
+     *            Document check
+     * @param checkIndex
+     *            Index of the check within the configured document checks
+     * @param wiki
+     *            Wiki
+     */
+    void checkDocument(CharSequence text, DocumentCheck check, int checkIndex, AbstractCheckedWiki<TLink, TDoc> wiki) {
+        boolean cacheable = check instanceof CacheableCheck;
+        if (cacheable && this.cached != null) {
+            this.cached.restoreIssues(this.document, CachedResult.DOCUMENT_CHECK, -1, checkIndex);
+            return;
+        }
+
+        int before = this.document.getIssueCount();
+        if (check instanceof AbstractDocumentCheck) {
+            ((AbstractDocumentCheck) check).check(this.document, text, wiki);
+        } else {
+            check.check(this.document, text != null ? text.toString() : null, wiki);
+        }
+        if (cacheable && this.recorded != null)
+            this.record(before, CachedResult.DOCUMENT_CHECK, -1, checkIndex);
+    }
+
+    /**
+     * Finishes checking the document putting the recorded results into the
+     * cache if necessary
+     */
+    void finish() {
+        if (this.recorded != null)
+            this.cache.put(this.document.getPath(), this.recorded);
+    }
+
+    private void record(int before, byte stage, int link, int check) {
+        Iterator<AbstractIssue> issues = this.document.getIssues();
+        for (int i = 0; issues.hasNext(); i++) {
+            AbstractIssue issue = issues.next();
+            if (i >= before)
+                this.recorded.addIssue(stage, link, check, issue);
+        }
+    }
+}
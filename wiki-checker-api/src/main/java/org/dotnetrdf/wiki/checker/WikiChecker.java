@@ -24,13 +24,17 @@ package org.dotnetrdf.wiki.checker;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
 
+import org.dotnetrdf.wiki.checker.cache.CheckResultCache;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
 import org.dotnetrdf.wiki.checker.checks.DocumentCheck;
 import org.dotnetrdf.wiki.checker.checks.LinkCheck;
 import org.dotnetrdf.wiki.checker.checks.WikiCheck;
 import org.dotnetrdf.wiki.checker.data.CheckedWiki;
 import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
 import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
+import org.dotnetrdf.wiki.data.documents.DocumentTextCache;
 
 /**
  * Interface for wiki checkers
@@ -99,6 +103,76 @@ public interface WikiChecker<TLink extends CheckedLink, TDoc extends CheckedDocu
      */
     public abstract Iterator<LinkCheck> getLinkChecks();
 
+    /**
+     * Gets the cache used to avoid repeatedly reading document text
+     * 
+     * @return Text cache
+     */
+    public abstract DocumentTextCache getTextCache();
+
+    /**
+     * Sets the cache used to avoid repeatedly reading document text
+     * 
+     * @param cache
+     *            Text cache
+     */
+    public abstract void setTextCache(DocumentTextCache cache);
+
+    /**
+     * Gets the executor used to check the links of documents in parallel
+     * 
+     * @return Executor or null if links are checked sequentially
+     */
+    public abstract ExecutorService getExecutor();
+
+    /**
+     * Sets the executor used to check the links of documents in parallel, the
+     * registered link checks must be safe for use from multiple threads when
+     * an executor is set. The checker does not shut down the executor.
+     * 
+     * @param executor
+     *            Executor or null to check links sequentially
+     */
+    public abstract void setExecutor(ExecutorService executor);
+
+    /**
+     * Gets whether checks are scheduled according to the data they declare
+     * they read and produce
+     * 
+     * @return True if checks are scheduled by their dependencies
+     */
+    public abstract boolean isDependencyScheduling();
+
+    /**
+     * Sets whether checks are scheduled according to the data they declare
+     * they read and produce via {@link CheckDependencies} rather than in the
+     * fixed order of link checks then document checks then wiki checks. This
+     * lets checks run as soon as their data is available but issues are
+     * grouped by check rather than by link within each document.
+     * 
+     * @param enabled
+     *            Whether to schedule checks by their dependencies
+     */
+    public abstract void setDependencyScheduling(boolean enabled);
+
+    /**
+     * Gets the cache used to reuse check results for unchanged documents
+     * across runs
+     * 
+     * @return Result cache, null if results are not cached
+     */
+    public abstract CheckResultCache getResultCache();
+
+    /**
+     * Sets the cache used to reuse check results for unchanged documents
+     * across runs, the cache is loaded at the start of each run and saved at
+     * the end
+     * 
+     * @param cache
+     *            Result cache, null to not cache results
+     */
+    public abstract void setResultCache(CheckResultCache cache);
+
     /**
      * Runs the wiki checker
      * 
@@ -111,7 +185,9 @@ public interface WikiChecker<TLink extends CheckedLink, TDoc extends CheckedDocu
      * 
      * @param recheck
      *            Whether previously checked documents should be rechecked, true
-     *            forces rechecks, false (default) causes them to be skipped
+     *            rechecks those documents which have changed since they were
+     *            last checked plus those affected by the changes, false
+     *            (default) causes them to be skipped
      * 
      * @throws IOException
      */
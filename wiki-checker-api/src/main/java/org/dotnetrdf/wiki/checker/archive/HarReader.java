@@ -0,0 +1,291 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.archive;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the HTTP status, and for redirects the location, of captured URLs from
+ * HAR data
+ * <p>
+ * HAR files are JSON so this includes a minimal JSON parser, objects are
+ * parsed as maps, arrays as lists and numbers as doubles.
+ * </p>
+ *
+ * @author rvesse
+ *
+ */
+class HarReader {
+
+    private final Reader reader;
+    private int next = -2;
+    private long position = 0;
+
+    /**
+     * Creates a new reader
+     *
+     * @param reader
+     *            HAR data
+     */
+    HarReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+    }
+
+    /**
+     * Reads all the entries adding the status of each response to the archive,
+     * entries without a response i.e. with a status of zero are ignored
+     *
+     * @param archive
+     *            Archive
+     * @throws IOException
+     *             Thrown if the data cannot be read or is malformed
+     */
+    void read(LinkArchive archive) throws IOException {
+        Object log = get(this.parse(), "log");
+        Object entries = get(log, "entries");
+        if (!(entries instanceof List))
+            throw new IOException("HAR has no log entries");
+        for (Object entry : (List<?>) entries) {
+            Object url = get(get(entry, "request"), "url");
+            Object response = get(entry, "response");
+            Object status = get(response, "status");
+            if (url instanceof String && status instanceof Double && ((Double) status).intValue() > 0)
+                archive.put((String) url, ((Double) status).intValue(), getLocation(response));
+        }
+    }
+
+    /**
+     * Gets the location a response redirects to from its redirect URL or
+     * failing that its {@code Location} header
+     */
+    private static String getLocation(Object response) {
+        Object location = get(response, "redirectURL");
+        if (location instanceof String && ((String) location).length() > 0)
+            return (String) location;
+        Object headers = get(response, "headers");
+        if (headers instanceof List) {
+            for (Object header : (List<?>) headers) {
+                Object name = get(header, "name");
+                Object value = get(header, "value");
+                if (name instanceof String && ((String) name).equalsIgnoreCase("location") && value instanceof String)
+                    return (String) value;
+            }
+        }
+        return null;
+    }
+
+    private static Object get(Object object, String key) {
+        return object instanceof Map ? ((Map<?, ?>) object).get(key) : null;
+    }
+
+    /**
+     * Parses a complete JSON document
+     *
+     * @return Value
+     * @throws IOException
+     *             Thrown if the data cannot be read or is not valid JSON
+     */
+    Object parse() throws IOException {
+        Object value = this.parseValue();
+        if (this.skipWhitespace() != -1)
+            throw this.error("Unexpected content after JSON value");
+        return value;
+    }
+
+    private Object parseValue() throws IOException {
+        int c = this.skipWhitespace();
+        switch (c) {
+        case '{':
+            return this.parseObject();
+        case '[':
+            return this.parseArray();
+        case '"':
+            return this.parseString();
+        case 't':
+            this.expectLiteral("true");
+            return Boolean.TRUE;
+        case 'f':
+            this.expectLiteral("false");
+            return Boolean.FALSE;
+        case 'n':
+            this.expectLiteral("null");
+            return null;
+        case -1:
+            throw new EOFException("Unexpected end of JSON");
+        default:
+            if (c == '-' || (c >= '0' && c <= '9'))
+                return this.parseNumber();
+            throw this.error("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private Map<String, Object> parseObject() throws IOException {
+        Map<String, Object> object = new LinkedHashMap<String, Object>();
+        this.read();
+        if (this.skipWhitespace() == '}') {
+            this.read();
+            return object;
+        }
+        while (true) {
+            if (this.skipWhitespace() != '"')
+                throw this.error("Expected an object key");
+            String key = this.parseString();
+            if (this.skipWhitespace() != ':')
+                throw this.error("Expected ':'");
+            this.read();
+            object.put(key, this.parseValue());
+            int c = this.skipWhitespace();
+            this.read();
+            if (c == '}')
+                return object;
+            if (c != ',')
+                throw this.error("Expected ',' or '}'");
+        }
+    }
+
+    private List<Object> parseArray() throws IOException {
+        List<Object> array = new ArrayList<Object>();
+        this.read();
+        if (this.skipWhitespace() == ']') {
+            this.read();
+            return array;
+        }
+        while (true) {
+            array.add(this.parseValue());
+            int c = this.skipWhitespace();
+            this.read();
+            if (c == ']')
+                return array;
+            if (c != ',')
+                throw this.error("Expected ',' or ']'");
+        }
+    }
+
+    private String parseString() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        this.read();
+        while (true) {
+            int c = this.read();
+            switch (c) {
+            case -1:
+                throw new EOFException("Unterminated JSON string");
+            case '"':
+                return builder.toString();
+            case '\\':
+                c = this.read();
+                switch (c) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(this.read(), 16);
+                        if (digit < 0)
+                            throw this.error("Invalid unicode escape");
+                        code = (code << 4) | digit;
+                    }
+                    builder.append((char) code);
+                    break;
+                case '"':
+                case '\\':
+                case '/':
+                    builder.append((char) c);
+                    break;
+                default:
+                    throw this.error("Invalid escape");
+                }
+                break;
+            default:
+                builder.append((char) c);
+            }
+        }
+    }
+
+    private Double parseNumber() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        int c = this.peek();
+        while (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+            builder.append((char) this.read());
+            c = this.peek();
+        }
+        try {
+            return Double.valueOf(builder.toString());
+        } catch (NumberFormatException e) {
+            throw this.error("Invalid number " + builder);
+        }
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (this.read() != literal.charAt(i))
+                throw this.error("Expected " + literal);
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c = this.peek();
+        while (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\uFEFF') {
+            this.read();
+            c = this.peek();
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (this.next == -2)
+            this.next = this.reader.read();
+        return this.next;
+    }
+
+    private int read() throws IOException {
+        int c = this.peek();
+        this.next = -2;
+        if (c != -1)
+            this.position++;
+        return c;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at character " + this.position + " of JSON");
+    }
+}
@@ -0,0 +1,274 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import org.dotnetrdf.wiki.checker.checks.links.UrlNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An index of the HTTP status of URLs captured in local web archives which
+ * allows external links to be validated without any network access
+ * <p>
+ * Archives are read once when loaded and indexed by normalized URL so each
+ * lookup takes constant time. The following formats are supported, the format
+ * of a file is determined by its extension:
+ * </p>
+ * <ul>
+ * <li>WARC files ({@code .warc} or {@code .warc.gz}), the status of each
+ * {@code response} or {@code revisit} record is indexed</li>
+ * <li>HAR files ({@code .har} or {@code .har.gz}), the status of each entry
+ * is indexed</li>
+ * <li>Manifests (any other file, optionally compressed), plain text files with
+ * a URL, a HTTP status and for redirects optionally the redirect location on
+ * each line separated by whitespace, blank lines and lines starting with
+ * {@code #} are ignored</li>
+ * </ul>
+ * <p>
+ * The location of redirects is also indexed so that they can be followed
+ * within the archive, see {@link #isRedirect(int)}. Where a URL is captured
+ * more than once the last status loaded is used, so archives should be loaded
+ * oldest first.
+ * </p>
+ *
+ * @author rvesse
+ *
+ */
+public class LinkArchive {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LinkArchive.class);
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final Map<String, Integer> statuses = new ConcurrentHashMap<String, Integer>();
+    private final Map<String, String> locations = new ConcurrentHashMap<String, String>();
+    private final AtomicInteger files = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong();
+
+    /**
+     * Loads an archive file
+     *
+     * @param file
+     *            Archive file
+     * @throws IOException
+     *             Thrown if the file cannot be read or is malformed
+     */
+    public void load(File file) throws IOException {
+        String name = file.getName().toLowerCase(Locale.ENGLISH);
+        int before = this.statuses.size();
+        InputStream input = new BufferedInputStream(new FileInputStream(file));
+        try {
+            if (name.endsWith(".gz"))
+                input = new BufferedInputStream(new GZIPInputStream(input));
+            if (name.endsWith(".warc") || name.endsWith(".warc.gz")) {
+                this.loadWarc(input);
+            } else if (name.endsWith(".har") || name.endsWith(".har.gz")) {
+                this.loadHar(input);
+            } else {
+                this.loadManifest(new InputStreamReader(input, UTF8));
+            }
+        } catch (IOException e) {
+            throw new IOException("Unable to load link archive " + file + " - " + e.getMessage(), e);
+        } finally {
+            input.close();
+        }
+        this.files.incrementAndGet();
+        LOGGER.info("Loaded link archive " + file + " adding " + (this.statuses.size() - before) + " URL(s)");
+    }
+
+    /**
+     * Loads a WARC archive
+     *
+     * @param input
+     *            Uncompressed WARC data
+     * @throws IOException
+     *             Thrown if the data cannot be read or is malformed
+     */
+    public void loadWarc(InputStream input) throws IOException {
+        new WarcReader(input).read(this);
+    }
+
+    /**
+     * Loads a HAR archive
+     *
+     * @param input
+     *            HAR data
+     * @throws IOException
+     *             Thrown if the data cannot be read or is malformed
+     */
+    public void loadHar(InputStream input) throws IOException {
+        new HarReader(new InputStreamReader(input, UTF8)).read(this);
+    }
+
+    /**
+     * Loads a manifest
+     *
+     * @param reader
+     *            Manifest
+     * @throws IOException
+     *             Thrown if the manifest cannot be read or is malformed
+     */
+    public void loadManifest(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.length() == 0 || line.startsWith("#"))
+                continue;
+            String[] parts = line.split("\\s+");
+            if (parts.length != 2 && parts.length != 3)
+                throw new IOException("Line " + lineNumber + " is not of the form URL STATUS [LOCATION]");
+            try {
+                this.put(parts[0], Integer.parseInt(parts[1]), parts.length == 3 ? parts[2] : null);
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNumber + " has an invalid HTTP status " + parts[1]);
+            }
+        }
+    }
+
+    /**
+     * Adds the status of a URL replacing any existing status
+     *
+     * @param url
+     *            URL
+     * @param httpStatus
+     *            HTTP status code
+     */
+    public void put(String url, int httpStatus) {
+        this.put(url, httpStatus, null);
+    }
+
+    /**
+     * Adds the status of a URL replacing any existing status
+     * 
+     * @param url
+     *            URL
+     * @param httpStatus
+     *            HTTP status code
+     * @param location
+     *            Location redirected to, may be relative to the URL, only
+     *            retained for redirects and null if unknown
+     */
+    public void put(String url, int httpStatus, String location) {
+        String key = UrlNormalizer.normalize(url);
+        if (isRedirect(httpStatus) && location != null && location.length() > 0) {
+            this.locations.put(key, location);
+        } else {
+            this.locations.remove(key);
+        }
+        this.statuses.put(key, httpStatus);
+    }
+
+    /**
+     * Gets whether a HTTP status is a redirect which is followed when
+     * validating a link, as for live requests these are {@code 301},
+     * {@code 302}, {@code 303} and {@code 307}
+     * 
+     * @param httpStatus
+     *            HTTP status code
+     * @return True if a followed redirect, false otherwise
+     */
+    public static boolean isRedirect(int httpStatus) {
+        return httpStatus == 301 || httpStatus == 302 || httpStatus == 303 || httpStatus == 307;
+    }
+
+    /**
+     * Gets the archived location an archived redirect redirects to
+     * 
+     * @param url
+     *            URL
+     * @return Location, which may be relative to the URL, or null if the URL
+     *         is not an archived redirect or its location is unknown
+     */
+    public String getLocation(String url) {
+        return this.locations.get(UrlNormalizer.normalize(url));
+    }
+
+    /**
+     * Gets the archived status of a URL
+     *
+     * @param url
+     *            URL
+     * @return HTTP status code or null if the URL is not archived
+     */
+    public Integer getStatus(String url) {
+        Integer status = this.statuses.get(UrlNormalizer.normalize(url));
+        if (status != null) {
+            this.hits.incrementAndGet();
+        } else {
+            this.misses.incrementAndGet();
+        }
+        return status;
+    }
+
+    /**
+     * Gets the number of archived URLs
+     *
+     * @return Number of URLs
+     */
+    public int size() {
+        return this.statuses.size();
+    }
+
+    /**
+     * Gets the number of lookups which found an archived status
+     *
+     * @return Hits
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Gets the number of lookups for URLs which are not archived
+     *
+     * @return Misses
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return this.statuses.size() + " URL(s) from " + this.files.get() + " File(s), " + this.hits.get()
+                + " Hit(s) and " + this.misses.get() + " Miss(es)";
+    }
+}
@@ -0,0 +1,186 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.archive;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * Reads the HTTP status, and for redirects the location, of captured URLs from
+ * WARC data, record blocks are skipped after their first line, or their HTTP
+ * headers for redirects, so the content is never buffered
+ *
+ * @author rvesse
+ *
+ */
+class WarcReader {
+
+    /**
+     * Maximum length of a header line, guards against reading binary data as
+     * a line
+     */
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private final InputStream input;
+
+    /**
+     * Creates a new reader
+     *
+     * @param input
+     *            Uncompressed WARC data, this is read a byte at a time so is
+     *            buffered if necessary
+     */
+    WarcReader(InputStream input) {
+        this.input = input instanceof BufferedInputStream ? input : new BufferedInputStream(input);
+    }
+
+    /**
+     * Reads all the records adding the status of each response to the archive
+     *
+     * @param archive
+     *            Archive
+     * @throws IOException
+     *             Thrown if the data cannot be read or is malformed
+     */
+    void read(LinkArchive archive) throws IOException {
+        String line;
+        while ((line = this.readLine()) != null) {
+            // Records are separated by blank lines
+            if (line.length() == 0)
+                continue;
+            if (!line.startsWith("WARC/"))
+                throw new IOException("Expected a WARC record but found " + line);
+
+            // Read the record headers
+            String type = null, uri = null;
+            long length = -1;
+            while ((line = this.readLine()) != null && line.length() > 0) {
+                int colon = line.indexOf(':');
+                if (colon < 0)
+                    continue;
+                String name = line.substring(0, colon).trim().toLowerCase(Locale.ENGLISH);
+                String value = line.substring(colon + 1).trim();
+                if (name.equals("warc-type")) {
+                    type = value;
+                } else if (name.equals("warc-target-uri")) {
+                    if (value.startsWith("<") && value.endsWith(">"))
+                        value = value.substring(1, value.length() - 1);
+                    uri = value;
+                } else if (name.equals("content-length")) {
+                    try {
+                        length = Long.parseLong(value);
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Invalid WARC Content-Length " + value);
+                    }
+                }
+            }
+            if (line == null)
+                throw new EOFException("Truncated WARC record headers");
+            if (length < 0)
+                throw new IOException("WARC record has no Content-Length");
+
+            // The block of a response starts with the HTTP status line
+            if (uri != null && ("response".equals(type) || "revisit".equals(type)) && length > 0) {
+                ByteArrayOutputStream statusLine = new ByteArrayOutputStream();
+                long consumed = this.readLine(statusLine, (int) Math.min(length, MAX_LINE_LENGTH));
+                length -= consumed;
+                String[] parts = new String(statusLine.toByteArray(), LinkArchive.UTF8).trim().split(" ");
+                if (parts.length >= 2 && parts[0].startsWith("HTTP/")) {
+                    try {
+                        int status = Integer.parseInt(parts[1]);
+                        String location = null;
+                        if (LinkArchive.isRedirect(status)) {
+                            // Read the HTTP headers to find where it redirects
+                            // to, the rest of the block is still skipped
+                            while (length > 0) {
+                                ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+                                length -= this.readLine(headerBytes, (int) Math.min(length, MAX_LINE_LENGTH));
+                                if (headerBytes.size() == 0)
+                                    break;
+                                String header = new String(headerBytes.toByteArray(), LinkArchive.UTF8);
+                                int colon = header.indexOf(':');
+                                if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("location"))
+                                    location = header.substring(colon + 1).trim();
+                            }
+                        }
+                        archive.put(uri, status, location);
+                    } catch (NumberFormatException e) {
+                        // Not a HTTP response, ignore it
+                    }
+                }
+            }
+            this.skip(length);
+        }
+    }
+
+    /**
+     * Reads a line without its line terminator
+     *
+     * @return Line or null if at the end of the data
+     */
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        if (this.readLine(line, MAX_LINE_LENGTH) == 0)
+            return null;
+        return new String(line.toByteArray(), LinkArchive.UTF8);
+    }
+
+    /**
+     * Reads a line into a buffer without its line terminator
+     *
+     * @return Number of bytes consumed including the line terminator
+     */
+    private int readLine(ByteArrayOutputStream line, int limit) throws IOException {
+        int consumed = 0;
+        while (consumed < limit) {
+            int b = this.input.read();
+            if (b == -1)
+                break;
+            consumed++;
+            if (b == '\n')
+                break;
+            if (b != '\r')
+                line.write(b);
+        }
+        return consumed;
+    }
+
+    /**
+     * Skips over data which does not need to be read
+     */
+    private void skip(long length) throws IOException {
+        while (length > 0) {
+            long skipped = this.input.skip(length);
+            if (skipped <= 0) {
+                if (this.input.read() == -1)
+                    throw new EOFException("Truncated WARC record");
+                skipped = 1;
+            }
+            length -= skipped;
+        }
+    }
+}
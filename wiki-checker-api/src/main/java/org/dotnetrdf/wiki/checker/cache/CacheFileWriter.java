@@ -0,0 +1,151 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Saves a cache file which may be shared between concurrent runs
+ * <p>
+ * Saving holds an exclusive lock on a companion {@code .lock} file so
+ * concurrent runs save one at a time, giving each the chance to merge in
+ * whatever was saved before it. The content is written to a temporary file in
+ * the same directory which then atomically replaces the cache file, where the
+ * file system supports it, so readers never see a partially written file and
+ * a failed write never corrupts an existing cache.
+ * </p>
+ *
+ * @author rvesse
+ *
+ */
+abstract class CacheFileWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheFileWriter.class);
+
+    private final File file;
+
+    /**
+     * Creates a new writer
+     *
+     * @param file
+     *            Cache file
+     */
+    CacheFileWriter(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Gets the lock file used for a cache file
+     *
+     * @param file
+     *            Cache file
+     * @return Lock file
+     */
+    static File getLockFile(File file) {
+        return new File(file.getPath() + ".lock");
+    }
+
+    /**
+     * Called while holding the lock before the content is written, e.g. to
+     * merge in the current content of the cache file
+     *
+     * @throws IOException
+     *             Thrown if the merge fails
+     */
+    protected void merge() throws IOException {
+        // No merging by default
+    }
+
+    /**
+     * Writes the content of the cache file
+     *
+     * @param output
+     *            Output
+     * @throws IOException
+     *             Thrown if the content cannot be written
+     */
+    protected abstract void write(DataOutputStream output) throws IOException;
+
+    /**
+     * Saves the cache file
+     *
+     * @throws IOException
+     *             Thrown if the cache file cannot be written
+     */
+    final void save() throws IOException {
+        File dir = this.file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs())
+            throw new FileNotFoundException("Unable to create directory " + dir);
+
+        FileChannel channel = FileChannel.open(getLockFile(this.file).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        try {
+            FileLock lock = channel.lock();
+            try {
+                this.merge();
+                this.replace(dir);
+            } finally {
+                lock.release();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void replace(File dir) throws IOException {
+        File temp = File.createTempFile(this.file.getName(), ".tmp", dir);
+        try {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                this.write(output);
+            } finally {
+                output.close();
+            }
+            try {
+                Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                // Readers may then briefly see a missing or incomplete file
+                // which they ignore as they would any unreadable cache
+                LOGGER.debug("File system does not support atomically replacing " + this.file);
+                Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            temp.delete();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.dotnetrdf.wiki.checker.checks.links.ExternalLinkResult;
+
+/**
+ * The cached outcome of requesting an external URL
+ * <p>
+ * Alongside the status this holds the {@code ETag} and {@code Last-Modified}
+ * values returned by the server, if any, so that an expired status may be
+ * revalidated with a conditional request.
+ * </p>
+ *
+ * @author rvesse
+ *
+ */
+public final class CachedLinkStatus {
+
+    private final ExternalLinkResult.Status status;
+    private final int httpStatus;
+    private final long checked;
+    private final String etag, lastModified;
+
+    /**
+     * Creates a new status checked now
+     *
+     * @param status
+     *            Status
+     * @param httpStatus
+     *            HTTP status code, -1 if no response was received
+     * @param etag
+     *            ETag, may be null
+     * @param lastModified
+     *            Last modified date, may be null
+     */
+    public CachedLinkStatus(ExternalLinkResult.Status status, int httpStatus, String etag, String lastModified) {
+        this(status, httpStatus, System.currentTimeMillis(), etag, lastModified);
+    }
+
+    private CachedLinkStatus(ExternalLinkResult.Status status, int httpStatus, long checked, String etag,
+            String lastModified) {
+        if (status == null)
+            throw new NullPointerException("Status cannot be null");
+        this.status = status;
+        this.httpStatus = httpStatus;
+        this.checked = checked;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Gets the status
+     *
+     * @return Status
+     */
+    public ExternalLinkResult.Status getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Gets the HTTP status code
+     *
+     * @return HTTP status code, -1 if no response was received
+     */
+    public int getHttpStatus() {
+        return this.httpStatus;
+    }
+
+    /**
+     * Gets when the status was checked
+     *
+     * @return Check time in milliseconds since the epoch
+     */
+    public long getChecked() {
+        return this.checked;
+    }
+
+    /**
+     * Gets the ETag returned by the server
+     *
+     * @return ETag or null if none
+     */
+    public String getETag() {
+        return this.etag;
+    }
+
+    /**
+     * Gets the last modified date returned by the server
+     *
+     * @return Last modified date or null if none
+     */
+    public String getLastModified() {
+        return this.lastModified;
+    }
+
+    /**
+     * Gets whether the status may be revalidated with a conditional request
+     *
+     * @return True if revalidatable, false otherwise
+     */
+    public boolean isRevalidatable() {
+        return this.status == ExternalLinkResult.Status.VALID && (this.etag != null || this.lastModified != null);
+    }
+
+    void write(DataOutput output) throws IOException {
+        CachedResult.writeString(output, this.status.name());
+        output.writeInt(this.httpStatus);
+        output.writeLong(this.checked);
+        CachedResult.writeString(output, this.etag);
+        CachedResult.writeString(output, this.lastModified);
+    }
+
+    static CachedLinkStatus read(DataInput input) throws IOException {
+        String status = CachedResult.readString(input);
+        try {
+            return new CachedLinkStatus(ExternalLinkResult.Status.valueOf(status), input.readInt(), input.readLong(),
+                    CachedResult.readString(input), CachedResult.readString(input));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown link status " + status, e);
+        } catch (NullPointerException e) {
+            throw new IOException("Missing link status", e);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
+import org.dotnetrdf.wiki.data.documents.Document;
+import org.dotnetrdf.wiki.data.issues.AbstractIssue;
+import org.dotnetrdf.wiki.data.issues.Issue;
+import org.dotnetrdf.wiki.data.issues.Warning;
+import org.dotnetrdf.wiki.data.links.Link;
+
+/**
+ * The cached check results for a single version of a document
+ * <p>
+ * Holds the detected links of the document and the issues reported by
+ * cacheable checks. Each issue is recorded against the stage which reported
+ * it, the index of the link being checked and the index of the check, so that
+ * restoring the issues in the order the checks run reproduces the original
+ * order of issues.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public final class CachedResult {
+
+    /**
+     * Stage for issues reported by link detection
+     */
+    public static final byte DETECTION = 0;
+    /**
+     * Stage for issues reported by link checks
+     */
+    public static final byte LINK_CHECK = 1;
+    /**
+     * Stage for issues reported by document checks
+     */
+    public static final byte DOCUMENT_CHECK = 2;
+
+    private final long hash, created;
+    private final List<String> linkPaths = new ArrayList<String>(), linkTexts = new ArrayList<String>();
+    private final List<int[]> linkPositions = new ArrayList<int[]>();
+    private final List<int[]> issueSlots = new ArrayList<int[]>();
+    private final List<Boolean> issueErrors = new ArrayList<Boolean>();
+    private final List<String> issueMessages = new ArrayList<String>();
+    private Map<Long, List<Integer>> index;
+
+    /**
+     * Creates a new empty result
+     * 
+     * @param hash
+     *            Content hash of the document
+     */
+    public CachedResult(long hash) {
+        this(hash, System.currentTimeMillis());
+    }
+
+    private CachedResult(long hash, long created) {
+        this.hash = hash;
+        this.created = created;
+    }
+
+    /**
+     * Gets the content hash of the document version this is the result for
+     * 
+     * @return Content hash
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+    /**
+     * Gets when the result was created
+     * 
+     * @return Creation time in milliseconds since the epoch
+     */
+    public long getCreated() {
+        return this.created;
+    }
+
+    /**
+     * Adds a detected link
+     * 
+     * @param link
+     *            Link
+     */
+    public synchronized void addLink(Link link) {
+        this.linkPaths.add(link.getPath());
+        this.linkTexts.add(link.hasFriendlyText() ? link.getText() : null);
+        this.linkPositions.add(new int[] { link.getLine(), link.getColumn() });
+    }
+
+    /**
+     * Gets the number of detected links
+     * 
+     * @return Number of links
+     */
+    public synchronized int getLinkCount() {
+        return this.linkPaths.size();
+    }
+
+    /**
+     * Adds an issue
+     * 
+     * @param stage
+     *            Stage that reported the issue
+     * @param link
+     *            Index of the link being checked, -1 if not a link check
+     * @param check
+     *            Index of the check that reported the issue
+     * @param issue
+     *            Issue
+     */
+    public synchronized void addIssue(byte stage, int link, int check, Issue issue) {
+        this.issueSlots.add(new int[] { stage, link, check });
+        this.issueErrors.add(issue.isError());
+        this.issueMessages.add(issue.getMessage());
+        this.index = null;
+    }
+
+    /**
+     * Gets the number of issues
+     * 
+     * @return Number of issues
+     */
+    public synchronized int getIssueCount() {
+        return this.issueMessages.size();
+    }
+
+    /**
+     * Restores the detected links to a document
+     * 
+     * @param document
+     *            Document
+     */
+    public synchronized <T extends Link> void restoreLinks(Document<T> document) {
+        for (int i = 0; i < this.linkPaths.size(); i++) {
+            String path = this.linkPaths.get(i);
+            String text = this.linkTexts.get(i);
+            int[] position = this.linkPositions.get(i);
+            if (text != null) {
+                document.addOutboundLink(document.createLink(path, text, position[0], position[1]));
+            } else {
+                document.addOutboundLink(document.createLink(path, position[0], position[1]));
+            }
+        }
+    }
+
+    /**
+     * Restores the issues reported by a check to a document
+     * 
+     * @param document
+     *            Document
+     * @param stage
+     *            Stage that reported the issues
+     * @param link
+     *            Index of the link being checked, -1 if not a link check
+     * @param check
+     *            Index of the check
+     */
+    public synchronized void restoreIssues(CheckedDocument<?> document, byte stage, int link, int check) {
+        if (this.index == null) {
+            this.index = new HashMap<Long, List<Integer>>();
+            for (int i = 0; i < this.issueSlots.size(); i++) {
+                int[] slot = this.issueSlots.get(i);
+                Long key = key(slot[0], slot[1], slot[2]);
+                List<Integer> issues = this.index.get(key);
+                if (issues == null) {
+                    issues = new ArrayList<Integer>();
+                    this.index.put(key, issues);
+                }
+                issues.add(i);
+            }
+        }
+
+        List<Integer> issues = this.index.get(key(stage, link, check));
+        if (issues == null)
+            return;
+        for (int i : issues) {
+            AbstractIssue issue;
+            if (this.issueErrors.get(i)) {
+                issue = new org.dotnetrdf.wiki.data.issues.Error(this.issueMessages.get(i));
+            } else {
+                issue = new Warning(this.issueMessages.get(i));
+            }
+            document.addIssue(issue);
+        }
+    }
+
+    private static Long key(int stage, int link, int check) {
+        return ((long) (link + 1) << 32) | ((long) stage << 24) | check;
+    }
+
+    /**
+     * Writes the result
+     * 
+     * @param output
+     *            Output
+     * @throws IOException
+     */
+    synchronized void write(DataOutput output) throws IOException {
+        output.writeLong(this.hash);
+        output.writeLong(this.created);
+        writeVarInt(output, this.linkPaths.size());
+        for (int i = 0; i < this.linkPaths.size(); i++) {
+            writeString(output, this.linkPaths.get(i));
+            writeString(output, this.linkTexts.get(i));
+            int[] position = this.linkPositions.get(i);
+            writeVarInt(output, position[0] + 1);
+            writeVarInt(output, position[1] + 1);
+        }
+        writeVarInt(output, this.issueMessages.size());
+        for (int i = 0; i < this.issueMessages.size(); i++) {
+            int[] slot = this.issueSlots.get(i);
+            output.writeByte(slot[0]);
+            writeVarInt(output, slot[1] + 1);
+            writeVarInt(output, slot[2]);
+            output.writeBoolean(this.issueErrors.get(i));
+            writeString(output, this.issueMessages.get(i));
+        }
+    }
+
+    /**
+     * Reads a result
+     * 
+     * @param input
+     *            Input
+     * @return Result
+     * @throws IOException
+     */
+    static CachedResult read(DataInput input) throws IOException {
+        CachedResult result = new CachedResult(input.readLong(), input.readLong());
+        int links = readVarInt(input);
+        for (int i = 0; i < links; i++) {
+            result.linkPaths.add(readString(input));
+            result.linkTexts.add(readString(input));
+            result.linkPositions.add(new int[] { readVarInt(input) - 1, readVarInt(input) - 1 });
+        }
+        int issues = readVarInt(input);
+        for (int i = 0; i < issues; i++) {
+            result.issueSlots.add(new int[] { input.readByte(), readVarInt(input) - 1, readVarInt(input) });
+            result.issueErrors.add(input.readBoolean());
+            result.issueMessages.add(readString(input));
+        }
+        return result;
+    }
+
+    /**
+     * Writes a non-negative integer using as few bytes as possible
+     */
+    static void writeVarInt(DataOutput output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    static int readVarInt(DataInput input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = input.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+
+    /**
+     * Writes a possibly null string as its UTF-8 length plus one followed by
+     * its UTF-8 bytes
+     */
+    static void writeString(DataOutput output, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(output, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(output, bytes.length + 1);
+        output.write(bytes);
+    }
+
+    static String readString(DataInput input) throws IOException {
+        int length = readVarInt(input);
+        if (length == 0)
+            return null;
+        if (length < 0)
+            throw new IOException("Malformed string length");
+        byte[] bytes = new byte[length - 1];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,397 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.cache;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dotnetrdf.wiki.checker.checks.CacheableCheck;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An on disk cache of per document check results which allows results to be
+ * reused across runs for documents which have not changed
+ * <p>
+ * Results are keyed by the wiki path of the document and the hash of its
+ * content, see {@link #hash(CharSequence)}, and only cover the detected links
+ * and the issues reported by {@link CacheableCheck} implementations. The cache
+ * as a whole is keyed by a fingerprint of the configured checks so results
+ * from differently configured checkers are never reused.
+ * </p>
+ * <p>
+ * The cache file uses a compact binary format and is limited to a maximum
+ * size, when saving the least recently used results beyond that size are
+ * dropped. A maximum age may be set so that results are recomputed
+ * periodically even if a document does not change. Results which depend upon
+ * external resources, such as the status of external links, are never cached
+ * here, see {@link LinkStatusCache} for reusing link statuses between runs.
+ * </p>
+ * <p>
+ * The cache file may be shared between concurrent runs. Saving holds an
+ * exclusive lock on a companion {@code .lock} file while it merges in any
+ * results saved by other runs for documents it holds no result for, and then
+ * replaces the cache file atomically, where the file system supports it, so
+ * readers never see a partially written file.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public class CheckResultCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckResultCache.class);
+
+    /**
+     * Default maximum size of the cache file in bytes
+     */
+    public static final long DEFAULT_MAX_SIZE = 64L * 1024L * 1024L;
+
+    private static final int MAGIC = 0x574b4352;
+    private static final int FORMAT_VERSION = 1;
+
+    private final File file;
+    private final long maxSize;
+    private long maxAge = 0;
+    private final LinkedHashMap<String, CachedResult> entries = new LinkedHashMap<String, CachedResult>(16, 0.75f,
+            true);
+    private long fingerprint;
+    private boolean loaded = false;
+    private long hits = 0, misses = 0;
+
+    /**
+     * Creates a new cache with the default maximum size
+     * 
+     * @param file
+     *            Cache file
+     */
+    public CheckResultCache(File file) {
+        this(file, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a new cache
+     * 
+     * @param file
+     *            Cache file
+     * @param maxSize
+     *            Maximum size of the cache file in bytes
+     */
+    public CheckResultCache(File file, long maxSize) {
+        if (file == null)
+            throw new NullPointerException("Cache file cannot be null");
+        if (maxSize < 0)
+            throw new IllegalArgumentException("Maximum size must be >= 0");
+        this.file = file;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Computes the hash of document content used to key cached results
+     * 
+     * @param text
+     *            Document content
+     * @return 64 bit FNV-1a hash of the content
+     */
+    public static long hash(CharSequence text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the cache file
+     * 
+     * @return Cache file
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Gets the maximum size of the cache file
+     * 
+     * @return Maximum size in bytes
+     */
+    public long getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Gets the maximum age of results that will be reused
+     * 
+     * @return Maximum age in milliseconds, 0 for no limit
+     */
+    public synchronized long getMaxAge() {
+        return this.maxAge;
+    }
+
+    /**
+     * Sets the maximum age of results that will be reused
+     * 
+     * @param maxAge
+     *            Maximum age in milliseconds, 0 for no limit
+     */
+    public synchronized void setMaxAge(long maxAge) {
+        if (maxAge < 0)
+            throw new IllegalArgumentException("Maximum age must be >= 0");
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Loads the cache file unless it has already been loaded for the given
+     * fingerprint, if the file was written for a different fingerprint or
+     * cannot be read the cache starts empty
+     * 
+     * @param fingerprint
+     *            Fingerprint of the configured checks
+     */
+    public synchronized void load(long fingerprint) {
+        if (this.loaded && this.fingerprint == fingerprint)
+            return;
+        this.entries.clear();
+        this.fingerprint = fingerprint;
+        this.loaded = true;
+        if (!this.file.exists())
+            return;
+
+        List<String> paths = new ArrayList<String>();
+        List<CachedResult> results = new ArrayList<CachedResult>();
+        if (!this.read(paths, results))
+            return;
+
+        // Results are stored most recently used first
+        for (int i = paths.size() - 1; i >= 0; i--) {
+            this.entries.put(paths.get(i), results.get(i));
+        }
+        LOGGER.info("Loaded " + this.entries.size() + " cached check result(s) from " + this.file);
+    }
+
+    /**
+     * Reads the results in the cache file, most recently used first, if it
+     * was written for the current fingerprint
+     * 
+     * @return True if the cache file was read, false if it does not exist or
+     *         could not be used
+     */
+    private boolean read(List<String> paths, List<CachedResult> results) {
+        if (!this.file.exists())
+            return false;
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                LOGGER.warn("Ignoring check result cache " + this.file + " since it is not in a supported format");
+                return false;
+            }
+            if (input.readLong() != this.fingerprint) {
+                LOGGER.info("Ignoring check result cache " + this.file + " since the configured checks have changed");
+                return false;
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                paths.add(CachedResult.readString(input));
+                results.add(CachedResult.read(input));
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring check result cache " + this.file + " since it could not be read", e);
+            paths.clear();
+            results.clear();
+            return false;
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the cached result for a document
+     * 
+     * @param path
+     *            Wiki path of the document
+     * @param hash
+     *            Hash of the current content of the document
+     * @return Cached result or null if there is no usable result
+     */
+    public synchronized CachedResult get(String path, long hash) {
+        CachedResult result = this.entries.get(path);
+        if (result == null || result.getHash() != hash
+                || (this.maxAge > 0 && System.currentTimeMillis() - result.getCreated() > this.maxAge)) {
+            this.misses++;
+            return null;
+        }
+        this.hits++;
+        return result;
+    }
+
+    /**
+     * Puts the result for a document into the cache replacing any existing
+     * result for that document
+     * 
+     * @param path
+     *            Wiki path of the document
+     * @param result
+     *            Result
+     */
+    public synchronized void put(String path, CachedResult result) {
+        this.entries.put(path, result);
+    }
+
+    /**
+     * Saves the cache to the cache file, the least recently used results which
+     * do not fit within the maximum size are dropped
+     * 
+     * @throws IOException
+     *             Thrown if the cache cannot be written
+     */
+    public synchronized void save() throws IOException {
+        new CacheFileWriter(this.file) {
+            @Override
+            protected void merge() {
+                CheckResultCache.this.merge();
+            }
+
+            @Override
+            protected void write(DataOutputStream output) throws IOException {
+                CheckResultCache.this.write(output);
+            }
+        }.save();
+        LOGGER.info("Saved " + this.entries.size() + " cached check result(s) to " + this.file + " ("
+                + this.file.length() + " bytes)");
+    }
+
+    /**
+     * Merges in the results saved by concurrent runs for documents this cache
+     * holds no result for, they are treated as the least recently used
+     */
+    private void merge() {
+        if (!this.loaded)
+            return;
+        List<String> paths = new ArrayList<String>();
+        List<CachedResult> results = new ArrayList<CachedResult>();
+        if (!this.read(paths, results))
+            return;
+
+        List<Map.Entry<String, CachedResult>> ours = new ArrayList<Map.Entry<String, CachedResult>>(
+                this.entries.entrySet());
+        Map<String, CachedResult> merged = new LinkedHashMap<String, CachedResult>();
+        for (int i = paths.size() - 1; i >= 0; i--) {
+            if (!this.entries.containsKey(paths.get(i)))
+                merged.put(paths.get(i), results.get(i));
+        }
+        for (Map.Entry<String, CachedResult> e : ours) {
+            merged.put(e.getKey(), e.getValue());
+        }
+        this.entries.clear();
+        this.entries.putAll(merged);
+    }
+
+    /**
+     * Writes the results, most recently used first, dropping the least
+     * recently used results which do not fit within the maximum size
+     */
+    private void write(DataOutputStream output) throws IOException {
+        // Serialize most recently used first until we run out of space
+        List<byte[]> serialized = new ArrayList<byte[]>();
+        long size = 20;
+        List<String> paths = new ArrayList<String>(this.entries.keySet());
+        for (int i = paths.size() - 1; i >= 0; i--) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream entry = new DataOutputStream(bytes);
+            CachedResult.writeString(entry, paths.get(i));
+            this.entries.get(paths.get(i)).write(entry);
+            entry.flush();
+            if (size + bytes.size() > this.maxSize)
+                break;
+            size += bytes.size();
+            serialized.add(bytes.toByteArray());
+        }
+
+        // Drop whatever did not fit
+        int dropped = paths.size() - serialized.size();
+        Iterator<Map.Entry<String, CachedResult>> iter = this.entries.entrySet().iterator();
+        for (int i = 0; i < dropped; i++) {
+            iter.next();
+            iter.remove();
+        }
+
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeLong(this.fingerprint);
+        output.writeInt(serialized.size());
+        for (byte[] bytes : serialized) {
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Gets the number of cached results
+     * 
+     * @return Number of results
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Gets the number of lookups which found a usable result
+     * 
+     * @return Hits
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Gets the number of lookups which did not find a usable result
+     * 
+     * @return Misses
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return this.entries.size() + " Result(s), " + this.hits + " Hit(s) and " + this.misses + " Miss(es)";
+    }
+}
@@ -0,0 +1,379 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.cache;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.dotnetrdf.wiki.checker.checks.links.ExternalLinkResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An on disk cache of the status of external URLs which allows statuses to be
+ * reused across runs until they expire
+ * <p>
+ * Successful and failed statuses expire after separately configurable times to
+ * live. An expired successful status which has an {@code ETag} or
+ * {@code Last-Modified} value is revalidated with a conditional request rather
+ * than requested afresh. Statuses which have not been checked within the
+ * retention period, see {@link #setRetention(long)}, are dropped when the
+ * cache is saved.
+ * </p>
+ * <p>
+ * The cache file may be shared between concurrent runs. Saving holds an
+ * exclusive lock on a companion {@code .lock} file while it merges the
+ * statuses in the cache file with its own, keeping whichever was checked most
+ * recently, and then replaces the cache file atomically, where the file system
+ * supports it, so readers never see a partially written file.
+ * </p>
+ *
+ * @author rvesse
+ *
+ */
+public class LinkStatusCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LinkStatusCache.class);
+
+    /**
+     * Default time to live of successful statuses in milliseconds
+     */
+    public static final long DEFAULT_SUCCESS_TTL = 7L * 24L * 60L * 60L * 1000L;
+
+    /**
+     * Default time to live of failed statuses in milliseconds
+     */
+    public static final long DEFAULT_FAILURE_TTL = 24L * 60L * 60L * 1000L;
+
+    /**
+     * Default retention period of statuses in milliseconds
+     */
+    public static final long DEFAULT_RETENTION = 30L * 24L * 60L * 60L * 1000L;
+
+    private static final int MAGIC = 0x574b4c53;
+    private static final int FORMAT_VERSION = 1;
+
+    private final File file;
+    private long successTtl = DEFAULT_SUCCESS_TTL, failureTtl = DEFAULT_FAILURE_TTL, retention = DEFAULT_RETENTION;
+    private final Map<String, CachedLinkStatus> entries = new HashMap<String, CachedLinkStatus>();
+    private boolean loaded = false;
+    private long hits = 0, misses = 0;
+
+    /**
+     * Creates a new cache
+     *
+     * @param file
+     *            Cache file
+     */
+    public LinkStatusCache(File file) {
+        if (file == null)
+            throw new NullPointerException("Cache file cannot be null");
+        this.file = file;
+    }
+
+    /**
+     * Gets the cache file
+     *
+     * @return Cache file
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Sets the time to live of successful statuses
+     *
+     * @param ttl
+     *            Time to live in milliseconds
+     */
+    public synchronized void setSuccessTtl(long ttl) {
+        if (ttl < 0)
+            throw new IllegalArgumentException("Time to live must be >= 0");
+        this.successTtl = ttl;
+    }
+
+    /**
+     * Gets the time to live of successful statuses
+     *
+     * @return Time to live in milliseconds
+     */
+    public synchronized long getSuccessTtl() {
+        return this.successTtl;
+    }
+
+    /**
+     * Sets the time to live of failed statuses
+     *
+     * @param ttl
+     *            Time to live in milliseconds
+     */
+    public synchronized void setFailureTtl(long ttl) {
+        if (ttl < 0)
+            throw new IllegalArgumentException("Time to live must be >= 0");
+        this.failureTtl = ttl;
+    }
+
+    /**
+     * Gets the time to live of failed statuses
+     *
+     * @return Time to live in milliseconds
+     */
+    public synchronized long getFailureTtl() {
+        return this.failureTtl;
+    }
+
+    /**
+     * Sets the retention period, statuses which have not been checked within
+     * this period are dropped when the cache is saved
+     *
+     * @param retention
+     *            Retention period in milliseconds
+     */
+    public synchronized void setRetention(long retention) {
+        if (retention < 0)
+            throw new IllegalArgumentException("Retention period must be >= 0");
+        this.retention = retention;
+    }
+
+    /**
+     * Gets the retention period
+     *
+     * @return Retention period in milliseconds
+     */
+    public synchronized long getRetention() {
+        return this.retention;
+    }
+
+    /**
+     * Loads the cache file unless it has already been loaded, if the file
+     * cannot be read the cache starts empty
+     */
+    public synchronized void load() {
+        if (this.loaded)
+            return;
+        this.loaded = true;
+        this.entries.putAll(this.read());
+        LOGGER.info("Loaded " + this.entries.size() + " cached external link status(es) from " + this.file);
+    }
+
+    /**
+     * Gets the cached status of a URL, the status is returned even if it has
+     * expired since it may still be revalidated
+     *
+     * @param url
+     *            URL
+     * @return Cached status or null if none
+     */
+    public synchronized CachedLinkStatus get(String url) {
+        this.load();
+        CachedLinkStatus status = this.entries.get(url);
+        if (status != null && this.isFresh(status)) {
+            this.hits++;
+        } else {
+            this.misses++;
+        }
+        return status;
+    }
+
+    /**
+     * Gets whether the cache holds a fresh status for a URL, unlike
+     * {@link #get(String)} this does not count as a lookup
+     *
+     * @param url
+     *            URL
+     * @return True if a fresh status is cached, false otherwise
+     */
+    public synchronized boolean hasFresh(String url) {
+        this.load();
+        CachedLinkStatus status = this.entries.get(url);
+        return status != null && this.isFresh(status);
+    }
+
+    /**
+     * Gets whether a status has not yet expired
+     *
+     * @param status
+     *            Status
+     * @return True if fresh, false if expired
+     */
+    public synchronized boolean isFresh(CachedLinkStatus status) {
+        long ttl = status.getStatus() == ExternalLinkResult.Status.VALID ? this.successTtl : this.failureTtl;
+        return System.currentTimeMillis() - status.getChecked() < ttl;
+    }
+
+    /**
+     * Puts the status of a URL into the cache, statuses which are not the
+     * outcome of a request i.e. {@link ExternalLinkResult.Status#INVALID_IRI}
+     * and {@link ExternalLinkResult.Status#UNRESOLVED} are ignored, as are
+     * transient failures i.e. {@link ExternalLinkResult.Status#UNKNOWN_HOST}
+     * and {@link ExternalLinkResult.Status#UNEXPECTED_ERROR} since a DNS or
+     * network problem during one run should not mark the URL as broken for
+     * later runs
+     *
+     * @param url
+     *            URL
+     * @param status
+     *            Status
+     */
+    public synchronized void put(String url, CachedLinkStatus status) {
+        switch (status.getStatus()) {
+        case INVALID_IRI:
+        case UNRESOLVED:
+        case UNKNOWN_HOST:
+        case UNEXPECTED_ERROR:
+            return;
+        default:
+            this.load();
+            this.entries.put(url, status);
+        }
+    }
+
+    /**
+     * Saves the cache to the cache file merging in any statuses saved by
+     * concurrent runs since this cache was loaded
+     *
+     * @throws IOException
+     *             Thrown if the cache cannot be written
+     */
+    public synchronized void save() throws IOException {
+        new CacheFileWriter(this.file) {
+            @Override
+            protected void merge() {
+                LinkStatusCache.this.merge();
+            }
+
+            @Override
+            protected void write(DataOutputStream output) throws IOException {
+                LinkStatusCache.this.write(output);
+            }
+        }.save();
+        LOGGER.info("Saved " + this.entries.size() + " cached external link status(es) to " + this.file);
+    }
+
+    /**
+     * Merges in the statuses in the cache file keeping the most recently
+     * checked status of each URL, and drops statuses which are beyond the
+     * retention period
+     */
+    private void merge() {
+        for (Map.Entry<String, CachedLinkStatus> e : this.read().entrySet()) {
+            CachedLinkStatus ours = this.entries.get(e.getKey());
+            if (ours == null || ours.getChecked() < e.getValue().getChecked())
+                this.entries.put(e.getKey(), e.getValue());
+        }
+        this.loaded = true;
+
+        long now = System.currentTimeMillis();
+        Iterator<CachedLinkStatus> iter = this.entries.values().iterator();
+        while (iter.hasNext()) {
+            if (now - iter.next().getChecked() > this.retention)
+                iter.remove();
+        }
+    }
+
+    /**
+     * Reads the statuses in the cache file
+     */
+    private Map<String, CachedLinkStatus> read() {
+        Map<String, CachedLinkStatus> statuses = new HashMap<String, CachedLinkStatus>();
+        if (!this.file.exists())
+            return statuses;
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                LOGGER.warn("Ignoring external link cache " + this.file + " since it is not in a supported format");
+                return statuses;
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                String url = CachedResult.readString(input);
+                statuses.put(url, CachedLinkStatus.read(input));
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring external link cache " + this.file + " since it could not be read", e);
+            statuses.clear();
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Writes the statuses
+     */
+    private void write(DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(this.entries.size());
+        for (Map.Entry<String, CachedLinkStatus> e : this.entries.entrySet()) {
+            CachedResult.writeString(output, e.getKey());
+            e.getValue().write(output);
+        }
+    }
+
+    /**
+     * Gets the number of cached statuses
+     *
+     * @return Number of statuses
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Gets the number of lookups which found a fresh status
+     *
+     * @return Hits
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Gets the number of lookups which found no status or an expired status
+     *
+     * @return Misses
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return this.entries.size() + " Status(es), " + this.hits + " Hit(s) and " + this.misses + " Miss(es)";
+    }
+}
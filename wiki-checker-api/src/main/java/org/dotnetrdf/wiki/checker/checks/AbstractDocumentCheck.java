@@ -0,0 +1,67 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks;
+
+import org.dotnetrdf.wiki.checker.data.CheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
+
+/**
+ * Abstract base implementation of a document check which receives the
+ * document text as a {@link CharSequence}
+ * <p>
+ * The checker passes the text of documents as it holds it, e.g. cached or
+ * mapped content, to checks derived from this class without first copying it
+ * into a {@link String}. Derived implementations need only implement
+ * {@link #check(CheckedDocument, CharSequence, CheckedWiki)}, the
+ * {@link String} based method is an adapter onto it.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public abstract class AbstractDocumentCheck implements DocumentCheck {
+
+    @Override
+    public final <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document,
+            String text, CheckedWiki<TLink, TDoc> wiki) {
+        this.check(document, (CharSequence) text, wiki);
+    }
+
+    /**
+     * Carries out a check on the document
+     * 
+     * @param document
+     *            Document
+     * @param text
+     *            Document text, null for non-text documents
+     * @param wiki
+     *            Wiki
+     * @param <TLink>
+     *            Checked link type
+     * @param <TDoc>
+     *            Checked document type
+     */
+    public abstract <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document,
+            CharSequence text, CheckedWiki<TLink, TDoc> wiki);
+}
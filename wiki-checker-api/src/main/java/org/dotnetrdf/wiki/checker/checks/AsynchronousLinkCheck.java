@@ -0,0 +1,74 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks;
+
+import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
+
+/**
+ * Interface for link checks which carry out their checks asynchronously
+ * <p>
+ * {@link #check(CheckedDocument, CheckedLink, org.dotnetrdf.wiki.checker.data.AbstractCheckedWiki)}
+ * only starts checking a link and returns without adding any issues, the
+ * issues for the links of a document are added when
+ * {@link #complete(CheckedDocument)} is called for that document. Checkers
+ * pass the links of every document to the check and then call
+ * {@link #start()} before completing any of them, so implementations may
+ * collect all the links first and then check them in bulk.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public interface AsynchronousLinkCheck extends LinkCheck {
+
+    /**
+     * Starts checking all links collected so far, called once the links of
+     * every document to be checked have been passed to the check
+     * <p>
+     * Implementations which defer checking until this is called must also
+     * start any collected checks when {@link #complete(CheckedDocument)} is
+     * called so that a checker which does not call this still completes.
+     * </p>
+     */
+    public void start();
+
+    /**
+     * Waits for the checks of all links of the document that were started to
+     * complete and adds their issues to the document, issues are added in the
+     * order the links were checked
+     * 
+     * @param document
+     *            Document
+     * @param <TLink>
+     *            Checked link type
+     * @param <TDoc>
+     *            Checked document type
+     * @return True if the issues are definitive, false if some links could
+     *         not be checked so the issues should not be cached
+     * @throws InterruptedException
+     *             Thrown if interrupted while waiting
+     */
+    public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> boolean complete(TDoc document)
+            throws InterruptedException;
+}
@@ -0,0 +1,50 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks;
+
+import org.dotnetrdf.wiki.checker.cache.CheckResultCache;
+
+/**
+ * Interface for checks whose results depend only upon the document being
+ * checked, so they may be reused from a {@link CheckResultCache} while the
+ * document is unchanged
+ * <p>
+ * Checks which consult other documents of the wiki, e.g. to resolve links or
+ * to count inbound links, or external resources, e.g. to validate external
+ * links, must not implement this interface since their results may change
+ * while the document does not.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public interface CacheableCheck {
+
+    /**
+     * Gets a key describing the configuration of the check, cached results
+     * are only reused while the configuration key is unchanged
+     * 
+     * @return Configuration key
+     */
+    public abstract String getConfigurationKey();
+}
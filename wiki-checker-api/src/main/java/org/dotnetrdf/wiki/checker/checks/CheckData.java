@@ -0,0 +1,79 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks;
+
+/**
+ * Kinds of data which checks may read and produce, used to schedule checks
+ * according to their dependencies
+ * 
+ * @author rvesse
+ * 
+ */
+public enum CheckData {
+    /**
+     * The text of documents, always available
+     */
+    TEXT(true),
+    /**
+     * The outbound links of documents, produced by link detection
+     */
+    OUTBOUND_LINKS(true),
+    /**
+     * The inbound links registered on documents
+     */
+    INBOUND_LINKS(false),
+    /**
+     * The link graph of the wiki, built once all outbound links are known
+     */
+    LINK_GRAPH(false),
+    /**
+     * The status of external links
+     */
+    EXTERNAL_LINK_STATUS(false),
+    /**
+     * The links of every document passed to asynchronous link checks, which
+     * are only completed once this is available
+     */
+    ASYNCHRONOUS_LINKS(false),
+    /**
+     * The issues of documents, produced by every link and document check
+     */
+    ISSUES(true);
+
+    private final boolean local;
+
+    private CheckData(boolean local) {
+        this.local = local;
+    }
+
+    /**
+     * Gets whether the data is produced for each document independently of
+     * other documents, a link or document check which requires such data only
+     * waits for it to be produced for the document being checked
+     * 
+     * @return True if the data is local to each document
+     */
+    public boolean isDocumentLocal() {
+        return this.local;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks;
+
+import java.util.Set;
+
+/**
+ * Interface which may be implemented by link, document and wiki checks to
+ * declare what data they read and produce
+ * <p>
+ * When a checker schedules checks according to their dependencies a check
+ * only runs once all the data it requires is available so it need not wait
+ * for unrelated checks. Checks which do not implement this interface are
+ * conservatively assumed to require all data produced before their phase in
+ * a sequential run.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public interface CheckDependencies {
+
+    /**
+     * Gets the data the check reads
+     * 
+     * @return Required data
+     */
+    public Set<CheckData> getRequiredData();
+
+    /**
+     * Gets the data the check produces, link and document checks always
+     * produce {@link CheckData#ISSUES} and need not declare it
+     * 
+     * @return Produced data
+     */
+    public Set<CheckData> getProducedData();
+}
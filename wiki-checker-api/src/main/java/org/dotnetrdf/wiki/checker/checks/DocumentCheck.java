@@ -28,6 +28,11 @@ import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
 
 /**
  * Interface for document checks
+ * <p>
+ * Checks which can work with the document text as a {@link CharSequence}
+ * should extend {@link AbstractDocumentCheck} so the checker can pass them
+ * the text without first copying it into a {@link String}.
+ * </p>
  * 
  * @author rvesse
  */
@@ -0,0 +1,48 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks;
+
+import org.dotnetrdf.wiki.data.documents.DocumentTextCache;
+
+/**
+ * Interface for checks which may read the text of documents other than the
+ * one they are given, e.g. the targets of links
+ * <p>
+ * The checker provides its {@link DocumentTextCache} before it runs any checks
+ * so that such reads share the cache with the rest of the checking rather than
+ * reading the documents from disk again.
+ * </p>
+ *
+ * @author rvesse
+ *
+ */
+public interface TextReadingCheck {
+
+    /**
+     * Sets the cache through which document text should be read
+     *
+     * @param cache
+     *            Text cache
+     */
+    public abstract void setTextCache(DocumentTextCache cache);
+}
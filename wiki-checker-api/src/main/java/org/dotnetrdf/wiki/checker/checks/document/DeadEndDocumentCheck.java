@@ -22,7 +22,13 @@ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 package org.dotnetrdf.wiki.checker.checks.document;
 
-import org.dotnetrdf.wiki.checker.checks.DocumentCheck;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.dotnetrdf.wiki.checker.checks.AbstractDocumentCheck;
+import org.dotnetrdf.wiki.checker.checks.CacheableCheck;
+import org.dotnetrdf.wiki.checker.checks.CheckData;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
 import org.dotnetrdf.wiki.checker.data.CheckedWiki;
 import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
 import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
@@ -35,10 +41,10 @@ import org.dotnetrdf.wiki.data.issues.Warning;
  * @author rvesse
  * 
  */
-public class DeadEndDocumentCheck implements DocumentCheck {
+public class DeadEndDocumentCheck extends AbstractDocumentCheck implements CheckDependencies, CacheableCheck {
 
     @Override
-    public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document, String text,
+    public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document, CharSequence text,
             CheckedWiki<TLink, TDoc> wiki) {
         if (document.getFormat().isWiki() || document.getFormat().isText()) {
             if (document.getOutboundLinkCount() == 0) {
@@ -46,4 +52,19 @@ public class DeadEndDocumentCheck implements DocumentCheck {
             }
         }
     }
+
+    @Override
+    public String getConfigurationKey() {
+        return "";
+    }
+
+    @Override
+    public Set<CheckData> getRequiredData() {
+        return EnumSet.of(CheckData.OUTBOUND_LINKS);
+    }
+
+    @Override
+    public Set<CheckData> getProducedData() {
+        return EnumSet.noneOf(CheckData.class);
+    }
 }
@@ -22,7 +22,12 @@ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 package org.dotnetrdf.wiki.checker.checks.document;
 
-import org.dotnetrdf.wiki.checker.checks.DocumentCheck;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.dotnetrdf.wiki.checker.checks.AbstractDocumentCheck;
+import org.dotnetrdf.wiki.checker.checks.CheckData;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
 import org.dotnetrdf.wiki.checker.data.CheckedWiki;
 import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
 import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
@@ -34,13 +39,22 @@ import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
  * @author rvesse
  * 
  */
-public class IsolatedDocumentCheck implements DocumentCheck {
+public class IsolatedDocumentCheck extends AbstractDocumentCheck implements CheckDependencies {
 
     @Override
-    public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document, String text,
+    public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document, CharSequence text,
             CheckedWiki<TLink, TDoc> wiki) {
-        if (document.getInboundLinkCount() == 0)
+        if (LinkGraphs.getInboundLinkCount(document, wiki) == 0)
             document.addIssue(new org.dotnetrdf.wiki.data.issues.Error("Document is isolated,  no inbound links to this document were found"));
     }
 
+    @Override
+    public Set<CheckData> getRequiredData() {
+        return EnumSet.of(CheckData.LINK_GRAPH);
+    }
+
+    @Override
+    public Set<CheckData> getProducedData() {
+        return EnumSet.noneOf(CheckData.class);
+    }
 }
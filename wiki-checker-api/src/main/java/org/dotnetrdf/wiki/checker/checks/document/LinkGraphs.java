@@ -0,0 +1,67 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks.document;
+
+import org.dotnetrdf.wiki.checker.data.CheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
+import org.dotnetrdf.wiki.data.graph.LinkGraph;
+
+/**
+ * Helper for document checks which consult the link graph of a wiki
+ * 
+ * @author rvesse
+ * 
+ */
+final class LinkGraphs {
+
+    private LinkGraphs() {
+    }
+
+    /**
+     * Gets the number of inbound links to a document, uses the link graph of
+     * the wiki when one is available and otherwise falls back to the inbound
+     * links recorded on the document
+     * <p>
+     * When the link graph is used several links from one document count only
+     * once, so a document linked to repeatedly from a single page is still
+     * considered to have a single inbound link.
+     * </p>
+     * 
+     * @param document
+     *            Document
+     * @param wiki
+     *            Wiki
+     * @return Number of inbound links
+     */
+    static <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> int getInboundLinkCount(TDoc document,
+            CheckedWiki<TLink, TDoc> wiki) {
+        LinkGraph<TDoc> graph = wiki != null ? wiki.getLinkGraph() : null;
+        if (graph != null) {
+            int id = graph.getId(document);
+            if (id >= 0)
+                return graph.getInDegree(id);
+        }
+        return document.getInboundLinkCount();
+    }
+}
@@ -22,7 +22,12 @@ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 package org.dotnetrdf.wiki.checker.checks.document;
 
-import org.dotnetrdf.wiki.checker.checks.DocumentCheck;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.dotnetrdf.wiki.checker.checks.AbstractDocumentCheck;
+import org.dotnetrdf.wiki.checker.checks.CheckData;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
 import org.dotnetrdf.wiki.checker.data.CheckedWiki;
 import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
 import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
@@ -35,7 +40,7 @@ import org.dotnetrdf.wiki.data.issues.Warning;
  * @author rvesse
  * 
  */
-public class PoorlyLinkedDocumentCheck implements DocumentCheck {
+public class PoorlyLinkedDocumentCheck extends AbstractDocumentCheck implements CheckDependencies {
 
     /**
      * Default threshold at/below which a document is considered poorly linked
@@ -65,11 +70,20 @@ public class PoorlyLinkedDocumentCheck implements DocumentCheck {
     }
 
     @Override
-    public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document, String text,
+    public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document, CharSequence text,
             CheckedWiki<TLink, TDoc> wiki) {
-        if (document.getInboundLinkCount() > 0 && document.getInboundLinkCount() <= this.threshold)
-            document.addIssue(new Warning("Document is poorly linked with only " + document.getInboundLinkCount()
-                    + " inbound link(s)"));
+        int inbound = LinkGraphs.getInboundLinkCount(document, wiki);
+        if (inbound > 0 && inbound <= this.threshold)
+            document.addIssue(new Warning("Document is poorly linked with only " + inbound + " inbound link(s)"));
+    }
+
+    @Override
+    public Set<CheckData> getRequiredData() {
+        return EnumSet.of(CheckData.LINK_GRAPH);
     }
 
+    @Override
+    public Set<CheckData> getProducedData() {
+        return EnumSet.noneOf(CheckData.class);
+    }
 }
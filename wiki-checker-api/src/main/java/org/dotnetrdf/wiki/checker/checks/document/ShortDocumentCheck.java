@@ -22,7 +22,13 @@ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 package org.dotnetrdf.wiki.checker.checks.document;
 
-import org.dotnetrdf.wiki.checker.checks.DocumentCheck;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.dotnetrdf.wiki.checker.checks.AbstractDocumentCheck;
+import org.dotnetrdf.wiki.checker.checks.CacheableCheck;
+import org.dotnetrdf.wiki.checker.checks.CheckData;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
 import org.dotnetrdf.wiki.checker.data.CheckedWiki;
 import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
 import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
@@ -35,7 +41,7 @@ import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
  * @author rvesse
  * 
  */
-public class ShortDocumentCheck implements DocumentCheck {
+public class ShortDocumentCheck extends AbstractDocumentCheck implements CheckDependencies, CacheableCheck {
 
     /**
      * Default threshold below which documents are considered short
@@ -65,7 +71,7 @@ public class ShortDocumentCheck implements DocumentCheck {
     }
 
     @Override
-    public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document, String text,
+    public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document, CharSequence text,
             CheckedWiki<TLink, TDoc> wiki) {
         // Check for short documents by textual length
         if (document.getFormat().isText() && text != null) {
@@ -76,13 +82,29 @@ public class ShortDocumentCheck implements DocumentCheck {
             }
         }
 
-        // Check for short documents by file size
-        if (document.getFile() != null && document.getFile().exists()) {
-            if (document.getFile().length() < this.threshold) {
+        // Check for short documents by file size, the size is known from the
+        // scan so this does not need to go back to the file system
+        long size = document.getSize();
+        if (size >= 0) {
+            if (size < this.threshold) {
                 document.addIssue(new org.dotnetrdf.wiki.data.issues.Error(String.format(
-                        "Document is only %,d bytes in length, this document may be an incomplete/stub document", document
-                                .getFile().length())));
+                        "Document is only %,d bytes in length, this document may be an incomplete/stub document", size)));
             }
         }
     }
+
+    @Override
+    public String getConfigurationKey() {
+        return "threshold=" + this.threshold;
+    }
+
+    @Override
+    public Set<CheckData> getRequiredData() {
+        return EnumSet.of(CheckData.TEXT);
+    }
+
+    @Override
+    public Set<CheckData> getProducedData() {
+        return EnumSet.noneOf(CheckData.class);
+    }
 }
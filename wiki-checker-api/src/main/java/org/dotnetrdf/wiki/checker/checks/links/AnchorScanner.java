@@ -0,0 +1,350 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks.links;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Scans HTML for the anchors targeted by URL fragments, i.e. elements with a
+ * matching {@code id} attribute or {@code a} elements with a matching
+ * {@code name} attribute
+ * <p>
+ * The HTML is tokenized incrementally as it is read so it is never held in
+ * memory and scanning stops as soon as every anchor has been found. The
+ * tokenizer is deliberately lenient, comments and the content of
+ * {@code script} and {@code style} elements are skipped and anything which is
+ * not a well formed start tag is treated as text.
+ * </p>
+ *
+ * @author rvesse
+ *
+ */
+public class AnchorScanner {
+
+    /**
+     * Maximum length of tag and attribute names and values that is retained,
+     * longer ones are still read but truncated
+     */
+    private static final int MAX_TOKEN_LENGTH = 4096;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final Set<String> anchors;
+    private final Set<String> found = new HashSet<String>();
+    private Reader reader;
+    private int next = -2;
+
+    /**
+     * Creates a new scanner
+     *
+     * @param anchors
+     *            Anchors to look for
+     */
+    public AnchorScanner(Collection<String> anchors) {
+        this.anchors = new HashSet<String>(anchors);
+    }
+
+    /**
+     * Gets the anchor targeted by a URL, i.e. its decoded fragment, if it
+     * targets one
+     * <p>
+     * Empty fragments, the {@code top} fragment which browsers always honour
+     * and fragments starting with {@code !} or {@code /}, which are used by
+     * script driven pages for routing rather than as anchors, do not target
+     * an anchor.
+     * </p>
+     *
+     * @param url
+     *            URL
+     * @return Anchor or null if none
+     */
+    public static String getAnchor(String url) {
+        int hash = url.indexOf('#');
+        if (hash < 0)
+            return null;
+        String fragment = decode(url.substring(hash + 1));
+        if (fragment.length() == 0 || fragment.equalsIgnoreCase("top") || fragment.startsWith("!")
+                || fragment.startsWith("/"))
+            return null;
+        return fragment;
+    }
+
+    /**
+     * Decodes percent encoded UTF-8 sequences, malformed sequences are left
+     * as is
+     */
+    private static String decode(String fragment) {
+        if (fragment.indexOf('%') < 0)
+            return fragment;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < fragment.length(); i++) {
+            char c = fragment.charAt(i);
+            if (c == '%' && i + 2 < fragment.length() && Character.digit(fragment.charAt(i + 1), 16) >= 0
+                    && Character.digit(fragment.charAt(i + 2), 16) >= 0) {
+                bytes.write(Integer.parseInt(fragment.substring(i + 1, i + 3), 16));
+                i += 2;
+            } else {
+                if (bytes.size() > 0) {
+                    builder.append(new String(bytes.toByteArray(), UTF8));
+                    bytes.reset();
+                }
+                builder.append(c);
+            }
+        }
+        if (bytes.size() > 0)
+            builder.append(new String(bytes.toByteArray(), UTF8));
+        return builder.toString();
+    }
+
+    /**
+     * Scans HTML until every anchor has been found or the end of the HTML is
+     * reached
+     *
+     * @param html
+     *            HTML
+     * @return True if every anchor was found, false otherwise
+     * @throws IOException
+     *             Thrown if the HTML cannot be read
+     */
+    public boolean scan(Reader html) throws IOException {
+        this.reader = html instanceof BufferedReader ? html : new BufferedReader(html);
+        this.next = -2;
+        while (!this.isComplete()) {
+            int c = this.read();
+            if (c == -1)
+                break;
+            if (c == '<')
+                this.scanMarkup();
+        }
+        return this.isComplete();
+    }
+
+    /**
+     * Gets whether every anchor has been found
+     *
+     * @return True if every anchor has been found
+     */
+    public boolean isComplete() {
+        return this.found.size() == this.anchors.size();
+    }
+
+    /**
+     * Gets the anchors found so far
+     *
+     * @return Anchors found
+     */
+    public Set<String> getFound() {
+        return this.found;
+    }
+
+    /**
+     * Gets the anchors not found so far
+     *
+     * @return Anchors not found
+     */
+    public Set<String> getMissing() {
+        Set<String> missing = new HashSet<String>(this.anchors);
+        missing.removeAll(this.found);
+        return missing;
+    }
+
+    /**
+     * Scans the markup following a {@code <}
+     */
+    private void scanMarkup() throws IOException {
+        int c = this.peek();
+        if (c == '!') {
+            this.read();
+            if (this.peek() == '-') {
+                this.read();
+                if (this.peek() == '-') {
+                    this.read();
+                    this.skipPast("-->");
+                    return;
+                }
+            }
+            this.skipPast(">");
+        } else if (c == '/' || c == '?') {
+            this.skipPast(">");
+        } else if (Character.isLetter(c)) {
+            String name = this.readName().toLowerCase(Locale.ENGLISH);
+            this.scanAttributes(name);
+            if (name.equals("script") || name.equals("style"))
+                this.skipPast("</" + name);
+        }
+    }
+
+    /**
+     * Scans the attributes of a start tag up to and including its closing
+     * {@code >}
+     */
+    private void scanAttributes(String tag) throws IOException {
+        while (true) {
+            int c = this.skipWhitespace();
+            if (c == -1)
+                return;
+            if (c == '>') {
+                this.read();
+                return;
+            }
+            if (c == '/' || c == '=' || c == '"' || c == '\'') {
+                this.read();
+                continue;
+            }
+            String name = this.readName().toLowerCase(Locale.ENGLISH);
+            String value = null;
+            if (this.skipWhitespace() == '=') {
+                this.read();
+                value = this.readValue();
+            }
+            if (value != null && (name.equals("id") || (name.equals("name") && tag.equals("a")))) {
+                value = decodeEntities(value);
+                if (this.anchors.contains(value))
+                    this.found.add(value);
+            }
+        }
+    }
+
+    private String readName() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        int c = this.peek();
+        while (c != -1 && c != '>' && c != '/' && c != '=' && !Character.isWhitespace(c)) {
+            this.read();
+            if (builder.length() < MAX_TOKEN_LENGTH)
+                builder.append((char) c);
+            c = this.peek();
+        }
+        return builder.toString();
+    }
+
+    private String readValue() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        int c = this.skipWhitespace();
+        if (c == '"' || c == '\'') {
+            int quote = this.read();
+            while ((c = this.read()) != -1 && c != quote) {
+                if (builder.length() < MAX_TOKEN_LENGTH)
+                    builder.append((char) c);
+            }
+        } else {
+            while (c != -1 && c != '>' && !Character.isWhitespace(c)) {
+                this.read();
+                if (builder.length() < MAX_TOKEN_LENGTH)
+                    builder.append((char) c);
+                c = this.peek();
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Decodes the character references in an attribute value which are likely
+     * to appear in an anchor
+     */
+    private static String decodeEntities(String value) {
+        if (value.indexOf('&') < 0)
+            return value;
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int semi = c == '&' ? value.indexOf(';', i) : -1;
+            if (semi > i + 1 && semi - i <= 10) {
+                String entity = value.substring(i + 1, semi);
+                int code = -1;
+                if (entity.equals("amp")) {
+                    code = '&';
+                } else if (entity.equals("lt")) {
+                    code = '<';
+                } else if (entity.equals("gt")) {
+                    code = '>';
+                } else if (entity.equals("quot")) {
+                    code = '"';
+                } else if (entity.equals("apos")) {
+                    code = '\'';
+                } else if (entity.startsWith("#")) {
+                    try {
+                        code = entity.startsWith("#x") || entity.startsWith("#X") ? Integer.parseInt(
+                                entity.substring(2), 16) : Integer.parseInt(entity.substring(1));
+                    } catch (NumberFormatException e) {
+                        code = -1;
+                    }
+                }
+                if (code >= 0 && Character.isValidCodePoint(code)) {
+                    builder.appendCodePoint(code);
+                    i = semi;
+                    continue;
+                }
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Skips past the next case insensitive occurrence of a sequence, or to the
+     * end of the HTML if there is none
+     */
+    private void skipPast(String sequence) throws IOException {
+        // Compare a window of the most recent characters so that overlapping
+        // matches such as ---> are not missed
+        StringBuilder window = new StringBuilder();
+        int c;
+        while ((c = this.read()) != -1) {
+            window.append(Character.toLowerCase((char) c));
+            if (window.length() > sequence.length())
+                window.deleteCharAt(0);
+            if (window.length() == sequence.length() && window.indexOf(sequence) == 0)
+                return;
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c = this.peek();
+        while (c != -1 && Character.isWhitespace(c)) {
+            this.read();
+            c = this.peek();
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (this.next == -2)
+            this.next = this.reader.read();
+        return this.next;
+    }
+
+    private int read() throws IOException {
+        int c = this.peek();
+        this.next = -2;
+        return c;
+    }
+}
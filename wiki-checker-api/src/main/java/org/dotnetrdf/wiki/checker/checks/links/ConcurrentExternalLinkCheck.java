@@ -0,0 +1,754 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks.links;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.dotnetrdf.wiki.checker.archive.LinkArchive;
+import org.dotnetrdf.wiki.checker.cache.LinkStatusCache;
+import org.dotnetrdf.wiki.checker.checks.AsynchronousLinkCheck;
+import org.dotnetrdf.wiki.checker.checks.CheckData;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
+import org.dotnetrdf.wiki.checker.data.AbstractCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
+import org.dotnetrdf.wiki.data.issues.Warning;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A link check which validates external links concurrently, using the same
+ * validation as {@link ExternalLinkCheck}
+ * <p>
+ * Validation happens in two phases. Firstly the links passed to
+ * {@link #check(CheckedDocument, CheckedLink, AbstractCheckedWiki)} are
+ * collected, their syntax is checked as written and their URLs are normalized,
+ * see {@link UrlNormalizer}, so each distinct normalized URL is only
+ * validated once. Secondly when {@link #start()} is called the collected URLs
+ * are validated in bulk on a pool of threads. They are grouped by host, the
+ * hosts with the most URLs are started first and the URLs of a host are
+ * ordered by how many links reference them.
+ * </p>
+ * <p>
+ * Both the total number of concurrent requests and the number of concurrent
+ * requests to any one host are limited. Requests to a host which is already at
+ * its limit are queued until a request to that host completes so they never
+ * hold up requests to other hosts. Progress, with an estimate of the time
+ * remaining, is logged periodically. The results are reported against every
+ * link to the URL when {@link #complete(CheckedDocument)} is called for the
+ * document containing the link.
+ * </p>
+ * <p>
+ * Requests to each host may additionally be rate limited, see
+ * {@link #setRateLimit(double, int)}, and each host has a circuit breaker, see
+ * {@link #setFailureThreshold(int)}. Once a host has failed too many times in
+ * a row it is deemed unavailable and its remaining URLs are reported as
+ * unresolved without being requested, this bounds the time spent on a host
+ * which is down or timing out. The status of each host is available from
+ * {@link #getHostStatuses()}.
+ * </p>
+ * <p>
+ * Optionally the fragments of links may also be validated, see
+ * {@link #setAnchorValidation(boolean)}. Since fragments are removed by
+ * normalization each page is retrieved and scanned once for all the anchors
+ * targeted by links to it, and only once the page itself has been validated.
+ * </p>
+ * <p>
+ * The results are never restored from a
+ * {@link org.dotnetrdf.wiki.checker.cache.CheckResultCache} since the status
+ * of a URL may change while the documents linking to it do not, statuses are
+ * instead reused between runs via the {@link LinkStatusCache} if one is set.
+ * </p>
+ * <p>
+ * The threads are daemon threads, {@link #shutdown()} should be called once
+ * the check is no longer needed to release them and any pooled connections.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public class ConcurrentExternalLinkCheck implements AsynchronousLinkCheck, CheckDependencies {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentExternalLinkCheck.class);
+
+    /**
+     * Default maximum number of concurrent requests
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+    /**
+     * Default maximum number of concurrent requests to a single host
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY_PER_HOST = 2;
+
+    /**
+     * Default number of consecutive failures after which a host is deemed
+     * unavailable
+     */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+
+    private final int maxConcurrencyPerHost;
+    private volatile double rate = 0;
+    private volatile int burst = 1;
+    private volatile int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private volatile boolean validateAnchors = false;
+    private final ExternalLinkValidator validator;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+    private final ConcurrentMap<String, Validation> validations = new ConcurrentHashMap<String, Validation>();
+    private final Set<String> distinctUrls = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final List<Validation> collected = new ArrayList<Validation>();
+    private final AtomicInteger scheduled = new AtomicInteger(), validated = new AtomicInteger();
+    private final AtomicLong started = new AtomicLong(), lastProgress = new AtomicLong();
+    private final ConcurrentMap<CheckedDocument<?>, List<PendingLink>> pending = new ConcurrentHashMap<CheckedDocument<?>, List<PendingLink>>();
+    private final Map<String, HostQueue> hosts = new TreeMap<String, HostQueue>();
+
+    /**
+     * Creates a new check with the default concurrency limits
+     */
+    public ConcurrentExternalLinkCheck() {
+        this(DEFAULT_MAX_CONCURRENCY, DEFAULT_MAX_CONCURRENCY_PER_HOST);
+    }
+
+    /**
+     * Creates a new check
+     * 
+     * @param maxConcurrency
+     *            Maximum number of concurrent requests
+     * @param maxConcurrencyPerHost
+     *            Maximum number of concurrent requests to a single host
+     */
+    public ConcurrentExternalLinkCheck(int maxConcurrency, int maxConcurrencyPerHost) {
+        if (maxConcurrency < 1)
+            throw new IllegalArgumentException("Maximum concurrency must be >= 1");
+        if (maxConcurrencyPerHost < 1)
+            throw new IllegalArgumentException("Maximum concurrency per host must be >= 1");
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+        this.validator = new ExternalLinkValidator(maxConcurrency, maxConcurrencyPerHost);
+        this.executor = Executors.newFixedThreadPool(maxConcurrency, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "external-link-check-" + this.count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "external-link-check-timer");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Sets the rate limit applied to requests to each host, this only
+     * affects hosts which have not yet been requested
+     * 
+     * @param requestsPerSecond
+     *            Requests per second, zero for no limit
+     * @param burst
+     *            Maximum number of requests that may be made to a host at once
+     *            without waiting for the rate limit
+     */
+    public void setRateLimit(double requestsPerSecond, int burst) {
+        if (requestsPerSecond < 0)
+            throw new IllegalArgumentException("Requests per second must be >= 0");
+        if (burst < 1)
+            throw new IllegalArgumentException("Burst must be >= 1");
+        this.rate = requestsPerSecond;
+        this.burst = burst;
+    }
+
+    /**
+     * Sets the number of consecutive failures to reach a host, time outs or
+     * server errors after which the host is deemed unavailable
+     * 
+     * @param threshold
+     *            Threshold, zero to never deem a host unavailable
+     */
+    public void setFailureThreshold(int threshold) {
+        if (threshold < 0)
+            throw new IllegalArgumentException("Failure threshold must be >= 0");
+        this.failureThreshold = threshold;
+    }
+
+    /**
+     * Gets the number of consecutive failures after which a host is deemed
+     * unavailable
+     * 
+     * @return Threshold, zero if a host is never deemed unavailable
+     */
+    public int getFailureThreshold() {
+        return this.failureThreshold;
+    }
+
+    /**
+     * Sets the timeout for connecting to a host and for waiting for data from
+     * it
+     * 
+     * @param timeout
+     *            Timeout in milliseconds, zero for no timeout
+     */
+    public void setTimeout(int timeout) {
+        this.validator.setTimeout(timeout);
+    }
+
+    /**
+     * Sets the cache of URL statuses, URLs with a fresh cached status are
+     * resolved immediately without being scheduled against their host
+     * 
+     * @param statusCache
+     *            Status cache, null to not cache statuses
+     */
+    public void setStatusCache(LinkStatusCache statusCache) {
+        this.validator.setStatusCache(statusCache);
+    }
+
+    /**
+     * Gets the cache of URL statuses
+     * 
+     * @return Status cache, null if statuses are not cached
+     */
+    public LinkStatusCache getStatusCache() {
+        return this.validator.getStatusCache();
+    }
+
+    /**
+     * Sets the strategy used to probe URLs
+     * 
+     * @param probeStrategy
+     *            Probe strategy
+     */
+    public void setProbeStrategy(ProbeStrategy probeStrategy) {
+        this.validator.setProbeStrategy(probeStrategy);
+    }
+
+    /**
+     * Sets the archive used to validate URLs in place of making requests,
+     * archived URLs are resolved immediately without being scheduled against
+     * their host
+     * 
+     * @param archive
+     *            Link archive, null to validate URLs by making requests
+     */
+    public void setArchive(LinkArchive archive) {
+        this.validator.setArchive(archive);
+    }
+
+    /**
+     * Sets whether the anchors targeted by the fragments of links are
+     * validated, only anchors which are definitely missing from a page are
+     * reported
+     * 
+     * @param validateAnchors
+     *            True to validate anchors, false otherwise
+     */
+    public void setAnchorValidation(boolean validateAnchors) {
+        this.validateAnchors = validateAnchors;
+    }
+
+    /**
+     * Gets whether the anchors targeted by the fragments of links are validated
+     * 
+     * @return True if anchors are validated, false otherwise
+     */
+    public boolean isAnchorValidation() {
+        return this.validateAnchors;
+    }
+
+    /**
+     * Sets the maximum number of bytes of a page scanned for anchors
+     * 
+     * @param anchorScanLimit
+     *            Limit in bytes
+     */
+    public void setAnchorScanLimit(long anchorScanLimit) {
+        this.validator.setAnchorScanLimit(anchorScanLimit);
+    }
+
+    /**
+     * Gets the validator used to request URLs, this may be used to inspect the
+     * number of requests made and bytes received
+     * 
+     * @return Validator
+     */
+    public ExternalLinkValidator getValidator() {
+        return this.validator;
+    }
+
+    /**
+     * Gets the number of distinct URLs without IRI errors seen so far
+     * 
+     * @return Distinct URLs
+     */
+    public int getDistinctUrlCount() {
+        return this.distinctUrls.size();
+    }
+
+    /**
+     * Gets the number of distinct URLs seen so far after normalization, this
+     * is the number of URLs actually validated
+     * 
+     * @return Distinct normalized URLs
+     */
+    public int getNormalizedUrlCount() {
+        return this.validations.size();
+    }
+
+    /**
+     * Gets the number of URLs scheduled for validation so far
+     * 
+     * @return Scheduled URLs
+     */
+    public int getScheduledCount() {
+        return this.scheduled.get();
+    }
+
+    /**
+     * Gets the number of scheduled URLs whose validation has finished
+     * 
+     * @return Validated URLs
+     */
+    public int getValidatedCount() {
+        return this.validated.get();
+    }
+
+    /**
+     * Gets the status of each host requested so far
+     * 
+     * @return Host statuses ordered by host
+     */
+    public List<HostStatus> getHostStatuses() {
+        List<HostStatus> statuses = new ArrayList<HostStatus>();
+        synchronized (this.hosts) {
+            for (HostQueue queue : this.hosts.values()) {
+                statuses.add(queue.status);
+            }
+        }
+        return statuses;
+    }
+
+    @Override
+    public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document, TLink link,
+            AbstractCheckedWiki<TLink, TDoc> wiki) {
+        if (link.isMailLink() || link.isWikiLink())
+            return;
+
+        // Check the syntax of the URL as written, the violations of each URL
+        // are cached by the validator and only URLs without IRI errors need
+        // validating
+        ExternalLinkResult syntax = this.validator.checkSyntax(link.getPath());
+        if (syntax.getStatus() != ExternalLinkResult.Status.INVALID_IRI)
+            this.distinctUrls.add(link.getPath());
+
+        // Collect the normalized URL for validation unless that has already
+        // happened, along with the anchor targeted by the link if any
+        Validation validation = null;
+        String anchor = null;
+        if (syntax.getStatus() != ExternalLinkResult.Status.INVALID_IRI) {
+            String url = UrlNormalizer.normalize(link.getPath());
+            validation = this.validations.get(url);
+            if (validation == null) {
+                Validation created = new Validation(url);
+                validation = this.validations.putIfAbsent(url, created);
+                if (validation == null) {
+                    validation = created;
+                    synchronized (this.collected) {
+                        this.collected.add(created);
+                    }
+                }
+            }
+            validation.references.incrementAndGet();
+            if (this.validateAnchors) {
+                anchor = AnchorScanner.getAnchor(link.getPath());
+                if (anchor != null)
+                    validation.anchors.add(anchor);
+            }
+        }
+
+        // Remember to report the result against this link
+        List<PendingLink> links = this.pending.get(document);
+        if (links == null) {
+            List<PendingLink> created = new ArrayList<PendingLink>();
+            links = this.pending.putIfAbsent(document, created);
+            if (links == null)
+                links = created;
+        }
+        synchronized (links) {
+            links.add(new PendingLink(link, syntax, validation, anchor));
+        }
+    }
+
+    @Override
+    public void start() {
+        List<Validation> batch;
+        synchronized (this.collected) {
+            if (this.collected.isEmpty())
+                return;
+            batch = new ArrayList<Validation>(this.collected);
+            this.collected.clear();
+        }
+
+        // URLs which need no request are resolved immediately so they don't
+        // hold up their host, unless a page must be retrieved to scan it for
+        // anchors
+        Iterator<Validation> iter = batch.iterator();
+        while (iter.hasNext()) {
+            Validation validation = iter.next();
+            if (this.validator.isLocal(validation.url)
+                    && (validation.anchors.isEmpty() || this.validator.getArchive() != null)) {
+                validation.resolve(this.validator.validateResource(validation.url));
+                iter.remove();
+            }
+        }
+        if (batch.isEmpty())
+            return;
+
+        // Group by host ordering the URLs of each host by how many links
+        // reference them
+        Map<String, List<Validation>> byHost = new HashMap<String, List<Validation>>();
+        for (Validation validation : batch) {
+            List<Validation> host = byHost.get(validation.host);
+            if (host == null) {
+                host = new ArrayList<Validation>();
+                byHost.put(validation.host, host);
+            }
+            host.add(validation);
+        }
+        List<List<Validation>> hostGroups = new ArrayList<List<Validation>>(byHost.values());
+        for (List<Validation> host : hostGroups) {
+            Collections.sort(host, new Comparator<Validation>() {
+                @Override
+                public int compare(Validation a, Validation b) {
+                    return Integer.compare(b.references.get(), a.references.get());
+                }
+            });
+        }
+
+        // Start the hosts with the most URLs first since they take longest,
+        // taking URLs from each host in turn so every host is kept busy
+        Collections.sort(hostGroups, new Comparator<List<Validation>>() {
+            @Override
+            public int compare(List<Validation> a, List<Validation> b) {
+                return Integer.compare(b.size(), a.size());
+            }
+        });
+        LOGGER.info("Validating " + batch.size() + " external URL(s) on " + hostGroups.size() + " host(s)");
+        long now = System.nanoTime();
+        if (this.started.compareAndSet(0, now))
+            this.lastProgress.set(now);
+        this.scheduled.addAndGet(batch.size());
+        for (int i = 0; !hostGroups.isEmpty(); i++) {
+            Iterator<List<Validation>> groups = hostGroups.iterator();
+            while (groups.hasNext()) {
+                List<Validation> group = groups.next();
+                if (i < group.size()) {
+                    this.submit(group.get(i));
+                } else {
+                    groups.remove();
+                }
+            }
+        }
+    }
+
+    @Override
+    public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> boolean complete(TDoc document)
+            throws InterruptedException {
+        this.start();
+        List<PendingLink> links = this.pending.remove(document);
+        if (links == null)
+            return true;
+        boolean definitive = true;
+        synchronized (links) {
+            for (PendingLink link : links) {
+                ExternalLinkResult result = link.syntax;
+                if (link.validation != null) {
+                    ExternalLinkResult resource = link.validation.await();
+                    result = result.withStatus(resource.getStatus(), resource.getHttpStatus());
+                }
+                result.report(document, link.link);
+                if (!result.isDefinitive())
+                    definitive = false;
+                if (link.anchor != null && result.isValid() && link.validation.missingAnchors.contains(link.anchor))
+                    document.addIssue(new Warning("External Link anchor #" + link.anchor
+                            + " was not found in the page - " + link.link.toString()));
+            }
+        }
+        return definitive;
+    }
+
+    /**
+     * Submits a validation for execution unless its host is already at its
+     * concurrency limit in which case it is queued, if the host is unavailable
+     * the validation is resolved immediately
+     */
+    private void submit(Validation validation) {
+        synchronized (this.hosts) {
+            HostQueue queue = this.hosts.get(validation.host);
+            if (queue == null) {
+                queue = new HostQueue(new HostStatus(validation.host, this.rate, this.burst));
+                this.hosts.put(validation.host, queue);
+            }
+            if (!queue.status.isAvailable()) {
+                queue.status.recordUnresolved();
+            } else if (queue.active < this.maxConcurrencyPerHost) {
+                queue.active++;
+                this.dispatch(queue, validation);
+                return;
+            } else {
+                queue.waiting.add(validation);
+                return;
+            }
+        }
+        this.validated();
+        validation.resolve(new ExternalLinkResult(ExternalLinkResult.Status.UNRESOLVED, -1));
+    }
+
+    /**
+     * Called when a scheduled validation has its result to log progress
+     * periodically
+     */
+    private void validated() {
+        int done = this.validated.incrementAndGet();
+        int total = this.scheduled.get();
+        long now = System.nanoTime();
+        long last = this.lastProgress.get();
+        if (done < total && now - last < PROGRESS_INTERVAL)
+            return;
+        if (!this.lastProgress.compareAndSet(last, now))
+            return;
+        long elapsed = now - this.started.get();
+        if (done >= total) {
+            LOGGER.info("Validated " + done + " external URL(s) in " + TimeUnit.NANOSECONDS.toSeconds(elapsed) + "s");
+        } else {
+            long remaining = (long) ((double) elapsed / done * (total - done));
+            LOGGER.info("Validated " + done + " of " + total + " external URL(s), about "
+                    + TimeUnit.NANOSECONDS.toSeconds(remaining) + "s remaining");
+        }
+    }
+
+    /**
+     * Executes a validation as soon as the rate limit for its host permits,
+     * must be called while holding the lock on the hosts
+     */
+    private void dispatch(HostQueue queue, final Validation validation) {
+        long delay = queue.status.reserve(System.nanoTime());
+        if (delay <= 0) {
+            this.executor.execute(validation);
+        } else {
+            this.timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    executor.execute(validation);
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Called when a validation finishes to record its result against its host
+     * and start the next queued validation for the same host, if the host has
+     * just become unavailable its queued validations are resolved instead
+     */
+    private void finished(Validation validation, ExternalLinkResult result) {
+        List<Validation> unresolved = null;
+        synchronized (this.hosts) {
+            HostQueue queue = this.hosts.get(validation.host);
+            if (queue.status.record(result, this.failureThreshold)) {
+                LOGGER.warn("Host " + validation.host + " is unavailable after " + this.failureThreshold
+                        + " consecutive failures, its remaining " + queue.waiting.size()
+                        + " queued External Link(s) will not be validated");
+                unresolved = new ArrayList<Validation>(queue.waiting);
+                for (int i = 0; i < unresolved.size(); i++) {
+                    queue.status.recordUnresolved();
+                }
+                queue.waiting.clear();
+            }
+            Validation next = queue.waiting.poll();
+            if (next != null) {
+                this.dispatch(queue, next);
+            } else {
+                queue.active--;
+            }
+        }
+        if (unresolved != null) {
+            for (Validation v : unresolved) {
+                this.validated();
+                v.resolve(new ExternalLinkResult(ExternalLinkResult.Status.UNRESOLVED, -1));
+            }
+        }
+    }
+
+    /**
+     * Shuts down the check releasing its threads and pooled connections
+     */
+    public void shutdown() {
+        this.timer.shutdownNow();
+        this.executor.shutdownNow();
+        this.validator.shutdown();
+    }
+
+    @Override
+    public Set<CheckData> getRequiredData() {
+        return EnumSet.of(CheckData.OUTBOUND_LINKS);
+    }
+
+    @Override
+    public Set<CheckData> getProducedData() {
+        return EnumSet.of(CheckData.EXTERNAL_LINK_STATUS);
+    }
+
+    /**
+     * Gets the host of a URL used to limit concurrent requests per host
+     */
+    private static String getHost(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase(Locale.ENGLISH) : "";
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Validation of a single URL
+     */
+    private final class Validation implements Runnable {
+        final String url, host;
+        final AtomicInteger references = new AtomicInteger();
+        final Set<String> anchors = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        volatile Collection<String> missingAnchors = Collections.emptySet();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile ExternalLinkResult result;
+
+        Validation(String url) {
+            this.url = url;
+            this.host = getHost(url);
+        }
+
+        @Override
+        public void run() {
+            ExternalLinkResult result = null;
+            try {
+                try {
+                    result = validator.validateResource(this.url);
+                } catch (Throwable e) {
+                    LOGGER.debug("External Link " + this.url + " is invalid", e);
+                    result = new ExternalLinkResult(ExternalLinkResult.Status.UNEXPECTED_ERROR, -1);
+                }
+                if (result.isValid() && !this.anchors.isEmpty()) {
+                    // Only the anchors collected so far are scanned for, a
+                    // failed scan leaves the anchors unvalidated
+                    try {
+                        this.missingAnchors = validator.findMissingAnchors(this.url,
+                                new ArrayList<String>(this.anchors));
+                    } catch (Throwable e) {
+                        LOGGER.debug("Unable to scan External Link " + this.url + " for anchors", e);
+                    }
+                }
+                finished(this, result);
+            } finally {
+                // Count before waking any waiters so the count is accurate
+                // once they are done, waiters must always be woken or
+                // completing the check would block forever
+                this.result = result != null ? result : new ExternalLinkResult(
+                        ExternalLinkResult.Status.UNEXPECTED_ERROR, -1);
+                validated();
+                this.done.countDown();
+            }
+        }
+
+        /**
+         * Resolves the validation without scheduling it against its host
+         */
+        void resolve(ExternalLinkResult result) {
+            this.result = result;
+            this.done.countDown();
+        }
+
+        ExternalLinkResult await() throws InterruptedException {
+            this.done.await();
+            return this.result;
+        }
+    }
+
+    /**
+     * A link awaiting the result of validating its URL
+     */
+    private static final class PendingLink {
+        final CheckedLink link;
+        final ExternalLinkResult syntax;
+        final Validation validation;
+        final String anchor;
+
+        PendingLink(CheckedLink link, ExternalLinkResult syntax, Validation validation, String anchor) {
+            this.link = link;
+            this.syntax = syntax;
+            this.validation = validation;
+            this.anchor = anchor;
+        }
+    }
+
+    /**
+     * Tracks the validations for a host
+     */
+    private static final class HostQueue {
+        final HostStatus status;
+        int active = 0;
+        final Deque<Validation> waiting = new ArrayDeque<Validation>();
+
+        HostQueue(HostStatus status) {
+            this.status = status;
+        }
+    }
+}
@@ -22,6 +22,12 @@ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 package org.dotnetrdf.wiki.checker.checks.links;
 
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.dotnetrdf.wiki.checker.checks.CacheableCheck;
+import org.dotnetrdf.wiki.checker.checks.CheckData;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
 import org.dotnetrdf.wiki.checker.checks.LinkCheck;
 import org.dotnetrdf.wiki.checker.data.AbstractCheckedWiki;
 import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
@@ -37,7 +43,7 @@ import org.slf4j.LoggerFactory;
  * @author rvesse
  * 
  */
-public class EmailLinkCheck implements LinkCheck {
+public class EmailLinkCheck implements LinkCheck, CheckDependencies, CacheableCheck {
     private static final Logger LOGGER = LoggerFactory.getLogger(EmailLinkCheck.class);
 
     @Override
@@ -51,4 +57,18 @@ public class EmailLinkCheck implements LinkCheck {
         LOGGER.warn("Email link exposes email address publicly - " + link.getPath().substring(7));
     }
 
+    @Override
+    public String getConfigurationKey() {
+        return "";
+    }
+
+    @Override
+    public Set<CheckData> getRequiredData() {
+        return EnumSet.of(CheckData.OUTBOUND_LINKS);
+    }
+
+    @Override
+    public Set<CheckData> getProducedData() {
+        return EnumSet.noneOf(CheckData.class);
+    }
 }
@@ -1,4 +1,4 @@
-/*
+/*
 Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
 
 Permission is hereby granted, free of charge, to any person obtaining a copy
@@ -17,45 +17,51 @@ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
 AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
 WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
 CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
-
-*/
-
+
+*/
+
 package org.dotnetrdf.wiki.checker.checks.links;
 
-import java.net.UnknownHostException;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpHead;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.jena.iri.IRI;
-import org.apache.jena.iri.IRIFactory;
-import org.apache.jena.iri.Violation;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.dotnetrdf.wiki.checker.archive.LinkArchive;
+import org.dotnetrdf.wiki.checker.checks.CheckData;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
 import org.dotnetrdf.wiki.checker.checks.LinkCheck;
 import org.dotnetrdf.wiki.checker.data.AbstractCheckedWiki;
 import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
 import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
-import org.dotnetrdf.wiki.data.issues.Warning;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.dotnetrdf.wiki.data.issues.Warning;
 
 /**
  * A link check which validates external links by making HTTP requests to see if
  * the URLs can be reached. It also validates that external links are valid
  * URIs.
+ * <p>
+ * This check may be applied to documents from multiple threads, each URL is
+ * only validated once with any other threads checking the same URL waiting
+ * for that validation to complete. IRI violations are reported against every
+ * link regardless of which thread validates the URL.
+ * </p>
+ * <p>
+ * The results are never restored from a
+ * {@link org.dotnetrdf.wiki.checker.cache.CheckResultCache} since the status
+ * of a URL may change while the documents linking to it do not, the links of
+ * unchanged documents are always validated again. The validator may instead
+ * be given a {@link org.dotnetrdf.wiki.checker.cache.LinkStatusCache} which
+ * reuses statuses between runs subject to their time to live.
+ * </p>
  * 
  * @author rvesse
  */
-public class ExternalLinkCheck implements LinkCheck {
-    private static final Logger LOGGER = LoggerFactory.getLogger(ExternalLinkCheck.class);
-
-    private Map<String, Boolean> externalUris = new HashMap<String, Boolean>();
-    private Map<String, Integer> httpStatuses = new HashMap<String, Integer>();
-    private HttpClient httpClient = new DefaultHttpClient();
+public class ExternalLinkCheck implements LinkCheck, CheckDependencies {
+    private ConcurrentMap<String, ExternalLinkResult> results = new ConcurrentHashMap<String, ExternalLinkResult>();
+    private ConcurrentMap<String, CountDownLatch> pending = new ConcurrentHashMap<String, CountDownLatch>();
+    private final ExternalLinkValidator validator = new ExternalLinkValidator();
 
     @Override
     public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document, TLink link,
@@ -65,102 +71,105 @@ public class ExternalLinkCheck implements LinkCheck {
 
         // External Link Validation
 
-        // TODO Strip off #fragment and ?querystrings to speed this
-        // stage up
+        // Check the syntax of the URL as written, the violations of each URL
+        // are cached and reported against every link to it
+        ExternalLinkResult syntax = this.validator.checkSyntax(link.getPath());
+        syntax.report(document, link);
+        if (syntax.getStatus() == ExternalLinkResult.Status.INVALID_IRI)
+            return;
 
-        if (this.externalUris.get(link.getPath()) != null) {
-            // Already validated, report broken link if necessary
-            if (this.externalUris.get(link.getPath()) != true) {
-                document.addIssue(new org.dotnetrdf.wiki.data.issues.Error("Broken External Link (HTTP Status " + this.httpStatuses.get(link.getPath()) + ") - "
-                        + link.toString()));
-            }
-        } else {
-            // Validate the external link
-
-            // Firstly look for obvious issues with the IRI
-            IRI iri = IRIFactory.uriImplementation().create(link.getPath());
-            if (iri.hasViolation(true)) {
-                Iterator<Violation> violations = iri.violations(true);
-                boolean iriErrors = false;
-                while (violations.hasNext()) {
-                    Violation violation = violations.next();
-                    if (violation.isError()) {
-                        iriErrors = true;
-                        document.addIssue(new org.dotnetrdf.wiki.data.issues.Error("External Link " + link.toString() + " violates the IRI specification - "
-                                + violation.getLongMessage()));
-                        LOGGER.error("Link " + link.toString() + " is not a valid IRI - " + violation.getLongMessage());
-                    } else {
-                        document.addIssue(new Warning("External Link " + link.toString()
-                                + " has a warning against the IRI specification - " + violation.getShortMessage()));
-                        LOGGER.warn("Link " + link.toString() + " has an IRI warning - " + violation.getLongMessage());
-                    }
+        // Equivalent URLs, e.g. those differing only by fragment, are only
+        // validated once
+        String url = UrlNormalizer.normalize(link.getPath());
+
+        ExternalLinkResult result = this.results.get(url);
+        while (result == null) {
+            // Claim the link for validation unless another thread is already
+            // validating it in which case wait for it to finish
+            CountDownLatch latch = new CountDownLatch(1);
+            CountDownLatch existing = this.pending.putIfAbsent(url, latch);
+            if (existing == null) {
+                try {
+                    // Another thread may have finished validating it since
+                    // we last looked
+                    result = this.results.get(url);
+                    if (result == null)
+                        result = this.validate(url);
+                } finally {
+                    this.pending.remove(url, latch);
+                    latch.countDown();
                 }
-
-                // Skip further validation if has errors
-                if (iriErrors)
-                    return;
+                break;
             }
-
-            // Try a HTTP HEAD request first then fall back to a
-            // HTTP GET when necessary
-            HttpHead head = null;
-            HttpGet get = null;
             try {
-                head = new HttpHead(link.getPath());
-                head.setHeader("Accept", "*/*");
-                LOGGER.debug("Validating External Link " + link.getPath());
-                HttpResponse resp = this.httpClient.execute(head);
-
-                if (resp.getStatusLine().getStatusCode() >= 200 && resp.getStatusLine().getStatusCode() < 400) {
-                    // Valid
-                    this.externalUris.put(link.getPath(), true);
-                    LOGGER.debug("External Link " + link.getPath() + " is valid");
-                } else {
-                    // Try a GET instead, in case the server doesn't
-                    // support HEAD nicely
-                    head.releaseConnection();
-                    head.reset();
-                    head = null;
-                    get = new HttpGet(link.getPath());
-                    get.setHeader("Accept", "*/*");
-                    resp = this.httpClient.execute(get);
-
-                    if (resp.getStatusLine().getStatusCode() >= 200 && resp.getStatusLine().getStatusCode() < 400) {
-                        // Valid
-                        this.externalUris.put(link.getPath(), true);
-                        LOGGER.debug("External Link " + link.getPath() + " is valid");
-                    } else {
-                        // Invalid
-                        this.externalUris.put(link.getPath(), false);
-                        this.httpStatuses.put(link.getPath(), resp.getStatusLine().getStatusCode());
-                        document.addIssue(new org.dotnetrdf.wiki.data.issues.Error("Broken External Link (HTTP Status " + resp.getStatusLine().getStatusCode()
-                                + ") - " + link.toString()));
-                        LOGGER.error("External Link " + link.getPath() + " is invalid");
-                    }
-                }
-
-            } catch (IllegalArgumentException e) {
-                this.externalUris.put(link.getPath(), false);
-                document.addIssue(new org.dotnetrdf.wiki.data.issues.Error("Invalid External Link URI - " + link.toString()));
-                LOGGER.debug("External Link " + link.getPath() + " is invalid", e);
-            } catch (UnknownHostException e) {
-                this.externalUris.put(link.getPath(), false);
-                document.addIssue(new org.dotnetrdf.wiki.data.issues.Error("Invalid External Link URI - " + link.toString()));
-                LOGGER.debug("External Link " + link.getPath() + " is invalid", e);
-            } catch (Throwable e) {
-                this.externalUris.put(link.getPath(), false);
-                document.addIssue(new org.dotnetrdf.wiki.data.issues.Error("Unexpected Error with External Link URI - " + link.toString()));
-                LOGGER.debug("External Link " + link.getPath() + " is invalid", e);
-            } finally {
-                if (head != null) {
-                    head.releaseConnection();
-                    head.reset();
-                }
-                if (get != null) {
-                    get.releaseConnection();
-                    get.reset();
-                }
+                existing.await();
+            } catch (InterruptedException e) {
+                // Report the link as unvalidated rather than silently
+                // dropping it, the interrupt is left for the caller
+                Thread.currentThread().interrupt();
+                document.addIssue(new Warning("Unable to validate External Link since checking was interrupted - "
+                        + link.toString()));
+                return;
             }
+            result = this.results.get(url);
         }
+
+        // The result of each URL is reported against every link to it
+        result.report(document, link);
+    }
+
+    /**
+     * Validates an external link which has not previously been validated
+     * 
+     * @param url
+     *            Normalized URL of the link
+     * @return Result of validation
+     */
+    private ExternalLinkResult validate(String url) {
+        // Probe the URL, by default with a HTTP HEAD request falling back to
+        // HTTP GET requests which avoid downloading the content
+        ExternalLinkResult result = this.validator.validateResource(url);
+        this.results.put(url, result);
+        return result;
+    }
+
+    /**
+     * Sets the strategy used to probe URLs
+     * 
+     * @param probeStrategy
+     *            Probe strategy
+     */
+    public void setProbeStrategy(ProbeStrategy probeStrategy) {
+        this.validator.setProbeStrategy(probeStrategy);
+    }
+
+    /**
+     * Sets the archive used to validate URLs in place of making requests
+     * 
+     * @param archive
+     *            Link archive, null to validate URLs by making requests
+     */
+    public void setArchive(LinkArchive archive) {
+        this.validator.setArchive(archive);
+    }
+
+    /**
+     * Gets the validator used to request URLs, this may be used to inspect the
+     * number of requests made and bytes received
+     * 
+     * @return Validator
+     */
+    public ExternalLinkValidator getValidator() {
+        return this.validator;
+    }
+
+    @Override
+    public Set<CheckData> getRequiredData() {
+        return EnumSet.of(CheckData.OUTBOUND_LINKS);
+    }
+
+    @Override
+    public Set<CheckData> getProducedData() {
+        return EnumSet.of(CheckData.EXTERNAL_LINK_STATUS);
     }
 }
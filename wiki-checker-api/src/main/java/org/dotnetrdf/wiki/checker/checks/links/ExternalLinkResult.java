@@ -0,0 +1,242 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks.links;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
+import org.dotnetrdf.wiki.data.issues.Warning;
+import org.dotnetrdf.wiki.data.links.Link;
+
+/**
+ * The result of validating an external link, see
+ * {@link ExternalLinkValidator}
+ * <p>
+ * A result describes the URL rather than any particular link to it, so one
+ * result may be reported against every link to that URL.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public final class ExternalLinkResult {
+
+    /**
+     * Possible outcomes of validation
+     */
+    public static enum Status {
+        /**
+         * The URL could be reached
+         */
+        VALID,
+        /**
+         * The URL responded with a HTTP status indicating it is broken
+         */
+        BROKEN,
+        /**
+         * The URL violates the IRI specification
+         */
+        INVALID_IRI,
+        /**
+         * The URL is not a usable URI
+         */
+        INVALID_URI,
+        /**
+         * The host of the URL is unknown
+         */
+        UNKNOWN_HOST,
+        /**
+         * An unexpected error occurred trying to reach the URL, e.g. the
+         * connection was refused or timed out
+         */
+        UNEXPECTED_ERROR,
+        /**
+         * The URL was not validated because its host has been deemed
+         * unavailable
+         */
+        UNRESOLVED,
+        /**
+         * The URL was not validated because it is not in the link archive
+         * being used in place of the network
+         */
+        NOT_ARCHIVED
+    }
+
+    private final Status status;
+    private final int httpStatus;
+    private final List<Boolean> violationErrors = new ArrayList<Boolean>();
+    private final List<String> violationMessages = new ArrayList<String>();
+
+    /**
+     * Creates a new result
+     * 
+     * @param status
+     *            Status
+     * @param httpStatus
+     *            HTTP status code, -1 if no response was received
+     */
+    public ExternalLinkResult(Status status, int httpStatus) {
+        if (status == null)
+            throw new NullPointerException("Status cannot be null");
+        this.status = status;
+        this.httpStatus = httpStatus;
+    }
+
+    /**
+     * Adds a violation of the IRI specification
+     * 
+     * @param error
+     *            Whether the violation is an error, otherwise it is a warning
+     * @param message
+     *            Message describing the violation
+     */
+    public void addViolation(boolean error, String message) {
+        this.violationErrors.add(error);
+        this.violationMessages.add(message);
+    }
+
+    /**
+     * Creates a copy of this result with a different status, violations are
+     * retained
+     * 
+     * @param status
+     *            Status
+     * @param httpStatus
+     *            HTTP status code, -1 if no response was received
+     * @return New result
+     */
+    public ExternalLinkResult withStatus(Status status, int httpStatus) {
+        ExternalLinkResult result = new ExternalLinkResult(status, httpStatus);
+        result.violationErrors.addAll(this.violationErrors);
+        result.violationMessages.addAll(this.violationMessages);
+        return result;
+    }
+
+    /**
+     * Gets the status
+     * 
+     * @return Status
+     */
+    public Status getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Gets whether the URL is valid
+     * 
+     * @return True if valid, false otherwise
+     */
+    public boolean isValid() {
+        return this.status == Status.VALID;
+    }
+
+    /**
+     * Gets whether the result is definitive, i.e. the URL was validated and
+     * would have the same result if validated again under the same conditions
+     * 
+     * @return True if definitive, false if the URL could not be validated
+     */
+    public boolean isDefinitive() {
+        return this.status != Status.UNRESOLVED && this.status != Status.NOT_ARCHIVED;
+    }
+
+    /**
+     * Gets whether the result indicates a failure of the host rather than of
+     * the URL, i.e. the host could not be reached or responded with a server
+     * error
+     * 
+     * @return True if a host failure, false otherwise
+     */
+    public boolean isHostFailure() {
+        switch (this.status) {
+        case UNKNOWN_HOST:
+        case UNEXPECTED_ERROR:
+            return true;
+        case BROKEN:
+            return this.httpStatus >= 500;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Gets the HTTP status code of the final response
+     * 
+     * @return HTTP status code, -1 if no response was received
+     */
+    public int getHttpStatus() {
+        return this.httpStatus;
+    }
+
+    /**
+     * Adds the issues this result represents to a document
+     * 
+     * @param document
+     *            Document
+     * @param link
+     *            Link to the URL within the document
+     */
+    public void report(CheckedDocument<?> document, Link link) {
+        for (int i = 0; i < this.violationMessages.size(); i++) {
+            if (this.violationErrors.get(i)) {
+                document.addIssue(new org.dotnetrdf.wiki.data.issues.Error("External Link " + link.toString()
+                        + " violates the IRI specification - " + this.violationMessages.get(i)));
+            } else {
+                document.addIssue(new Warning("External Link " + link.toString()
+                        + " has a warning against the IRI specification - " + this.violationMessages.get(i)));
+            }
+        }
+
+        switch (this.status) {
+        case BROKEN:
+            document.addIssue(new org.dotnetrdf.wiki.data.issues.Error("Broken External Link (HTTP Status "
+                    + this.httpStatus + ") - " + link.toString()));
+            break;
+        case INVALID_URI:
+        case UNKNOWN_HOST:
+            document.addIssue(new org.dotnetrdf.wiki.data.issues.Error("Invalid External Link URI - " + link.toString()));
+            break;
+        case UNEXPECTED_ERROR:
+            document.addIssue(new org.dotnetrdf.wiki.data.issues.Error("Unexpected Error with External Link URI - "
+                    + link.toString()));
+            break;
+        case UNRESOLVED:
+            document.addIssue(new Warning("Unable to validate External Link since its host is unavailable - "
+                    + link.toString()));
+            break;
+        case NOT_ARCHIVED:
+            document.addIssue(new Warning("Unable to validate External Link since it is not in the link archive - "
+                    + link.toString()));
+            break;
+        default:
+            // Valid or IRI errors already reported
+            break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.status + (this.httpStatus >= 0 ? " (HTTP Status " + this.httpStatus + ")" : "");
+    }
+}
@@ -0,0 +1,712 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks.links;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.dotnetrdf.wiki.checker.archive.LinkArchive;
+import org.dotnetrdf.wiki.checker.cache.CachedLinkStatus;
+import org.dotnetrdf.wiki.checker.cache.LinkStatusCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Validates external URLs by checking they are valid IRIs and then probing
+ * them with the HTTP requests given by a {@link ProbeStrategy}, by default a
+ * HTTP HEAD request falling back to HTTP GET requests which avoid downloading
+ * the content if the HEAD request does not succeed
+ * <p>
+ * Validation is thread safe and connections are pooled, the pool limits the
+ * total number of connections and the number of connections to any one host.
+ * </p>
+ * <p>
+ * If a {@link LinkStatusCache} is set then fresh cached statuses are used
+ * without making any request, expired successful statuses with an
+ * {@code ETag} or {@code Last-Modified} value are revalidated with a
+ * conditional HTTP HEAD request and the outcome of every request is cached.
+ * </p>
+ * <p>
+ * If a {@link LinkArchive} is set then URLs are validated against the archive
+ * alone, archived redirects are followed within the archive as live ones would
+ * be, URLs which are not archived are reported as such, and no requests are
+ * made at all.
+ * </p>
+ * <p>
+ * Pages can also be scanned for the anchors targeted by the fragments of
+ * links, see {@link #findMissingAnchors(String, Collection)}, the content is
+ * streamed and scanning stops once every anchor is found or a byte limit is
+ * reached.
+ * </p>
+ * <p>
+ * The number of requests made and bytes received are counted so the cost of
+ * validation can be measured.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public class ExternalLinkValidator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExternalLinkValidator.class);
+
+    /**
+     * Default timeout in milliseconds for connecting and for waiting for data
+     */
+    public static final int DEFAULT_TIMEOUT = 30000;
+
+    /**
+     * Maximum number of archived redirects followed, as for live requests
+     */
+    private static final int MAX_ARCHIVED_REDIRECTS = 100;
+
+    /**
+     * Default maximum number of pooled connections
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+    /**
+     * Default maximum number of pooled connections to a single host
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 2;
+
+    /**
+     * Default maximum number of bytes of a page scanned for anchors
+     */
+    public static final long DEFAULT_ANCHOR_SCAN_LIMIT = 1024 * 1024;
+
+    /**
+     * Context attribute used to accumulate the bytes received for a request
+     */
+    private static final String BYTES_RECEIVED = "wiki-checker.bytes-received";
+
+    private final DefaultHttpClient httpClient;
+    private volatile LinkStatusCache statusCache;
+    private volatile LinkArchive archive;
+    private volatile IriValidationCache iriCache = new IriValidationCache();
+    private volatile ProbeStrategy probeStrategy = new ProbeStrategy();
+    private volatile long anchorScanLimit = DEFAULT_ANCHOR_SCAN_LIMIT;
+    private final AtomicLong requested = new AtomicLong(), bytesReceived = new AtomicLong();
+    private final AtomicLong anchorScans = new AtomicLong(), truncatedAnchorScans = new AtomicLong();
+    private final Map<ProbeStrategy.Probe, AtomicLong> probeCounts = new EnumMap<ProbeStrategy.Probe, AtomicLong>(
+            ProbeStrategy.Probe.class);
+
+    /**
+     * Creates a new validator with the default connection limits
+     */
+    public ExternalLinkValidator() {
+        this(DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_HOST);
+    }
+
+    /**
+     * Creates a new validator
+     * 
+     * @param maxConnections
+     *            Maximum number of pooled connections
+     * @param maxConnectionsPerHost
+     *            Maximum number of pooled connections to a single host
+     */
+    public ExternalLinkValidator(int maxConnections, int maxConnectionsPerHost) {
+        if (maxConnections < 1)
+            throw new IllegalArgumentException("Maximum connections must be >= 1");
+        if (maxConnectionsPerHost < 1)
+            throw new IllegalArgumentException("Maximum connections per host must be >= 1");
+        PoolingClientConnectionManager connections = new PoolingClientConnectionManager();
+        connections.setMaxTotal(maxConnections);
+        connections.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        this.httpClient = new DefaultHttpClient(connections);
+        this.httpClient.addResponseInterceptor(new HttpResponseInterceptor() {
+            @Override
+            public void process(HttpResponse response, HttpContext context) throws HttpException, IOException {
+                // Count the bytes received on the connection so far, this is
+                // called as soon as the headers are received for every
+                // response including redirects
+                countReceived(context);
+            }
+        });
+        for (ProbeStrategy.Probe probe : ProbeStrategy.Probe.values()) {
+            this.probeCounts.put(probe, new AtomicLong());
+        }
+        this.setTimeout(DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Sets the timeout for connecting and for waiting for data, a request
+     * which times out is treated as an unexpected error
+     * 
+     * @param timeout
+     *            Timeout in milliseconds, 0 for no timeout
+     */
+    public void setTimeout(int timeout) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("Timeout must be >= 0");
+        HttpConnectionParams.setConnectionTimeout(this.httpClient.getParams(), timeout);
+        HttpConnectionParams.setSoTimeout(this.httpClient.getParams(), timeout);
+    }
+
+    /**
+     * Gets the timeout for connecting and for waiting for data
+     * 
+     * @return Timeout in milliseconds, 0 for no timeout
+     */
+    public int getTimeout() {
+        return HttpConnectionParams.getConnectionTimeout(this.httpClient.getParams());
+    }
+
+    /**
+     * Sets the cache of URL statuses
+     * 
+     * @param statusCache
+     *            Status cache, null to not cache statuses
+     */
+    public void setStatusCache(LinkStatusCache statusCache) {
+        this.statusCache = statusCache;
+    }
+
+    /**
+     * Gets the cache of URL statuses
+     * 
+     * @return Status cache, null if statuses are not cached
+     */
+    public LinkStatusCache getStatusCache() {
+        return this.statusCache;
+    }
+
+    /**
+     * Sets the strategy used to probe URLs
+     * 
+     * @param probeStrategy
+     *            Probe strategy
+     */
+    public void setProbeStrategy(ProbeStrategy probeStrategy) {
+        if (probeStrategy == null)
+            throw new NullPointerException("Probe strategy cannot be null");
+        this.probeStrategy = probeStrategy;
+    }
+
+    /**
+     * Gets the strategy used to probe URLs
+     * 
+     * @return Probe strategy
+     */
+    public ProbeStrategy getProbeStrategy() {
+        return this.probeStrategy;
+    }
+
+    /**
+     * Gets the number of URLs which have been requested i.e. excluding those
+     * answered from the status cache
+     * 
+     * @return Requested URLs
+     */
+    public long getRequestedCount() {
+        return this.requested.get();
+    }
+
+    /**
+     * Gets the total number of requests made
+     * 
+     * @return Requests
+     */
+    public long getRequestCount() {
+        long requests = 0;
+        for (AtomicLong count : this.probeCounts.values()) {
+            requests += count.get();
+        }
+        return requests;
+    }
+
+    /**
+     * Gets the number of requests made with a given probe
+     * 
+     * @param probe
+     *            Probe
+     * @return Requests
+     */
+    public long getRequestCount(ProbeStrategy.Probe probe) {
+        return this.probeCounts.get(probe).get();
+    }
+
+    /**
+     * Gets the total number of bytes received in responses, including headers
+     * 
+     * @return Bytes received
+     */
+    public long getBytesReceived() {
+        return this.bytesReceived.get();
+    }
+
+    /**
+     * Sets the maximum number of bytes of a page scanned for anchors, anchors
+     * not found within the limit are assumed to exist
+     * 
+     * @param anchorScanLimit
+     *            Limit in bytes
+     */
+    public void setAnchorScanLimit(long anchorScanLimit) {
+        if (anchorScanLimit < 1)
+            throw new IllegalArgumentException("Anchor scan limit must be >= 1");
+        this.anchorScanLimit = anchorScanLimit;
+    }
+
+    /**
+     * Gets the maximum number of bytes of a page scanned for anchors
+     * 
+     * @return Limit in bytes
+     */
+    public long getAnchorScanLimit() {
+        return this.anchorScanLimit;
+    }
+
+    /**
+     * Gets the number of pages scanned for anchors
+     * 
+     * @return Pages scanned
+     */
+    public long getAnchorScanCount() {
+        return this.anchorScans.get();
+    }
+
+    /**
+     * Gets the number of pages whose scan for anchors stopped at the byte limit
+     * 
+     * @return Pages truncated
+     */
+    public long getTruncatedAnchorScanCount() {
+        return this.truncatedAnchorScans.get();
+    }
+
+    /**
+     * Sets the cache of IRI violations
+     * 
+     * @param iriCache
+     *            IRI validation cache
+     */
+    public void setIriCache(IriValidationCache iriCache) {
+        if (iriCache == null)
+            throw new NullPointerException("IRI validation cache cannot be null");
+        this.iriCache = iriCache;
+    }
+
+    /**
+     * Gets the cache of IRI violations
+     * 
+     * @return IRI validation cache
+     */
+    public IriValidationCache getIriCache() {
+        return this.iriCache;
+    }
+
+    /**
+     * Sets the archive of URL statuses, when set URLs are validated solely
+     * against the archive and no requests are made
+     * 
+     * @param archive
+     *            Link archive, null to validate URLs by making requests
+     */
+    public void setArchive(LinkArchive archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Gets the archive of URL statuses
+     * 
+     * @return Link archive, null if URLs are validated by making requests
+     */
+    public LinkArchive getArchive() {
+        return this.archive;
+    }
+
+    /**
+     * Gets whether validating a URL will not make any request because it is
+     * answered by the link archive or has a fresh cached status
+     * 
+     * @param url
+     *            URL
+     * @return True if validated locally, false otherwise
+     */
+    public boolean isLocal(String url) {
+        if (this.archive != null)
+            return true;
+        LinkStatusCache cache = this.statusCache;
+        return cache != null && cache.hasFresh(url);
+    }
+
+    /**
+     * Validates a URL
+     * 
+     * @param url
+     *            URL
+     * @return Result
+     */
+    public ExternalLinkResult validate(String url) {
+        ExternalLinkResult result = this.checkSyntax(url);
+        if (result.getStatus() == ExternalLinkResult.Status.INVALID_IRI)
+            return result;
+        ExternalLinkResult resource = this.validateResource(url);
+        return result.withStatus(resource.getStatus(), resource.getHttpStatus());
+    }
+
+    /**
+     * Checks a URL for violations of the IRI specification without making any
+     * request, the violations of each URL are cached
+     * 
+     * @param url
+     *            URL
+     * @return Result with the violations found, the status is
+     *         {@link ExternalLinkResult.Status#INVALID_IRI} if any violation
+     *         is an error and {@link ExternalLinkResult.Status#VALID}
+     *         otherwise, the result is shared so must not be modified
+     */
+    public ExternalLinkResult checkSyntax(String url) {
+        return this.iriCache.validate(url);
+    }
+
+    /**
+     * Validates that the resource identified by a URL can be retrieved, the
+     * syntax of the URL is assumed to have already been checked
+     * 
+     * @param url
+     *            URL
+     * @return Result without any IRI violations
+     */
+    public ExternalLinkResult validateResource(String url) {
+        // Answer solely from the archive if there is one
+        LinkArchive archive = this.archive;
+        if (archive != null)
+            return validateArchived(archive, url);
+
+        // Use the cached status if it is still fresh
+        LinkStatusCache cache = this.statusCache;
+        CachedLinkStatus cached = cache != null ? cache.get(url) : null;
+        if (cached != null && cache.isFresh(cached)) {
+            LOGGER.debug("External Link " + url + " has a cached status of " + cached.getStatus());
+            return new ExternalLinkResult(cached.getStatus(), cached.getHttpStatus());
+        }
+
+        CachedLinkStatus status = this.request(url, cached != null && cached.isRevalidatable() ? cached : null);
+        if (cache != null)
+            cache.put(url, status);
+        return new ExternalLinkResult(status.getStatus(), status.getHttpStatus());
+    }
+
+    /**
+     * Validates a URL against an archive, archived redirects are followed
+     * within the archive as the HTTP client follows them for live requests
+     * so the status of the final URL is used
+     */
+    private static ExternalLinkResult validateArchived(LinkArchive archive, String url) {
+        String current = url;
+        Set<String> visited = new HashSet<String>();
+        visited.add(UrlNormalizer.normalize(current));
+        Integer status = archive.getStatus(current);
+        while (status != null && LinkArchive.isRedirect(status)) {
+            String location = archive.getLocation(current);
+            if (location == null) {
+                LOGGER.error("External Link " + url + " redirects to an unknown location in the link archive");
+                return new ExternalLinkResult(ExternalLinkResult.Status.UNEXPECTED_ERROR, status);
+            }
+            try {
+                current = URI.create(current).resolve(location).toString();
+            } catch (IllegalArgumentException e) {
+                LOGGER.error("External Link " + url + " redirects to an invalid location " + location);
+                return new ExternalLinkResult(ExternalLinkResult.Status.UNEXPECTED_ERROR, status);
+            }
+            if (!visited.add(UrlNormalizer.normalize(current)) || visited.size() > MAX_ARCHIVED_REDIRECTS) {
+                LOGGER.error("External Link " + url + " redirects in a loop in the link archive");
+                return new ExternalLinkResult(ExternalLinkResult.Status.UNEXPECTED_ERROR, status);
+            }
+            LOGGER.debug("External Link " + url + " is redirected to " + current + " in the link archive");
+            status = archive.getStatus(current);
+        }
+        if (status == null) {
+            LOGGER.warn("External Link " + current + " is not in the link archive");
+            return new ExternalLinkResult(ExternalLinkResult.Status.NOT_ARCHIVED, -1);
+        }
+        LOGGER.debug("External Link " + url + " has an archived status of " + status);
+        return new ExternalLinkResult(status >= 200 && status < 400 ? ExternalLinkResult.Status.VALID
+                : ExternalLinkResult.Status.BROKEN, status);
+    }
+
+    /**
+     * Requests a URL trying each probe in turn until one succeeds, if a
+     * previous successful status is given the first probe is made conditional
+     * upon the URL not having changed since
+     */
+    private CachedLinkStatus request(String url, CachedLinkStatus previous) {
+        List<ProbeStrategy.Probe> probes = this.probeStrategy.getProbes(url);
+        LOGGER.debug("Validating External Link " + url + " with probes " + probes);
+        this.requested.incrementAndGet();
+        int status = -1;
+        HttpResponse resp = null;
+        try {
+            for (int i = 0; i < probes.size(); i++) {
+                ProbeStrategy.Probe probe = probes.get(i);
+                HttpRequestBase request = probe == ProbeStrategy.Probe.HEAD ? new HttpHead(url) : new HttpGet(url);
+                request.setHeader("Accept", "*/*");
+                if (probe == ProbeStrategy.Probe.RANGE_GET)
+                    request.setHeader("Range", "bytes=0-0");
+                if (i == 0 && previous != null) {
+                    if (previous.getETag() != null)
+                        request.setHeader("If-None-Match", previous.getETag());
+                    if (previous.getLastModified() != null)
+                        request.setHeader("If-Modified-Since", previous.getLastModified());
+                }
+
+                HttpContext context = new BasicHttpContext();
+                try {
+                    resp = this.httpClient.execute(request, context);
+                    status = resp.getStatusLine().getStatusCode();
+                    if (status == HttpStatus.SC_PARTIAL_CONTENT) {
+                        // Only a single byte so safe to read and keep the
+                        // connection for reuse
+                        EntityUtils.consume(resp.getEntity());
+                    }
+                } finally {
+                    // Abort rather than release so that we never read any
+                    // more of the content than we have already received
+                    request.abort();
+                    this.recordProbe(probe, context);
+                }
+
+                if (i == 0 && status == HttpStatus.SC_NOT_MODIFIED && previous != null) {
+                    // Unchanged since we last checked so retain the previous
+                    // status and validators
+                    LOGGER.debug("External Link " + url + " is unchanged");
+                    return new CachedLinkStatus(ExternalLinkResult.Status.VALID, previous.getHttpStatus(),
+                            previous.getETag(), previous.getLastModified());
+                }
+                if (probe == ProbeStrategy.Probe.RANGE_GET
+                        && status == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE) {
+                    // The resource exists but is empty
+                    status = HttpStatus.SC_OK;
+                }
+                if (status >= 200 && status < 400)
+                    break;
+                LOGGER.debug("External Link " + url + " gave HTTP Status " + status + " for a " + probe + " probe");
+            }
+
+            if (status >= 200 && status < 400) {
+                LOGGER.debug("External Link " + url + " is valid");
+                return new CachedLinkStatus(ExternalLinkResult.Status.VALID, status, getHeader(resp, "ETag"),
+                        getHeader(resp, "Last-Modified"));
+            } else {
+                LOGGER.error("External Link " + url + " is invalid");
+                return new CachedLinkStatus(ExternalLinkResult.Status.BROKEN, status, null, null);
+            }
+        } catch (IllegalArgumentException e) {
+            LOGGER.debug("External Link " + url + " is invalid", e);
+            return new CachedLinkStatus(ExternalLinkResult.Status.INVALID_URI, -1, null, null);
+        } catch (UnknownHostException e) {
+            LOGGER.debug("External Link " + url + " is invalid", e);
+            return new CachedLinkStatus(ExternalLinkResult.Status.UNKNOWN_HOST, -1, null, null);
+        } catch (Throwable e) {
+            LOGGER.debug("External Link " + url + " is invalid", e);
+            return new CachedLinkStatus(ExternalLinkResult.Status.UNEXPECTED_ERROR, -1, null, null);
+        }
+    }
+
+    /**
+     * Retrieves the page identified by a URL and scans it for anchors, the
+     * page is retrieved once regardless of how many anchors are given
+     * <p>
+     * An anchor is only reported as missing when the whole page was scanned
+     * without finding it. If the page cannot be retrieved, is not HTML or is
+     * larger than the anchor scan limit then nothing is reported since whether
+     * its anchors exist cannot be known.
+     * </p>
+     * 
+     * @param url
+     *            URL
+     * @param anchors
+     *            Anchors as returned by {@link AnchorScanner#getAnchor(String)}
+     * @return Anchors which are definitely missing
+     */
+    public Collection<String> findMissingAnchors(String url, Collection<String> anchors) {
+        if (anchors.isEmpty() || this.archive != null)
+            return Collections.emptySet();
+        HttpGet request = new HttpGet(url);
+        request.setHeader("Accept", "text/html, application/xhtml+xml;q=0.9, */*;q=0.1");
+        HttpContext context = new BasicHttpContext();
+        try {
+            HttpResponse resp = this.httpClient.execute(request, context);
+            int status = resp.getStatusLine().getStatusCode();
+            HttpEntity entity = resp.getEntity();
+            ContentType contentType = entity != null ? ContentType.get(entity) : null;
+            if (status != HttpStatus.SC_OK || contentType == null || !isHtml(contentType.getMimeType())) {
+                LOGGER.debug("External Link " + url + " cannot be scanned for anchors, HTTP Status " + status
+                        + " with content type " + contentType);
+                return Collections.emptySet();
+            }
+
+            this.anchorScans.incrementAndGet();
+            LimitedInputStream input = new LimitedInputStream(entity.getContent(), this.anchorScanLimit);
+            Charset charset = contentType.getCharset() != null ? contentType.getCharset() : Charset
+                    .forName("UTF-8");
+            AnchorScanner scanner = new AnchorScanner(anchors);
+            if (scanner.scan(new InputStreamReader(input, charset)))
+                return Collections.emptySet();
+            if (input.isLimitReached()) {
+                LOGGER.warn("External Link " + url + " was only scanned for anchors up to " + this.anchorScanLimit
+                        + " bytes");
+                this.truncatedAnchorScans.incrementAndGet();
+                return Collections.emptySet();
+            }
+            LOGGER.error("External Link " + url + " does not contain the anchor(s) " + scanner.getMissing());
+            return scanner.getMissing();
+        } catch (Throwable e) {
+            LOGGER.debug("External Link " + url + " could not be scanned for anchors", e);
+            return Collections.emptySet();
+        } finally {
+            // Count the content received before aborting which discards
+            // anything not yet read
+            countReceived(context);
+            request.abort();
+            this.recordProbe(ProbeStrategy.Probe.GET, context);
+        }
+    }
+
+    private static boolean isHtml(String mimeType) {
+        mimeType = mimeType.toLowerCase(Locale.ENGLISH);
+        return mimeType.equals("text/html") || mimeType.equals("application/xhtml+xml");
+    }
+
+    /**
+     * Adds the bytes received on the connection used by a request since they
+     * were last counted to the total for the request
+     */
+    private static void countReceived(HttpContext context) {
+        HttpConnection conn = (HttpConnection) context.getAttribute(ExecutionContext.HTTP_CONNECTION);
+        if (conn == null)
+            return;
+        try {
+            Long received = (Long) context.getAttribute(BYTES_RECEIVED);
+            context.setAttribute(BYTES_RECEIVED, (received != null ? received : 0L)
+                    + conn.getMetrics().getReceivedBytesCount());
+            conn.getMetrics().reset();
+        } catch (IllegalStateException e) {
+            // Connection already released so nothing more was received
+        }
+    }
+
+    /**
+     * Records the statistics for a probe once it has completed
+     */
+    private void recordProbe(ProbeStrategy.Probe probe, HttpContext context) {
+        this.probeCounts.get(probe).incrementAndGet();
+        Object received = context.getAttribute(BYTES_RECEIVED);
+        if (received instanceof Long)
+            this.bytesReceived.addAndGet((Long) received);
+    }
+
+    private static String getHeader(HttpResponse resp, String name) {
+        Header header = resp.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    /**
+     * An input stream which ends once a given number of bytes have been read
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+        private boolean limitReached = false;
+
+        LimitedInputStream(InputStream input, long limit) {
+            super(input);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return this.read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.remaining <= 0) {
+                // Only a truncation if there was actually more to read
+                this.limitReached = this.limitReached || super.read() != -1;
+                return -1;
+            }
+            int read = super.read(b, off, (int) Math.min(len, this.remaining));
+            if (read > 0)
+                this.remaining -= read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return 0;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        boolean isLimitReached() {
+            return this.limitReached;
+        }
+    }
+
+    /**
+     * Shuts down the validator closing any pooled connections
+     */
+    public void shutdown() {
+        this.httpClient.getConnectionManager().shutdown();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks.links;
+
+/**
+ * Scheduling state and statistics for the external links to a single host
+ * <p>
+ * Requests to the host are rate limited by a token bucket, which holds up to
+ * a burst of tokens and is refilled at a fixed rate, and protected by a
+ * circuit breaker which opens after a number of consecutive host failures.
+ * Once open the host is considered unavailable and its remaining URLs are not
+ * requested.
+ * </p>
+ * <p>
+ * The mutators are only called by {@link ConcurrentExternalLinkCheck} while
+ * holding its lock on the hosts, the getters may be called at any time.
+ * </p>
+ *
+ * @author rvesse
+ *
+ */
+public class HostStatus {
+
+    private final String host;
+    private final double rate;
+    private final double burst;
+    private double tokens;
+    private long lastRefill;
+    private volatile int requests, failures, consecutiveFailures, unresolved;
+    private volatile boolean available = true;
+
+    /**
+     * Creates new host status
+     *
+     * @param host
+     *            Host
+     * @param rate
+     *            Requests per second, zero or less for no limit
+     * @param burst
+     *            Maximum number of requests that may be made at once without
+     *            waiting for the rate limit
+     */
+    HostStatus(String host, double rate, int burst) {
+        this.host = host;
+        this.rate = rate;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes a token for a request, if no token is currently available the
+     * next one is reserved
+     *
+     * @param now
+     *            Current time as given by {@link System#nanoTime()}
+     * @return Nanoseconds to wait before making the request, zero if it may
+     *         be made immediately
+     */
+    long reserve(long now) {
+        if (this.rate <= 0)
+            return 0;
+        this.tokens = Math.min(this.burst, this.tokens + (now - this.lastRefill) * this.rate / 1e9d);
+        this.lastRefill = now;
+        this.tokens--;
+        return this.tokens >= 0 ? 0 : (long) Math.ceil(-this.tokens * 1e9d / this.rate);
+    }
+
+    /**
+     * Records the result of a request to the host
+     *
+     * @param result
+     *            Result
+     * @param threshold
+     *            Number of consecutive host failures after which the host is
+     *            deemed unavailable, zero or less to never do so
+     * @return True if this result made the host unavailable
+     */
+    boolean record(ExternalLinkResult result, int threshold) {
+        this.requests++;
+        if (!result.isHostFailure()) {
+            this.consecutiveFailures = 0;
+            return false;
+        }
+        this.failures++;
+        this.consecutiveFailures++;
+        if (this.available && threshold > 0 && this.consecutiveFailures >= threshold) {
+            this.available = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records that a URL was not requested because the host is unavailable
+     */
+    void recordUnresolved() {
+        this.unresolved++;
+    }
+
+    /**
+     * Gets the host
+     *
+     * @return Host
+     */
+    public String getHost() {
+        return this.host;
+    }
+
+    /**
+     * Gets the number of requests completed to the host
+     *
+     * @return Requests
+     */
+    public int getRequests() {
+        return this.requests;
+    }
+
+    /**
+     * Gets the total number of host failures i.e. requests which could not
+     * reach the host, timed out or received a server error
+     *
+     * @return Failures
+     */
+    public int getFailures() {
+        return this.failures;
+    }
+
+    /**
+     * Gets the number of URLs which were not requested because the host was
+     * unavailable
+     *
+     * @return Unresolved URLs
+     */
+    public int getUnresolved() {
+        return this.unresolved;
+    }
+
+    /**
+     * Gets whether the host is available, once a host becomes unavailable it
+     * remains so
+     *
+     * @return True if available, false otherwise
+     */
+    public boolean isAvailable() {
+        return this.available;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(this.host.length() > 0 ? this.host : "(no host)");
+        builder.append(" - ").append(this.requests).append(" request(s), ").append(this.failures)
+                .append(" failure(s)");
+        if (!this.available) {
+            builder.append(", unavailable with ").append(this.unresolved).append(" unresolved URL(s)");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,220 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks.links;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.jena.iri.IRI;
+import org.apache.jena.iri.IRIFactory;
+import org.apache.jena.iri.Violation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded cache of the IRI violations of external URLs
+ * <p>
+ * Each distinct URL is parsed once and its violations are held as an
+ * {@link ExternalLinkResult} which is replayed into the issues of every
+ * document linking to the URL. Up to a configurable number of URLs are cached,
+ * when that would be exceeded the least recently used URLs are evicted and
+ * simply parsed again if next requested.
+ * </p>
+ * <p>
+ * The cache is safe for use from multiple threads. The IRI parser shares its
+ * lexers between all parses without any synchronization so URLs are only ever
+ * parsed by one thread at a time, cached lookups do not wait for parsing.
+ * </p>
+ *
+ * @author rvesse
+ *
+ */
+public class IriValidationCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IriValidationCache.class);
+
+    /**
+     * Default maximum number of cached URLs
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /**
+     * Lock held while parsing since the IRI parser is not thread safe
+     */
+    private static final Object PARSE_LOCK = new Object();
+
+    private final int maxEntries;
+    private final Map<String, ExternalLinkResult> entries = new LinkedHashMap<String, ExternalLinkResult>(16, 0.75f,
+            true);
+    private long hits = 0, misses = 0, evictions = 0;
+
+    /**
+     * Creates a cache with the default maximum number of URLs
+     */
+    public IriValidationCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a cache with the given maximum number of URLs
+     *
+     * @param maxEntries
+     *            Maximum number of cached URLs, zero disables caching
+     */
+    public IriValidationCache(int maxEntries) {
+        if (maxEntries < 0)
+            throw new IllegalArgumentException("Maximum entries cannot be negative");
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Validates a URL against the IRI specification, parsing it only if it is
+     * not already cached
+     *
+     * @param url
+     *            URL
+     * @return Result with the violations found, the status is
+     *         {@link ExternalLinkResult.Status#INVALID_IRI} if any violation
+     *         is an error and {@link ExternalLinkResult.Status#VALID}
+     *         otherwise, the result must not be modified
+     */
+    public ExternalLinkResult validate(String url) {
+        ExternalLinkResult result = this.lookup(url, true);
+        if (result != null)
+            return result;
+
+        synchronized (PARSE_LOCK) {
+            // Another thread may have parsed the URL while we waited
+            result = this.lookup(url, false);
+            if (result != null)
+                return result;
+            result = parse(url);
+            this.put(url, result);
+        }
+        return result;
+    }
+
+    private synchronized ExternalLinkResult lookup(String url, boolean count) {
+        ExternalLinkResult result = this.entries.get(url);
+        if (count) {
+            if (result != null) {
+                this.hits++;
+            } else {
+                this.misses++;
+            }
+        }
+        return result;
+    }
+
+    private synchronized void put(String url, ExternalLinkResult result) {
+        if (this.maxEntries == 0)
+            return;
+        this.entries.put(url, result);
+
+        // Evict least recently used entries until we are within bounds
+        Iterator<String> iter = this.entries.keySet().iterator();
+        while (this.entries.size() > this.maxEntries && iter.hasNext()) {
+            iter.next();
+            iter.remove();
+            this.evictions++;
+        }
+    }
+
+    /**
+     * Parses a URL and collects its violations, callers must hold the parse
+     * lock
+     */
+    private static ExternalLinkResult parse(String url) {
+        ExternalLinkResult result = new ExternalLinkResult(ExternalLinkResult.Status.VALID, -1);
+        IRI iri = IRIFactory.uriImplementation().create(url);
+        if (iri.hasViolation(true)) {
+            Iterator<Violation> violations = iri.violations(true);
+            boolean iriErrors = false;
+            while (violations.hasNext()) {
+                Violation violation = violations.next();
+                if (violation.isError()) {
+                    iriErrors = true;
+                    result.addViolation(true, violation.getLongMessage());
+                    LOGGER.error("Link " + url + " is not a valid IRI - " + violation.getLongMessage());
+                } else {
+                    result.addViolation(false, violation.getShortMessage());
+                    LOGGER.warn("Link " + url + " has an IRI warning - " + violation.getLongMessage());
+                }
+            }
+
+            // Skip further validation if has errors
+            if (iriErrors)
+                return result.withStatus(ExternalLinkResult.Status.INVALID_IRI, -1);
+        }
+        return result;
+    }
+
+    /**
+     * Removes all cached URLs, statistics are retained
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Gets the number of cached URLs
+     *
+     * @return Number of URLs
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Gets the number of validations answered from the cache
+     *
+     * @return Hits
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Gets the number of validations that had to parse the URL
+     *
+     * @return Misses
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Gets the number of URLs that have been evicted to stay within bounds
+     *
+     * @return Evictions
+     */
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return this.hits + " Hit(s), " + this.misses + " Miss(es) and " + this.evictions + " Eviction(s)";
+    }
+}
@@ -22,6 +22,12 @@ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 package org.dotnetrdf.wiki.checker.checks.links;
 
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.dotnetrdf.wiki.checker.checks.CacheableCheck;
+import org.dotnetrdf.wiki.checker.checks.CheckData;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
 import org.dotnetrdf.wiki.checker.checks.LinkCheck;
 import org.dotnetrdf.wiki.checker.data.AbstractCheckedWiki;
 import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
@@ -37,7 +43,7 @@ import org.slf4j.LoggerFactory;
  * @author rvesse
  * 
  */
-public class MissingFriendlyTextCheck implements LinkCheck {
+public class MissingFriendlyTextCheck implements LinkCheck, CheckDependencies, CacheableCheck {
     private static final Logger LOGGER = LoggerFactory.getLogger(MissingFriendlyTextCheck.class);
 
     @Override
@@ -52,4 +58,18 @@ public class MissingFriendlyTextCheck implements LinkCheck {
         }
     }
 
+    @Override
+    public String getConfigurationKey() {
+        return "";
+    }
+
+    @Override
+    public Set<CheckData> getRequiredData() {
+        return EnumSet.of(CheckData.OUTBOUND_LINKS);
+    }
+
+    @Override
+    public Set<CheckData> getProducedData() {
+        return EnumSet.noneOf(CheckData.class);
+    }
 }
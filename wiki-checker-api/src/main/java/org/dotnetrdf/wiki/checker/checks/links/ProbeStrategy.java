@@ -0,0 +1,206 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks.links;
+
+import java.net.URI;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which requests are used to probe an external URL
+ * <p>
+ * The probes for a URL are tried in order until one succeeds, the status of
+ * the last probe tried is the status of the URL. By default a HTTP HEAD
+ * request is tried first, then a HTTP GET for just the first byte of the
+ * content and finally a HTTP GET which is aborted as soon as the headers are
+ * received. None of these transfer more than a small part of the content.
+ * </p>
+ * <p>
+ * The probes may be configured for individual hosts, a rule for a host also
+ * applies to its sub-domains, and for content types, which are guessed from
+ * the file extension of the URL path. Host rules take precedence over content
+ * type rules.
+ * </p>
+ *
+ * @author rvesse
+ *
+ */
+public class ProbeStrategy {
+
+    /**
+     * Kinds of probe
+     */
+    public enum Probe {
+        /**
+         * A HTTP HEAD request
+         */
+        HEAD,
+        /**
+         * A HTTP GET request for the first byte of the content
+         */
+        RANGE_GET,
+        /**
+         * A HTTP GET request which is aborted once the headers are received
+         */
+        GET
+    }
+
+    /**
+     * The default probes
+     */
+    public static final List<Probe> DEFAULT_PROBES = Collections.unmodifiableList(Arrays.asList(Probe.HEAD,
+            Probe.RANGE_GET, Probe.GET));
+
+    private volatile List<Probe> defaultProbes = DEFAULT_PROBES;
+    private final Map<String, List<Probe>> hostProbes = new ConcurrentHashMap<String, List<Probe>>();
+    private final Map<String, List<Probe>> contentTypeProbes = new ConcurrentHashMap<String, List<Probe>>();
+
+    /**
+     * Sets the probes used when no rule applies
+     *
+     * @param probes
+     *            Probes
+     */
+    public void setDefaultProbes(Probe... probes) {
+        this.defaultProbes = toList(probes);
+    }
+
+    /**
+     * Sets the probes used for a host and its sub-domains
+     *
+     * @param host
+     *            Host
+     * @param probes
+     *            Probes
+     */
+    public void setHostProbes(String host, Probe... probes) {
+        this.hostProbes.put(host.toLowerCase(Locale.ENGLISH), toList(probes));
+    }
+
+    /**
+     * Sets the probes used for a content type
+     *
+     * @param contentType
+     *            Content type, a type ending in {@code /} such as
+     *            {@code image/} matches all sub-types
+     * @param probes
+     *            Probes
+     */
+    public void setContentTypeProbes(String contentType, Probe... probes) {
+        this.contentTypeProbes.put(contentType.toLowerCase(Locale.ENGLISH), toList(probes));
+    }
+
+    /**
+     * Adds a rule of the form {@code key=PROBE,PROBE} where the key is a
+     * content type if it contains a {@code /} and a host otherwise
+     *
+     * @param rule
+     *            Rule
+     * @throws IllegalArgumentException
+     *             Thrown if the rule is malformed
+     */
+    public void addRule(String rule) {
+        int eq = rule.indexOf('=');
+        if (eq <= 0)
+            throw new IllegalArgumentException("Probe rule " + rule + " is not of the form key=PROBE,PROBE");
+        String key = rule.substring(0, eq).trim();
+        Probe[] probes = parse(rule.substring(eq + 1));
+        if (key.contains("/")) {
+            this.setContentTypeProbes(key, probes);
+        } else {
+            this.setHostProbes(key, probes);
+        }
+    }
+
+    /**
+     * Parses a comma separated list of probes
+     *
+     * @param probes
+     *            Probes e.g. {@code HEAD,GET}
+     * @return Probes
+     * @throws IllegalArgumentException
+     *             Thrown if a probe is not recognized
+     */
+    public static Probe[] parse(String probes) {
+        String[] names = probes.split(",");
+        Probe[] parsed = new Probe[names.length];
+        for (int i = 0; i < names.length; i++) {
+            parsed[i] = Probe.valueOf(names[i].trim().toUpperCase(Locale.ENGLISH));
+        }
+        return parsed;
+    }
+
+    /**
+     * Gets the probes to use for a URL
+     *
+     * @param url
+     *            URL
+     * @return Probes
+     */
+    public List<Probe> getProbes(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return this.defaultProbes;
+        }
+
+        if (!this.hostProbes.isEmpty() && uri.getHost() != null) {
+            String host = uri.getHost().toLowerCase(Locale.ENGLISH);
+            while (true) {
+                List<Probe> probes = this.hostProbes.get(host);
+                if (probes != null)
+                    return probes;
+                int dot = host.indexOf('.');
+                if (dot < 0)
+                    break;
+                host = host.substring(dot + 1);
+            }
+        }
+
+        if (!this.contentTypeProbes.isEmpty() && uri.getPath() != null) {
+            String contentType = URLConnection.guessContentTypeFromName(uri.getPath());
+            if (contentType != null) {
+                contentType = contentType.toLowerCase(Locale.ENGLISH);
+                List<Probe> probes = this.contentTypeProbes.get(contentType);
+                if (probes == null)
+                    probes = this.contentTypeProbes.get(contentType.substring(0, contentType.indexOf('/') + 1));
+                if (probes != null)
+                    return probes;
+            }
+        }
+        return this.defaultProbes;
+    }
+
+    private static List<Probe> toList(Probe[] probes) {
+        if (probes.length == 0)
+            throw new IllegalArgumentException("At least one probe must be given");
+        return Collections.unmodifiableList(new ArrayList<Probe>(Arrays.asList(probes)));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker.checks.links;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+
+/**
+ * Normalizes external URLs so that URLs which identify the same resource are
+ * only validated once
+ * <p>
+ * Normalization removes the fragment, which is never sent to the server,
+ * lower cases the scheme and host, removes the port if it is the default for
+ * the scheme, resolves {@code .} and {@code ..} path segments and uses
+ * {@code /} as the path when it is empty. The query string is retained since
+ * it may identify a different resource. URLs which cannot be parsed are
+ * returned unchanged.
+ * </p>
+ *
+ * @author rvesse
+ *
+ */
+public final class UrlNormalizer {
+
+    private UrlNormalizer() {
+    }
+
+    /**
+     * Normalizes a URL
+     *
+     * @param url
+     *            URL
+     * @return Normalized URL
+     */
+    public static String normalize(String url) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            return url;
+        }
+        if (uri.isOpaque() || uri.getScheme() == null || uri.getRawAuthority() == null)
+            return url;
+
+        String scheme = uri.getScheme().toLowerCase(Locale.ENGLISH);
+        String host = uri.getHost();
+        if (host == null) {
+            // Registry based authority, just remove the fragment
+            int hash = url.indexOf('#');
+            return hash >= 0 ? url.substring(0, hash) : url;
+        }
+        int port = uri.getPort();
+        if ((port == 80 && scheme.equals("http")) || (port == 443 && scheme.equals("https")))
+            port = -1;
+        String path = uri.normalize().getRawPath();
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(scheme).append("://");
+        if (uri.getRawUserInfo() != null)
+            builder.append(uri.getRawUserInfo()).append('@');
+        builder.append(host.toLowerCase(Locale.ENGLISH));
+        if (port >= 0)
+            builder.append(':').append(port);
+        builder.append(path == null || path.length() == 0 ? "/" : path);
+        if (uri.getRawQuery() != null)
+            builder.append('?').append(uri.getRawQuery());
+        return builder.toString();
+    }
+}
@@ -22,22 +22,49 @@ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 package org.dotnetrdf.wiki.checker.checks.links;
 
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.dotnetrdf.wiki.checker.checks.CheckData;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
 import org.dotnetrdf.wiki.checker.checks.LinkCheck;
+import org.dotnetrdf.wiki.checker.checks.TextReadingCheck;
 import org.dotnetrdf.wiki.checker.data.AbstractCheckedWiki;
 import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
 import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
+import org.dotnetrdf.wiki.data.documents.AnchorIndex;
+import org.dotnetrdf.wiki.data.documents.DocumentTextCache;
+import org.dotnetrdf.wiki.data.issues.Warning;
+import org.dotnetrdf.wiki.parser.links.LinkDetector;
+import org.dotnetrdf.wiki.parser.links.LinkDetectorRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * A link check which validates wiki links and registers inbound links on the
  * targeted documents
+ * <p>
+ * Links to a section of a document, i.e. with a fragment such as
+ * {@code Page#Section} or just {@code #Section} for the linking document, are
+ * validated against the anchor index of the targeted document. Anchors are
+ * usually indexed while detecting the links of the document, documents whose
+ * links were not detected are indexed when first needed, reading their text
+ * through the text cache of the checker. Fragments targeting
+ * documents in formats whose headings are not detected are not validated.
+ * </p>
  * 
  * @author rvesse
  * 
  */
-public class WikiLinkCheck implements LinkCheck {
+public class WikiLinkCheck implements LinkCheck, CheckDependencies, TextReadingCheck {
     private static final Logger LOGGER = LoggerFactory.getLogger(WikiLinkCheck.class);
+    private volatile DocumentTextCache textCache;
+
+    @Override
+    public void setTextCache(DocumentTextCache cache) {
+        this.textCache = cache;
+    }
 
     @Override
     public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document, TLink link,
@@ -45,21 +72,74 @@ public class WikiLinkCheck implements LinkCheck {
         if (!link.isWikiLink())
             return;
         
-        // Wiki Link Validation
-        String linkPath = link.getPath();
-        TDoc target = wiki.getDocument(linkPath);
+        // Wiki Link Validation, links interned in the wiki symbol table can be
+        // resolved by id, a link consisting only of a fragment targets this
+        // document
+        TDoc target = link.getPath().startsWith("#") ? document : wiki.getLinkTarget(link);
         if (target == null) {
             // Mark as Broken
             document.addIssue(new org.dotnetrdf.wiki.data.issues.Error("Broken Wiki Link - " + link.toString()));
             LOGGER.error("Broken wiki link " + link.toString());
-        } else {
-            // Mark as Inbound Link on target Page
-            // Don't count self referential links in inbound links
-            if (!document.getPath().equals(link.getPath())) {
-                target.addInboundLink(link);
+            return;
+        }
+
+        // Mark as Inbound Link on target Page
+        // Don't count self referential links in inbound links
+        if (document.getPathId() != target.getPathId()) {
+            target.addInboundLink(link);
+        }
+
+        // Validate the section linked to if any
+        String anchor = AnchorScanner.getAnchor(link.getPath());
+        if (anchor != null) {
+            AnchorIndex anchors = this.getAnchorIndex(target);
+            if (anchors != null && !anchors.contains(anchor)) {
+                document.addIssue(new Warning("Broken Wiki Link anchor #" + anchor + ", no such heading in "
+                        + target.getPath() + " - " + link.toString()));
+                LOGGER.warn("Broken wiki link anchor " + link.toString());
             }
         }
+    }
+
+    /**
+     * Gets the anchor index of a document indexing its anchors if they have
+     * not yet been detected
+     * 
+     * @param document
+     *            Document
+     * @return Anchor index or null if the anchors of the document cannot be
+     *         detected
+     */
+    private AnchorIndex getAnchorIndex(CheckedDocument<?> document) {
+        AnchorIndex anchors = document.getAnchorIndex();
+        if (anchors != null)
+            return anchors;
+        LinkDetector detector = LinkDetectorRegistry.getLinkDetector(document.getFormat());
+        if (detector == null || !detector.detectsAnchors())
+            return null;
+
+        // Concurrent checks may index the same document more than once which
+        // is harmless since the indexes are identical
+        try {
+            DocumentTextCache cache = this.textCache;
+            CharSequence content = cache != null ? cache.getContent(document) : document.getContent();
+            if (content == null)
+                return null;
+            detector.findAnchors(document, content);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to detect the anchors of " + document.getPath() + " - " + e.getMessage());
+            return null;
+        }
+        return document.getAnchorIndex();
+    }
 
+    @Override
+    public Set<CheckData> getRequiredData() {
+        return EnumSet.of(CheckData.OUTBOUND_LINKS);
     }
 
+    @Override
+    public Set<CheckData> getProducedData() {
+        return EnumSet.of(CheckData.INBOUND_LINKS);
+    }
 }
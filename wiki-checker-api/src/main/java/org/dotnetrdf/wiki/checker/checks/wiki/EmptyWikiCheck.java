@@ -22,6 +22,11 @@ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 package org.dotnetrdf.wiki.checker.checks.wiki;
 
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.dotnetrdf.wiki.checker.checks.CheckData;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
 import org.dotnetrdf.wiki.checker.checks.WikiCheck;
 import org.dotnetrdf.wiki.checker.data.CheckedWiki;
 import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
@@ -33,7 +38,7 @@ import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
  * @author rvesse
  * 
  */
-public class EmptyWikiCheck implements WikiCheck {
+public class EmptyWikiCheck implements WikiCheck, CheckDependencies {
 
     @Override
     public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(CheckedWiki<TLink, TDoc> wiki) {
@@ -41,4 +46,13 @@ public class EmptyWikiCheck implements WikiCheck {
             wiki.addGlobalIssue(new org.dotnetrdf.wiki.data.issues.Error("Wiki has no documents"));
     }
 
+    @Override
+    public Set<CheckData> getRequiredData() {
+        return EnumSet.noneOf(CheckData.class);
+    }
+
+    @Override
+    public Set<CheckData> getProducedData() {
+        return EnumSet.noneOf(CheckData.class);
+    }
 }
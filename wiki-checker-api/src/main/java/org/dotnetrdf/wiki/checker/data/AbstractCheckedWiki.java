@@ -22,9 +22,10 @@ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 package org.dotnetrdf.wiki.checker.data;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
 import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
@@ -35,6 +36,11 @@ import org.dotnetrdf.wiki.data.issues.AbstractIssue;
 /**
  * Abstract implementation of a checked wiki which is a wiki composed of
  * documents which may be checked
+ * <p>
+ * Global issues may be added from multiple threads. Marking the wiki as
+ * checked publishes the results of the check to any thread which subsequently
+ * sees the wiki as checked.
+ * </p>
  * 
  * @author rvesse
  * @param <TLink>
@@ -45,8 +51,8 @@ import org.dotnetrdf.wiki.data.issues.AbstractIssue;
 public abstract class AbstractCheckedWiki<TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> extends
         AbstractWiki<TLink, TDoc> implements CheckedWiki<TLink, TDoc> {
 
-    private boolean checked = false;
-    protected Set<AbstractIssue> globalIssues = new HashSet<AbstractIssue>();
+    private volatile boolean checked = false;
+    protected Set<AbstractIssue> globalIssues = Collections.newSetFromMap(new ConcurrentHashMap<AbstractIssue, Boolean>());
 
     @Override
     public int getTotalErrorCount() {
@@ -86,6 +92,11 @@ public abstract class AbstractCheckedWiki<TLink extends CheckedLink, TDoc extend
         this.globalIssues.add(issue);
     }
 
+    @Override
+    public void clearGlobalIssues() {
+        this.globalIssues.clear();
+    }
+
     @Override
     public boolean hasGlobalIssues() {
         return this.globalIssues.size() > 0;
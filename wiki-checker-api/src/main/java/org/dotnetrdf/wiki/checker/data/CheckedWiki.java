@@ -72,6 +72,12 @@ public interface CheckedWiki<TLink extends CheckedLink, TDoc extends CheckedDocu
      */
     public abstract void addGlobalIssue(AbstractIssue issue);
 
+    /**
+     * Removes all global issues from the wiki, typically prior to the global
+     * wiki checks being run again
+     */
+    public abstract void clearGlobalIssues();
+
     /**
      * Gets whether the wiki has any global issues (errors/warnings)
      * 
@@ -24,8 +24,11 @@ package org.dotnetrdf.wiki.checker.data.documents;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
 import org.dotnetrdf.wiki.data.documents.AbstractDocument;
@@ -35,6 +38,9 @@ import org.dotnetrdf.wiki.data.issues.AbstractIssue;
 
 /**
  * Abstract implementation of a checked document
+ * <p>
+ * Issues may be added from multiple threads.
+ * </p>
  * 
  * @author rvesse
  * @param <TLink>
@@ -45,8 +51,8 @@ public abstract class AbstractCheckedDocument<TLink extends CheckedLink> extends
         CheckedDocument<TLink> {
     // TODO Should really add a CheckedLink type
 
-    private boolean checked = false;
-    private List<AbstractIssue> issues = new ArrayList<AbstractIssue>();
+    private volatile boolean checked = false;
+    private volatile List<AbstractIssue> issues = new CopyOnWriteArrayList<AbstractIssue>();
 
     /**
      * Creates a document
@@ -73,10 +79,15 @@ public abstract class AbstractCheckedDocument<TLink extends CheckedLink> extends
     }
 
     @Override
-    public void addIssue(AbstractIssue issue) {
+    public synchronized void addIssue(AbstractIssue issue) {
         this.issues.add(issue);
     }
 
+    @Override
+    public synchronized void clearIssues() {
+        this.issues = new CopyOnWriteArrayList<AbstractIssue>();
+    }
+
     @Override
     public boolean hasIssues() {
         return this.issues.size() > 0;
@@ -96,6 +107,13 @@ public abstract class AbstractCheckedDocument<TLink extends CheckedLink> extends
         return this.issues.iterator();
     }
 
+    @Override
+    public synchronized void sortIssues(Comparator<? super AbstractIssue> comparator) {
+        List<AbstractIssue> sorted = new ArrayList<AbstractIssue>(this.issues);
+        Collections.sort(sorted, comparator);
+        this.issues = new CopyOnWriteArrayList<AbstractIssue>(sorted);
+    }
+
     @Override
     public int getIssueCount() {
         return this.issues.size();
@@ -124,7 +142,7 @@ public abstract class AbstractCheckedDocument<TLink extends CheckedLink> extends
     @Override
     public String toString() {
         if (this.checked) {
-            return this.getPath() + " (Format: " + this.format.toString() + " with " + this.links.size()
+            return this.getPath() + " (Format: " + this.format.toString() + " with " + this.getOutboundLinkCount()
                     + " Outbound Link(s) with " + this.issues.size() + " Issue(s) and " + this.inboundLinks.size()
                     + " Inbound Link(s))";
         } else {
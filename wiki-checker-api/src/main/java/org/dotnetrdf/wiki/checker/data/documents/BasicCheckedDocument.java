@@ -23,14 +23,9 @@ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 package org.dotnetrdf.wiki.checker.data.documents;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 
 import org.dotnetrdf.wiki.checker.data.links.BasicCheckedLink;
 import org.dotnetrdf.wiki.data.documents.formats.Format;
-import org.dotnetrdf.wiki.data.issues.Issue;
-import org.dotnetrdf.wiki.data.issues.AbstractIssue;
 
 /**
  * A document which can be checked and have issues logged against it
@@ -39,10 +34,6 @@ import org.dotnetrdf.wiki.data.issues.AbstractIssue;
  * 
  */
 public class BasicCheckedDocument extends AbstractCheckedDocument<BasicCheckedLink> {
-    // TODO Should really add a CheckedLink type
-
-    private boolean checked = false;
-    private List<AbstractIssue> issues = new ArrayList<AbstractIssue>();
 
     /**
      * Creates a document
@@ -68,120 +59,8 @@ public class BasicCheckedDocument extends AbstractCheckedDocument<BasicCheckedLi
         return new BasicCheckedLink(path, line, column);
     }
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see
-     * org.dotnetrdf.wiki.checker.data.documents.ICheckedDocument#hasBeenChecked
-     * ()
-     */
-    @Override
-    public boolean hasBeenChecked() {
-        return this.checked;
-    }
-
-    /**
-     * Sets whether the document has been checked
-     * 
-     * @param checked
-     *            Check status of the document
-     */
-    public void setChecked(boolean checked) {
-        this.checked = checked;
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see
-     * org.dotnetrdf.wiki.checker.data.documents.ICheckedDocument#addIssue(org
-     * .dotnetrdf.wiki.checker.issues.Issue)
-     */
-    @Override
-    public void addIssue(AbstractIssue issue) {
-        this.issues.add(issue);
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see
-     * org.dotnetrdf.wiki.checker.data.documents.ICheckedDocument#hasIssues()
-     */
-    @Override
-    public boolean hasIssues() {
-        return this.issues.size() > 0;
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see
-     * org.dotnetrdf.wiki.checker.data.documents.ICheckedDocument#hasErrors()
-     */
-    @Override
-    public boolean hasErrors() {
-        for (Issue issue : this.issues) {
-            if (issue.isError())
-                return true;
-        }
-        return false;
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see
-     * org.dotnetrdf.wiki.checker.data.documents.ICheckedDocument#getIssues()
-     */
-    @Override
-    public Iterator<AbstractIssue> getIssues() {
-        return this.issues.iterator();
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see
-     * org.dotnetrdf.wiki.checker.data.documents.ICheckedDocument#getIssueCount
-     * ()
-     */
-    @Override
-    public int getIssueCount() {
-        return this.issues.size();
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see
-     * org.dotnetrdf.wiki.checker.data.documents.ICheckedDocument#getErrorCount
-     * ()
-     */
-    @Override
-    public int getErrorCount() {
-        int count = 0;
-        for (Issue i : this.issues) {
-            if (i.isError())
-                count++;
-        }
-        return count;
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see
-     * org.dotnetrdf.wiki.checker.data.documents.ICheckedDocument#getWarningCount
-     * ()
-     */
     @Override
-    public int getWarningCount() {
-        int count = 0;
-        for (Issue i : this.issues) {
-            if (!i.isError())
-                count++;
-        }
-        return count;
+    protected BasicCheckedLink createLink(String path, String text, int line, int column, int pathId) {
+        return new BasicCheckedLink(path, text, line, column, pathId);
     }
 }
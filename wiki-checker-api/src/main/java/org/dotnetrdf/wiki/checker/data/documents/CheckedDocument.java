@@ -22,6 +22,7 @@ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 package org.dotnetrdf.wiki.checker.data.documents;
 
+import java.util.Comparator;
 import java.util.Iterator;
 
 import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
@@ -53,6 +54,12 @@ public interface CheckedDocument<TLink extends CheckedLink> extends Document<TLi
      */
     public abstract void addIssue(AbstractIssue issue);
 
+    /**
+     * Removes all issues from the document, typically prior to the document
+     * being checked again
+     */
+    public abstract void clearIssues();
+
     /**
      * Gets whether the document has any issues (errors/warnings)
      * 
@@ -74,6 +81,15 @@ public interface CheckedDocument<TLink extends CheckedLink> extends Document<TLi
      */
     public abstract Iterator<AbstractIssue> getIssues();
 
+    /**
+     * Sorts the issues for the document, the sort is stable so issues which
+     * compare as equal retain their existing order
+     * 
+     * @param comparator
+     *            Comparator
+     */
+    public abstract void sortIssues(Comparator<? super AbstractIssue> comparator);
+
     /**
      * Gets the number of issues identified
      * 
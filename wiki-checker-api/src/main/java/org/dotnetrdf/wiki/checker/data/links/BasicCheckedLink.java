@@ -62,4 +62,22 @@ public class BasicCheckedLink extends BasicLink implements CheckedLink {
         super(path, text, line, column);
     }
 
+    /**
+     * Creates a link whose path has been interned in a symbol table
+     * 
+     * @param path
+     *            Path
+     * @param text
+     *            Display Text
+     * @param line
+     *            Line
+     * @param column
+     *            Column
+     * @param pathId
+     *            Symbol id of the path
+     */
+    public BasicCheckedLink(String path, String text, int line, int column, int pathId) {
+        super(path, text, line, column, pathId);
+    }
+
 }
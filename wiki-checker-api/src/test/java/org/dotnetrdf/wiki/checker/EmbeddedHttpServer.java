@@ -0,0 +1,146 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embedded HTTP server on the loopback interface for tests which validate
+ * external links, it records the requests made to it
+ * <p>
+ * Responses are produced by the given handler which should call
+ * {@link #count(String)} to record each request it receives.
+ * </p>
+ *
+ * @author rvesse
+ *
+ */
+public class EmbeddedHttpServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<String, AtomicInteger>();
+    private final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+    /**
+     * Creates and starts a new server
+     *
+     * @param handler
+     *            Handler which responds to all requests
+     * @throws IOException
+     *             Thrown if the server cannot be started
+     */
+    public EmbeddedHttpServer(HttpHandler handler) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", handler);
+        this.server.setExecutor(this.executor);
+        this.server.start();
+    }
+
+    /**
+     * Stops the server
+     */
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Forgets the requests recorded so far
+     */
+    public void reset() {
+        this.requests.clear();
+        this.order.clear();
+    }
+
+    /**
+     * Records a request
+     *
+     * @param request
+     *            Description of the request, typically the method and path
+     */
+    public void count(String request) {
+        this.order.add(request);
+        AtomicInteger count = new AtomicInteger();
+        AtomicInteger existing = this.requests.putIfAbsent(request, count);
+        (existing != null ? existing : count).incrementAndGet();
+    }
+
+    /**
+     * Gets how often a request has been recorded
+     *
+     * @param request
+     *            Description of the request
+     * @return Number of times recorded
+     */
+    public int getCount(String request) {
+        AtomicInteger count = this.requests.get(request);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Gets the recorded requests in the order they were received
+     *
+     * @return Requests
+     */
+    public List<String> getOrder() {
+        return this.order;
+    }
+
+    /**
+     * Gets a URL for a path on the server
+     *
+     * @param path
+     *            Path
+     * @return URL
+     */
+    public String url(String path) {
+        return this.url("127.0.0.1", path);
+    }
+
+    /**
+     * Gets a URL for a path on the server using a specific host name, any
+     * name resolving to the loopback interface reaches the server
+     *
+     * @param host
+     *            Host name
+     * @param path
+     *            Path
+     * @return URL
+     */
+    public String url(String host, String path) {
+        return "http://" + host + ":" + this.server.getAddress().getPort() + path;
+    }
+}
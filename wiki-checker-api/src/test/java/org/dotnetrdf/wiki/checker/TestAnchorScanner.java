@@ -0,0 +1,114 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.dotnetrdf.wiki.checker.checks.links.AnchorScanner;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for scanning HTML for anchors
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestAnchorScanner {
+
+    private static AnchorScanner scan(String html, String... anchors) throws IOException {
+        AnchorScanner scanner = new AnchorScanner(Arrays.asList(anchors));
+        scanner.scan(new StringReader(html));
+        return scanner;
+    }
+
+    /**
+     * Tests which fragments target an anchor and how they are decoded
+     */
+    @Test
+    public void fragments() {
+        Assert.assertNull(AnchorScanner.getAnchor("http://example.org/page"));
+        Assert.assertNull(AnchorScanner.getAnchor("http://example.org/page#"));
+        Assert.assertNull(AnchorScanner.getAnchor("http://example.org/page#top"));
+        Assert.assertNull(AnchorScanner.getAnchor("http://example.org/app#!/route"));
+        Assert.assertNull(AnchorScanner.getAnchor("http://example.org/app#/route"));
+        Assert.assertEquals(AnchorScanner.getAnchor("http://example.org/page#intro"), "intro");
+        Assert.assertEquals(AnchorScanner.getAnchor("http://example.org/page#a%20b%26c"), "a b&c");
+        Assert.assertEquals(AnchorScanner.getAnchor("http://example.org/page#caf%C3%A9"), "café");
+        Assert.assertEquals(AnchorScanner.getAnchor("http://example.org/page#100%"), "100%");
+        Assert.assertEquals(AnchorScanner.getAnchor("http://example.org/page#a+b"), "a+b");
+    }
+
+    /**
+     * Tests that ids of any element and names of a elements are found
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void attributes() throws IOException {
+        AnchorScanner scanner = scan("<html><body><H1 ID='one'>One</H1><div class=\"x\" id=two>Two</div>"
+                + "<a href=\"#\" name=\"three\">3</a><input name=\"four\"><p data-id=\"five\" id = \"six\" />"
+                + "<span id=\"a&amp;b\"></span></body></html>", "one", "two", "three", "four", "five", "six", "a&b");
+        Assert.assertFalse(scanner.isComplete());
+        Assert.assertTrue(scanner.getMissing().contains("four"));
+        Assert.assertTrue(scanner.getMissing().contains("five"));
+        Assert.assertEquals(scanner.getFound().size(), 5);
+    }
+
+    /**
+     * Tests that comments, scripts and styles are skipped
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void skipped() throws IOException {
+        AnchorScanner scanner = scan("<!DOCTYPE html><!-- <a id=\"comment\"> ---><script>var s = '<a id=\"script\">';"
+                + "</SCRIPT><style>p:before { content: '<b id=\"style\">' }</style><p id=\"real\">1 < 2</p>",
+                "comment", "script", "style", "real");
+        Assert.assertEquals(scanner.getFound().size(), 1);
+        Assert.assertTrue(scanner.getFound().contains("real"));
+    }
+
+    /**
+     * Tests that scanning stops once every anchor is found and copes with
+     * truncated HTML
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void incremental() throws IOException {
+        // Stops as soon as the tag containing the anchor is read
+        BufferedReader html = new BufferedReader(new StringReader(
+                "<p id=\"first\">First</p><p id=\"second\">Second</p>"), 1);
+        AnchorScanner scanner = new AnchorScanner(Arrays.asList("first"));
+        Assert.assertTrue(scanner.scan(html));
+        Assert.assertEquals(html.read(), 'F');
+
+        scanner = scan("<p id=\"first\">First</p><p id=\"sec", "first", "second");
+        Assert.assertFalse(scanner.isComplete());
+        Assert.assertTrue(scanner.getFound().contains("first"));
+    }
+}
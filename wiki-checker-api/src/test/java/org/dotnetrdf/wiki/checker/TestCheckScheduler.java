@@ -0,0 +1,300 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.dotnetrdf.wiki.checker.checks.CheckData;
+import org.dotnetrdf.wiki.checker.checks.CheckDependencies;
+import org.dotnetrdf.wiki.checker.checks.DocumentCheck;
+import org.dotnetrdf.wiki.checker.checks.LinkCheck;
+import org.dotnetrdf.wiki.checker.data.AbstractCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.BasicCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.CheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.BasicCheckedDocument;
+import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.BasicCheckedLink;
+import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
+import org.dotnetrdf.wiki.checker.parser.CheckedNioWikiScanner;
+import org.dotnetrdf.wiki.data.issues.AbstractIssue;
+import org.dotnetrdf.wiki.data.issues.Warning;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for scheduling checks according to their dependencies
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestCheckScheduler {
+
+    private File wikiDir;
+
+    /**
+     * Creates a small wiki on disk
+     * 
+     * @throws IOException
+     */
+    @BeforeClass
+    public void setup() throws IOException {
+        this.wikiDir = File.createTempFile("wiki", "");
+        this.wikiDir.delete();
+        this.wikiDir.mkdir();
+
+        for (int i = 0; i < 20; i++) {
+            StringBuilder content = new StringBuilder();
+            content.append("# Page ").append(i).append("\n\n");
+            content.append("See [Next](Page").append((i + 1) % 25).append(")\n");
+            if (i % 3 == 0)
+                content.append("See [](Page").append(i).append(")\n");
+            if (i % 4 == 0)
+                content.append("Contact [Us](mailto:us@example.org)\n");
+            FileWriter writer = new FileWriter(new File(this.wikiDir, "Page" + i + ".md"));
+            writer.write(content.toString());
+            writer.close();
+        }
+    }
+
+    /**
+     * Removes the wiki from disk
+     */
+    @AfterClass
+    public void teardown() {
+        File[] children = this.wikiDir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        this.wikiDir.delete();
+    }
+
+    private BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument> createChecker() throws IOException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        new CheckedNioWikiScanner<BasicCheckedLink, BasicCheckedDocument>().scan(wiki, this.wikiDir.getAbsolutePath());
+        return new BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument>(wiki, this.wikiDir.getAbsolutePath());
+    }
+
+    private static Map<String, List<String>> getIssues(CheckedWiki<BasicCheckedLink, BasicCheckedDocument> wiki,
+            boolean sort) {
+        Map<String, List<String>> issues = new TreeMap<String, List<String>>();
+        Iterator<BasicCheckedDocument> documents = wiki.getDocuments();
+        while (documents.hasNext()) {
+            BasicCheckedDocument document = documents.next();
+            Assert.assertTrue(document.hasBeenChecked());
+            List<String> messages = new ArrayList<String>();
+            Iterator<AbstractIssue> iter = document.getIssues();
+            while (iter.hasNext()) {
+                messages.add(iter.next().getMessage());
+            }
+            if (sort)
+                Collections.sort(messages);
+            issues.put(document.getPath(), messages);
+        }
+        return issues;
+    }
+
+    private Map<String, List<String>> check(ExecutorService executor, boolean scheduled, boolean sort)
+            throws IOException {
+        BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument> checker = this.createChecker();
+        checker.setExecutor(executor);
+        checker.setDependencyScheduling(scheduled);
+        checker.run();
+        Assert.assertTrue(checker.getWiki().hasBeenChecked());
+        return getIssues(checker.getWiki(), sort);
+    }
+
+    /**
+     * Tests that scheduled checks find the same issues as the fixed phases and
+     * always report them in the same order
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void scheduledMatchesPhased() throws IOException {
+        Assert.assertEquals(this.check(null, true, true), this.check(null, false, true));
+
+        Map<String, List<String>> expected = this.check(null, true, false);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int run = 0; run < 5; run++) {
+                Assert.assertEquals(this.check(executor, true, false), expected);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that a document check which only needs the link graph does not
+     * wait for a slow link check on another document
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void noWaitForUnrelatedChecks() throws IOException {
+        final CountDownLatch graphChecked = new CountDownLatch(19);
+        BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument> checker = this.createChecker();
+        checker.addLinkCheck(new SlowLinkCheck(graphChecked));
+        checker.addDocumentCheck(new GraphDocumentCheck(graphChecked));
+        checker.setDependencyScheduling(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            checker.setExecutor(executor);
+            checker.run();
+        } finally {
+            executor.shutdown();
+        }
+
+        BasicCheckedDocument slow = checker.getWiki().getDocument("Page0");
+        Iterator<AbstractIssue> issues = slow.getIssues();
+        boolean found = false;
+        while (issues.hasNext()) {
+            String message = issues.next().getMessage();
+            Assert.assertFalse(message.equals("Timed out"));
+            found = found || message.equals("Slow");
+        }
+        Assert.assertTrue(found);
+    }
+
+    /**
+     * Tests that cyclic dependencies are rejected
+     * 
+     * @throws IOException
+     */
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void cyclicDependencies() throws IOException {
+        BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument> checker = this.createChecker();
+        checker.addDocumentCheck(new DeclaredDocumentCheck(CheckData.INBOUND_LINKS, CheckData.EXTERNAL_LINK_STATUS));
+        checker.addDocumentCheck(new DeclaredDocumentCheck(CheckData.EXTERNAL_LINK_STATUS, CheckData.INBOUND_LINKS));
+        checker.setDependencyScheduling(true);
+        checker.run();
+    }
+
+    /**
+     * Link check which is slow for a single document, it waits until the link
+     * graph has been checked for every other document
+     */
+    private static class SlowLinkCheck implements LinkCheck, CheckDependencies {
+        private final CountDownLatch latch;
+
+        public SlowLinkCheck(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document,
+                TLink link, AbstractCheckedWiki<TLink, TDoc> wiki) {
+            if (!document.getPath().equals("Page0") || !link.isWikiLink())
+                return;
+            try {
+                document.addIssue(new Warning(this.latch.await(10, TimeUnit.SECONDS) ? "Slow" : "Timed out"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public Set<CheckData> getRequiredData() {
+            return EnumSet.of(CheckData.OUTBOUND_LINKS);
+        }
+
+        @Override
+        public Set<CheckData> getProducedData() {
+            return EnumSet.of(CheckData.EXTERNAL_LINK_STATUS);
+        }
+    }
+
+    /**
+     * Document check which only requires the link graph
+     */
+    private static class GraphDocumentCheck implements DocumentCheck, CheckDependencies {
+        private final CountDownLatch latch;
+
+        public GraphDocumentCheck(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document,
+                String text, CheckedWiki<TLink, TDoc> wiki) {
+            Assert.assertNotNull(wiki.getLinkGraph());
+            if (!document.getPath().equals("Page0"))
+                this.latch.countDown();
+        }
+
+        @Override
+        public Set<CheckData> getRequiredData() {
+            return EnumSet.of(CheckData.LINK_GRAPH);
+        }
+
+        @Override
+        public Set<CheckData> getProducedData() {
+            return EnumSet.noneOf(CheckData.class);
+        }
+    }
+
+    /**
+     * Document check which does nothing but declare dependencies
+     */
+    private static class DeclaredDocumentCheck implements DocumentCheck, CheckDependencies {
+        private final CheckData requires, produces;
+
+        public DeclaredDocumentCheck(CheckData requires, CheckData produces) {
+            this.requires = requires;
+            this.produces = produces;
+        }
+
+        @Override
+        public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document,
+                String text, CheckedWiki<TLink, TDoc> wiki) {
+        }
+
+        @Override
+        public Set<CheckData> getRequiredData() {
+            return EnumSet.of(this.requires);
+        }
+
+        @Override
+        public Set<CheckData> getProducedData() {
+            return EnumSet.of(this.produces);
+        }
+    }
+}
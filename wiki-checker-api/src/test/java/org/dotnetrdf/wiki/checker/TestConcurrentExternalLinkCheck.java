@@ -0,0 +1,690 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dotnetrdf.wiki.checker.checks.LinkCheck;
+import org.dotnetrdf.wiki.checker.checks.links.ConcurrentExternalLinkCheck;
+import org.dotnetrdf.wiki.checker.checks.links.ExternalLinkCheck;
+import org.dotnetrdf.wiki.checker.checks.links.ExternalLinkValidator;
+import org.dotnetrdf.wiki.checker.checks.links.HostStatus;
+import org.dotnetrdf.wiki.checker.checks.links.ProbeStrategy;
+import org.dotnetrdf.wiki.checker.data.BasicCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.BasicCheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.BasicCheckedLink;
+import org.dotnetrdf.wiki.checker.parser.CheckedNioWikiScanner;
+import org.dotnetrdf.wiki.data.documents.formats.Format;
+import org.dotnetrdf.wiki.data.issues.AbstractIssue;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Tests for concurrent external link checking against an embedded HTTP server
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestConcurrentExternalLinkCheck {
+
+    private static final int LARGE_SIZE = 4 * 1024 * 1024;
+
+    private EmbeddedHttpServer server;
+    private final AtomicInteger inFlight = new AtomicInteger(), maxInFlight = new AtomicInteger();
+
+    /**
+     * Starts the embedded HTTP server
+     * 
+     * @throws IOException
+     */
+    @BeforeClass
+    public void setup() throws IOException {
+        this.server = new EmbeddedHttpServer(new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                String method = exchange.getRequestMethod();
+                server.count(method + " " + path);
+
+                int status;
+                if (path.startsWith("/ok")) {
+                    status = 200;
+                } else if (path.startsWith("/down")) {
+                    status = 503;
+                } else if (path.startsWith("/nohead")) {
+                    status = method.equals("HEAD") ? 405 : 200;
+                } else if (path.startsWith("/large")) {
+                    // Rejects HEAD and honours ranges
+                    if (method.equals("HEAD")) {
+                        status = 405;
+                    } else if (exchange.getRequestHeaders().getFirst("Range") != null) {
+                        server.count("RANGE " + path);
+                        exchange.getResponseHeaders().set("Content-Range", "bytes 0-0/" + LARGE_SIZE);
+                        exchange.sendResponseHeaders(206, 1);
+                        exchange.getResponseBody().write('x');
+                        exchange.close();
+                        return;
+                    } else {
+                        try {
+                            exchange.sendResponseHeaders(200, LARGE_SIZE);
+                            byte[] data = new byte[8192];
+                            for (int i = 0; i < LARGE_SIZE / data.length; i++) {
+                                exchange.getResponseBody().write(data);
+                            }
+                        } finally {
+                            exchange.close();
+                        }
+                        return;
+                    }
+                } else if (path.startsWith("/page")) {
+                    // HTML with anchors, the huge page has its anchor after
+                    // lots of padding
+                    exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+                    if (method.equals("HEAD")) {
+                        exchange.sendResponseHeaders(200, -1);
+                        exchange.close();
+                        return;
+                    }
+                    StringBuilder html = new StringBuilder("<html><body><h1 id=\"intro\">Intro</h1>");
+                    if (path.startsWith("/page/huge")) {
+                        for (int i = 0; i < 1024; i++) {
+                            html.append("<p>Padding paragraph number ").append(i).append("</p>\n");
+                        }
+                    }
+                    html.append("<a name=\"legacy\"></a><h2 id=\"end\">End</h2></body></html>");
+                    byte[] data = html.toString().getBytes("UTF-8");
+                    try {
+                        exchange.sendResponseHeaders(200, data.length);
+                        exchange.getResponseBody().write(data);
+                    } finally {
+                        exchange.close();
+                    }
+                    return;
+                } else if (path.startsWith("/slow")) {
+                    int current = inFlight.incrementAndGet();
+                    while (true) {
+                        int max = maxInFlight.get();
+                        if (current <= max || maxInFlight.compareAndSet(max, current))
+                            break;
+                    }
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    inFlight.decrementAndGet();
+                    status = 200;
+                } else {
+                    status = 404;
+                }
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            }
+        });
+    }
+
+    /**
+     * Stops the embedded HTTP server
+     */
+    @AfterClass
+    public void teardown() {
+        this.server.stop();
+    }
+
+    /**
+     * Resets the request statistics
+     */
+    @BeforeMethod
+    public void reset() {
+        this.server.reset();
+        this.inFlight.set(0);
+        this.maxInFlight.set(0);
+    }
+
+    private static List<String> getIssues(BasicCheckedDocument document) {
+        List<String> messages = new ArrayList<String>();
+        Iterator<AbstractIssue> issues = document.getIssues();
+        while (issues.hasNext()) {
+            messages.add(issues.next().getMessage());
+        }
+        return messages;
+    }
+
+    /**
+     * Tests that results are attributed to the right documents, each URL is
+     * only validated once and a failed HEAD falls back to GETs
+     * 
+     * @throws InterruptedException
+     */
+    @Test
+    public void attribution() throws InterruptedException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument a = new BasicCheckedDocument("A.md", null, Format.MARKDOWN);
+        BasicCheckedDocument b = new BasicCheckedDocument("B.md", null, Format.MARKDOWN);
+        wiki.addDocument(a);
+        wiki.addDocument(b);
+
+        ConcurrentExternalLinkCheck check = new ConcurrentExternalLinkCheck(4, 2);
+        try {
+            BasicCheckedLink ok = a.createLink(this.server.url("127.0.0.1", "/ok"), "OK", 1, 1);
+            BasicCheckedLink missingA = a.createLink(this.server.url("127.0.0.1", "/missing"), "Missing", 2, 1);
+            BasicCheckedLink noHead = b.createLink(this.server.url("127.0.0.1", "/nohead"), "No HEAD", 1, 1);
+            BasicCheckedLink missingB = b.createLink(this.server.url("127.0.0.1", "/missing"), "Missing", 3, 5);
+            check.check(a, ok, wiki);
+            check.check(a, missingA, wiki);
+            check.check(b, noHead, wiki);
+            check.check(b, missingB, wiki);
+
+            // Issues are only added upon completion
+            Assert.assertEquals(a.getIssueCount(), 0);
+            check.complete(a);
+            check.complete(b);
+
+            Assert.assertEquals(getIssues(a), Collections.singletonList("Broken External Link (HTTP Status 404) - "
+                    + missingA.toString()));
+            Assert.assertEquals(getIssues(b), Collections.singletonList("Broken External Link (HTTP Status 404) - "
+                    + missingB.toString()));
+
+            Assert.assertEquals(this.server.getCount("HEAD /missing"), 1);
+            Assert.assertEquals(this.server.getCount("GET /missing"), 2);
+            Assert.assertEquals(this.server.getCount("HEAD /nohead"), 1);
+            Assert.assertEquals(this.server.getCount("GET /nohead"), 1);
+            Assert.assertEquals(this.server.getCount("HEAD /ok"), 1);
+            Assert.assertEquals(this.server.getCount("GET /ok"), 0);
+        } finally {
+            check.shutdown();
+        }
+    }
+
+    private void checkSlowLinks(ConcurrentExternalLinkCheck check, String... hosts) throws InterruptedException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument document = new BasicCheckedDocument("Slow.md", null, Format.MARKDOWN);
+        wiki.addDocument(document);
+        try {
+            for (int i = 0; i < 12; i++) {
+                String url = this.server.url(hosts[i % hosts.length], "/slow/" + i);
+                check.check(document, document.createLink(url, "Slow " + i, i + 1, 1), wiki);
+            }
+            check.complete(document);
+        } finally {
+            check.shutdown();
+        }
+        Assert.assertEquals(document.getIssueCount(), 0);
+        Assert.assertEquals(this.server.getCount("HEAD /slow/11"), 1);
+    }
+
+    /**
+     * Tests that requests to a single host respect the per host limit
+     * 
+     * @throws InterruptedException
+     */
+    @Test
+    public void perHostLimit() throws InterruptedException {
+        this.checkSlowLinks(new ConcurrentExternalLinkCheck(8, 2), "127.0.0.1");
+        Assert.assertTrue(this.maxInFlight.get() <= 2, "Max in flight was " + this.maxInFlight.get());
+        Assert.assertTrue(this.maxInFlight.get() > 1, "Requests were not concurrent");
+    }
+
+    /**
+     * Tests that requests to several hosts respect the global limit
+     * 
+     * @throws InterruptedException
+     */
+    @Test
+    public void globalLimit() throws InterruptedException {
+        this.checkSlowLinks(new ConcurrentExternalLinkCheck(3, 4), "127.0.0.1", "localhost");
+        Assert.assertTrue(this.maxInFlight.get() <= 3, "Max in flight was " + this.maxInFlight.get());
+    }
+
+    /**
+     * Tests that URLs are only validated once started, hosts are interleaved
+     * and the URLs of a host are ordered by how many links reference them
+     * 
+     * @throws InterruptedException
+     */
+    @Test
+    public void bulkValidation() throws InterruptedException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument a = new BasicCheckedDocument("A.md", null, Format.MARKDOWN);
+        BasicCheckedDocument b = new BasicCheckedDocument("B.md", null, Format.MARKDOWN);
+        wiki.addDocument(a);
+        wiki.addDocument(b);
+
+        ConcurrentExternalLinkCheck check = new ConcurrentExternalLinkCheck(1, 1);
+        try {
+            check.check(a, a.createLink(this.server.url("127.0.0.1", "/ok/rare"), "Rare", 1, 1), wiki);
+            check.check(a, a.createLink(this.server.url("127.0.0.1", "/ok/common"), "Common", 2, 1), wiki);
+            check.check(a, a.createLink(this.server.url("localhost", "/ok/other"), "Other", 3, 1), wiki);
+            check.check(b, b.createLink(this.server.url("127.0.0.1", "/ok/common"), "Common", 1, 1), wiki);
+            check.check(b, b.createLink(this.server.url("127.0.0.1", "/ok/common#top"), "Common", 2, 1), wiki);
+
+            // Nothing is requested until started
+            Thread.sleep(100);
+            Assert.assertTrue(this.server.getOrder().isEmpty());
+            Assert.assertEquals(check.getScheduledCount(), 0);
+
+            check.start();
+            check.complete(a);
+            check.complete(b);
+        } finally {
+            check.shutdown();
+        }
+
+        Assert.assertEquals(this.server.getOrder(), Arrays.asList("HEAD /ok/common", "HEAD /ok/other", "HEAD /ok/rare"));
+        Assert.assertEquals(check.getScheduledCount(), 3);
+        Assert.assertEquals(check.getValidatedCount(), 3);
+        Assert.assertEquals(a.getIssueCount() + b.getIssueCount(), 0);
+    }
+
+    /**
+     * Tests that a server which rejects HEAD is probed without downloading the
+     * content and that probes may be configured per host
+     * 
+     * @throws InterruptedException
+     */
+    @Test
+    public void probing() throws InterruptedException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument document = new BasicCheckedDocument("Large.md", null, Format.MARKDOWN);
+        wiki.addDocument(document);
+
+        ConcurrentExternalLinkCheck check = new ConcurrentExternalLinkCheck(4, 2);
+        ProbeStrategy probes = new ProbeStrategy();
+        probes.addRule("localhost=GET");
+        check.setProbeStrategy(probes);
+        ExternalLinkValidator validator = check.getValidator();
+        try {
+            check.check(document, document.createLink(this.server.url("127.0.0.1", "/large/range"), "Range", 1, 1), wiki);
+            check.check(document, document.createLink(this.server.url("localhost", "/large/get"), "Get", 2, 1), wiki);
+            check.complete(document);
+        } finally {
+            check.shutdown();
+        }
+        Assert.assertEquals(document.getIssueCount(), 0);
+
+        // Default probes fall back to a range request
+        Assert.assertEquals(this.server.getCount("HEAD /large/range"), 1);
+        Assert.assertEquals(this.server.getCount("RANGE /large/range"), 1);
+        Assert.assertEquals(this.server.getCount("GET /large/range"), 1);
+
+        // Host rule goes straight to a GET which is aborted
+        Assert.assertEquals(this.server.getCount("HEAD /large/get"), 0);
+        Assert.assertEquals(this.server.getCount("RANGE /large/get"), 0);
+        Assert.assertEquals(this.server.getCount("GET /large/get"), 1);
+
+        Assert.assertEquals(validator.getRequestedCount(), 2);
+        Assert.assertEquals(validator.getRequestCount(), 3);
+        Assert.assertEquals(validator.getRequestCount(ProbeStrategy.Probe.HEAD), 1);
+        Assert.assertEquals(validator.getRequestCount(ProbeStrategy.Probe.RANGE_GET), 1);
+        Assert.assertEquals(validator.getRequestCount(ProbeStrategy.Probe.GET), 1);
+        Assert.assertTrue(validator.getBytesReceived() > 0);
+        Assert.assertTrue(validator.getBytesReceived() < LARGE_SIZE / 16, "Received " + validator.getBytesReceived()
+                + " bytes");
+    }
+
+    /**
+     * Tests that each page is scanned once for all the anchors targeted by
+     * links to it and only anchors definitely missing are reported
+     * 
+     * @throws InterruptedException
+     */
+    @Test
+    public void anchors() throws InterruptedException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument document = new BasicCheckedDocument("Anchors.md", null, Format.MARKDOWN);
+        wiki.addDocument(document);
+
+        ConcurrentExternalLinkCheck check = new ConcurrentExternalLinkCheck(4, 2);
+        check.setAnchorValidation(true);
+        check.setAnchorScanLimit(4096);
+        ExternalLinkValidator validator = check.getValidator();
+        try {
+            String[] fragments = { "", "#intro", "#legacy", "#end", "#top", "#missing", "#Intro" };
+            for (int i = 0; i < fragments.length; i++) {
+                check.check(document, document.createLink(this.server.url("127.0.0.1", "/page") + fragments[i], "Page", i, 1),
+                        wiki);
+            }
+            check.check(document, document.createLink(this.server.url("127.0.0.1", "/page/huge#missing"), "Huge", 10, 1),
+                    wiki);
+            check.check(document, document.createLink(this.server.url("127.0.0.1", "/ok#missing"), "Not HTML", 11, 1), wiki);
+            check.complete(document);
+        } finally {
+            check.shutdown();
+        }
+
+        // Anchors are case sensitive and the huge page is never fully scanned
+        List<String> issues = getIssues(document);
+        Assert.assertEquals(issues.size(), 2, issues.toString());
+        for (String issue : issues) {
+            Assert.assertTrue(issue.startsWith("External Link anchor #"), issue);
+        }
+        Assert.assertTrue(issues.get(0).contains("#missing") || issues.get(1).contains("#missing"));
+        Assert.assertTrue(issues.get(0).contains("#Intro") || issues.get(1).contains("#Intro"));
+
+        // Each page is retrieved once regardless of how many anchors it has
+        Assert.assertEquals(this.server.getCount("GET /page"), 1);
+        Assert.assertEquals(this.server.getCount("GET /page/huge"), 1);
+        Assert.assertEquals(validator.getAnchorScanCount(), 2);
+        Assert.assertEquals(validator.getTruncatedAnchorScanCount(), 1);
+    }
+
+    /**
+     * Tests that anchors are ignored unless anchor validation is enabled
+     * 
+     * @throws InterruptedException
+     */
+    @Test
+    public void anchorsDisabled() throws InterruptedException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument document = new BasicCheckedDocument("Anchors.md", null, Format.MARKDOWN);
+        wiki.addDocument(document);
+
+        ConcurrentExternalLinkCheck check = new ConcurrentExternalLinkCheck(4, 2);
+        try {
+            check.check(document, document.createLink(this.server.url("127.0.0.1", "/page#missing"), "Page", 1, 1), wiki);
+            check.complete(document);
+        } finally {
+            check.shutdown();
+        }
+        Assert.assertEquals(document.getIssueCount(), 0);
+        Assert.assertEquals(this.server.getCount("HEAD /page"), 1);
+        Assert.assertEquals(this.server.getCount("GET /page"), 0);
+        Assert.assertEquals(check.getValidator().getAnchorScanCount(), 0);
+    }
+
+    /**
+     * Tests that equivalent URLs are only validated once with the result
+     * reported against every link
+     * 
+     * @throws InterruptedException
+     */
+    @Test
+    public void normalization() throws InterruptedException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument document = new BasicCheckedDocument("Normalize.md", null, Format.MARKDOWN);
+        wiki.addDocument(document);
+
+        ConcurrentExternalLinkCheck check = new ConcurrentExternalLinkCheck(4, 2);
+        List<BasicCheckedLink> links = new ArrayList<BasicCheckedLink>();
+        try {
+            links.add(document.createLink(this.server.url("127.0.0.1", "/missing#a"), "A", 1, 1));
+            links.add(document.createLink(this.server.url("127.0.0.1", "/missing#b"), "B", 2, 1));
+            links.add(document.createLink(this.server.url("localhost", "/missing#c"), "C", 3, 1));
+            links.add(document.createLink(this.server.url("localhost", "/missing"), "D", 4, 1));
+            for (BasicCheckedLink link : links) {
+                check.check(document, link, wiki);
+            }
+            check.complete(document);
+        } finally {
+            check.shutdown();
+        }
+
+        List<String> expected = new ArrayList<String>();
+        for (BasicCheckedLink link : links) {
+            expected.add("Broken External Link (HTTP Status 404) - " + link.toString());
+        }
+        Assert.assertEquals(getIssues(document), expected);
+        Assert.assertEquals(this.server.getCount("HEAD /missing"), 2);
+        Assert.assertEquals(check.getDistinctUrlCount(), 4);
+        Assert.assertEquals(check.getNormalizedUrlCount(), 2);
+    }
+
+    /**
+     * Tests that the sequential check reports the result of an equivalent URL
+     * against every link, whatever the outcome of validating it
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void sequentialNormalization() throws IOException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument document = new BasicCheckedDocument("Normalize.md", null, Format.MARKDOWN);
+        wiki.addDocument(document);
+
+        ServerSocket socket = new ServerSocket(0);
+        String refused = "http://127.0.0.1:" + socket.getLocalPort() + "/";
+        socket.close();
+
+        ExternalLinkCheck check = new ExternalLinkCheck();
+        List<BasicCheckedLink> links = new ArrayList<BasicCheckedLink>();
+        links.add(document.createLink(this.server.url("127.0.0.1", "/missing#a"), "A", 1, 1));
+        links.add(document.createLink(this.server.url("127.0.0.1", "/missing#b"), "B", 2, 1));
+        links.add(document.createLink(refused + "#a", "C", 3, 1));
+        links.add(document.createLink(refused + "#b", "D", 4, 1));
+        for (BasicCheckedLink link : links) {
+            check.check(document, link, wiki);
+        }
+
+        List<String> expected = new ArrayList<String>();
+        expected.add("Broken External Link (HTTP Status 404) - " + links.get(0).toString());
+        expected.add("Broken External Link (HTTP Status 404) - " + links.get(1).toString());
+        expected.add("Unexpected Error with External Link URI - " + links.get(2).toString());
+        expected.add("Unexpected Error with External Link URI - " + links.get(3).toString());
+        Assert.assertEquals(getIssues(document), expected);
+        Assert.assertEquals(this.server.getCount("HEAD /missing"), 1);
+    }
+
+    /**
+     * Tests that the sequential check reports a link it was interrupted while
+     * waiting to validate rather than dropping it
+     * 
+     * @throws InterruptedException
+     */
+    @Test
+    public void sequentialInterrupted() throws InterruptedException {
+        final BasicCheckedWiki wiki = new BasicCheckedWiki();
+        final BasicCheckedDocument a = new BasicCheckedDocument("A.md", null, Format.MARKDOWN);
+        final BasicCheckedDocument b = new BasicCheckedDocument("B.md", null, Format.MARKDOWN);
+        wiki.addDocument(a);
+        wiki.addDocument(b);
+        final ExternalLinkCheck check = new ExternalLinkCheck();
+        final BasicCheckedLink linkA = a.createLink(this.server.url("127.0.0.1", "/slow"), "Slow", 1, 1);
+        final BasicCheckedLink linkB = b.createLink(this.server.url("127.0.0.1", "/slow"), "Slow", 1, 1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+
+        // A validates the slow URL while B, already interrupted, waits for it
+        Thread first = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                check.check(a, linkA, wiki);
+            }
+        });
+        first.start();
+        Thread.sleep(50);
+        Thread second = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Thread.currentThread().interrupt();
+                check.check(b, linkB, wiki);
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        second.start();
+        second.join();
+        first.join();
+
+        Assert.assertEquals(getIssues(a).size(), 0, getIssues(a).toString());
+        Assert.assertEquals(getIssues(b),
+                Arrays.asList("Unable to validate External Link since checking was interrupted - " + linkB.toString()));
+        Assert.assertTrue(interrupted.get());
+        Assert.assertEquals(this.server.getCount("HEAD /slow"), 1);
+    }
+
+    /**
+     * Tests that a host which keeps failing is deemed unavailable and its
+     * remaining URLs are reported as unresolved without being requested
+     * 
+     * @throws InterruptedException
+     */
+    @Test
+    public void circuitBreaker() throws InterruptedException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument document = new BasicCheckedDocument("Down.md", null, Format.MARKDOWN);
+        wiki.addDocument(document);
+
+        ConcurrentExternalLinkCheck check = new ConcurrentExternalLinkCheck(4, 1);
+        check.setFailureThreshold(3);
+        try {
+            for (int i = 0; i < 10; i++) {
+                check.check(document, document.createLink(this.server.url("127.0.0.1", "/down/" + i), "Down " + i, i + 1, 1),
+                        wiki);
+            }
+            check.check(document, document.createLink(this.server.url("localhost", "/ok"), "OK", 11, 1), wiki);
+            Assert.assertFalse(check.complete(document));
+        } finally {
+            check.shutdown();
+        }
+
+        List<String> issues = getIssues(document);
+        Assert.assertEquals(issues.size(), 10);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(issues.get(i).startsWith(i < 3 ? "Broken External Link (HTTP Status 503)"
+                    : "Unable to validate External Link since its host is unavailable"), issues.get(i));
+        }
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(this.server.getCount("HEAD /down/" + i), i < 3 ? 1 : 0);
+        }
+
+        List<HostStatus> hosts = check.getHostStatuses();
+        Assert.assertEquals(hosts.size(), 2);
+        HostStatus down = hosts.get(0);
+        Assert.assertEquals(down.getHost(), "127.0.0.1");
+        Assert.assertFalse(down.isAvailable());
+        Assert.assertEquals(down.getRequests(), 3);
+        Assert.assertEquals(down.getFailures(), 3);
+        Assert.assertEquals(down.getUnresolved(), 7);
+        HostStatus up = hosts.get(1);
+        Assert.assertEquals(up.getHost(), "localhost");
+        Assert.assertTrue(up.isAvailable());
+        Assert.assertEquals(up.getFailures(), 0);
+    }
+
+    /**
+     * Tests that requests to a host respect the rate limit
+     * 
+     * @throws InterruptedException
+     */
+    @Test
+    public void rateLimit() throws InterruptedException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument document = new BasicCheckedDocument("Rate.md", null, Format.MARKDOWN);
+        wiki.addDocument(document);
+
+        ConcurrentExternalLinkCheck check = new ConcurrentExternalLinkCheck(4, 2);
+        check.setRateLimit(10, 1);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < 6; i++) {
+                check.check(document, document.createLink(this.server.url("127.0.0.1", "/ok/" + i), "OK " + i, i + 1, 1),
+                        wiki);
+            }
+            Assert.assertTrue(check.complete(document));
+        } finally {
+            check.shutdown();
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // The first request is made immediately and the rest 100ms apart
+        Assert.assertEquals(document.getIssueCount(), 0);
+        Assert.assertTrue(elapsed >= 450, "Rate limited requests took only " + elapsed + "ms");
+        Assert.assertEquals(check.getHostStatuses().get(0).getRequests(), 6);
+    }
+
+    private Map<String, List<String>> checkWiki(File dir, LinkCheck externalLinkCheck, boolean scheduled)
+            throws IOException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        new CheckedNioWikiScanner<BasicCheckedLink, BasicCheckedDocument>().scan(wiki, dir.getAbsolutePath());
+        BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument> checker = new BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument>(
+                wiki, dir.getAbsolutePath(), externalLinkCheck);
+        checker.setDependencyScheduling(scheduled);
+        checker.run();
+
+        Map<String, List<String>> results = new TreeMap<String, List<String>>();
+        Iterator<BasicCheckedDocument> documents = wiki.getDocuments();
+        while (documents.hasNext()) {
+            BasicCheckedDocument document = documents.next();
+            results.put(document.getPath(), getIssues(document));
+        }
+        return results;
+    }
+
+    /**
+     * Tests that checking a wiki reports the same issues as the sequential
+     * external link check
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void matchesSequentialCheck() throws IOException {
+        File dir = File.createTempFile("wiki", "");
+        dir.delete();
+        dir.mkdir();
+        try {
+            for (int i = 0; i < 10; i++) {
+                FileWriter writer = new FileWriter(new File(dir, "Page" + i + ".md"));
+                writer.write("# Page " + i + "\n\n");
+                writer.write("See [OK](" + this.server.url("127.0.0.1", "/ok/" + (i % 3)) + ")\n");
+                writer.write("See [Missing](" + this.server.url("127.0.0.1", "/missing/" + (i % 4)) + ")\n");
+                writer.write("See [No HEAD](" + this.server.url("localhost", "/nohead/" + i) + ")\n");
+                writer.close();
+            }
+
+            Map<String, List<String>> expected = this.checkWiki(dir, new ExternalLinkCheck(), false);
+            for (boolean scheduled : new boolean[] { false, true }) {
+                ConcurrentExternalLinkCheck check = new ConcurrentExternalLinkCheck(4, 2);
+                try {
+                    Assert.assertEquals(this.checkWiki(dir, check, scheduled), expected);
+                } finally {
+                    check.shutdown();
+                }
+            }
+        } finally {
+            File[] children = dir.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    child.delete();
+                }
+            }
+            dir.delete();
+        }
+    }
+}
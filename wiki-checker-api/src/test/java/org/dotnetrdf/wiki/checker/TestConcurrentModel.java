@@ -0,0 +1,131 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dotnetrdf.wiki.checker.data.BasicCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.BasicCheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.BasicCheckedLink;
+import org.dotnetrdf.wiki.data.documents.formats.Format;
+import org.dotnetrdf.wiki.data.issues.Warning;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the wiki model may be driven from multiple threads without
+ * external locking
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestConcurrentModel {
+
+    private static final int THREADS = 8;
+    private static final int DOCUMENTS = 500;
+
+    private static void runAll(ExecutorService executor, List<Callable<Void>> tasks) throws Exception {
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+    }
+
+    /**
+     * Tests concurrently adding documents, links and issues
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void concurrentUpdates() throws Exception {
+        final BasicCheckedWiki wiki = new BasicCheckedWiki();
+        final AtomicInteger added = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            // Every thread tries to add every document
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (int t = 0; t < THREADS; t++) {
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int i = 0; i < DOCUMENTS; i++) {
+                            if (wiki.addDocumentIfAbsent(new BasicCheckedDocument("Page" + i + ".md", null,
+                                    Format.MARKDOWN)))
+                                added.incrementAndGet();
+                        }
+                        return null;
+                    }
+                });
+            }
+            runAll(executor, tasks);
+            Assert.assertEquals(added.get(), DOCUMENTS);
+            Assert.assertEquals(wiki.getDocumentCount(), DOCUMENTS);
+            for (int i = 0; i < DOCUMENTS; i++) {
+                BasicCheckedDocument document = wiki.getDocument("Page" + i);
+                Assert.assertSame(wiki.getDocument(document.getPathId()), document);
+            }
+
+            // Every thread links every document to the first document, adds
+            // inbound links and issues
+            tasks.clear();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        BasicCheckedDocument home = wiki.getDocument("Page0");
+                        for (int i = 0; i < DOCUMENTS; i++) {
+                            BasicCheckedDocument document = wiki.getDocument("Page" + i);
+                            BasicCheckedLink link = document.createLink("Page0", thread + 1, i + 1);
+                            document.addOutboundLink(link);
+                            home.addInboundLink(link);
+                            document.addIssue(new Warning("Issue " + thread));
+                        }
+                        wiki.addGlobalIssue(new Warning("Global " + thread));
+                        return null;
+                    }
+                });
+            }
+            runAll(executor, tasks);
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(wiki.getTotalLinks(), THREADS * DOCUMENTS);
+        Assert.assertEquals(wiki.getDocument("Page0").getInboundLinkCount(), THREADS * DOCUMENTS);
+        Assert.assertEquals(wiki.getGlobalIssueCount(), THREADS);
+        Assert.assertEquals(wiki.getTotalWarningCount(), THREADS * DOCUMENTS + THREADS);
+        Iterator<BasicCheckedDocument> documents = wiki.getDocuments();
+        while (documents.hasNext()) {
+            BasicCheckedDocument document = documents.next();
+            Assert.assertEquals(document.getOutboundLinkCount(), THREADS);
+            Assert.assertEquals(document.getIssueCount(), THREADS);
+        }
+    }
+}
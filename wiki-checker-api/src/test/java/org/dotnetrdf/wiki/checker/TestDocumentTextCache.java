@@ -0,0 +1,245 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.dotnetrdf.wiki.data.documents.BasicDocument;
+import org.dotnetrdf.wiki.data.documents.DocumentTextCache;
+import org.dotnetrdf.wiki.data.documents.formats.Format;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the bounded document text cache
+ *
+ * @author rvesse
+ *
+ */
+public class TestDocumentTextCache {
+
+    private File dir;
+
+    /**
+     * Creates a directory for the documents
+     *
+     * @throws IOException
+     */
+    @BeforeMethod
+    public void setup() throws IOException {
+        this.dir = File.createTempFile("text-cache", "");
+        this.dir.delete();
+        this.dir.mkdir();
+    }
+
+    /**
+     * Removes the documents from disk
+     */
+    @AfterMethod
+    public void teardown() {
+        File[] children = this.dir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        this.dir.delete();
+    }
+
+    private BasicDocument write(String name, byte[] content) throws IOException {
+        File f = new File(this.dir, name + ".md");
+        FileOutputStream output = new FileOutputStream(f);
+        output.write(content);
+        output.close();
+        return new BasicDocument(name + ".md", f, Format.MARKDOWN);
+    }
+
+    private BasicDocument write(String name, String content) throws IOException {
+        return this.write(name, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that cached text is returned without re-reading the document
+     *
+     * @throws IOException
+     */
+    @Test
+    public void hitsAndMisses() throws IOException {
+        DocumentTextCache cache = new DocumentTextCache();
+        BasicDocument doc = this.write("A", "Original");
+
+        Assert.assertEquals(cache.getText(doc), "Original");
+        Assert.assertEquals(cache.getHits(), 0);
+        Assert.assertEquals(cache.getMisses(), 1);
+
+        // Changes on disk are not seen while the text is cached
+        this.write("A", "Modified");
+        Assert.assertEquals(cache.getText(doc), "Original");
+        Assert.assertEquals(cache.getHits(), 1);
+        Assert.assertEquals(cache.getMisses(), 1);
+        Assert.assertEquals(cache.getSize(), 8);
+    }
+
+    /**
+     * Tests that invalidated and cleared text is read again
+     *
+     * @throws IOException
+     */
+    @Test
+    public void invalidateAndClear() throws IOException {
+        DocumentTextCache cache = new DocumentTextCache();
+        BasicDocument doc = this.write("A", "Original");
+        BasicDocument other = this.write("B", "Other");
+        cache.getText(doc);
+        cache.getText(other);
+        Assert.assertEquals(cache.getSize(), 13);
+
+        this.write("A", "Modified");
+        cache.invalidate(doc);
+        Assert.assertEquals(cache.getSize(), 5);
+        Assert.assertEquals(cache.getText(doc), "Modified");
+        Assert.assertEquals(cache.getText(other), "Other");
+        Assert.assertEquals(cache.getMisses(), 3);
+        Assert.assertEquals(cache.getHits(), 1);
+
+        // Invalidating uncached text has no effect
+        cache.invalidate(new BasicDocument("C.md", new File(this.dir, "C.md"), Format.MARKDOWN));
+        Assert.assertEquals(cache.getSize(), 13);
+
+        // Clearing retains the statistics
+        this.write("A", "Cleared!");
+        cache.clear();
+        Assert.assertEquals(cache.getSize(), 0);
+        Assert.assertEquals(cache.getText(doc), "Cleared!");
+        Assert.assertEquals(cache.getMisses(), 4);
+        Assert.assertEquals(cache.getHits(), 1);
+    }
+
+    /**
+     * Tests that the least recently used text is evicted to stay within the
+     * budget
+     *
+     * @throws IOException
+     */
+    @Test
+    public void eviction() throws IOException {
+        DocumentTextCache cache = new DocumentTextCache(10);
+        BasicDocument a = this.write("A", "aaaa");
+        BasicDocument b = this.write("B", "bbbb");
+        BasicDocument c = this.write("C", "cccc");
+
+        cache.getText(a);
+        cache.getText(b);
+        Assert.assertEquals(cache.getSize(), 8);
+        Assert.assertEquals(cache.getEvictions(), 0);
+
+        // Using A makes B the least recently used
+        cache.getText(a);
+        cache.getText(c);
+        Assert.assertEquals(cache.getSize(), 8);
+        Assert.assertEquals(cache.getEvictions(), 1);
+
+        long misses = cache.getMisses();
+        cache.getText(a);
+        cache.getText(c);
+        Assert.assertEquals(cache.getMisses(), misses);
+        cache.getText(b);
+        Assert.assertEquals(cache.getMisses(), misses + 1);
+        Assert.assertEquals(cache.getEvictions(), 2);
+        Assert.assertTrue(cache.getSize() <= cache.getBudget());
+    }
+
+    /**
+     * Tests that text exceeding the budget on its own, and non-text
+     * documents, are never cached
+     *
+     * @throws IOException
+     */
+    @Test
+    public void uncacheable() throws IOException {
+        DocumentTextCache cache = new DocumentTextCache(4);
+        BasicDocument large = this.write("Large", "Larger than the budget");
+        Assert.assertEquals(cache.getText(large), "Larger than the budget");
+        Assert.assertEquals(cache.getText(large), "Larger than the budget");
+        Assert.assertEquals(cache.getSize(), 0);
+        Assert.assertEquals(cache.getMisses(), 2);
+        Assert.assertEquals(cache.getEvictions(), 0);
+
+        File image = new File(this.dir, "image.png");
+        FileOutputStream output = new FileOutputStream(image);
+        output.write(new byte[] { 1, 2, 3 });
+        output.close();
+        Assert.assertNull(cache.getText(new BasicDocument("image.png", image, Format.IMAGE)));
+        Assert.assertEquals(cache.getSize(), 0);
+
+        // Zero disables caching
+        cache = new DocumentTextCache(0);
+        BasicDocument small = this.write("Small", "a");
+        cache.getText(small);
+        cache.getText(small);
+        Assert.assertEquals(cache.getHits(), 0);
+        Assert.assertEquals(cache.getSize(), 0);
+    }
+
+    /**
+     * Tests that text is decoded with the charset of the document, unless it
+     * has a byte order mark, and that its size reflects how it is held
+     *
+     * @throws IOException
+     */
+    @Test
+    public void charsets() throws IOException {
+        DocumentTextCache cache = new DocumentTextCache();
+
+        // ASCII text takes a byte per character, other text two
+        BasicDocument ascii = this.write("Ascii", "cafe");
+        BasicDocument utf8 = this.write("Utf8", "café");
+        Assert.assertEquals(cache.getText(ascii), "cafe");
+        Assert.assertEquals(cache.getSize(), 4);
+        Assert.assertEquals(cache.getText(utf8), "café");
+        Assert.assertEquals(cache.getSize(), 12);
+
+        // Documents may declare a charset other than the default
+        Charset latin1 = StandardCharsets.ISO_8859_1;
+        BasicDocument latin = this.write("Latin", "café".getBytes(latin1));
+        latin.setCharset(latin1);
+        Assert.assertEquals(cache.getText(latin), "café");
+
+        // A byte order mark overrides the declared charset
+        byte[] text = "café".getBytes(StandardCharsets.UTF_16LE);
+        byte[] bom = new byte[text.length + 2];
+        bom[0] = (byte) 0xFF;
+        bom[1] = (byte) 0xFE;
+        System.arraycopy(text, 0, bom, 2, text.length);
+        BasicDocument utf16 = this.write("Utf16", bom);
+        utf16.setCharset(latin1);
+        Assert.assertEquals(cache.getText(utf16), "café");
+        Assert.assertEquals(cache.getMisses(), 4);
+    }
+}
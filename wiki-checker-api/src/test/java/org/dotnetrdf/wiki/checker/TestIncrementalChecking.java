@@ -0,0 +1,275 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.dotnetrdf.wiki.checker.checks.DocumentCheck;
+import org.dotnetrdf.wiki.checker.data.BasicCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.CheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.BasicCheckedDocument;
+import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.BasicCheckedLink;
+import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
+import org.dotnetrdf.wiki.checker.parser.CheckedNioWikiScanner;
+import org.dotnetrdf.wiki.data.issues.AbstractIssue;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that rechecking a wiki only rechecks the documents affected by changes
+ * and gives the same results as checking the changed wiki from scratch
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestIncrementalChecking {
+
+    private File wikiDir;
+
+    /**
+     * Creates a small wiki on disk
+     * 
+     * @throws IOException
+     */
+    @BeforeMethod
+    public void setup() throws IOException {
+        this.wikiDir = File.createTempFile("wiki", "");
+        this.wikiDir.delete();
+        this.wikiDir.mkdir();
+
+        this.write("Home", "# Home\n\nSee the [Guide](Guide) and the [FAQ](FAQ)\n");
+        this.write("Guide", "# Guide\n\nBack [Home](Home), also see [Setup](Setup)\n");
+        this.write("FAQ", "# FAQ\n\nBack [Home](Home), see [Missing](Missing)\n");
+        this.write("Setup", "# Setup\n\nBack to the [Guide](Guide)\n");
+        this.write("Orphan", "# Orphan\n\nNobody links here\n");
+        this.write("Unrelated", "# Unrelated\n\nSee [Other](Other)\n");
+        this.write("Other", "# Other\n\nSee [Unrelated](Unrelated)\n");
+    }
+
+    /**
+     * Removes the wiki from disk
+     */
+    @AfterMethod
+    public void teardown() {
+        File[] children = this.wikiDir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        this.wikiDir.delete();
+    }
+
+    private void write(String page, String content) throws IOException {
+        File f = new File(this.wikiDir, page + ".md");
+        long previous = f.lastModified();
+        FileWriter writer = new FileWriter(f);
+        writer.write(content);
+        writer.close();
+
+        // Ensure the modification is visible even on coarse file system clocks
+        if (previous != 0)
+            f.setLastModified(previous + 10000);
+    }
+
+    private BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument> createChecker(BasicCheckedWiki wiki,
+            boolean scheduled, final Set<String> checked) throws IOException {
+        new CheckedNioWikiScanner<BasicCheckedLink, BasicCheckedDocument>().scan(wiki, this.wikiDir.getAbsolutePath());
+        BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument> checker = new BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument>(
+                wiki, this.wikiDir.getAbsolutePath());
+        checker.setDependencyScheduling(scheduled);
+        checker.addDocumentCheck(new DocumentCheck() {
+            @Override
+            public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document,
+                    String text, CheckedWiki<TLink, TDoc> wiki) {
+                checked.add(document.getPath());
+            }
+        });
+        return checker;
+    }
+
+    private static Map<String, List<String>> getResults(BasicCheckedWiki wiki) {
+        Map<String, List<String>> results = new TreeMap<String, List<String>>();
+        Iterator<BasicCheckedDocument> documents = wiki.getDocuments();
+        while (documents.hasNext()) {
+            BasicCheckedDocument document = documents.next();
+            Assert.assertTrue(document.hasBeenChecked());
+            List<String> messages = new ArrayList<String>();
+            Iterator<AbstractIssue> iter = document.getIssues();
+            while (iter.hasNext()) {
+                messages.add(iter.next().getMessage());
+            }
+            messages.add(document.getOutboundLinkCount() + " outbound");
+            messages.add(document.getInboundLinkCount() + " inbound");
+            results.put(document.getPath(), messages);
+        }
+        List<String> global = new ArrayList<String>();
+        Iterator<AbstractIssue> iter = wiki.getGlobalIssues();
+        while (iter.hasNext()) {
+            global.add(iter.next().getMessage());
+        }
+        Collections.sort(global);
+        results.put("", global);
+        return results;
+    }
+
+    private Map<String, List<String>> checkFromScratch() throws IOException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        this.createChecker(wiki, false, new TreeSet<String>()).run();
+        return getResults(wiki);
+    }
+
+    private void incrementalMatchesFull(boolean scheduled) throws IOException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        Set<String> checked = new TreeSet<String>();
+        BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument> checker = this.createChecker(wiki, scheduled, checked);
+        checker.run();
+        Assert.assertEquals(checked.size(), 7);
+
+        // Guide no longer links to Setup, Orphan now links to Home and a new
+        // page which resolves the missing link from FAQ
+        this.write("Guide", "# Guide\n\nBack [Home](Home)\n");
+        this.write("Orphan", "# Orphan\n\nSee [Home](Home) and [Missing](Missing)\n");
+        this.write("Missing", "# Missing\n\nNo longer missing, back [Home](Home)\n");
+        new CheckedNioWikiScanner<BasicCheckedLink, BasicCheckedDocument>().scan(wiki, this.wikiDir.getAbsolutePath());
+
+        checked.clear();
+        checker.run(true);
+        Assert.assertEquals(checked, new TreeSet<String>(Arrays.asList("Guide", "Orphan", "Missing", "Home", "Setup",
+                "FAQ")));
+        Assert.assertEquals(getResults(wiki), this.checkFromScratch());
+
+        // Nothing changed so nothing is rechecked
+        checked.clear();
+        checker.run(true);
+        Assert.assertTrue(checked.isEmpty());
+        Assert.assertEquals(getResults(wiki), this.checkFromScratch());
+    }
+
+    /**
+     * Tests that an incremental recheck gives the same results as checking
+     * from scratch
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void incrementalMatchesFull() throws IOException {
+        this.incrementalMatchesFull(false);
+    }
+
+    /**
+     * Tests that an incremental recheck gives the same results as checking
+     * from scratch when checks are scheduled by their dependencies
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void incrementalMatchesFullScheduled() throws IOException {
+        this.incrementalMatchesFull(true);
+    }
+
+    /**
+     * Tests that documents whose modified time changes without their content
+     * changing are not rechecked
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void touchedDocumentsNotRechecked() throws IOException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        Set<String> checked = new TreeSet<String>();
+        BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument> checker = this.createChecker(wiki, false, checked);
+        checker.run();
+        Map<String, List<String>> expected = getResults(wiki);
+
+        File f = new File(this.wikiDir, "Home.md");
+        f.setLastModified(f.lastModified() + 10000);
+
+        checked.clear();
+        checker.run(true);
+        Assert.assertTrue(checked.isEmpty());
+        Assert.assertEquals(getResults(wiki), expected);
+    }
+
+    private void deletedDocumentsRemoved(boolean scheduled) throws IOException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        Set<String> checked = new TreeSet<String>();
+        BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument> checker = this.createChecker(wiki, scheduled, checked);
+        checker.run();
+        Assert.assertEquals(wiki.getDocument("Guide").getInboundLinkCount(), 2);
+
+        // Only Guide links to Setup and Setup only links to Guide
+        Assert.assertTrue(new File(this.wikiDir, "Setup.md").delete());
+
+        checked.clear();
+        checker.run(true);
+        Assert.assertEquals(checked, new TreeSet<String>(Arrays.asList("Guide")));
+        Assert.assertFalse(wiki.hasDocument("Setup"));
+        Assert.assertEquals(wiki.getDocument("Guide").getInboundLinkCount(), 1);
+        Map<String, List<String>> results = getResults(wiki);
+        Assert.assertEquals(results, this.checkFromScratch());
+        Assert.assertTrue(results.get("Guide").toString().contains("Broken Wiki Link - Setup"), results.get("Guide")
+                .toString());
+
+        // Nothing changed so nothing is rechecked
+        checked.clear();
+        checker.run(true);
+        Assert.assertTrue(checked.isEmpty());
+    }
+
+    /**
+     * Tests that documents deleted from disk are removed by a recheck and
+     * documents linking to them are rechecked
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void deletedDocumentsRemoved() throws IOException {
+        this.deletedDocumentsRemoved(false);
+    }
+
+    /**
+     * Tests that documents deleted from disk are removed by a recheck when
+     * checks are scheduled by their dependencies
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void deletedDocumentsRemovedScheduled() throws IOException {
+        this.deletedDocumentsRemoved(true);
+    }
+}
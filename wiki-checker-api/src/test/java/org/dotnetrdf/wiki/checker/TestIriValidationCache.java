@@ -0,0 +1,200 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.dotnetrdf.wiki.checker.checks.links.ExternalLinkCheck;
+import org.dotnetrdf.wiki.checker.checks.links.ExternalLinkResult;
+import org.dotnetrdf.wiki.checker.checks.links.IriValidationCache;
+import org.dotnetrdf.wiki.checker.data.BasicCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.BasicCheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.BasicCheckedLink;
+import org.dotnetrdf.wiki.data.documents.formats.Format;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the cache of IRI violations of external links
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestIriValidationCache {
+
+    private static final String INVALID = "http://example.org:/";
+
+    /**
+     * Tests that each URL is only parsed once
+     */
+    @Test
+    public void memoized() {
+        IriValidationCache cache = new IriValidationCache();
+        ExternalLinkResult first = cache.validate(INVALID);
+        Assert.assertEquals(first.getStatus(), ExternalLinkResult.Status.INVALID_IRI);
+        Assert.assertSame(cache.validate(INVALID), first);
+        Assert.assertEquals(cache.validate("http://example.org/").getStatus(), ExternalLinkResult.Status.VALID);
+        Assert.assertEquals(cache.getHits(), 1);
+        Assert.assertEquals(cache.getMisses(), 2);
+    }
+
+    /**
+     * Tests that the least recently used URLs are evicted
+     */
+    @Test
+    public void bounded() {
+        IriValidationCache cache = new IriValidationCache(2);
+        cache.validate("http://example.org/a");
+        cache.validate("http://example.org/b");
+        cache.validate("http://example.org/a");
+        cache.validate("http://example.org/c");
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertEquals(cache.getEvictions(), 1);
+
+        // b was least recently used so is parsed again
+        cache.validate("http://example.org/a");
+        cache.validate("http://example.org/b");
+        Assert.assertEquals(cache.getHits(), 2);
+        Assert.assertEquals(cache.getMisses(), 4);
+    }
+
+    /**
+     * Tests that concurrent validation gives the same results as sequential
+     * validation
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void concurrent() throws Exception {
+        final List<String> urls = new ArrayList<String>();
+        for (int i = 0; i < 200; i++) {
+            urls.add(i % 2 == 0 ? "http://example.org/" + i : "http://example.org:0" + i + "/");
+        }
+        final IriValidationCache cache = new IriValidationCache(50);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < 8; t++) {
+                final int offset = t;
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        int invalid = 0;
+                        for (int i = 0; i < urls.size(); i++) {
+                            ExternalLinkResult result = cache.validate(urls.get((i + offset * 25) % urls.size()));
+                            if (result.getStatus() == ExternalLinkResult.Status.INVALID_IRI)
+                                invalid++;
+                        }
+                        return invalid;
+                    }
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                Assert.assertEquals(future.get(), Integer.valueOf(100));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(cache.getHits() + cache.getMisses(), 8 * 200);
+        Assert.assertTrue(cache.size() <= 50);
+    }
+
+    /**
+     * Tests that the violations of a URL are reported against every link to it
+     */
+    @Test
+    public void replayed() {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument a = new BasicCheckedDocument("A.md", null, Format.MARKDOWN);
+        BasicCheckedDocument b = new BasicCheckedDocument("B.md", null, Format.MARKDOWN);
+        wiki.addDocument(a);
+        wiki.addDocument(b);
+
+        ExternalLinkCheck check = new ExternalLinkCheck();
+        BasicCheckedLink linkA = a.createLink(INVALID, "Invalid", 1, 1);
+        BasicCheckedLink linkB = b.createLink(INVALID, "Invalid", 1, 1);
+        check.check(a, linkA, wiki);
+        check.check(b, linkB, wiki);
+
+        Assert.assertEquals(a.getErrorCount(), 1);
+        Assert.assertEquals(b.getErrorCount(), 1);
+        String expected = "External Link " + linkA.toString() + " violates the IRI specification - ";
+        Assert.assertTrue(a.getIssues().next().getMessage().startsWith(expected));
+        Assert.assertEquals(a.getIssues().next().getMessage().replace(linkA.toString(), ""), b.getIssues().next()
+                .getMessage().replace(linkB.toString(), ""));
+        Assert.assertEquals(check.getValidator().getIriCache().getHits(), 1);
+        Assert.assertEquals(check.getValidator().getIriCache().getMisses(), 1);
+    }
+
+    /**
+     * Tests that the violations of a URL are reported against every link to it
+     * when the links are checked in parallel, not just against the link of the
+     * thread which validates the URL first
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void replayedInParallel() throws Exception {
+        final BasicCheckedWiki wiki = new BasicCheckedWiki();
+        final ExternalLinkCheck check = new ExternalLinkCheck();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<BasicCheckedDocument> documents = new ArrayList<BasicCheckedDocument>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < 64; i++) {
+                final BasicCheckedDocument document = new BasicCheckedDocument("Page" + i + ".md", null,
+                        Format.MARKDOWN);
+                final BasicCheckedLink link = document.createLink(INVALID, "Invalid", 1, 1);
+                wiki.addDocument(document);
+                documents.add(document);
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws InterruptedException {
+                        start.await();
+                        check.check(document, link, wiki);
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (BasicCheckedDocument document : documents) {
+            Assert.assertEquals(document.getErrorCount(), 1, document.getPath());
+            Assert.assertTrue(document.getIssues().next().getMessage().contains("violates the IRI specification"));
+        }
+        Assert.assertEquals(check.getValidator().getIriCache().getHits() + check.getValidator().getIriCache().getMisses(), 64);
+    }
+}
@@ -0,0 +1,309 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.zip.GZIPOutputStream;
+
+import org.dotnetrdf.wiki.checker.archive.LinkArchive;
+import org.dotnetrdf.wiki.checker.checks.links.ConcurrentExternalLinkCheck;
+import org.dotnetrdf.wiki.checker.data.BasicCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.BasicCheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.BasicCheckedLink;
+import org.dotnetrdf.wiki.data.documents.formats.Format;
+import org.dotnetrdf.wiki.data.issues.AbstractIssue;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for validating external links against local web archives
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestLinkArchive {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static String record(String type, String uri, String block) {
+        int length = block.getBytes(UTF8).length;
+        return "WARC/1.0\r\nWARC-Type: " + type + "\r\n" + (uri != null ? "WARC-Target-URI: " + uri + "\r\n" : "")
+                + "Content-Length: " + length + "\r\n\r\n" + block + "\r\n\r\n";
+    }
+
+    private static byte[] warcData() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(record("warcinfo", null, "software: test\r\n"));
+        builder.append(record("request", "http://example.org/page", "GET /page HTTP/1.1\r\nHost: example.org\r\n\r\n"));
+        builder.append(record("response", "http://example.org/page",
+                "HTTP/1.1 200 OK\r\nContent-Type: text/html\r\n\r\n<html>HTTP/1.1 404 Not Found</html>"));
+        builder.append(record("response", "<http://example.org/missing>", "HTTP/1.1 404 Not Found\r\n\r\n"));
+        builder.append(record("metadata", "http://example.org/other", "HTTP/1.1 200 OK\r\n\r\n"));
+        return builder.toString().getBytes(UTF8);
+    }
+
+    /**
+     * Tests that manifests are indexed by normalized URL
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void manifest() throws IOException {
+        LinkArchive archive = new LinkArchive();
+        archive.loadManifest(new StringReader("# Captured links\n\nhttp://example.org/page 200\n"
+                + "HTTP://Example.org:80/missing\t404\n"));
+        Assert.assertEquals(archive.size(), 2);
+        Assert.assertEquals(archive.getStatus("http://example.org/page#section"), Integer.valueOf(200));
+        Assert.assertEquals(archive.getStatus("http://example.org/missing"), Integer.valueOf(404));
+        Assert.assertNull(archive.getStatus("http://example.org/other"));
+        Assert.assertEquals(archive.getHits(), 2);
+        Assert.assertEquals(archive.getMisses(), 1);
+    }
+
+    /**
+     * Tests that malformed manifests are rejected
+     * 
+     * @throws IOException
+     */
+    @Test(expectedExceptions = IOException.class)
+    public void malformedManifest() throws IOException {
+        new LinkArchive().loadManifest(new StringReader("http://example.org/page OK\n"));
+    }
+
+    /**
+     * Tests that only the responses in a WARC are indexed
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void warc() throws IOException {
+        LinkArchive archive = new LinkArchive();
+        archive.loadWarc(new ByteArrayInputStream(warcData()));
+        Assert.assertEquals(archive.size(), 2);
+        Assert.assertEquals(archive.getStatus("http://example.org/page"), Integer.valueOf(200));
+        Assert.assertEquals(archive.getStatus("http://example.org/missing"), Integer.valueOf(404));
+        Assert.assertNull(archive.getStatus("http://example.org/other"));
+    }
+
+    /**
+     * Tests that compressed WARC files are loaded
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void compressedWarc() throws IOException {
+        File file = File.createTempFile("links", ".warc.gz");
+        try {
+            OutputStream output = new GZIPOutputStream(new FileOutputStream(file));
+            try {
+                output.write(warcData());
+            } finally {
+                output.close();
+            }
+            LinkArchive archive = new LinkArchive();
+            archive.load(file);
+            Assert.assertEquals(archive.size(), 2);
+            Assert.assertEquals(archive.getStatus("http://example.org/missing"), Integer.valueOf(404));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that HAR entries are indexed and those without a response ignored
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void har() throws IOException {
+        String har = "{ \"log\": { \"version\": \"1.2\", \"entries\": [\n"
+                + "  { \"request\": { \"method\": \"GET\", \"url\": \"http:\\/\\/example.org\\/page?q=\\u0061\" },"
+                + "    \"response\": { \"status\": 200, \"content\": { \"size\": -1, \"text\": \"{\\\"a\\\": [1, 2.5e3]}\" } } },\n"
+                + "  { \"request\": { \"url\": \"http://example.org/missing\" }, \"response\": { \"status\": 404 } },\n"
+                + "  { \"request\": { \"url\": \"http://example.org/blocked\" }, \"response\": { \"status\": 0 } }\n"
+                + "], \"pages\": [], \"complete\": true, \"comment\": null } }";
+        LinkArchive archive = new LinkArchive();
+        archive.loadHar(new ByteArrayInputStream(har.getBytes(UTF8)));
+        Assert.assertEquals(archive.size(), 2);
+        Assert.assertEquals(archive.getStatus("http://example.org/page?q=a"), Integer.valueOf(200));
+        Assert.assertEquals(archive.getStatus("http://example.org/missing"), Integer.valueOf(404));
+        Assert.assertNull(archive.getStatus("http://example.org/blocked"));
+    }
+
+    /**
+     * Tests that compressed HAR files are loaded as HAR
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void compressedHar() throws IOException {
+        String har = "{ \"log\": { \"entries\": [ { \"request\": { \"url\": \"http://example.org/old\" },"
+                + " \"response\": { \"status\": 301, \"redirectURL\": \"/new\" } },"
+                + " { \"request\": { \"url\": \"http://example.org/moved\" }, \"response\": { \"status\": 302,"
+                + " \"redirectURL\": \"\", \"headers\": [ { \"name\": \"Location\", \"value\": \"http://example.org/new\" } ] } },"
+                + " { \"request\": { \"url\": \"http://example.org/new\" }, \"response\": { \"status\": 200 } } ] } }";
+        File file = File.createTempFile("links", ".har.gz");
+        try {
+            OutputStream output = new GZIPOutputStream(new FileOutputStream(file));
+            try {
+                output.write(har.getBytes(UTF8));
+            } finally {
+                output.close();
+            }
+            LinkArchive archive = new LinkArchive();
+            archive.load(file);
+            Assert.assertEquals(archive.size(), 3);
+            Assert.assertEquals(archive.getStatus("http://example.org/old"), Integer.valueOf(301));
+            Assert.assertEquals(archive.getLocation("http://example.org/old"), "/new");
+            Assert.assertEquals(archive.getLocation("http://example.org/moved"), "http://example.org/new");
+            Assert.assertNull(archive.getLocation("http://example.org/new"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that the locations of redirects are read from WARC files and
+     * manifests
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void redirectLocations() throws IOException {
+        StringBuilder warc = new StringBuilder();
+        warc.append(record("response", "http://example.org/old",
+                "HTTP/1.1 301 Moved Permanently\r\nContent-Type: text/html\r\nlocation:  /new \r\n\r\nLocation: /body"));
+        warc.append(record("response", "http://example.org/new", "HTTP/1.1 200 OK\r\n\r\n"));
+        LinkArchive archive = new LinkArchive();
+        archive.loadWarc(new ByteArrayInputStream(warc.toString().getBytes(UTF8)));
+        Assert.assertEquals(archive.size(), 2);
+        Assert.assertEquals(archive.getLocation("http://example.org/old"), "/new");
+
+        archive.loadManifest(new StringReader("http://example.org/a 302 http://example.org/b\n"
+                + "http://example.org/b 200\nhttp://example.org/c 304 http://example.org/ignored\n"));
+        Assert.assertEquals(archive.getLocation("http://example.org/a"), "http://example.org/b");
+        Assert.assertNull(archive.getLocation("http://example.org/c"));
+    }
+
+    /**
+     * Tests that archived redirects are followed within the archive
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void offlineRedirects() throws Exception {
+        LinkArchive archive = new LinkArchive();
+        archive.loadManifest(new StringReader("http://example.org/old 301 /new\n" + "http://example.org/new 200\n"
+                + "http://example.org/gone 302 http://example.org/missing\n" + "http://example.org/missing 404\n"
+                + "http://example.org/away 307 http://other.example.org/\n" + "http://example.org/nowhere 303\n"
+                + "http://example.org/loop 301 /loop2\n" + "http://example.org/loop2 301 /loop\n"));
+
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument document = new BasicCheckedDocument("Redirects.md", null, Format.MARKDOWN);
+        wiki.addDocument(document);
+        ConcurrentExternalLinkCheck check = new ConcurrentExternalLinkCheck();
+        check.setArchive(archive);
+        BasicCheckedLink old = document.createLink("http://example.org/old", "Old", 1, 1);
+        BasicCheckedLink gone = document.createLink("http://example.org/gone", "Gone", 2, 1);
+        BasicCheckedLink away = document.createLink("http://example.org/away", "Away", 3, 1);
+        BasicCheckedLink nowhere = document.createLink("http://example.org/nowhere", "Nowhere", 4, 1);
+        BasicCheckedLink loop = document.createLink("http://example.org/loop", "Loop", 5, 1);
+        try {
+            check.check(document, old, wiki);
+            check.check(document, gone, wiki);
+            check.check(document, away, wiki);
+            check.check(document, nowhere, wiki);
+            check.check(document, loop, wiki);
+            check.complete(document);
+        } finally {
+            check.shutdown();
+        }
+
+        Iterator<AbstractIssue> issues = document.getIssues();
+        Assert.assertEquals(issues.next().getMessage(), "Broken External Link (HTTP Status 404) - " + gone.toString());
+        Assert.assertEquals(issues.next().getMessage(),
+                "Unable to validate External Link since it is not in the link archive - " + away.toString());
+        Assert.assertEquals(issues.next().getMessage(), "Unexpected Error with External Link URI - "
+                + nowhere.toString());
+        Assert.assertEquals(issues.next().getMessage(), "Unexpected Error with External Link URI - " + loop.toString());
+        Assert.assertFalse(issues.hasNext());
+    }
+
+    /**
+     * Tests that malformed HAR files are rejected
+     * 
+     * @throws IOException
+     */
+    @Test(expectedExceptions = IOException.class)
+    public void malformedHar() throws IOException {
+        new LinkArchive().loadHar(new ByteArrayInputStream("{ \"log\": { \"entries\": [ }".getBytes(UTF8)));
+    }
+
+    /**
+     * Tests that links are validated against the archive alone and links not
+     * in the archive are warned about and not treated as definitive
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void offlineValidation() throws Exception {
+        LinkArchive archive = new LinkArchive();
+        archive.loadWarc(new ByteArrayInputStream(warcData()));
+
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument document = new BasicCheckedDocument("Offline.md", null, Format.MARKDOWN);
+        wiki.addDocument(document);
+        ConcurrentExternalLinkCheck check = new ConcurrentExternalLinkCheck();
+        check.setArchive(archive);
+        BasicCheckedLink page = document.createLink("http://example.org/page#top", "Page", 1, 1);
+        BasicCheckedLink missing = document.createLink("http://example.org/missing", "Missing", 2, 1);
+        BasicCheckedLink other = document.createLink("http://example.org/other", "Other", 3, 1);
+        boolean definitive;
+        try {
+            check.check(document, page, wiki);
+            check.check(document, missing, wiki);
+            check.check(document, other, wiki);
+            definitive = check.complete(document);
+        } finally {
+            check.shutdown();
+        }
+
+        Assert.assertFalse(definitive);
+        Assert.assertEquals(check.getScheduledCount(), 0);
+        Assert.assertEquals(document.getErrorCount(), 1);
+        Assert.assertEquals(document.getWarningCount(), 1);
+        Iterator<AbstractIssue> issues = document.getIssues();
+        Assert.assertEquals(issues.next().getMessage(), "Broken External Link (HTTP Status 404) - " + missing.toString());
+        Assert.assertEquals(issues.next().getMessage(),
+                "Unable to validate External Link since it is not in the link archive - " + other.toString());
+        Assert.assertEquals(archive.getHits(), 2);
+        Assert.assertEquals(archive.getMisses(), 1);
+    }
+}
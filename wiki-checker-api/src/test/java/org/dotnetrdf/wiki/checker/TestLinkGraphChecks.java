@@ -0,0 +1,91 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.dotnetrdf.wiki.checker.checks.document.IsolatedDocumentCheck;
+import org.dotnetrdf.wiki.checker.checks.document.PoorlyLinkedDocumentCheck;
+import org.dotnetrdf.wiki.checker.data.BasicCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.BasicCheckedDocument;
+import org.dotnetrdf.wiki.data.documents.formats.Format;
+import org.dotnetrdf.wiki.data.graph.LinkGraph;
+import org.dotnetrdf.wiki.data.issues.AbstractIssue;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the document checks which consult the link graph
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestLinkGraphChecks {
+
+    private static BasicCheckedDocument addDocument(BasicCheckedWiki wiki, String path, String... links) {
+        BasicCheckedDocument doc = new BasicCheckedDocument(path + ".md", new File(path + ".md"), Format.MARKDOWN);
+        wiki.addDocument(doc);
+        int line = 1;
+        for (String link : links) {
+            doc.addOutboundLink(doc.createLink(link, link, line++, 1));
+        }
+        return doc;
+    }
+
+    private static List<String> getMessages(BasicCheckedDocument document) {
+        List<String> messages = new ArrayList<String>();
+        Iterator<AbstractIssue> iter = document.getIssues();
+        while (iter.hasNext()) {
+            messages.add(iter.next().getMessage());
+        }
+        return messages;
+    }
+
+    /**
+     * Tests that a document linked to twice from the same document is poorly
+     * linked since only one document links to it
+     */
+    @Test
+    public void linkedTwiceFromSameDocument() {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        BasicCheckedDocument target = addDocument(wiki, "Target");
+        BasicCheckedDocument popular = addDocument(wiki, "Popular");
+        addDocument(wiki, "Home", "Target", "Target", "Popular");
+        addDocument(wiki, "Other", "Popular");
+        wiki.setLinkGraph(LinkGraph.build(wiki));
+
+        PoorlyLinkedDocumentCheck poorlyLinked = new PoorlyLinkedDocumentCheck();
+        IsolatedDocumentCheck isolated = new IsolatedDocumentCheck();
+        for (BasicCheckedDocument document : new BasicCheckedDocument[] { target, popular }) {
+            poorlyLinked.check(document, "", wiki);
+            isolated.check(document, "", wiki);
+        }
+
+        Assert.assertEquals(getMessages(target).size(), 1);
+        Assert.assertEquals(getMessages(target).get(0), "Document is poorly linked with only 1 inbound link(s)");
+        Assert.assertTrue(getMessages(popular).isEmpty());
+    }
+}
@@ -0,0 +1,320 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.ServerSocket;
+
+import org.dotnetrdf.wiki.checker.cache.CachedLinkStatus;
+import org.dotnetrdf.wiki.checker.cache.LinkStatusCache;
+import org.dotnetrdf.wiki.checker.checks.links.ExternalLinkResult;
+import org.dotnetrdf.wiki.checker.checks.links.ExternalLinkValidator;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Tests for the persistent external link status cache
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestLinkStatusCache {
+
+    private static final String ETAG = "\"v1\"";
+
+    private EmbeddedHttpServer server;
+    private File cacheFile;
+
+    /**
+     * Starts the embedded HTTP server
+     * 
+     * @throws IOException
+     */
+    @BeforeClass
+    public void setup() throws IOException {
+        this.server = new EmbeddedHttpServer(new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                String request = exchange.getRequestMethod() + " " + path;
+                int status;
+                if (path.startsWith("/etag")) {
+                    if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                        request += " 304";
+                        status = 304;
+                    } else {
+                        exchange.getResponseHeaders().add("ETag", ETAG);
+                        status = 200;
+                    }
+                } else if (path.startsWith("/ok")) {
+                    status = 200;
+                } else {
+                    status = 404;
+                }
+                server.count(request);
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            }
+        });
+    }
+
+    /**
+     * Stops the embedded HTTP server
+     */
+    @AfterClass
+    public void teardown() {
+        this.server.stop();
+    }
+
+    /**
+     * Resets the request statistics and picks a fresh cache file
+     * 
+     * @throws IOException
+     */
+    @BeforeMethod
+    public void reset() throws IOException {
+        this.server.reset();
+        this.cacheFile = File.createTempFile("links", ".cache");
+        this.cacheFile.delete();
+    }
+
+    /**
+     * Removes the cache file
+     */
+    @AfterMethod
+    public void cleanup() {
+        this.cacheFile.delete();
+        new File(this.cacheFile.getPath() + ".lock").delete();
+    }
+
+    /**
+     * Validates the URLs in a new run using a cache loaded from the cache file
+     */
+    private LinkStatusCache run(long successTtl, long failureTtl, String... paths) throws IOException {
+        LinkStatusCache cache = new LinkStatusCache(this.cacheFile);
+        cache.setSuccessTtl(successTtl);
+        cache.setFailureTtl(failureTtl);
+        ExternalLinkValidator validator = new ExternalLinkValidator();
+        validator.setStatusCache(cache);
+        try {
+            for (String path : paths) {
+                ExternalLinkResult result = validator.validate(this.server.url(path));
+                if (path.startsWith("/missing")) {
+                    Assert.assertEquals(result.getStatus(), ExternalLinkResult.Status.BROKEN);
+                    Assert.assertEquals(result.getHttpStatus(), 404);
+                } else {
+                    Assert.assertEquals(result.getStatus(), ExternalLinkResult.Status.VALID);
+                    Assert.assertEquals(result.getHttpStatus(), 200);
+                }
+            }
+        } finally {
+            validator.shutdown();
+        }
+        cache.save();
+        return cache;
+    }
+
+    /**
+     * Tests that fresh statuses are reused by later runs without any requests
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void freshStatusReused() throws IOException {
+        this.run(LinkStatusCache.DEFAULT_SUCCESS_TTL, LinkStatusCache.DEFAULT_FAILURE_TTL, "/ok", "/missing");
+        Assert.assertEquals(this.server.getCount("HEAD /ok"), 1);
+        Assert.assertEquals(this.server.getCount("HEAD /missing"), 1);
+        Assert.assertEquals(this.server.getCount("GET /missing"), 2);
+
+        LinkStatusCache cache = this.run(LinkStatusCache.DEFAULT_SUCCESS_TTL, LinkStatusCache.DEFAULT_FAILURE_TTL,
+                "/ok", "/missing");
+        Assert.assertEquals(this.server.getCount("HEAD /ok"), 1);
+        Assert.assertEquals(this.server.getCount("HEAD /missing"), 1);
+        Assert.assertEquals(cache.getHits(), 2);
+        Assert.assertEquals(cache.getMisses(), 0);
+    }
+
+    /**
+     * Tests that failures and successes expire independently
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void separateTtls() throws IOException {
+        this.run(LinkStatusCache.DEFAULT_SUCCESS_TTL, 0, "/ok", "/missing");
+        this.run(LinkStatusCache.DEFAULT_SUCCESS_TTL, 0, "/ok", "/missing");
+        Assert.assertEquals(this.server.getCount("HEAD /ok"), 1);
+        Assert.assertEquals(this.server.getCount("HEAD /missing"), 2);
+
+        this.run(0, LinkStatusCache.DEFAULT_FAILURE_TTL, "/ok", "/missing");
+        Assert.assertEquals(this.server.getCount("HEAD /ok"), 2);
+        Assert.assertEquals(this.server.getCount("HEAD /missing"), 2);
+    }
+
+    /**
+     * Tests that an expired status with an ETag is revalidated with a
+     * conditional request
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void conditionalRevalidation() throws IOException {
+        this.run(0, 0, "/etag");
+        Assert.assertEquals(this.server.getCount("HEAD /etag"), 1);
+
+        LinkStatusCache cache = this.run(0, 0, "/etag");
+        Assert.assertEquals(this.server.getCount("HEAD /etag 304"), 1);
+        Assert.assertEquals(this.server.getCount("GET /etag"), 0);
+
+        // Revalidation retains the ETag so can happen again
+        Assert.assertEquals(cache.get(this.server.url("/etag")).getETag(), ETAG);
+        this.run(0, 0, "/etag");
+        Assert.assertEquals(this.server.getCount("HEAD /etag 304"), 2);
+    }
+
+    /**
+     * Tests that saves from concurrent runs are merged rather than lost
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void concurrentSavesMerged() throws IOException {
+        LinkStatusCache a = new LinkStatusCache(this.cacheFile);
+        LinkStatusCache b = new LinkStatusCache(this.cacheFile);
+        a.load();
+        b.load();
+        a.put("http://example.org/a", new CachedLinkStatus(ExternalLinkResult.Status.VALID, 200, null, null));
+        b.put("http://example.org/b", new CachedLinkStatus(ExternalLinkResult.Status.BROKEN, 404, null, null));
+        a.save();
+        b.save();
+
+        LinkStatusCache merged = new LinkStatusCache(this.cacheFile);
+        merged.load();
+        Assert.assertEquals(merged.size(), 2);
+        Assert.assertEquals(merged.get("http://example.org/a").getStatus(), ExternalLinkResult.Status.VALID);
+        Assert.assertEquals(merged.get("http://example.org/b").getHttpStatus(), 404);
+    }
+
+    /**
+     * Tests that statuses not checked within the retention period are dropped
+     * when saving
+     * 
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    @Test
+    public void retention() throws IOException, InterruptedException {
+        LinkStatusCache cache = new LinkStatusCache(this.cacheFile);
+        Assert.assertEquals(cache.getRetention(), LinkStatusCache.DEFAULT_RETENTION);
+        cache.put("http://example.org/", new CachedLinkStatus(ExternalLinkResult.Status.VALID, 200, null, null));
+        cache.save();
+        Thread.sleep(20);
+
+        cache = new LinkStatusCache(this.cacheFile);
+        cache.load();
+        Assert.assertEquals(cache.size(), 1);
+        cache.setRetention(10);
+        cache.save();
+        Assert.assertEquals(cache.size(), 0);
+
+        cache = new LinkStatusCache(this.cacheFile);
+        cache.load();
+        Assert.assertEquals(cache.size(), 0);
+    }
+
+    /**
+     * Tests that statuses which are not the outcome of a request are not
+     * cached
+     */
+    @Test
+    public void unresolvedNotCached() {
+        LinkStatusCache cache = new LinkStatusCache(this.cacheFile);
+        cache.put("http://example.org/", new CachedLinkStatus(ExternalLinkResult.Status.UNRESOLVED, -1, null, null));
+        Assert.assertEquals(cache.size(), 0);
+    }
+
+    /**
+     * Tests that transient failures are not cached so they are retried by the
+     * next run
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void transientFailuresNotCached() throws IOException {
+        LinkStatusCache cache = new LinkStatusCache(this.cacheFile);
+        cache.put("http://example.org/a",
+                new CachedLinkStatus(ExternalLinkResult.Status.UNKNOWN_HOST, -1, null, null));
+        cache.put("http://example.org/b", new CachedLinkStatus(ExternalLinkResult.Status.UNEXPECTED_ERROR, -1,
+                null, null));
+        Assert.assertEquals(cache.size(), 0);
+
+        // A refused connection is not remembered
+        ServerSocket socket = new ServerSocket(0);
+        String refused = "http://127.0.0.1:" + socket.getLocalPort() + "/";
+        socket.close();
+        ExternalLinkValidator validator = new ExternalLinkValidator();
+        validator.setStatusCache(cache);
+        try {
+            for (int i = 0; i < 2; i++) {
+                ExternalLinkResult result = validator.validate(refused);
+                Assert.assertEquals(result.getStatus(), ExternalLinkResult.Status.UNEXPECTED_ERROR);
+            }
+        } finally {
+            validator.shutdown();
+        }
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertEquals(cache.getHits(), 0);
+        Assert.assertEquals(cache.getMisses(), 2);
+
+        // Whereas a definite failure is
+        this.run(LinkStatusCache.DEFAULT_SUCCESS_TTL, LinkStatusCache.DEFAULT_FAILURE_TTL, "/missing");
+        Assert.assertEquals(new LinkStatusCache(this.cacheFile).get(this.server.url("/missing")).getHttpStatus(),
+                404);
+    }
+
+    /**
+     * Tests that a corrupt cache file is ignored
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void corruptCacheIgnored() throws IOException {
+        FileWriter writer = new FileWriter(this.cacheFile);
+        writer.write("Not a cache");
+        writer.close();
+
+        this.run(LinkStatusCache.DEFAULT_SUCCESS_TTL, LinkStatusCache.DEFAULT_FAILURE_TTL, "/ok");
+        Assert.assertEquals(this.server.getCount("HEAD /ok"), 1);
+        this.run(LinkStatusCache.DEFAULT_SUCCESS_TTL, LinkStatusCache.DEFAULT_FAILURE_TTL, "/ok");
+        Assert.assertEquals(this.server.getCount("HEAD /ok"), 1);
+    }
+}
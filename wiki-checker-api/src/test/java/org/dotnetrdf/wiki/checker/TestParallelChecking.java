@@ -0,0 +1,156 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.dotnetrdf.wiki.checker.data.BasicCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.BasicCheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.BasicCheckedLink;
+import org.dotnetrdf.wiki.checker.parser.CheckedNioWikiScanner;
+import org.dotnetrdf.wiki.data.issues.AbstractIssue;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that checking links in parallel gives the same results as checking
+ * them sequentially
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestParallelChecking {
+
+    private File wikiDir;
+
+    /**
+     * Creates a wiki on disk with a random link structure
+     * 
+     * @throws IOException
+     */
+    @BeforeClass
+    public void setup() throws IOException {
+        this.wikiDir = File.createTempFile("wiki", "");
+        this.wikiDir.delete();
+        this.wikiDir.mkdir();
+
+        Random rand = new Random(1234);
+        for (int i = 0; i < 200; i++) {
+            StringBuilder content = new StringBuilder();
+            content.append("# Page ").append(i).append("\n\n");
+            int links = rand.nextInt(6);
+            for (int j = 0; j < links; j++) {
+                switch (rand.nextInt(5)) {
+                case 0:
+                    content.append("See [Missing](Missing").append(j).append(")\n");
+                    break;
+                case 1:
+                    content.append("Contact [Us](mailto:us@example.org)\n");
+                    break;
+                case 2:
+                    content.append("Back to [](Page").append(i).append(")\n");
+                    break;
+                default:
+                    int target = rand.nextInt(200);
+                    content.append("See [Page ").append(target).append("](Page").append(target).append(")\n");
+                }
+            }
+            FileWriter writer = new FileWriter(new File(this.wikiDir, "Page" + i + ".md"));
+            writer.write(content.toString());
+            writer.close();
+        }
+    }
+
+    /**
+     * Removes the wiki from disk
+     */
+    @AfterClass
+    public void teardown() {
+        File[] children = this.wikiDir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        this.wikiDir.delete();
+    }
+
+    private Map<String, List<String>> check(ExecutorService executor) throws IOException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        new CheckedNioWikiScanner<BasicCheckedLink, BasicCheckedDocument>().scan(wiki, this.wikiDir.getAbsolutePath());
+        BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument> checker = new BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument>(
+                wiki, this.wikiDir.getAbsolutePath());
+        checker.setExecutor(executor);
+        checker.run();
+
+        Map<String, List<String>> issues = new TreeMap<String, List<String>>();
+        Iterator<BasicCheckedDocument> documents = wiki.getDocuments();
+        while (documents.hasNext()) {
+            BasicCheckedDocument document = documents.next();
+            Assert.assertTrue(document.hasBeenChecked());
+            List<String> messages = new ArrayList<String>();
+            Iterator<AbstractIssue> iter = document.getIssues();
+            while (iter.hasNext()) {
+                messages.add(iter.next().getMessage());
+            }
+            messages.add(document.getInboundLinkCount() + " inbound");
+            issues.put(document.getPath(), messages);
+        }
+        return issues;
+    }
+
+    /**
+     * Tests that a parallel check reports exactly the same issues in the same
+     * order as a sequential check
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void parallelMatchesSequential() throws IOException {
+        Map<String, List<String>> expected = this.check(null);
+        Assert.assertEquals(expected.size(), 200);
+
+        for (int threads = 2; threads <= 8; threads *= 2) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                for (int run = 0; run < 5; run++) {
+                    Assert.assertEquals(this.check(executor), expected);
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.util.Arrays;
+
+import org.dotnetrdf.wiki.checker.checks.links.ProbeStrategy;
+import org.dotnetrdf.wiki.checker.checks.links.ProbeStrategy.Probe;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for selecting the probes used to validate external links
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestProbeStrategy {
+
+    /**
+     * Tests that the default probes are used when no rule applies
+     */
+    @Test
+    public void defaults() {
+        ProbeStrategy strategy = new ProbeStrategy();
+        Assert.assertEquals(strategy.getProbes("http://example.org/"), ProbeStrategy.DEFAULT_PROBES);
+
+        strategy.setDefaultProbes(ProbeStrategy.parse("head, get"));
+        Assert.assertEquals(strategy.getProbes("http://example.org/"), Arrays.asList(Probe.HEAD, Probe.GET));
+    }
+
+    /**
+     * Tests that host rules apply to the host and its sub-domains only
+     */
+    @Test
+    public void hostRules() {
+        ProbeStrategy strategy = new ProbeStrategy();
+        strategy.addRule("example.org=GET");
+        Assert.assertEquals(strategy.getProbes("http://example.org/"), Arrays.asList(Probe.GET));
+        Assert.assertEquals(strategy.getProbes("http://www.Example.org/page"), Arrays.asList(Probe.GET));
+        Assert.assertEquals(strategy.getProbes("http://anexample.org/"), ProbeStrategy.DEFAULT_PROBES);
+    }
+
+    /**
+     * Tests that content type rules apply by file extension and that host
+     * rules take precedence
+     */
+    @Test
+    public void contentTypeRules() {
+        ProbeStrategy strategy = new ProbeStrategy();
+        strategy.addRule("image/=RANGE_GET");
+        strategy.addRule("image/gif=HEAD");
+        strategy.addRule("example.com=GET");
+        Assert.assertEquals(strategy.getProbes("http://example.org/logo.png"), Arrays.asList(Probe.RANGE_GET));
+        Assert.assertEquals(strategy.getProbes("http://example.org/logo.gif"), Arrays.asList(Probe.HEAD));
+        Assert.assertEquals(strategy.getProbes("http://example.org/page.html"), ProbeStrategy.DEFAULT_PROBES);
+        Assert.assertEquals(strategy.getProbes("http://example.com/logo.png"), Arrays.asList(Probe.GET));
+    }
+
+    /**
+     * Tests that malformed rules are rejected
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void malformedRule() {
+        new ProbeStrategy().addRule("example.org=POST");
+    }
+}
@@ -0,0 +1,390 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dotnetrdf.wiki.checker.cache.CachedResult;
+import org.dotnetrdf.wiki.checker.cache.CheckResultCache;
+import org.dotnetrdf.wiki.checker.checks.AbstractDocumentCheck;
+import org.dotnetrdf.wiki.checker.checks.CacheableCheck;
+import org.dotnetrdf.wiki.checker.checks.LinkCheck;
+import org.dotnetrdf.wiki.checker.checks.links.ConcurrentExternalLinkCheck;
+import org.dotnetrdf.wiki.checker.checks.links.ExternalLinkCheck;
+import org.dotnetrdf.wiki.checker.data.BasicCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.CheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.BasicCheckedDocument;
+import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.BasicCheckedLink;
+import org.dotnetrdf.wiki.checker.data.links.CheckedLink;
+import org.dotnetrdf.wiki.checker.parser.CheckedNioWikiScanner;
+import org.dotnetrdf.wiki.data.issues.AbstractIssue;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Tests for the check result cache
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestResultCache {
+
+    private File wikiDir, cacheFile;
+
+    /**
+     * Creates a small wiki on disk
+     * 
+     * @throws IOException
+     */
+    @BeforeMethod
+    public void setup() throws IOException {
+        this.wikiDir = File.createTempFile("wiki", "");
+        this.wikiDir.delete();
+        this.wikiDir.mkdir();
+        this.cacheFile = File.createTempFile("results", ".cache");
+        this.cacheFile.delete();
+
+        this.write("Home.md", "# Home\n\nSee the [Guide](Guide), [Missing](Missing) and [](docs/Setup)\n");
+        this.write("Guide.md", "# Guide\n\nBack [Home](Home), mail [Us](mailto:us@example.org)\n");
+        this.write("Lonely.md", "# Lonely\n\nNothing links here and this links nowhere\n");
+        this.write("logo.png", "Not really an image");
+    }
+
+    /**
+     * Removes the wiki and the cache from disk
+     */
+    @AfterMethod
+    public void teardown() {
+        File[] children = this.wikiDir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        this.wikiDir.delete();
+        this.cacheFile.delete();
+        new File(this.cacheFile.getPath() + ".lock").delete();
+    }
+
+    private void write(String name, String content) throws IOException {
+        FileWriter writer = new FileWriter(new File(this.wikiDir, name));
+        writer.write(content);
+        writer.close();
+    }
+
+    private Map<String, List<String>> check(CheckResultCache cache, boolean scheduled, CountingCheck counter)
+            throws IOException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        new CheckedNioWikiScanner<BasicCheckedLink, BasicCheckedDocument>().scan(wiki, this.wikiDir.getAbsolutePath());
+        BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument> checker = new BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument>(
+                wiki, this.wikiDir.getAbsolutePath());
+        checker.setDependencyScheduling(scheduled);
+        checker.setResultCache(cache);
+        if (counter != null)
+            checker.addDocumentCheck(counter);
+        checker.run();
+
+        Map<String, List<String>> results = new TreeMap<String, List<String>>();
+        Iterator<BasicCheckedDocument> documents = wiki.getDocuments();
+        while (documents.hasNext()) {
+            BasicCheckedDocument document = documents.next();
+            List<String> messages = new ArrayList<String>();
+            Iterator<AbstractIssue> iter = document.getIssues();
+            while (iter.hasNext()) {
+                AbstractIssue issue = iter.next();
+                messages.add(issue.isError() + " " + issue.getMessage());
+            }
+            messages.add(document.getOutboundLinkCount() + " outbound");
+            messages.add(document.getInboundLinkCount() + " inbound");
+            results.put(document.getPath(), messages);
+        }
+        return results;
+    }
+
+    private void cachedMatchesUncached(boolean scheduled) throws IOException {
+        Map<String, List<String>> expected = this.check(null, scheduled, null);
+
+        CountingCheck counter = new CountingCheck();
+        CheckResultCache cache = new CheckResultCache(this.cacheFile);
+        Assert.assertEquals(this.check(cache, scheduled, counter), expected);
+        Assert.assertEquals(cache.getMisses(), 4);
+        Assert.assertEquals(counter.count.get(), 4);
+        Assert.assertTrue(this.cacheFile.exists());
+
+        // A new cache loads the results from disk and reuses all of them
+        counter = new CountingCheck();
+        cache = new CheckResultCache(this.cacheFile);
+        Assert.assertEquals(this.check(cache, scheduled, counter), expected);
+        Assert.assertEquals(cache.getHits(), 4);
+        Assert.assertEquals(cache.getMisses(), 0);
+        Assert.assertEquals(counter.count.get(), 0);
+
+        // Changing a document only rechecks that document but cross document
+        // issues are recomputed for all documents
+        this.write("Lonely.md", "# Lonely\n\nNow links to [Home](Home) and [Guide](Guide)\n");
+        expected = this.check(null, scheduled, null);
+        counter = new CountingCheck();
+        cache = new CheckResultCache(this.cacheFile);
+        Assert.assertEquals(this.check(cache, scheduled, counter), expected);
+        Assert.assertEquals(cache.getHits(), 3);
+        Assert.assertEquals(cache.getMisses(), 1);
+        Assert.assertEquals(counter.count.get(), 1);
+    }
+
+    /**
+     * Tests that results reused from the cache are the same as checking from
+     * scratch
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void cachedMatchesUncached() throws IOException {
+        this.cachedMatchesUncached(false);
+    }
+
+    /**
+     * Tests that results reused from the cache are the same as checking from
+     * scratch when checks are scheduled by their dependencies
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void cachedMatchesUncachedScheduled() throws IOException {
+        this.cachedMatchesUncached(true);
+    }
+
+    /**
+     * Tests that results are not reused once the configuration of the checks
+     * changes
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void configurationChangeInvalidates() throws IOException {
+        this.check(new CheckResultCache(this.cacheFile), false, new CountingCheck());
+
+        CountingCheck counter = new CountingCheck();
+        counter.key = "changed";
+        CheckResultCache cache = new CheckResultCache(this.cacheFile);
+        this.check(cache, false, counter);
+        Assert.assertEquals(cache.getHits(), 0);
+        Assert.assertEquals(counter.count.get(), 4);
+    }
+
+    /**
+     * Tests that the cache file does not exceed its maximum size
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void sizeCap() throws IOException {
+        CheckResultCache cache = new CheckResultCache(this.cacheFile, 300);
+        this.check(cache, false, null);
+        Assert.assertTrue(this.cacheFile.length() <= 300);
+        Assert.assertTrue(cache.size() > 0 && cache.size() < 4);
+
+        cache = new CheckResultCache(this.cacheFile, 300);
+        this.check(cache, false, null);
+        Assert.assertTrue(cache.getHits() > 0);
+    }
+
+    /**
+     * Tests that expired results are not reused
+     * 
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    @Test
+    public void maxAge() throws IOException, InterruptedException {
+        this.check(new CheckResultCache(this.cacheFile), false, null);
+        Thread.sleep(20);
+
+        CheckResultCache cache = new CheckResultCache(this.cacheFile);
+        cache.setMaxAge(10);
+        this.check(cache, false, null);
+        Assert.assertEquals(cache.getHits(), 0);
+    }
+
+    private List<String> checkExternal(CheckResultCache cache, boolean concurrent) throws IOException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        new CheckedNioWikiScanner<BasicCheckedLink, BasicCheckedDocument>().scan(wiki, this.wikiDir.getAbsolutePath());
+        LinkCheck external = concurrent ? new ConcurrentExternalLinkCheck(2, 2) : new ExternalLinkCheck();
+        try {
+            BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument> checker = new BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument>(
+                    wiki, this.wikiDir.getAbsolutePath(), external);
+            checker.setResultCache(cache);
+            checker.run();
+        } finally {
+            if (concurrent)
+                ((ConcurrentExternalLinkCheck) external).shutdown();
+        }
+
+        List<String> messages = new ArrayList<String>();
+        Iterator<AbstractIssue> iter = wiki.getDocument("External").getIssues();
+        while (iter.hasNext()) {
+            messages.add(iter.next().getMessage());
+        }
+        return messages;
+    }
+
+    private void externalLinksRevalidated(boolean concurrent) throws IOException {
+        final AtomicInteger status = new AtomicInteger(200);
+        EmbeddedHttpServer server = new EmbeddedHttpServer(new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.sendResponseHeaders(status.get(), -1);
+                exchange.close();
+            }
+        });
+        try {
+            this.write("External.md", "# External\n\nSee [Status](" + server.url("/status") + ")\n");
+            List<String> messages = this.checkExternal(new CheckResultCache(this.cacheFile), concurrent);
+            Assert.assertTrue(messages.toString().indexOf("Broken External Link") < 0, messages.toString());
+
+            // The document is unchanged so its results are reused but the
+            // link breaking must still be reported
+            status.set(404);
+            CheckResultCache cache = new CheckResultCache(this.cacheFile);
+            messages = this.checkExternal(cache, concurrent);
+            Assert.assertEquals(cache.getHits(), 5);
+            Assert.assertEquals(cache.getMisses(), 0);
+            Assert.assertTrue(messages.toString().indexOf("Broken External Link (HTTP Status 404)") >= 0,
+                    messages.toString());
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Tests that external links of unchanged documents are validated again
+     * rather than their statuses being restored from the cache
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void externalLinksRevalidated() throws IOException {
+        this.externalLinksRevalidated(false);
+    }
+
+    /**
+     * Tests that external links of unchanged documents are validated again
+     * rather than their statuses being restored from the cache when they are
+     * validated concurrently
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void externalLinksRevalidatedConcurrently() throws IOException {
+        this.externalLinksRevalidated(true);
+    }
+
+    /**
+     * Tests that runs sharing a cache file keep each other's results when
+     * saving, provided the configured checks are the same
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void concurrentSavesMerged() throws IOException {
+        CheckResultCache first = new CheckResultCache(this.cacheFile);
+        CheckResultCache second = new CheckResultCache(this.cacheFile);
+        first.load(1);
+        second.load(1);
+        first.put("A", new CachedResult(1));
+        second.put("B", new CachedResult(2));
+        first.save();
+        second.save();
+
+        CheckResultCache cache = new CheckResultCache(this.cacheFile);
+        cache.load(1);
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertNotNull(cache.get("A", 1));
+        Assert.assertNotNull(cache.get("B", 2));
+
+        // Results for other configurations are replaced
+        CheckResultCache other = new CheckResultCache(this.cacheFile);
+        other.load(2);
+        other.put("C", new CachedResult(3));
+        other.save();
+        cache = new CheckResultCache(this.cacheFile);
+        cache.load(2);
+        Assert.assertEquals(cache.size(), 1);
+
+        // No temporary files are left behind
+        File[] files = this.cacheFile.getAbsoluteFile().getParentFile().listFiles();
+        for (File f : files) {
+            Assert.assertFalse(f.getName().startsWith(this.cacheFile.getName()) && f.getName().endsWith(".tmp"),
+                    f.getName());
+        }
+    }
+
+    /**
+     * Tests that a corrupt cache file is ignored
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void corruptCacheIgnored() throws IOException {
+        Map<String, List<String>> expected = this.check(null, false, null);
+        FileWriter writer = new FileWriter(this.cacheFile);
+        writer.write("This is not a cache");
+        writer.close();
+
+        CheckResultCache cache = new CheckResultCache(this.cacheFile);
+        Assert.assertEquals(this.check(cache, false, null), expected);
+        Assert.assertEquals(cache.getMisses(), 4);
+    }
+
+    /**
+     * A cacheable document check which counts how often it runs
+     */
+    private static class CountingCheck extends AbstractDocumentCheck implements CacheableCheck {
+        final AtomicInteger count = new AtomicInteger();
+        String key = "";
+
+        @Override
+        public <TLink extends CheckedLink, TDoc extends CheckedDocument<TLink>> void check(TDoc document,
+                CharSequence text, CheckedWiki<TLink, TDoc> wiki) {
+            this.count.incrementAndGet();
+        }
+
+        @Override
+        public String getConfigurationKey() {
+            return this.key;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import org.dotnetrdf.wiki.checker.checks.links.UrlNormalizer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for URL normalization
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestUrlNormalizer {
+
+    /**
+     * Tests that fragments are removed
+     */
+    @Test
+    public void fragments() {
+        Assert.assertEquals(UrlNormalizer.normalize("http://example.org/page#a"), "http://example.org/page");
+        Assert.assertEquals(UrlNormalizer.normalize("http://example.org/page#b"), "http://example.org/page");
+        Assert.assertEquals(UrlNormalizer.normalize("http://example.org/page?q=1#a"), "http://example.org/page?q=1");
+    }
+
+    /**
+     * Tests that the scheme and host are case insensitive and query strings
+     * and paths are not
+     */
+    @Test
+    public void caseInsensitivity() {
+        Assert.assertEquals(UrlNormalizer.normalize("HTTP://Example.ORG/Page?Q=A"), "http://example.org/Page?Q=A");
+    }
+
+    /**
+     * Tests that default ports are removed and others retained
+     */
+    @Test
+    public void ports() {
+        Assert.assertEquals(UrlNormalizer.normalize("http://example.org:80/"), "http://example.org/");
+        Assert.assertEquals(UrlNormalizer.normalize("https://example.org:443/"), "https://example.org/");
+        Assert.assertEquals(UrlNormalizer.normalize("https://example.org:80/"), "https://example.org:80/");
+        Assert.assertEquals(UrlNormalizer.normalize("http://example.org:8080/"), "http://example.org:8080/");
+    }
+
+    /**
+     * Tests that paths are normalized
+     */
+    @Test
+    public void paths() {
+        Assert.assertEquals(UrlNormalizer.normalize("http://example.org"), "http://example.org/");
+        Assert.assertEquals(UrlNormalizer.normalize("http://example.org/a/./b/../c"), "http://example.org/a/c");
+        Assert.assertEquals(UrlNormalizer.normalize("http://user@example.org/a%20b"), "http://user@example.org/a%20b");
+    }
+
+    /**
+     * Tests that URLs which cannot be normalized are left unchanged
+     */
+    @Test
+    public void unparseable() {
+        Assert.assertEquals(UrlNormalizer.normalize("http://example.org/a b"), "http://example.org/a b");
+        Assert.assertEquals(UrlNormalizer.normalize("urn:isbn:0451450523"), "urn:isbn:0451450523");
+    }
+}
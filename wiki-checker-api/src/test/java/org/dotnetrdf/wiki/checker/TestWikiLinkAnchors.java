@@ -0,0 +1,167 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.checker;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.dotnetrdf.wiki.checker.checks.links.WikiLinkCheck;
+import org.dotnetrdf.wiki.checker.data.BasicCheckedWiki;
+import org.dotnetrdf.wiki.checker.data.documents.BasicCheckedDocument;
+import org.dotnetrdf.wiki.checker.data.links.BasicCheckedLink;
+import org.dotnetrdf.wiki.checker.parser.CheckedNioWikiScanner;
+import org.dotnetrdf.wiki.data.documents.DocumentTextCache;
+import org.dotnetrdf.wiki.data.issues.AbstractIssue;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that wiki links with fragments are resolved to their target document
+ * and validated against its headings
+ *
+ * @author rvesse
+ *
+ */
+public class TestWikiLinkAnchors {
+
+    private File wikiDir;
+
+    /**
+     * Creates a small wiki on disk
+     *
+     * @throws IOException
+     */
+    @BeforeMethod
+    public void setup() throws IOException {
+        this.wikiDir = File.createTempFile("wiki", "");
+        this.wikiDir.delete();
+        this.wikiDir.mkdir();
+
+        this.write("Home.md", "# Home\n\nSee [Install](Setup#Installation), [Config](Setup#configuration) and [Jump](#usage)\n\n## Usage\n\nBack to [Home](Home#home)\n");
+        this.write("Setup.md", "# Setup\n\nInstallation\n============\n\n## Configuration\n\nSee [Missing](Home#no-such-heading) and [Gone](Gone#anything)\n");
+    }
+
+    /**
+     * Removes the wiki from disk
+     */
+    @AfterMethod
+    public void teardown() {
+        File[] children = this.wikiDir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        this.wikiDir.delete();
+    }
+
+    private void write(String file, String content) throws IOException {
+        FileWriter writer = new FileWriter(new File(this.wikiDir, file));
+        writer.write(content);
+        writer.close();
+    }
+
+    private static List<String> getMessages(BasicCheckedDocument document) {
+        List<String> messages = new ArrayList<String>();
+        Iterator<AbstractIssue> iter = document.getIssues();
+        while (iter.hasNext()) {
+            messages.add(iter.next().getMessage());
+        }
+        return messages;
+    }
+
+    private static boolean contains(List<String> messages, String prefix) {
+        for (String message : messages) {
+            if (message.startsWith(prefix))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tests that fragment links are validated against the headings of their
+     * target document
+     *
+     * @throws IOException
+     */
+    @Test
+    public void anchors() throws IOException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        new CheckedNioWikiScanner<BasicCheckedLink, BasicCheckedDocument>().scan(wiki, this.wikiDir.getAbsolutePath());
+        new BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument>(wiki, this.wikiDir.getAbsolutePath()).run();
+
+        BasicCheckedDocument home = wiki.getDocument("Home");
+        BasicCheckedDocument setup = wiki.getDocument("Setup");
+        Assert.assertNotNull(home.getAnchorIndex());
+        Assert.assertTrue(home.getAnchorIndex().contains("usage"));
+
+        // Links to existing headings, including on the same page, are fine
+        List<String> messages = getMessages(home);
+        Assert.assertFalse(contains(messages, "Broken Wiki Link"), messages.toString());
+
+        // Fragment links count as inbound links of their target
+        Assert.assertEquals(setup.getInboundLinkCount(), 2);
+        Assert.assertEquals(home.getInboundLinkCount(), 1);
+
+        // Missing headings are warnings, missing documents are still errors
+        messages = getMessages(setup);
+        Assert.assertTrue(contains(messages, "Broken Wiki Link anchor #no-such-heading"), messages.toString());
+        Assert.assertTrue(contains(messages, "Broken Wiki Link - Gone(Gone#anything)"), messages.toString());
+    }
+
+    /**
+     * Tests that documents whose links have not been detected are indexed
+     * when first targeted, reading their text through the text cache
+     *
+     * @throws IOException
+     */
+    @Test
+    public void lazyIndexing() throws IOException {
+        BasicCheckedWiki wiki = new BasicCheckedWiki();
+        new CheckedNioWikiScanner<BasicCheckedLink, BasicCheckedDocument>().scan(wiki, this.wikiDir.getAbsolutePath());
+        BasicCheckedDocument home = wiki.getDocument("Home");
+        BasicCheckedDocument setup = wiki.getDocument("Setup");
+        Assert.assertNull(setup.getAnchorIndex());
+
+        DocumentTextCache cache = new DocumentTextCache();
+        WikiLinkCheck check = new WikiLinkCheck();
+        check.setTextCache(cache);
+        check.check(home, home.createLink("Setup#installation", "Install", 1, 1), wiki);
+        Assert.assertNotNull(setup.getAnchorIndex());
+        Assert.assertEquals(cache.getMisses(), 1);
+        Assert.assertTrue(getMessages(home).isEmpty(), getMessages(home).toString());
+
+        // The index is reused and the text is cached for later checks
+        check.check(home, home.createLink("Setup#missing", "Missing", 2, 1), wiki);
+        Assert.assertEquals(cache.getMisses(), 1);
+        Assert.assertTrue(contains(getMessages(home), "Broken Wiki Link anchor #missing"));
+        Assert.assertEquals(cache.getText(setup).length(), setup.getSize());
+        Assert.assertEquals(cache.getHits(), 1);
+    }
+}
@@ -33,11 +33,16 @@ import io.airlift.command.ParseOptionMissingValueException;
 import io.airlift.command.SingleCommand;
 import io.airlift.command.model.CommandMetadata;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.Charset;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.inject.Inject;
 
@@ -49,14 +54,26 @@ import org.apache.log4j.Logger;
 import org.apache.log4j.PatternLayout;
 import org.dotnetrdf.wiki.checker.BasicWikiChecker;
 import org.dotnetrdf.wiki.checker.WikiChecker;
+import org.dotnetrdf.wiki.checker.archive.LinkArchive;
+import org.dotnetrdf.wiki.checker.cache.CheckResultCache;
+import org.dotnetrdf.wiki.checker.cache.LinkStatusCache;
+import org.dotnetrdf.wiki.checker.checks.links.ConcurrentExternalLinkCheck;
+import org.dotnetrdf.wiki.checker.checks.links.ExternalLinkValidator;
+import org.dotnetrdf.wiki.checker.checks.links.HostStatus;
+import org.dotnetrdf.wiki.checker.checks.links.IriValidationCache;
+import org.dotnetrdf.wiki.checker.checks.links.ProbeStrategy;
 import org.dotnetrdf.wiki.checker.data.AbstractCheckedWiki;
 import org.dotnetrdf.wiki.checker.data.BasicCheckedWiki;
 import org.dotnetrdf.wiki.checker.data.documents.BasicCheckedDocument;
 import org.dotnetrdf.wiki.checker.data.documents.CheckedDocument;
 import org.dotnetrdf.wiki.checker.data.links.BasicCheckedLink;
+import org.dotnetrdf.wiki.checker.parser.CheckedNioWikiScanner;
 import org.dotnetrdf.wiki.checker.parser.CheckedWikiScanner;
+import org.dotnetrdf.wiki.data.documents.DocumentContentReader;
+import org.dotnetrdf.wiki.data.documents.DocumentTextCache;
 import org.dotnetrdf.wiki.data.issues.Issue;
 import org.dotnetrdf.wiki.data.issues.AbstractIssue;
+import org.dotnetrdf.wiki.parser.WikiScanner;
 import org.slf4j.LoggerFactory;
 
 /**
@@ -102,6 +119,144 @@ public class CheckerCmd {
     @Option(name = { "-l", "--log" }, required = false, arity = 1, type = OptionType.COMMAND, title = "Log File", description = "Specifies a file to write log output to (defaults to wiki-checker.log)")
     public String logFile = "wiki-checker.log";
 
+    /**
+     * Scan threads option
+     */
+    @Option(name = { "--scan-threads" }, required = false, arity = 1, type = OptionType.COMMAND, title = "Scan Threads", description = "Specifies the number of threads used to scan the wiki directory (defaults to 1 i.e. a sequential NIO scan, greater values use a parallel scan)")
+    public int scanThreads = 1;
+
+    /**
+     * Check threads option
+     */
+    @Option(name = { "--check-threads" }, required = false, arity = 1, type = OptionType.COMMAND, title = "Check Threads", description = "Specifies the number of threads used to detect and check links in documents (defaults to 1 i.e. sequential checking)")
+    public int checkThreads = 1;
+
+    /**
+     * External link concurrency option
+     */
+    @Option(name = { "--link-concurrency" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link Concurrency", description = "Specifies the maximum number of external links validated concurrently (defaults to 16)")
+    public int linkConcurrency = ConcurrentExternalLinkCheck.DEFAULT_MAX_CONCURRENCY;
+
+    /**
+     * External link host concurrency option
+     */
+    @Option(name = { "--link-host-concurrency" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link Host Concurrency", description = "Specifies the maximum number of external links to a single host validated concurrently (defaults to 2)")
+    public int linkHostConcurrency = ConcurrentExternalLinkCheck.DEFAULT_MAX_CONCURRENCY_PER_HOST;
+
+    /**
+     * External link host rate option
+     */
+    @Option(name = { "--link-host-rate" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link Host Rate", description = "Specifies the maximum number of requests per second made to a single host when validating external links (defaults to 0 i.e. no limit)")
+    public double linkHostRate = 0;
+
+    /**
+     * External link host failures option
+     */
+    @Option(name = { "--link-host-failures" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link Host Failures", description = "Specifies the number of consecutive failures after which a host is deemed unavailable and its remaining external links are reported as unresolved (defaults to 5, 0 never deems a host unavailable)")
+    public int linkHostFailures = ConcurrentExternalLinkCheck.DEFAULT_FAILURE_THRESHOLD;
+
+    /**
+     * External link timeout option
+     */
+    @Option(name = { "--link-timeout" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link Timeout", description = "Specifies the timeout in seconds for connecting to and receiving data from a host when validating external links (defaults to 30, 0 for no timeout)")
+    public int linkTimeout = ExternalLinkValidator.DEFAULT_TIMEOUT / 1000;
+
+    /**
+     * External link IRI cache size option
+     */
+    @Option(name = { "--link-iri-cache-size" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link IRI Cache Size", description = "Specifies the maximum number of distinct external link URLs whose IRI violations are cached (defaults to 10000, 0 disables caching)")
+    public int linkIriCacheSize = IriValidationCache.DEFAULT_MAX_ENTRIES;
+
+    /**
+     * External link anchors option
+     */
+    @Option(name = { "--link-anchors" }, required = false, type = OptionType.COMMAND, title = "Validate External Link Anchors", description = "Specifies that the anchors targeted by the fragments of external links are validated, each page is retrieved and scanned once for all the anchors targeted by links to it")
+    public boolean linkAnchors = false;
+
+    /**
+     * External link anchor scan limit option
+     */
+    @Option(name = { "--link-anchor-scan-limit" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link Anchor Scan Limit", description = "Specifies the maximum number of kilobytes of a page scanned for anchors, anchors not found within the limit are assumed to exist (defaults to 1024)")
+    public long linkAnchorScanLimit = ExternalLinkValidator.DEFAULT_ANCHOR_SCAN_LIMIT / 1024;
+
+    /**
+     * External link probes option
+     */
+    @Option(name = { "--link-probes" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link Probes", description = "Specifies a comma separated list of the requests tried in turn when validating external links, HEAD for a HEAD request, RANGE_GET for a GET request of the first byte and GET for a GET request aborted after the headers (defaults to HEAD,RANGE_GET,GET)")
+    public String linkProbes;
+
+    /**
+     * External link probe rules option
+     */
+    @Option(name = { "--link-probe-rule" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link Probe Rule", description = "Specifies the requests tried for a host or content type in the form key=PROBE,PROBE where the key is a content type such as image/ or application/pdf if it contains a / and a host otherwise, may be specified multiple times")
+    public List<String> linkProbeRules;
+
+    /**
+     * External link archive option
+     */
+    @Option(name = { "--link-archive" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link Archive", description = "Specifies a WARC (.warc or .warc.gz), HAR (.har or .har.gz) or manifest file of URLs and their HTTP statuses, plus the locations of redirects which are followed within the archives, against which external links are validated without making any requests, links to URLs not in any archive are reported as warnings, may be specified multiple times")
+    public List<String> linkArchives;
+
+    /**
+     * External link cache option
+     */
+    @Option(name = { "--link-cache" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link Cache File", description = "Specifies a file in which the status of external links is cached between runs, the file may be shared by concurrent runs")
+    public String linkCacheFile;
+
+    /**
+     * External link cache TTL option
+     */
+    @Option(name = { "--link-cache-ttl" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link Cache TTL", description = "Specifies the time in hours for which a cached valid external link is trusted before it is revalidated (defaults to 168)")
+    public int linkCacheTtl = (int) (LinkStatusCache.DEFAULT_SUCCESS_TTL / (60L * 60L * 1000L));
+
+    /**
+     * External link cache failure TTL option
+     */
+    @Option(name = { "--link-cache-failure-ttl" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link Cache Failure TTL", description = "Specifies the time in hours for which a cached broken external link is trusted before it is checked again (defaults to 24)")
+    public int linkCacheFailureTtl = (int) (LinkStatusCache.DEFAULT_FAILURE_TTL / (60L * 60L * 1000L));
+
+    /**
+     * External link cache retention option
+     */
+    @Option(name = { "--link-cache-retention" }, required = false, arity = 1, type = OptionType.COMMAND, title = "External Link Cache Retention", description = "Specifies the time in days after which an external link that has not been checked again is dropped from the cache (defaults to 30)")
+    public int linkCacheRetention = (int) (LinkStatusCache.DEFAULT_RETENTION / (24L * 60L * 60L * 1000L));
+
+    /**
+     * Schedule checks option
+     */
+    @Option(name = { "--schedule-checks" }, required = false, type = OptionType.COMMAND, title = "Schedule Checks", description = "Specifies that checks are run as soon as the data they depend upon is available rather than in fixed phases, issues within each document are then grouped by check")
+    public boolean scheduleChecks = false;
+
+    /**
+     * Text cache option
+     */
+    @Option(name = { "--text-cache" }, required = false, arity = 1, type = OptionType.COMMAND, title = "Text Cache Size", description = "Specifies the maximum size in megabytes of document text cached while checking (defaults to 32, 0 disables caching)")
+    public int textCacheSize = 32;
+
+    /**
+     * Result cache option
+     */
+    @Option(name = { "--result-cache" }, required = false, arity = 1, type = OptionType.COMMAND, title = "Result Cache File", description = "Specifies a file in which check results are cached between runs so that unchanged documents need not be checked again")
+    public String resultCacheFile;
+
+    /**
+     * Result cache size option
+     */
+    @Option(name = { "--result-cache-size" }, required = false, arity = 1, type = OptionType.COMMAND, title = "Result Cache Size", description = "Specifies the maximum size in megabytes of the result cache file (defaults to 64)")
+    public int resultCacheSize = 64;
+
+    /**
+     * Result cache age option
+     */
+    @Option(name = { "--result-cache-age" }, required = false, arity = 1, type = OptionType.COMMAND, title = "Result Cache Age", description = "Specifies the maximum age in hours of cached results that will be reused, older results are checked again (defaults to 0 i.e. no limit)")
+    public int resultCacheAge = 0;
+
+    /**
+     * Encoding option
+     */
+    @Option(name = { "-e", "--encoding" }, required = false, arity = 1, type = OptionType.COMMAND, title = "Encoding", description = "Specifies the character encoding of documents which do not start with a byte order mark (defaults to UTF-8)")
+    public String encoding = DocumentContentReader.DEFAULT_CHARSET.name();
+
     /**
      * Entry point for the CLI
      * 
@@ -174,17 +329,87 @@ public class CheckerCmd {
 
             // Scan specified directory
             BasicCheckedWiki wiki = new BasicCheckedWiki();
-            CheckedWikiScanner<BasicCheckedLink, BasicCheckedDocument> scanner = new CheckedWikiScanner<BasicCheckedLink, BasicCheckedDocument>();
+            WikiScanner<BasicCheckedLink, BasicCheckedDocument> scanner;
+            if (this.scanThreads > 1) {
+                CheckedWikiScanner<BasicCheckedLink, BasicCheckedDocument> parallelScanner = new CheckedWikiScanner<BasicCheckedLink, BasicCheckedDocument>();
+                parallelScanner.setParallelism(this.scanThreads);
+                scanner = parallelScanner;
+            } else {
+                scanner = new CheckedNioWikiScanner<BasicCheckedLink, BasicCheckedDocument>();
+            }
             System.out.println(String.format("Checking wiki located at %s", this.input));
             scanner.scan(wiki, this.input);
+            Charset charset = Charset.forName(this.encoding);
+            Iterator<BasicCheckedDocument> documents = wiki.getDocuments();
+            while (documents.hasNext()) {
+                documents.next().setCharset(charset);
+            }
 
             // Carry out checks
+            ConcurrentExternalLinkCheck externalLinkCheck = new ConcurrentExternalLinkCheck(this.linkConcurrency,
+                    this.linkHostConcurrency);
+            externalLinkCheck.setRateLimit(this.linkHostRate, 1);
+            externalLinkCheck.setFailureThreshold(this.linkHostFailures);
+            externalLinkCheck.setTimeout(this.linkTimeout * 1000);
+            ProbeStrategy probeStrategy = new ProbeStrategy();
+            if (this.linkProbes != null)
+                probeStrategy.setDefaultProbes(ProbeStrategy.parse(this.linkProbes));
+            if (this.linkProbeRules != null) {
+                for (String rule : this.linkProbeRules) {
+                    probeStrategy.addRule(rule);
+                }
+            }
+            externalLinkCheck.setProbeStrategy(probeStrategy);
+            externalLinkCheck.getValidator().setIriCache(new IriValidationCache(this.linkIriCacheSize));
+            externalLinkCheck.setAnchorValidation(this.linkAnchors);
+            externalLinkCheck.setAnchorScanLimit(this.linkAnchorScanLimit * 1024);
+            if (this.linkArchives != null) {
+                LinkArchive archive = new LinkArchive();
+                for (String archiveFile : this.linkArchives) {
+                    archive.load(new File(archiveFile));
+                }
+                externalLinkCheck.setArchive(archive);
+            }
+            LinkStatusCache linkCache = null;
+            if (this.linkCacheFile != null) {
+                linkCache = new LinkStatusCache(new File(this.linkCacheFile));
+                linkCache.setSuccessTtl(this.linkCacheTtl * 60L * 60L * 1000L);
+                linkCache.setFailureTtl(this.linkCacheFailureTtl * 60L * 60L * 1000L);
+                linkCache.setRetention(this.linkCacheRetention * 24L * 60L * 60L * 1000L);
+                externalLinkCheck.setStatusCache(linkCache);
+            }
             WikiChecker<BasicCheckedLink, BasicCheckedDocument> checker = new BasicWikiChecker<BasicCheckedLink, BasicCheckedDocument>(
-                    wiki, this.input);
-            checker.run();
+                    wiki, this.input, externalLinkCheck);
+            checker.setTextCache(new DocumentTextCache(this.textCacheSize * 1024L * 1024L));
+            checker.setDependencyScheduling(this.scheduleChecks);
+            if (this.resultCacheFile != null) {
+                CheckResultCache resultCache = new CheckResultCache(new File(this.resultCacheFile),
+                        this.resultCacheSize * 1024L * 1024L);
+                resultCache.setMaxAge(this.resultCacheAge * 60L * 60L * 1000L);
+                checker.setResultCache(resultCache);
+            }
+            ExecutorService executor = null;
+            if (this.checkThreads > 1) {
+                executor = Executors.newFixedThreadPool(this.checkThreads);
+                checker.setExecutor(executor);
+            }
+            try {
+                checker.run();
+            } finally {
+                if (executor != null)
+                    executor.shutdown();
+                externalLinkCheck.shutdown();
+                if (linkCache != null) {
+                    try {
+                        linkCache.save();
+                    } catch (IOException e) {
+                        LOGGER.warn("Unable to save external link cache to " + linkCache.getFile(), e);
+                    }
+                }
+            }
 
             // Dump Report
-            String report = getReport(wiki);
+            String report = getReport(wiki, checker, externalLinkCheck);
             System.out.println(report);
             LOGGER.info("\n" + report);
 
@@ -202,6 +427,10 @@ public class CheckerCmd {
      * 
      * @param wiki
      *            Wiki
+     * @param checker
+     *            Checker
+     * @param externalLinkCheck
+     *            External link check
      * @param warn
      *            Whether to include warnings in the report
      * @param quiet
@@ -209,7 +438,8 @@ public class CheckerCmd {
      *            issues will be reported on
      * @return
      */
-    private String getReport(AbstractCheckedWiki<BasicCheckedLink, BasicCheckedDocument> wiki) {
+    private String getReport(AbstractCheckedWiki<BasicCheckedLink, BasicCheckedDocument> wiki,
+            WikiChecker<BasicCheckedLink, BasicCheckedDocument> checker, ConcurrentExternalLinkCheck externalLinkCheck) {
         StringWriter writer = new StringWriter();
         PrintWriter pw = new PrintWriter(writer);
 
@@ -218,6 +448,44 @@ public class CheckerCmd {
         pw.println(wiki.getTotalLinks() + " Link(s) discovered - " + wiki.getTotalWikiLinks() + " Wiki Link(s) and "
                 + wiki.getTotalExternalLinks() + " External Link(s)");
         pw.println(wiki.getTotalErrorCount() + " Error(s) and " + wiki.getTotalWarningCount() + " Warning(s)");
+        pw.println("Document text cache had " + checker.getTextCache().toString());
+        if (checker.getResultCache() != null)
+            pw.println("Check result cache had " + checker.getResultCache().toString());
+        pw.println("External link IRI cache had " + externalLinkCheck.getValidator().getIriCache().toString());
+        if (externalLinkCheck.getStatusCache() != null)
+            pw.println("External link cache had " + externalLinkCheck.getStatusCache().toString());
+        if (externalLinkCheck.getValidator().getArchive() != null)
+            pw.println("External link archive had " + externalLinkCheck.getValidator().getArchive().toString());
+        pw.println();
+
+        // Report on hosts of external links
+        List<HostStatus> hosts = externalLinkCheck.getHostStatuses();
+        int unavailable = 0;
+        for (HostStatus host : hosts) {
+            if (!host.isAvailable())
+                unavailable++;
+        }
+        int distinct = externalLinkCheck.getDistinctUrlCount();
+        int normalized = externalLinkCheck.getNormalizedUrlCount();
+        pw.println("External Link(s) to " + distinct + " distinct URL(s) normalized to " + normalized + " URL(s), saving "
+                + (distinct - normalized) + " request(s)");
+        pw.println("External Link(s) to " + hosts.size() + " Host(s) - " + unavailable + " Host(s) unavailable");
+        ExternalLinkValidator validator = externalLinkCheck.getValidator();
+        long requested = validator.getRequestedCount();
+        pw.println("External Link(s) requested " + requested + " URL(s) with " + validator.getRequestCount()
+                + " request(s) - " + validator.getRequestCount(ProbeStrategy.Probe.HEAD) + " HEAD, "
+                + validator.getRequestCount(ProbeStrategy.Probe.RANGE_GET) + " Range GET and "
+                + validator.getRequestCount(ProbeStrategy.Probe.GET) + " GET");
+        pw.println("External Link(s) received " + validator.getBytesReceived() + " byte(s), "
+                + (requested > 0 ? validator.getBytesReceived() / requested : 0) + " byte(s) per URL");
+        if (externalLinkCheck.isAnchorValidation())
+            pw.println("External Link(s) scanned " + validator.getAnchorScanCount() + " page(s) for anchors - "
+                    + validator.getTruncatedAnchorScanCount() + " page(s) exceeded the scan limit");
+        for (HostStatus host : hosts) {
+            if (!host.isAvailable() || this.verbose || (host.getFailures() > 0 && this.showWarnings)) {
+                pw.println(host.toString());
+            }
+        }
         pw.println();
 
         // Report on global issues
@@ -22,15 +22,22 @@ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 package org.dotnetrdf.wiki.data;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.dotnetrdf.wiki.data.documents.Document;
+import org.dotnetrdf.wiki.data.graph.LinkGraph;
 import org.dotnetrdf.wiki.data.links.Link;
 
 /**
  * A basic representation of a wiki
+ * <p>
+ * Documents may be added and looked up from multiple threads without external
+ * locking. Documents are held in a concurrent map and the index of documents
+ * by path id is only locked while it is being grown so lookups never block.
+ * </p>
  * 
  * @author rvesse
  * @param <TLink>
@@ -44,11 +51,62 @@ public abstract class AbstractWiki<TLink extends Link, TDoc extends Document<TLi
     /**
      * Map of wiki paths to documents
      */
-    protected Map<String, TDoc> documents = new HashMap<String, TDoc>();
+    protected ConcurrentMap<String, TDoc> documents = new ConcurrentHashMap<String, TDoc>();
+
+    private final SymbolTable symbols = new SymbolTable();
+    private final Object indexLock = new Object();
+    private volatile Object[] documentsById = new Object[64];
+    private volatile LinkGraph<TDoc> graph;
 
     @Override
     public void addDocument(TDoc document) {
+        document.setSymbolTable(this.symbols);
         this.documents.put(document.getPath(), document);
+        this.index(document);
+    }
+
+    @Override
+    public boolean addDocumentIfAbsent(TDoc document) {
+        if (this.documents.containsKey(document.getPath()))
+            return false;
+        document.setSymbolTable(this.symbols);
+        if (this.documents.putIfAbsent(document.getPath(), document) != null)
+            return false;
+        this.index(document);
+        return true;
+    }
+
+    /**
+     * Indexes a document by its path id and discards any existing link graph
+     * 
+     * @param document
+     *            Document which must already use the wiki symbol table
+     */
+    private void index(TDoc document) {
+        int id = document.getPathId();
+        synchronized (this.indexLock) {
+            Object[] byId = this.documentsById;
+            if (id >= byId.length)
+                byId = Arrays.copyOf(byId, Math.max(byId.length * 2, id + 1));
+            byId[id] = this.documents.get(document.getPath());
+            this.documentsById = byId;
+        }
+        this.graph = null;
+    }
+
+    @Override
+    public TDoc removeDocument(String path) {
+        TDoc document = this.documents.remove(path);
+        if (document == null)
+            return null;
+        int id = document.getPathId();
+        synchronized (this.indexLock) {
+            Object[] byId = this.documentsById;
+            if (id < byId.length && byId[id] == document)
+                byId[id] = null;
+        }
+        this.graph = null;
+        return document;
     }
 
     @Override
@@ -61,6 +119,45 @@ public abstract class AbstractWiki<TLink extends Link, TDoc extends Document<TLi
         return this.documents.get(linkPath);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public TDoc getDocument(int pathId) {
+        Object[] byId = this.documentsById;
+        if (pathId < 0 || pathId >= byId.length)
+            return null;
+        return (TDoc) byId[pathId];
+    }
+
+    @Override
+    public TDoc getLinkTarget(TLink link) {
+        TDoc target = this.getDocument(link.getPathId());
+        if (target != null)
+            return target;
+
+        // Links with a fragment are interned with the fragment so look up the
+        // path without it
+        String path = link.getPath();
+        int hash = path.indexOf('#');
+        if (hash >= 0)
+            path = path.substring(0, hash);
+        return path.length() > 0 ? this.getDocument(this.symbols.getId(path)) : null;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable() {
+        return this.symbols;
+    }
+
+    @Override
+    public LinkGraph<TDoc> getLinkGraph() {
+        return this.graph;
+    }
+
+    @Override
+    public void setLinkGraph(LinkGraph<TDoc> graph) {
+        this.graph = graph;
+    }
+
     @Override
     public int getDocumentCount() {
         return this.documents.size();
@@ -0,0 +1,129 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.data;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A table of interned strings, typically link paths, link texts and document
+ * paths, which assigns each distinct string a dense integer id
+ * <p>
+ * A wiki owns a single symbol table which it hands to its documents so the
+ * same string is only held once across the whole wiki and strings can be
+ * compared by id. Ids are assigned from zero upwards in the order strings are
+ * first interned and are never reused.
+ * </p>
+ * <p>
+ * The table is safe for use from multiple threads, looking up an existing
+ * string does not lock.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public class SymbolTable {
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+    private volatile String[] strings = new String[64];
+    private int size = 0;
+
+    /**
+     * Interns a string
+     * 
+     * @param value
+     *            String
+     * @return Id of the string
+     */
+    public int intern(String value) {
+        Integer id = this.ids.get(value);
+        if (id != null)
+            return id;
+
+        synchronized (this) {
+            id = this.ids.get(value);
+            if (id != null)
+                return id;
+
+            String[] current = this.strings;
+            if (this.size == current.length)
+                current = Arrays.copyOf(current, current.length * 2);
+            current[this.size] = value;
+            this.strings = current;
+            id = this.size++;
+            // Publish the id only once the string can be looked up
+            this.ids.put(value, id);
+            return id;
+        }
+    }
+
+    /**
+     * Gets the canonical instance of a string, interning it if necessary
+     * 
+     * @param value
+     *            String
+     * @return Canonical instance
+     */
+    public String canonicalize(String value) {
+        return this.lookup(this.intern(value));
+    }
+
+    /**
+     * Gets the id of a string without interning it
+     * 
+     * @param value
+     *            String
+     * @return Id or -1 if the string has not been interned
+     */
+    public int getId(String value) {
+        Integer id = this.ids.get(value);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Gets the string with the given id
+     * 
+     * @param id
+     *            Id
+     * @return String
+     * @throws IndexOutOfBoundsException
+     *             Thrown if no string has the given id
+     */
+    public String lookup(int id) {
+        String[] current = this.strings;
+        String value = id >= 0 && id < current.length ? current[id] : null;
+        if (value == null)
+            throw new IndexOutOfBoundsException("No symbol with id " + id);
+        return value;
+    }
+
+    /**
+     * Gets the number of interned strings
+     * 
+     * @return Number of strings
+     */
+    public int size() {
+        return this.ids.size();
+    }
+}
@@ -25,6 +25,7 @@ package org.dotnetrdf.wiki.data;
 import java.util.Iterator;
 
 import org.dotnetrdf.wiki.data.documents.Document;
+import org.dotnetrdf.wiki.data.graph.LinkGraph;
 import org.dotnetrdf.wiki.data.links.Link;
 
 /**
@@ -47,6 +48,35 @@ public interface Wiki<TLink extends Link, TDoc extends Document<TLink>> {
      */
     public void addDocument(TDoc document);
 
+    /**
+     * Adds a document only if no document with the same path is already
+     * present in the wiki
+     * <p>
+     * Implementations must make the check and the addition atomic so that
+     * concurrent scanners may safely call this method
+     * </p>
+     * 
+     * @param document
+     *            Document
+     * @return True if the document was added, false if a document with the
+     *         same path was already present
+     */
+    public boolean addDocumentIfAbsent(TDoc document);
+
+    /**
+     * Removes a document, typically because its on disk file has been deleted
+     * <p>
+     * Any link graph is discarded since it refers to the removed document,
+     * the inbound links the document contributed to other documents are the
+     * responsibility of the caller.
+     * </p>
+     * 
+     * @param path
+     *            Path
+     * @return Removed document or null if no such document
+     */
+    public TDoc removeDocument(String path);
+
     /**
      * Gets whether a document with the given path exists
      * 
@@ -65,6 +95,51 @@ public interface Wiki<TLink extends Link, TDoc extends Document<TLink>> {
      */
     public TDoc getDocument(String linkPath);
 
+    /**
+     * Gets the document whose path has the given id in the symbol table of
+     * the wiki
+     * 
+     * @param pathId
+     *            Path id
+     * @return Page or null if no such document
+     */
+    public TDoc getDocument(int pathId);
+
+    /**
+     * Gets the document targeted by a wiki link, any fragment of the link path
+     * i.e. the section of the document linked to is ignored
+     * 
+     * @param link
+     *            Wiki Link
+     * @return Page or null if no such document or the link only has a
+     *         fragment and so targets the document containing it
+     */
+    public TDoc getLinkTarget(TLink link);
+
+    /**
+     * Gets the symbol table of the wiki which is shared by all its documents
+     * 
+     * @return Symbol table
+     */
+    public SymbolTable getSymbolTable();
+
+    /**
+     * Gets the link graph of the wiki
+     * 
+     * @return Link graph or null if no graph has been built since documents
+     *         were last added
+     */
+    public LinkGraph<TDoc> getLinkGraph();
+
+    /**
+     * Sets the link graph of the wiki, this should be built with
+     * {@link LinkGraph#build(Wiki)} once links have been detected
+     * 
+     * @param graph
+     *            Link graph
+     */
+    public void setLinkGraph(LinkGraph<TDoc> graph);
+
     /**
      * Gets the number of documents in the wiki
      * 
@@ -22,19 +22,38 @@ package org.dotnetrdf.wiki.data.documents;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.StringWriter;
-import java.util.HashSet;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.dotnetrdf.wiki.data.SymbolTable;
 import org.dotnetrdf.wiki.data.documents.formats.Format;
 import org.dotnetrdf.wiki.data.links.Link;
+import org.dotnetrdf.wiki.data.links.LinkTable;
 
 /**
  * Abstract implementation of the {@link Document} interface which leaves the
  * choice of link type up to derived implementations
+ * <p>
+ * Outbound links are stored in a compact {@link LinkTable}, link objects are
+ * only created via {@link #createLink(String, String, int, int, int)} as they
+ * are iterated over. Paths and texts are interned in the symbol table of the
+ * wiki the document is added to, a private symbol table and the link table are
+ * only created if they are needed before then so documents added straight to a
+ * wiki never allocate a table they would discard.
+ * </p>
+ * <p>
+ * Documents may be shared between threads. Inbound links are held in a
+ * concurrent set since they are registered while checking the links of other
+ * documents, the outbound link table is guarded by the lock on the document.
+ * </p>
  * 
  * @author rvesse
  * @param <T>
@@ -45,9 +64,19 @@ public abstract class AbstractDocument<T extends Link> implements Document<T> {
 
     private File file;
     private String path;
-    protected Set<T> links = new HashSet<T>();
-    protected Set<T> inboundLinks = new HashSet<T>();
+    private int pathId = -1;
+    private volatile SymbolTable symbols;
+    /**
+     * Outbound links, null until the first link is added
+     */
+    protected LinkTable links;
+    protected Set<T> inboundLinks = Collections.newSetFromMap(new ConcurrentHashMap<T, Boolean>());
     protected Format format;
+    private boolean attributesKnown = false;
+    private long size = -1, lastModified = -1;
+    private Object fileKey;
+    private volatile Charset charset = DocumentContentReader.DEFAULT_CHARSET;
+    private volatile AnchorIndex anchors;
 
     /**
      * Creates a document
@@ -71,6 +100,26 @@ public abstract class AbstractDocument<T extends Link> implements Document<T> {
         }
     }
 
+    /**
+     * Gets the symbol table, creating a private one if the document has not
+     * yet been given one
+     * 
+     * @return Symbol table
+     */
+    private SymbolTable symbols() {
+        SymbolTable symbols = this.symbols;
+        if (symbols != null)
+            return symbols;
+        synchronized (this) {
+            if (this.symbols == null) {
+                SymbolTable table = new SymbolTable();
+                this.pathId = table.intern(this.path);
+                this.symbols = table;
+            }
+            return this.symbols;
+        }
+    }
+
     @Override
     public String getPath() {
         return this.path;
@@ -86,6 +135,97 @@ public abstract class AbstractDocument<T extends Link> implements Document<T> {
         return this.format;
     }
 
+    @Override
+    public int getPathId() {
+        // Reading the symbol table first ensures the path id is visible
+        this.symbols();
+        return this.pathId;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable() {
+        return this.symbols();
+    }
+
+    @Override
+    public synchronized void setSymbolTable(SymbolTable symbols) {
+        if (symbols == null)
+            throw new NullPointerException("Symbol table cannot be null");
+        if (symbols == this.symbols)
+            return;
+
+        // Re-intern the path and any existing links
+        this.path = symbols.canonicalize(this.path);
+        this.pathId = symbols.intern(this.path);
+        if (this.links != null) {
+            LinkTable table = new LinkTable(symbols);
+            for (int i = 0; i < this.links.size(); i++) {
+                table.add(this.links.getPath(i), this.links.getText(i), this.links.getLine(i),
+                        this.links.getColumn(i));
+            }
+            this.links = table;
+        }
+        this.symbols = symbols;
+    }
+
+    @Override
+    public synchronized void setFileAttributes(BasicFileAttributes attributes) {
+        if (attributes != null) {
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+            this.fileKey = attributes.fileKey();
+        } else {
+            this.size = -1;
+            this.lastModified = -1;
+            this.fileKey = null;
+        }
+        this.attributesKnown = true;
+    }
+
+    @Override
+    public synchronized void resetFileAttributes() {
+        this.attributesKnown = false;
+    }
+
+    /**
+     * Ensures the file attributes have been read, if they were not supplied
+     * by the scanner they are read from the file system exactly once
+     */
+    private synchronized void ensureFileAttributes() {
+        if (this.attributesKnown)
+            return;
+
+        BasicFileAttributes attributes = null;
+        if (this.file != null) {
+            try {
+                attributes = Files.readAttributes(this.file.toPath(), BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                // Document does not exist on disk
+            } catch (IOException e) {
+                // Treat unreadable attributes as not existing
+            }
+        }
+        this.setFileAttributes(attributes);
+    }
+
+    @Override
+    public long getSize() {
+        this.ensureFileAttributes();
+        return this.size;
+    }
+
+    @Override
+    public long getLastModified() {
+        this.ensureFileAttributes();
+        return this.lastModified;
+    }
+
+    @Override
+    public Object getFileKey() {
+        this.ensureFileAttributes();
+        return this.fileKey;
+    }
+
     @Override
     public boolean isTopLevel() {
         return !this.path.contains("/");
@@ -93,34 +233,103 @@ public abstract class AbstractDocument<T extends Link> implements Document<T> {
     
     @Override
     public String getText() throws IOException {
+        CharSequence content = this.getContent();
+        return content != null ? content.toString() : null;
+    }
+
+    @Override
+    public CharSequence getContent() throws IOException {
         if (!this.format.isText()) return null;
         if (this.file == null) return null;
         
-        if (!this.file.exists()) throw new FileNotFoundException("The on disk file for the document " + this.getPath() + " cannot be found");
-        
-        FileReader reader = new FileReader(this.file);
-
-        StringWriter sw = new StringWriter(8192);
-        char buff[] = new char[8192];
-        for (;;) {
-            int l = reader.read(buff);
-            if (l < 0)
-                break;
-            sw.write(buff, 0, l);
-        }
-        reader.close();
-        sw.close();
-        return sw.toString();
+        if (this.getSize() < 0) throw new FileNotFoundException("The on disk file for the document " + this.getPath() + " cannot be found");
+
+        return DocumentContentReader.read(this.file, this.charset);
     }
 
     @Override
-    public void addOutboundLink(T link) {
-        this.links.add(link);
+    public Charset getCharset() {
+        return this.charset;
+    }
+
+    @Override
+    public void setCharset(Charset charset) {
+        if (charset == null) throw new NullPointerException("Charset cannot be null");
+        this.charset = charset;
+    }
+
+    /**
+     * Creates a link whose path has been interned in the symbol table of the
+     * document, derived implementations should override this to retain the
+     * path id on the link
+     * 
+     * @param path
+     *            Link Path
+     * @param text
+     *            Friendly text for the link
+     * @param line
+     *            Line the link occurs at
+     * @param column
+     *            Column the link occurs at
+     * @param pathId
+     *            Symbol id of the link path
+     * @return Link
+     */
+    protected T createLink(String path, String text, int line, int column, int pathId) {
+        return this.createLink(path, text, line, column);
+    }
+
+    @Override
+    public synchronized void addOutboundLink(T link) {
+        if (this.links == null)
+            this.links = new LinkTable(this.symbols());
+        this.links.add(link.getPath(), link.getText(), link.getLine(), link.getColumn());
+    }
+
+    @Override
+    public AnchorIndex getAnchorIndex() {
+        return this.anchors;
+    }
+
+    @Override
+    public void setAnchorIndex(AnchorIndex index) {
+        this.anchors = index;
+    }
+
+    @Override
+    public synchronized void clearOutboundLinks() {
+        if (this.links != null)
+            this.links.clear();
     }
 
     @Override
     public Iterator<T> getOutboundLinks() {
-        return this.links.iterator();
+        return new Iterator<T>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                synchronized (AbstractDocument.this) {
+                    return links != null && this.index < links.size();
+                }
+            }
+
+            @Override
+            public T next() {
+                synchronized (AbstractDocument.this) {
+                    if (!this.hasNext())
+                        throw new NoSuchElementException();
+                    int i = this.index++;
+                    return createLink(links.getPath(i), links.getText(i), links.getLine(i), links.getColumn(i),
+                            links.getPathId(i));
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
     }
 
     @Override
@@ -128,34 +337,29 @@ public abstract class AbstractDocument<T extends Link> implements Document<T> {
         this.inboundLinks.add(link);
     }
 
+    @Override
+    public void removeInboundLink(T link) {
+        this.inboundLinks.remove(link);
+    }
+
     @Override
     public Iterator<T> getInboundLinks() {
         return this.inboundLinks.iterator();
     }
 
     @Override
-    public int getOutboundLinkCount() {
-        return this.links.size();
+    public synchronized int getOutboundLinkCount() {
+        return this.links != null ? this.links.size() : 0;
     }
 
     @Override
-    public int getOutboundWikiLinkCount() {
-        int count = 0;
-        for (Link l : this.links) {
-            if (l.isWikiLink())
-                count++;
-        }
-        return count;
+    public synchronized int getOutboundWikiLinkCount() {
+        return this.links != null ? this.links.count(LinkTable.KIND_WIKI) : 0;
     }
 
     @Override
-    public int getOutboundExternalLinkCount() {
-        int count = 0;
-        for (Link l : this.links) {
-            if (!l.isWikiLink())
-                count++;
-        }
-        return count;
+    public synchronized int getOutboundExternalLinkCount() {
+        return this.links != null ? this.links.size() - this.links.count(LinkTable.KIND_WIKI) : 0;
     }
 
     @Override
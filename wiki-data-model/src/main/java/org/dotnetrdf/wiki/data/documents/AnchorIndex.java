@@ -0,0 +1,124 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.data.documents;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the anchors, i.e. the headings, of a document which allows links
+ * to a section of the document to be validated with a constant time lookup
+ * <p>
+ * Anchors are normalized in the same way as section anchors are commonly
+ * generated from headings, they are lower cased, whitespace is replaced with
+ * hyphens and any other punctuation except hyphens and underscores is removed.
+ * Fragments are normalized in the same way when looked up so
+ * {@code Page#Getting Started} and {@code Page#getting-started} both target
+ * the heading {@code Getting Started}. Repeated headings are numbered as
+ * renderers number them, the second {@code Usage} heading is anchored as
+ * {@code usage-1}, the third as {@code usage-2} and so on.
+ * </p>
+ * <p>
+ * An index is populated by a single thread, typically while detecting the
+ * links of the document, and should not be modified once it has been set on
+ * the document after which it may be shared between threads.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public final class AnchorIndex {
+
+    private final Set<String> anchors = new HashSet<String>();
+    private final Map<String, Integer> repeats = new HashMap<String, Integer>();
+
+    /**
+     * Adds an anchor to the index
+     * 
+     * @param heading
+     *            Heading text or anchor
+     */
+    public void add(String heading) {
+        String anchor = normalize(heading);
+        if (anchor.length() == 0 || this.anchors.add(anchor))
+            return;
+
+        // Repeated heading so number it, skipping numbers already taken by
+        // other headings
+        Integer next = this.repeats.get(anchor);
+        int n = next != null ? next : 1;
+        while (!this.anchors.add(anchor + "-" + n)) {
+            n++;
+        }
+        this.repeats.put(anchor, n + 1);
+    }
+
+    /**
+     * Gets whether the index contains an anchor
+     * 
+     * @param fragment
+     *            Fragment, without the leading {@code #}
+     * @return True if the anchor exists, false otherwise
+     */
+    public boolean contains(String fragment) {
+        return this.anchors.contains(normalize(fragment));
+    }
+
+    /**
+     * Gets the number of anchors in the index
+     * 
+     * @return Number of anchors
+     */
+    public int size() {
+        return this.anchors.size();
+    }
+
+    /**
+     * Normalizes a heading or fragment to an anchor
+     * 
+     * @param heading
+     *            Heading text or fragment
+     * @return Anchor
+     */
+    public static String normalize(String heading) {
+        String trimmed = heading.trim();
+        StringBuilder builder = new StringBuilder(trimmed.length());
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '-' || c == '_') {
+                builder.append(c);
+            } else if (Character.isWhitespace(c)) {
+                builder.append('-');
+            }
+        }
+        return builder.toString().toLowerCase(Locale.ENGLISH);
+    }
+
+    @Override
+    public String toString() {
+        return this.anchors.toString();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.data.documents;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A character sequence over pure ASCII bytes which avoids decoding the bytes
+ * into a separate character array
+ * <p>
+ * The bytes are never copied, each character is simply the corresponding byte
+ * so the underlying buffer must not be modified while the sequence is in use.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public final class AsciiCharSequence implements CharSequence {
+
+    private final ByteBuffer bytes;
+    private final int offset, length;
+
+    /**
+     * Creates a new sequence
+     * 
+     * @param bytes
+     *            Buffer containing only ASCII bytes, characters are read using
+     *            absolute positions so the buffer position is ignored
+     * @param offset
+     *            Offset of the first character within the buffer
+     * @param length
+     *            Number of characters
+     */
+    public AsciiCharSequence(ByteBuffer bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > bytes.limit())
+            throw new IndexOutOfBoundsException();
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= this.length)
+            throw new IndexOutOfBoundsException("Index " + index + " out of range for length " + this.length);
+        return (char) this.bytes.get(this.offset + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > this.length || start > end)
+            throw new IndexOutOfBoundsException();
+        return new AsciiCharSequence(this.bytes, this.offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        if (this.bytes.hasArray()) {
+            return new String(this.bytes.array(), this.bytes.arrayOffset() + this.offset, this.length,
+                    StandardCharsets.US_ASCII);
+        }
+        byte[] data = new byte[this.length];
+        ByteBuffer view = this.bytes.duplicate();
+        view.position(this.offset);
+        view.get(data);
+        return new String(data, StandardCharsets.US_ASCII);
+    }
+}
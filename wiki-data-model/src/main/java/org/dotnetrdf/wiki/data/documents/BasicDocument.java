@@ -72,4 +72,9 @@ public class BasicDocument extends AbstractDocument<BasicLink> {
         return new BasicLink(path, line, column);
     }
 
+    @Override
+    protected BasicLink createLink(String path, String text, int line, int column, int pathId) {
+        return new BasicLink(path, text, line, column, pathId);
+    }
+
 }
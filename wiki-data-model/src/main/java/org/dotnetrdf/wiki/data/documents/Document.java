@@ -24,8 +24,11 @@ package org.dotnetrdf.wiki.data.documents;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Iterator;
 
+import org.dotnetrdf.wiki.data.SymbolTable;
 import org.dotnetrdf.wiki.data.documents.formats.Format;
 import org.dotnetrdf.wiki.data.links.Link;
 
@@ -61,6 +64,79 @@ public interface Document<T extends Link> {
      */
     public abstract Format getFormat();
 
+    /**
+     * Gets the id of the document path in the symbol table of the document
+     * 
+     * @return Path id
+     */
+    public abstract int getPathId();
+
+    /**
+     * Gets the symbol table used to intern the document path and the paths
+     * and texts of its links
+     * 
+     * @return Symbol table
+     */
+    public abstract SymbolTable getSymbolTable();
+
+    /**
+     * Sets the symbol table used to intern the document path and the paths
+     * and texts of its links, this is called by a {@link org.dotnetrdf.wiki.data.Wiki}
+     * when the document is added to it so that the whole wiki shares a single
+     * symbol table
+     * 
+     * @param symbols
+     *            Symbol table
+     */
+    public abstract void setSymbolTable(SymbolTable symbols);
+
+    /**
+     * Gets the size of the on disk file for the document
+     * <p>
+     * Implementations should read the file attributes at most once, either
+     * when they are provided by {@link #setFileAttributes(BasicFileAttributes)}
+     * or upon first request, so that callers do not need to go back to the
+     * file system
+     * </p>
+     * 
+     * @return Size in bytes, -1 if the document does not exist on disk
+     */
+    public abstract long getSize();
+
+    /**
+     * Gets the last modified time of the on disk file for the document
+     * 
+     * @return Last modified time in milliseconds since the epoch, -1 if the
+     *         document does not exist on disk
+     */
+    public abstract long getLastModified();
+
+    /**
+     * Gets the file key that uniquely identifies the on disk file for the
+     * document, see {@link BasicFileAttributes#fileKey()}
+     * 
+     * @return File key, null if the document does not exist on disk or the
+     *         file system does not provide file keys
+     */
+    public abstract Object getFileKey();
+
+    /**
+     * Sets the file attributes for the document, typically called by scanners
+     * which have already read the attributes while scanning
+     * 
+     * @param attributes
+     *            File attributes, null indicates that the document does not
+     *            exist on disk
+     */
+    public abstract void setFileAttributes(BasicFileAttributes attributes);
+
+    /**
+     * Discards the known file attributes for the document so that they are
+     * read from the file system again upon next request, used to detect
+     * documents which have changed on disk since they were last read
+     */
+    public abstract void resetFileAttributes();
+
     /**
      * Gets the text of the document assuming the document is a textual document
      * and its on disk location is known
@@ -76,6 +152,37 @@ public interface Document<T extends Link> {
      */
     public abstract String getText() throws IOException;
 
+    /**
+     * Gets the content of the document assuming the document is a textual
+     * document and its on disk location is known
+     * <p>
+     * Unlike {@link #getText()} this need not build a {@link String} so
+     * callers that only need to scan the content should prefer this method
+     * </p>
+     * 
+     * @return Document content if a textual document whose on disk location
+     *         is known, null otherwise
+     * @throws IOException
+     *             Thrown if there is a problem reading in the document content
+     */
+    public abstract CharSequence getContent() throws IOException;
+
+    /**
+     * Gets the charset used to read the document content, a byte order mark
+     * at the start of the content takes precedence over this
+     * 
+     * @return Charset
+     */
+    public abstract Charset getCharset();
+
+    /**
+     * Sets the charset used to read the document content
+     * 
+     * @param charset
+     *            Charset
+     */
+    public abstract void setCharset(Charset charset);
+
     /**
      * Gets whether the document is a top level document
      * 
@@ -119,6 +226,30 @@ public interface Document<T extends Link> {
      */
     public abstract void addOutboundLink(T link);
 
+    /**
+     * Gets the index of the anchors i.e. headings of the document
+     * 
+     * @return Anchor index, null if the anchors of the document have not yet
+     *         been detected
+     */
+    public abstract AnchorIndex getAnchorIndex();
+
+    /**
+     * Sets the index of the anchors i.e. headings of the document, typically
+     * called by link detectors which detect anchors in the same pass
+     * 
+     * @param index
+     *            Anchor index, null to discard the index so that the anchors
+     *            are detected again when next needed
+     */
+    public abstract void setAnchorIndex(AnchorIndex index);
+
+    /**
+     * Removes all outbound links from the document, typically so that links
+     * can be detected again after the document has changed
+     */
+    public abstract void clearOutboundLinks();
+
     /**
      * Gets the outbound links for the document
      * 
@@ -134,6 +265,14 @@ public interface Document<T extends Link> {
      */
     public abstract void addInboundLink(T link);
 
+    /**
+     * Removes an inbound link from the document
+     * 
+     * @param link
+     *            Inbound Link
+     */
+    public abstract void removeInboundLink(T link);
+
     /**
      * Gets the inbound links for the document
      * 
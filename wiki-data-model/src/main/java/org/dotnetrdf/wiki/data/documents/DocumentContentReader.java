@@ -0,0 +1,176 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.data.documents;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads document content from disk
+ * <p>
+ * Small files are read with a single {@link FileChannel} read into a buffer of
+ * exactly the right size while large files are memory mapped. Content is
+ * decoded with an explicit charset unless the file starts with a byte order
+ * mark in which case the charset indicated by the mark is used instead.
+ * Content which is pure ASCII in an ASCII compatible charset is not decoded at
+ * all and is exposed directly as an {@link AsciiCharSequence}.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public final class DocumentContentReader {
+
+    /**
+     * Default charset used for documents
+     */
+    public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+
+    /**
+     * Files of at least this size in bytes are memory mapped rather than read
+     */
+    public static final long MAPPING_THRESHOLD = 1024L * 1024L;
+
+    private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+    private static final byte[] UTF16BE_BOM = { (byte) 0xFE, (byte) 0xFF };
+    private static final byte[] UTF16LE_BOM = { (byte) 0xFF, (byte) 0xFE };
+
+    /**
+     * Private constructor prevents instantiation
+     */
+    private DocumentContentReader() {
+    }
+
+    /**
+     * Reads the content of a file
+     * 
+     * @param file
+     *            File
+     * @param charset
+     *            Charset to decode with if the file has no byte order mark
+     * @return Content
+     * @throws IOException
+     *             Thrown if the file cannot be read
+     */
+    public static CharSequence read(File file, Charset charset) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("File " + file.getAbsolutePath() + " is too large to read");
+
+            ByteBuffer bytes;
+            if (size >= MAPPING_THRESHOLD) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                bytes = ByteBuffer.allocate((int) size);
+                while (bytes.hasRemaining()) {
+                    if (channel.read(bytes) < 0)
+                        throw new EOFException("File " + file.getAbsolutePath() + " was truncated while being read");
+                }
+                bytes.flip();
+            }
+            return decode(bytes, charset);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Decodes content
+     * 
+     * @param bytes
+     *            Bytes from the current position to the limit of the buffer
+     * @param charset
+     *            Charset to decode with if there is no byte order mark
+     * @return Content
+     */
+    public static CharSequence decode(ByteBuffer bytes, Charset charset) {
+        if (startsWith(bytes, UTF8_BOM)) {
+            charset = StandardCharsets.UTF_8;
+            bytes.position(bytes.position() + UTF8_BOM.length);
+        } else if (startsWith(bytes, UTF16BE_BOM)) {
+            charset = StandardCharsets.UTF_16BE;
+            bytes.position(bytes.position() + UTF16BE_BOM.length);
+        } else if (startsWith(bytes, UTF16LE_BOM)) {
+            charset = StandardCharsets.UTF_16LE;
+            bytes.position(bytes.position() + UTF16LE_BOM.length);
+        }
+
+        if (isAsciiCompatible(charset) && isAscii(bytes))
+            return new AsciiCharSequence(bytes, bytes.position(), bytes.remaining());
+
+        // Malformed input is replaced as the previous reader based approach
+        // did rather than failing the whole document
+        CharsetDecoder decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try {
+            return decoder.decode(bytes);
+        } catch (CharacterCodingException e) {
+            // Cannot happen when replacing errors
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean startsWith(ByteBuffer bytes, byte[] prefix) {
+        if (bytes.remaining() < prefix.length)
+            return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes.get(bytes.position() + i) != prefix[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean isAscii(ByteBuffer bytes) {
+        int end = bytes.limit();
+        if (bytes.hasArray()) {
+            byte[] array = bytes.array();
+            int offset = bytes.arrayOffset();
+            for (int i = offset + bytes.position(); i < offset + end; i++) {
+                if (array[i] < 0)
+                    return false;
+            }
+            return true;
+        }
+        for (int i = bytes.position(); i < end; i++) {
+            if (bytes.get(i) < 0)
+                return false;
+        }
+        return true;
+    }
+}
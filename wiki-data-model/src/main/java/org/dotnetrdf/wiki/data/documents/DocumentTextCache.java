@@ -0,0 +1,224 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.data.documents;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of document content
+ * <p>
+ * Text is cached up to a configurable budget in bytes, when the budget would
+ * be exceeded the least recently used entries are evicted. Evicted text is
+ * simply re-read from the document when next requested. Text which on its own
+ * exceeds the budget is never cached.
+ * </p>
+ * <p>
+ * The cache is safe for use from multiple threads, document text is read
+ * outside of the cache lock so a slow read does not block other threads.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public class DocumentTextCache {
+
+    /**
+     * Default budget of 32MB
+     */
+    public static final long DEFAULT_BUDGET = 32L * 1024L * 1024L;
+
+    private final long budget;
+    private final Map<Document<?>, CharSequence> entries = new LinkedHashMap<Document<?>, CharSequence>(16,
+            0.75f, true);
+    private long size = 0;
+    private long hits = 0, misses = 0, evictions = 0;
+
+    /**
+     * Creates a cache with the default budget
+     */
+    public DocumentTextCache() {
+        this(DEFAULT_BUDGET);
+    }
+
+    /**
+     * Creates a cache with the given budget
+     * 
+     * @param budget
+     *            Budget in bytes, zero disables caching
+     */
+    public DocumentTextCache(long budget) {
+        if (budget < 0)
+            throw new IllegalArgumentException("Budget cannot be negative");
+        this.budget = budget;
+    }
+
+    /**
+     * Gets the estimated size in bytes of some content
+     * 
+     * @param text
+     *            Content
+     * @return Size in bytes
+     */
+    private static long sizeOf(CharSequence text) {
+        if (text instanceof AsciiCharSequence)
+            return text.length();
+        return 2L * text.length();
+    }
+
+    /**
+     * Gets the content of a document, reading it from the document only if it
+     * is not already cached
+     * 
+     * @param document
+     *            Document
+     * @return Document content, null if the document is not a text document
+     * @throws IOException
+     *             Thrown if the content cannot be read
+     */
+    public CharSequence getContent(Document<?> document) throws IOException {
+        if (!document.getFormat().isText())
+            return document.getContent();
+
+        synchronized (this) {
+            CharSequence text = this.entries.get(document);
+            if (text != null) {
+                this.hits++;
+                return text;
+            }
+            this.misses++;
+        }
+
+        CharSequence text = document.getContent();
+        if (text != null)
+            this.put(document, text);
+        return text;
+    }
+
+    /**
+     * Gets the text of a document, reading it from the document only if it is
+     * not already cached
+     * 
+     * @param document
+     *            Document
+     * @return Document text, null if the document is not a text document
+     * @throws IOException
+     *             Thrown if the text cannot be read
+     */
+    public String getText(Document<?> document) throws IOException {
+        CharSequence text = this.getContent(document);
+        return text != null ? text.toString() : null;
+    }
+
+    private synchronized void put(Document<?> document, CharSequence text) {
+        long textSize = sizeOf(text);
+        if (textSize > this.budget)
+            return;
+
+        CharSequence previous = this.entries.put(document, text);
+        if (previous != null)
+            this.size -= sizeOf(previous);
+        this.size += textSize;
+
+        // Evict least recently used entries until we are within budget
+        Iterator<Map.Entry<Document<?>, CharSequence>> iter = this.entries.entrySet().iterator();
+        while (this.size > this.budget && iter.hasNext()) {
+            Map.Entry<Document<?>, CharSequence> entry = iter.next();
+            this.size -= sizeOf(entry.getValue());
+            iter.remove();
+            this.evictions++;
+        }
+    }
+
+    /**
+     * Removes the cached text of a document, if any
+     * 
+     * @param document
+     *            Document
+     */
+    public synchronized void invalidate(Document<?> document) {
+        CharSequence text = this.entries.remove(document);
+        if (text != null)
+            this.size -= sizeOf(text);
+    }
+
+    /**
+     * Removes all cached text, statistics are retained
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.size = 0;
+    }
+
+    /**
+     * Gets the budget
+     * 
+     * @return Budget in bytes
+     */
+    public long getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * Gets the estimated size of the currently cached text
+     * 
+     * @return Size in bytes
+     */
+    public synchronized long getSize() {
+        return this.size;
+    }
+
+    /**
+     * Gets the number of requests for text that was already cached
+     * 
+     * @return Hits
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Gets the number of requests for text that had to be read
+     * 
+     * @return Misses
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Gets the number of entries that have been evicted to stay within budget
+     * 
+     * @return Evictions
+     */
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return this.hits + " Hit(s), " + this.misses + " Miss(es) and " + this.evictions + " Eviction(s)";
+    }
+}
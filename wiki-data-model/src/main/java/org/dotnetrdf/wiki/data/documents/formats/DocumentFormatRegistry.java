@@ -31,7 +31,7 @@ import java.util.Map;
  */
 public class DocumentFormatRegistry {
 
-    private static boolean init = false;
+    private static volatile boolean init = false;
     private static Map<String, Format> formats = new HashMap<String, Format>();
     
     /**
@@ -70,6 +70,8 @@ public class DocumentFormatRegistry {
         formats.put(".bmp", img);
         formats.put(".tiff", img);
         formats.put(".raw", img);
+
+        init = true;
     }
     
     /**
@@ -0,0 +1,284 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.data.graph;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.dotnetrdf.wiki.data.SymbolTable;
+import org.dotnetrdf.wiki.data.Wiki;
+import org.dotnetrdf.wiki.data.documents.Document;
+import org.dotnetrdf.wiki.data.links.Link;
+
+/**
+ * An immutable index of the wiki links between the documents of a wiki
+ * <p>
+ * Each document is assigned a dense id from zero upwards and the links
+ * between documents are held as forward and reverse adjacency in compressed
+ * sparse row form, i.e. an offsets array per direction plus a single array of
+ * neighbour ids. Degrees are therefore available in constant time and the
+ * neighbours of a document are a contiguous range of an array.
+ * </p>
+ * <p>
+ * Only wiki links to documents that exist are edges in the graph, links from
+ * a document to itself are ignored. A document that links to another document
+ * several times has a single edge to it, so the in-degree of a document is the
+ * number of other documents which link to it.
+ * </p>
+ * 
+ * @author rvesse
+ * @param <TDoc>
+ *            Document type
+ * 
+ */
+public final class LinkGraph<TDoc extends Document<?>> {
+
+    private final Object[] documents;
+    private final int[] idsBySymbol;
+    private final int[] outOffsets, outTargets, inOffsets, inSources;
+
+    private LinkGraph(Object[] documents, int[] idsBySymbol, int[] outOffsets, int[] outTargets, int[] inOffsets,
+            int[] inSources) {
+        this.documents = documents;
+        this.idsBySymbol = idsBySymbol;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+    }
+
+    /**
+     * Builds the link graph for a wiki, this should be called once links have
+     * been detected for all documents
+     * 
+     * @param wiki
+     *            Wiki
+     * @return Link graph
+     */
+    public static <TLink extends Link, TDoc extends Document<TLink>> LinkGraph<TDoc> build(Wiki<TLink, TDoc> wiki) {
+        SymbolTable symbols = wiki.getSymbolTable();
+
+        // Assign dense ids
+        Object[] documents = new Object[wiki.getDocumentCount()];
+        int[] idsBySymbol = new int[symbols.size()];
+        Arrays.fill(idsBySymbol, -1);
+        int count = 0;
+        Iterator<TDoc> iter = wiki.getDocuments();
+        while (iter.hasNext()) {
+            TDoc document = iter.next();
+            if (count == documents.length)
+                documents = Arrays.copyOf(documents, count * 2 + 1);
+            int pathId = document.getPathId();
+            if (pathId >= idsBySymbol.length) {
+                int size = idsBySymbol.length;
+                idsBySymbol = Arrays.copyOf(idsBySymbol, pathId + 1);
+                Arrays.fill(idsBySymbol, size, idsBySymbol.length, -1);
+            }
+            idsBySymbol[pathId] = count;
+            documents[count++] = document;
+        }
+        documents = Arrays.copyOf(documents, count);
+
+        // Gather edges in source order, lastSource records the last source
+        // with an edge to each target so repeated links add no further edges
+        int[] sources = new int[64], targets = new int[64];
+        int[] lastSource = new int[count];
+        Arrays.fill(lastSource, -1);
+        int edges = 0;
+        for (int source = 0; source < count; source++) {
+            @SuppressWarnings("unchecked")
+            TDoc document = (TDoc) documents[source];
+            Iterator<TLink> links = document.getOutboundLinks();
+            while (links.hasNext()) {
+                TLink link = links.next();
+                if (!link.isWikiLink())
+                    continue;
+                TDoc targetDocument = wiki.getLinkTarget(link);
+                if (targetDocument == null || targetDocument.getPathId() >= idsBySymbol.length)
+                    continue;
+                int target = idsBySymbol[targetDocument.getPathId()];
+                if (target < 0 || target == source || lastSource[target] == source)
+                    continue;
+                lastSource[target] = source;
+
+                if (edges == sources.length) {
+                    sources = Arrays.copyOf(sources, edges * 2);
+                    targets = Arrays.copyOf(targets, edges * 2);
+                }
+                sources[edges] = source;
+                targets[edges] = target;
+                edges++;
+            }
+        }
+
+        // Forward adjacency, edges are already grouped by source
+        int[] outOffsets = new int[count + 1];
+        for (int e = 0; e < edges; e++) {
+            outOffsets[sources[e] + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+        }
+        int[] outTargets = Arrays.copyOf(targets, edges);
+
+        // Reverse adjacency via a counting sort on the target
+        int[] inOffsets = new int[count + 1];
+        for (int e = 0; e < edges; e++) {
+            inOffsets[targets[e] + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            inOffsets[i + 1] += inOffsets[i];
+        }
+        int[] inSources = new int[edges];
+        int[] next = Arrays.copyOf(inOffsets, count);
+        for (int e = 0; e < edges; e++) {
+            inSources[next[targets[e]]++] = sources[e];
+        }
+
+        return new LinkGraph<TDoc>(documents, idsBySymbol, outOffsets, outTargets, inOffsets, inSources);
+    }
+
+    /**
+     * Gets the number of documents in the graph
+     * 
+     * @return Number of documents
+     */
+    public int getDocumentCount() {
+        return this.documents.length;
+    }
+
+    /**
+     * Gets the number of edges in the graph
+     * 
+     * @return Number of edges
+     */
+    public int getEdgeCount() {
+        return this.outTargets.length;
+    }
+
+    /**
+     * Gets the id of a document
+     * 
+     * @param document
+     *            Document
+     * @return Id or -1 if the document is not in the graph
+     */
+    public int getId(Document<?> document) {
+        int pathId = document.getPathId();
+        if (pathId < 0 || pathId >= this.idsBySymbol.length)
+            return -1;
+        int id = this.idsBySymbol[pathId];
+        return id >= 0 && this.documents[id] == document ? id : -1;
+    }
+
+    /**
+     * Gets the document with the given id
+     * 
+     * @param id
+     *            Id
+     * @return Document
+     */
+    @SuppressWarnings("unchecked")
+    public TDoc getDocument(int id) {
+        return (TDoc) this.documents[id];
+    }
+
+    /**
+     * Gets the number of other documents which link to a document
+     * 
+     * @param id
+     *            Document id
+     * @return In-degree
+     */
+    public int getInDegree(int id) {
+        return this.inOffsets[id + 1] - this.inOffsets[id];
+    }
+
+    /**
+     * Gets the number of other documents a document links to
+     * 
+     * @param id
+     *            Document id
+     * @return Out-degree
+     */
+    public int getOutDegree(int id) {
+        return this.outOffsets[id + 1] - this.outOffsets[id];
+    }
+
+    /**
+     * Gets a document linked to by a document
+     * 
+     * @param id
+     *            Document id
+     * @param index
+     *            Index of the neighbour, must be less than the out-degree
+     * @return Id of the linked document
+     */
+    public int getOutNeighbour(int id, int index) {
+        if (index < 0 || index >= this.getOutDegree(id))
+            throw new IndexOutOfBoundsException();
+        return this.outTargets[this.outOffsets[id] + index];
+    }
+
+    /**
+     * Gets a document which links to a document
+     * 
+     * @param id
+     *            Document id
+     * @param index
+     *            Index of the neighbour, must be less than the in-degree
+     * @return Id of the linking document
+     */
+    public int getInNeighbour(int id, int index) {
+        if (index < 0 || index >= this.getInDegree(id))
+            throw new IndexOutOfBoundsException();
+        return this.inSources[this.inOffsets[id] + index];
+    }
+
+    /**
+     * Finds the documents reachable from a document by following links
+     * 
+     * @param id
+     *            Document id
+     * @return Array indexed by document id indicating which documents are
+     *         reachable, the starting document is always reachable
+     */
+    public boolean[] getReachable(int id) {
+        boolean[] reached = new boolean[this.documents.length];
+        int[] queue = new int[this.documents.length];
+        int head = 0, tail = 0;
+        reached[id] = true;
+        queue[tail++] = id;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int e = this.outOffsets[current]; e < this.outOffsets[current + 1]; e++) {
+                int target = this.outTargets[e];
+                if (!reached[target]) {
+                    reached[target] = true;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return reached;
+    }
+}
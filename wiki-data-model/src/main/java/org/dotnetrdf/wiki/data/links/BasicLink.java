@@ -31,6 +31,7 @@ public class BasicLink implements Link {
 
     private String path, text;
     private int line = 0, column = 0;
+    private int pathId = -1;
 
     /**
      * Creates a link
@@ -51,6 +52,25 @@ public class BasicLink implements Link {
         this.column = column;
     }
 
+    /**
+     * Creates a link whose path has been interned in a symbol table
+     * 
+     * @param path
+     *            Path
+     * @param text
+     *            Display Text
+     * @param line
+     *            Line
+     * @param column
+     *            Column
+     * @param pathId
+     *            Symbol id of the path
+     */
+    public BasicLink(String path, String text, int line, int column, int pathId) {
+        this(path, text, line, column);
+        this.pathId = pathId;
+    }
+
     /**
      * Creates a link
      * 
@@ -137,6 +157,11 @@ public class BasicLink implements Link {
         return this.column;
     }
 
+    @Override
+    public int getPathId() {
+        return this.pathId;
+    }
+
     @Override
     public String toString() {
         return this.text + (this.text.equals(this.path) ? "" : "(" + this.path + ")") + " [Line " + this.line + " Column "
@@ -145,7 +170,10 @@ public class BasicLink implements Link {
 
     @Override
     public int hashCode() {
-        return this.path.hashCode();
+        // Include the position so many links to the same path do not all
+        // collide, this is consistent with equals() since equal links must
+        // have equal paths and positions
+        return (this.path.hashCode() * 31 + this.line) * 31 + this.column;
     }
 
     @Override
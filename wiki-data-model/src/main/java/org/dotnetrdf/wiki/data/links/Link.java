@@ -80,4 +80,12 @@ public interface Link {
      */
     public abstract int getColumn();
 
+    /**
+     * Gets the id of the link path in the symbol table of the wiki the link
+     * belongs to
+     * 
+     * @return Path id or -1 if not known
+     */
+    public abstract int getPathId();
+
 }
\ No newline at end of file
@@ -0,0 +1,317 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.data.links;
+
+import java.util.Arrays;
+
+import org.dotnetrdf.wiki.data.SymbolTable;
+
+/**
+ * A compact table of the links found in a document
+ * <p>
+ * Links are stored column-wise in parallel primitive arrays rather than as one
+ * object per link. Paths and texts are interned to integer ids in a
+ * {@link SymbolTable}, usually the one shared by the whole wiki, so a target
+ * that is linked to many times is only stored once. Duplicate
+ * links, as defined by {@link BasicLink#equals(Object)}, are detected with an
+ * open addressing hash over the path, text and position of the link so
+ * repeated links to the same target do not collide with each other.
+ * </p>
+ * <p>
+ * Links are kept in the order they were added. This class is not thread safe.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public final class LinkTable {
+
+    /**
+     * Kind for links to other wiki pages
+     */
+    public static final byte KIND_WIKI = 0;
+    /**
+     * Kind for links to external resources
+     */
+    public static final byte KIND_EXTERNAL = 1;
+    /**
+     * Kind for email links
+     */
+    public static final byte KIND_MAIL = 2;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final SymbolTable symbols;
+
+    // Link columns
+    private int[] paths = new int[INITIAL_CAPACITY];
+    private int[] texts = new int[INITIAL_CAPACITY];
+    private int[] lines = new int[INITIAL_CAPACITY];
+    private int[] columns = new int[INITIAL_CAPACITY];
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // Hash slots holding link index + 1, zero for an empty slot
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * Creates a table with its own symbol table
+     */
+    public LinkTable() {
+        this(new SymbolTable());
+    }
+
+    /**
+     * Creates a table which interns strings in the given symbol table
+     * 
+     * @param symbols
+     *            Symbol table
+     */
+    public LinkTable(SymbolTable symbols) {
+        if (symbols == null)
+            throw new NullPointerException("Symbol table cannot be null");
+        this.symbols = symbols;
+    }
+
+    /**
+     * Gets the symbol table used to intern paths and texts
+     * 
+     * @return Symbol table
+     */
+    public SymbolTable getSymbolTable() {
+        return this.symbols;
+    }
+
+    /**
+     * Gets the kind of a link based upon its path
+     * 
+     * @param path
+     *            Path
+     * @return Kind
+     */
+    public static byte getKind(String path) {
+        if (path.startsWith("mailto:"))
+            return KIND_MAIL;
+        if (path.startsWith("http"))
+            return KIND_EXTERNAL;
+        return KIND_WIKI;
+    }
+
+    private static int hash(int path, int text, int line, int column) {
+        int h = path;
+        h = h * 31 + text;
+        h = h * 31 + line;
+        h = h * 31 + column;
+        // Spread the bits so that nearby positions do not cluster
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private boolean matches(int index, int path, int text, int line, int column) {
+        return this.paths[index] == path && this.texts[index] == text && this.lines[index] == line
+                && this.columns[index] == column;
+    }
+
+    /**
+     * Adds a link to the table
+     * 
+     * @param path
+     *            Path
+     * @param text
+     *            Friendly text, the same as the path if there is no friendly
+     *            text
+     * @param line
+     *            Line
+     * @param column
+     *            Column
+     * @return True if added, false if the table already contained an equal
+     *         link
+     */
+    public boolean add(String path, String text, int line, int column) {
+        int pathId = this.symbols.intern(path);
+        int textId = text == null ? pathId : this.symbols.intern(text);
+
+        int mask = this.slots.length - 1;
+        int slot = hash(pathId, textId, line, column) & mask;
+        while (this.slots[slot] != 0) {
+            if (this.matches(this.slots[slot] - 1, pathId, textId, line, column))
+                return false;
+            slot = (slot + 1) & mask;
+        }
+
+        if (this.size == this.paths.length) {
+            int capacity = this.size * 2;
+            this.paths = Arrays.copyOf(this.paths, capacity);
+            this.texts = Arrays.copyOf(this.texts, capacity);
+            this.lines = Arrays.copyOf(this.lines, capacity);
+            this.columns = Arrays.copyOf(this.columns, capacity);
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+        }
+        int index = this.size++;
+        this.paths[index] = pathId;
+        this.texts[index] = textId;
+        this.lines[index] = line;
+        this.columns[index] = column;
+        this.kinds[index] = getKind(path);
+        this.slots[slot] = index + 1;
+
+        // Keep the hash at most half full
+        if (this.size * 2 > this.slots.length)
+            this.rehash(this.slots.length * 2);
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        this.slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < this.size; i++) {
+            int slot = hash(this.paths[i], this.texts[i], this.lines[i], this.columns[i]) & mask;
+            while (this.slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.slots[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Gets the number of links in the table
+     * 
+     * @return Number of links
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Removes all links from the table
+     */
+    public void clear() {
+        this.size = 0;
+        Arrays.fill(this.slots, 0);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of range for size " + this.size);
+    }
+
+    /**
+     * Gets the path of a link
+     * 
+     * @param index
+     *            Link index
+     * @return Path
+     */
+    public String getPath(int index) {
+        this.checkIndex(index);
+        return this.symbols.lookup(this.paths[index]);
+    }
+
+    /**
+     * Gets the symbol id of the path of a link
+     * 
+     * @param index
+     *            Link index
+     * @return Path id
+     */
+    public int getPathId(int index) {
+        this.checkIndex(index);
+        return this.paths[index];
+    }
+
+    /**
+     * Gets the friendly text of a link
+     * 
+     * @param index
+     *            Link index
+     * @return Text, the same as the path if the link has no friendly text
+     */
+    public String getText(int index) {
+        this.checkIndex(index);
+        return this.symbols.lookup(this.texts[index]);
+    }
+
+    /**
+     * Gets whether a link has friendly text
+     * 
+     * @param index
+     *            Link index
+     * @return True if the link has friendly text
+     */
+    public boolean hasFriendlyText(int index) {
+        this.checkIndex(index);
+        return this.texts[index] != this.paths[index];
+    }
+
+    /**
+     * Gets the line of a link
+     * 
+     * @param index
+     *            Link index
+     * @return Line
+     */
+    public int getLine(int index) {
+        this.checkIndex(index);
+        return this.lines[index];
+    }
+
+    /**
+     * Gets the column of a link
+     * 
+     * @param index
+     *            Link index
+     * @return Column
+     */
+    public int getColumn(int index) {
+        this.checkIndex(index);
+        return this.columns[index];
+    }
+
+    /**
+     * Gets the kind of a link
+     * 
+     * @param index
+     *            Link index
+     * @return Kind
+     */
+    public byte getKind(int index) {
+        this.checkIndex(index);
+        return this.kinds[index];
+    }
+
+    /**
+     * Counts the links of a given kind
+     * 
+     * @param kind
+     *            Kind
+     * @return Number of links of that kind
+     */
+    public int count(byte kind) {
+        int count = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (this.kinds[i] == kind)
+                count++;
+        }
+        return count;
+    }
+}
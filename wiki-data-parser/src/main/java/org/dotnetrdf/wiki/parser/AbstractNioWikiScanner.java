@@ -0,0 +1,168 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.parser;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+
+import org.dotnetrdf.wiki.data.Wiki;
+import org.dotnetrdf.wiki.data.documents.Document;
+import org.dotnetrdf.wiki.data.links.Link;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Abstract implementation of a wiki scanner built upon NIO which defers
+ * creation of documents to derived implementations
+ * <p>
+ * Unlike {@link AbstractWikiScanner} this walks the directory tree with
+ * {@link Files#walkFileTree(Path, java.util.Set, int, java.nio.file.FileVisitor)}
+ * which reads the {@link BasicFileAttributes} of each entry exactly once.
+ * Those attributes are handed to the created documents so that later stages
+ * never need to stat the files again. The same hidden file and directory
+ * rules as {@link AbstractWikiScanner} are applied so both scanners produce
+ * the same set of documents.
+ * </p>
+ *
+ * @author rvesse
+ * @param <TLink>
+ *            Link type
+ * @param <TDoc>
+ *            Document type
+ *
+ */
+public abstract class AbstractNioWikiScanner<TLink extends Link, TDoc extends Document<TLink>> implements
+        WikiScanner<TLink, TDoc> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractNioWikiScanner.class);
+
+    @Override
+    public final void scan(Wiki<TLink, TDoc> wiki, String directory) throws FileNotFoundException {
+        Path dir = Paths.get(directory);
+        if (!Files.isDirectory(dir))
+            throw new FileNotFoundException("Scan Directory " + directory + " does not exist or is not a directory");
+
+        // Ignore hidden directories
+        if (dir.toString().contains(File.separator + "."))
+            return;
+
+        try {
+            Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new ScanVisitor(wiki));
+        } catch (IOException e) {
+            FileNotFoundException fnfe = new FileNotFoundException("Error scanning directory " + directory + " - "
+                    + e.getMessage());
+            fnfe.initCause(e);
+            throw fnfe;
+        }
+    }
+
+    /**
+     * Creates a document
+     *
+     * @param wikiPath
+     *            Wiki path
+     * @param f
+     *            Disk file for the document
+     * @return Document
+     */
+    protected abstract TDoc createDocument(String wikiPath, File f);
+
+    /**
+     * File visitor which tracks the base path of the directory currently being
+     * visited and adds documents for the files it visits
+     */
+    private class ScanVisitor extends SimpleFileVisitor<Path> {
+
+        private final Wiki<TLink, TDoc> wiki;
+        private final Deque<String> basePaths = new ArrayDeque<String>();
+
+        public ScanVisitor(Wiki<TLink, TDoc> wiki) {
+            this.wiki = wiki;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+            String basePath;
+            if (this.basePaths.isEmpty()) {
+                basePath = "";
+            } else {
+                // Ignore hidden directories
+                String name = dir.getFileName().toString();
+                if (name.startsWith("."))
+                    return FileVisitResult.SKIP_SUBTREE;
+                basePath = this.basePaths.peek() + name + "/";
+            }
+
+            LOGGER.info("Scanning Directory " + dir.toAbsolutePath() + " (Base Path " + basePath + ")");
+            this.basePaths.push(basePath);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+            String basePath = this.basePaths.pop();
+            if (e != null)
+                LOGGER.warn("Error while scanning directory " + dir.toAbsolutePath(), e);
+            LOGGER.info("Finished Directory " + dir.toAbsolutePath() + " (Base Path " + basePath + ")");
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            // Ignore hidden files
+            String name = file.getFileName().toString();
+            if (name.startsWith("."))
+                return FileVisitResult.CONTINUE;
+
+            // Create document and add to wiki
+            TDoc document = createDocument(this.basePaths.peek() + name, file.toFile());
+            document.setFileAttributes(attrs);
+            if (this.wiki.addDocumentIfAbsent(document)) {
+                LOGGER.info("Found document " + document.getPath());
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+            if (e instanceof FileSystemLoopException) {
+                LOGGER.warn("Ignoring directory " + file.toAbsolutePath() + " since it forms a symbolic link cycle");
+            } else {
+                LOGGER.warn("Unable to scan " + file.toAbsolutePath(), e);
+            }
+            return FileVisitResult.CONTINUE;
+        }
+    }
+}
@@ -23,6 +23,11 @@ package org.dotnetrdf.wiki.parser;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import org.dotnetrdf.wiki.data.Wiki;
 import org.dotnetrdf.wiki.data.documents.Document;
 import org.dotnetrdf.wiki.data.links.Link;
@@ -32,6 +37,13 @@ import org.slf4j.LoggerFactory;
 /**
  * Abstract implementation of a wiki scanner that defers creation of documents
  * to derived implementations
+ * <p>
+ * By default the scan is carried out sequentially on the calling thread, when
+ * the parallelism is set to a value greater than one sub-directories are
+ * instead scanned in parallel using a fork/join pool. Both modes apply the
+ * same hidden file and directory rules and so produce the same set of
+ * documents.
+ * </p>
  * 
  * @author rvesse
  * @param <TLink>
@@ -44,10 +56,49 @@ public abstract class AbstractWikiScanner<TLink extends Link, TDoc extends Docum
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractWikiScanner.class);
 
+    /**
+     * Default parallelism which results in a sequential scan
+     */
+    public static final int DEFAULT_PARALLELISM = 1;
+
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    /**
+     * Gets the parallelism used for scans
+     * 
+     * @return Parallelism
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * Sets the parallelism used for scans, a value of 1 results in a
+     * sequential scan while greater values scan sub-directories in parallel
+     * using a fork/join pool with the given parallelism level
+     * 
+     * @param parallelism
+     *            Parallelism, must be >= 1
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be >= 1");
+        this.parallelism = parallelism;
+    }
+
     public final void scan(Wiki<TLink, TDoc> wiki, String directory) throws FileNotFoundException {
         File dir = new File(directory);
         if (dir.exists() && dir.isDirectory()) {
-            this.scan(wiki, "", dir, true);
+            if (this.parallelism > 1) {
+                ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+                try {
+                    pool.invoke(new ScanTask(wiki, "", dir, true));
+                } finally {
+                    pool.shutdown();
+                }
+            } else {
+                this.scan(wiki, "", dir, true);
+            }
         } else {
             throw new FileNotFoundException("Scan Directory " + directory + " does not exist or is not a directory");
         }
@@ -64,32 +115,109 @@ public abstract class AbstractWikiScanner<TLink extends Link, TDoc extends Docum
      *            Whether this is the top level directory
      */
     private void scan(Wiki<TLink, TDoc> wiki, String basePath, File dir, boolean top) {
+        List<File> subDirs = this.scanDirectory(wiki, basePath, dir, top);
+        if (subDirs == null)
+            return;
+
+        String subBasePath = top ? basePath : basePath + dir.getName() + "/";
+        for (File subDir : subDirs) {
+            this.scan(wiki, subBasePath, subDir, false);
+        }
+
+        LOGGER.info("Finished Directory " + dir.getAbsolutePath() + " (Base Path " + basePath + ")");
+    }
+
+    /**
+     * Scans the files of a single directory adding any documents found to the
+     * wiki
+     * 
+     * @param wiki
+     *            Wiki
+     * @param basePath
+     *            Base path
+     * @param dir
+     *            Directory to scan
+     * @param top
+     *            Whether this is the top level directory
+     * @return Sub-directories that need scanning in the order they were
+     *         encountered or null if the directory is hidden
+     */
+    private List<File> scanDirectory(Wiki<TLink, TDoc> wiki, String basePath, File dir, boolean top) {
         // Ignore hidden directories
         if (dir.getPath().contains(File.separator + "."))
-            return;
+            return null;
 
         LOGGER.info("Scanning Directory " + dir.getAbsolutePath() + " (Base Path " + basePath + ")");
 
+        List<File> subDirs = new ArrayList<File>();
+        File[] files = dir.listFiles();
+        if (files == null) {
+            LOGGER.warn("Unable to list the contents of directory " + dir.getAbsolutePath());
+            return subDirs;
+        }
+
         // Scan for files and folders in this directory
-        for (File f : dir.listFiles()) {
+        String docBasePath = top ? basePath : basePath + dir.getName() + "/";
+        for (File f : files) {
             // Ignore hidden files
-            if (f.getName().startsWith("."))
+            String name = f.getName();
+            if (name.startsWith("."))
                 continue;
 
             if (f.isDirectory()) {
-                // Scan sub-directory
-                this.scan(wiki, basePath + (top ? "" : dir.getName() + "/"), f, false);
+                // Sub-directories are scanned by the caller
+                subDirs.add(f);
             } else {
                 // Create document and add to wiki
-                TDoc document = createDocument(basePath + (top ? "" : dir.getName() + "/") + f.getName(), f);
-                if (!wiki.hasDocument(document.getPath())) {
+                TDoc document = createDocument(docBasePath + name, f);
+                if (wiki.addDocumentIfAbsent(document)) {
                     LOGGER.info("Found document " + document.getPath());
-                    wiki.addDocument(document);
                 }
             }
         }
+        return subDirs;
+    }
 
-        LOGGER.info("Finished Directory " + dir.getAbsolutePath() + " (Base Path " + basePath + ")");
+    /**
+     * Fork/join task which scans a directory and forks a further task for each
+     * of its sub-directories
+     * <p>
+     * Documents can only collide on path with other documents from the same
+     * directory and each directory is scanned by a single task in listing
+     * order so the first document found for a path wins exactly as it does
+     * for a sequential scan.
+     * </p>
+     */
+    private class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Wiki<TLink, TDoc> wiki;
+        private final String basePath;
+        private final File dir;
+        private final boolean top;
+
+        public ScanTask(Wiki<TLink, TDoc> wiki, String basePath, File dir, boolean top) {
+            this.wiki = wiki;
+            this.basePath = basePath;
+            this.dir = dir;
+            this.top = top;
+        }
+
+        @Override
+        protected void compute() {
+            List<File> subDirs = scanDirectory(this.wiki, this.basePath, this.dir, this.top);
+            if (subDirs == null)
+                return;
+
+            String subBasePath = this.top ? this.basePath : this.basePath + this.dir.getName() + "/";
+            List<ScanTask> tasks = new ArrayList<ScanTask>();
+            for (File subDir : subDirs) {
+                tasks.add(new ScanTask(this.wiki, subBasePath, subDir, false));
+            }
+            invokeAll(tasks);
+
+            LOGGER.info("Finished Directory " + this.dir.getAbsolutePath() + " (Base Path " + this.basePath + ")");
+        }
     }
 
     protected abstract TDoc createDocument(String wikiPath, File f);
@@ -21,54 +21,89 @@
 
 package org.dotnetrdf.wiki.parser.links;
 
+import org.dotnetrdf.wiki.data.documents.Document;
+import org.dotnetrdf.wiki.data.links.Link;
+import org.dotnetrdf.wiki.parser.text.LineIndex;
+
 /**
  * Abstract base implementation of a link detector
+ * <p>
+ * Positions are calculated using a {@link LineIndex} which should be built
+ * once per document text, lookups are then {@code O(log n)} in the number of
+ * lines.
+ * </p>
+ * <p>
+ * Derived implementations need only implement
+ * {@link #findLinks(Document, CharSequence, LineIndex)}, the {@link String}
+ * based method is an adapter onto it. Implementations for formats with
+ * headings should also override {@link #detectsAnchors()} and
+ * {@link #findAnchors(Document, CharSequence)}, by default anchors are not
+ * found.
+ * </p>
  * 
  * @author rvesse
  * 
  */
 public abstract class BaseLinkDetector implements LinkDetector {
 
+    @Override
+    public final <T extends Link> void findLinks(Document<T> doc, String text) {
+        this.findLinks(doc, text, null);
+    }
+
+    @Override
+    public boolean detectsAnchors() {
+        return false;
+    }
+
+    @Override
+    public <T extends Link> void findAnchors(Document<T> doc, CharSequence text) {
+        // No anchors by default
+    }
+
+    /**
+     * Gets the line index to use for some text, building one if necessary
+     * 
+     * @param text
+     *            Text
+     * @param lineIndex
+     *            Line index supplied by the caller, may be null
+     * @return Line index
+     * @throws IllegalArgumentException
+     *             Thrown if the supplied line index does not match the text
+     */
+    protected final LineIndex getLineIndex(CharSequence text, LineIndex lineIndex) {
+        if (lineIndex == null)
+            return LineIndex.build(text);
+        if (lineIndex.getLength() != text.length())
+            throw new IllegalArgumentException("Line index is for text of length " + lineIndex.getLength()
+                    + " but the text has length " + text.length());
+        return lineIndex;
+    }
+
     /**
      * Calculates the line number from an offset
      * 
-     * @param lines
-     *            Line data
+     * @param index
+     *            Line index
      * @param offset
      *            Offset
-     * @return Line Number
+     * @return Line Number (1 based)
      */
-    protected final int calculateLine(String[] lines, int offset) {
-        int line = 0;
-        int count = 0;
-        while (count < offset) {
-            int len = lines[line].length();
-            if (count + len >= offset)
-                return line + 1;
-            count += len + 1; // The +1 is for the \n
-            line++;
-        }
-        return line + 1;
+    protected final int calculateLine(LineIndex index, int offset) {
+        return index.getLine(offset);
     }
 
     /**
      * Calculates a column number from an offset
      * 
-     * @param lines
-     *            Line data
+     * @param index
+     *            Line index
      * @param offset
      *            Offset
-     * @return Column Number
+     * @return Column Number (1 based)
      */
-    protected final int calculateColumn(String[] lines, int offset) {
-        int line = 0;
-        int count = 0;
-        while (count < offset) {
-            int len = lines[line].length();
-            if (count + len >= offset)
-                return offset - count;
-            count += len + 1; // The +1 is for the \n
-        }
-        return 1;
+    protected final int calculateColumn(LineIndex index, int offset) {
+        return index.getColumn(offset);
     }
 }
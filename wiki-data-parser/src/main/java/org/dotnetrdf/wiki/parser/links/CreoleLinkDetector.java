@@ -25,32 +25,79 @@ import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.dotnetrdf.wiki.data.documents.AnchorIndex;
 import org.dotnetrdf.wiki.data.documents.Document;
 import org.dotnetrdf.wiki.data.links.Link;
+import org.dotnetrdf.wiki.parser.text.LineIndex;
 
 /**
  * Link Detector for Creole pages
+ * <p>
+ * Headings are detected in the same pass and set as the anchor index of the
+ * document.
+ * </p>
  * 
  * @author rvesse
  * 
  */
 public class CreoleLinkDetector extends BaseLinkDetector {
 
-    private Pattern linkRegex = Pattern.compile("\\[\\[[^\\]]+\\]\\]");
+    private Pattern headingRegex = Pattern.compile("^[ \\t]*=+([^\\r\\n]*)", Pattern.MULTILINE);
+    private Pattern linkRegex = Pattern.compile("^[ \\t]*=+([^\\r\\n]*)|\\[\\[[^\\]]+\\]\\]", Pattern.MULTILINE);
 
     @Override
-    public <T extends Link> void findLinks(Document<T> doc, String text) {
-        String[] lineData = text.split("\n");
+    public boolean detectsAnchors() {
+        return true;
+    }
+
+    @Override
+    public <T extends Link> void findAnchors(Document<T> doc, CharSequence text) {
+        AnchorIndex anchors = new AnchorIndex();
+        Matcher headingMatcher = headingRegex.matcher(text);
+        while (headingMatcher.find()) {
+            anchors.add(getHeading(headingMatcher.group(1)));
+        }
+        doc.setAnchorIndex(anchors);
+    }
+
+    /**
+     * Gets the text of a heading without its optional closing equals signs
+     * 
+     * @param heading
+     *            Heading following its opening equals signs
+     * @return Heading text
+     */
+    private static String getHeading(String heading) {
+        heading = heading.trim();
+        int end = heading.length();
+        while (end > 0 && heading.charAt(end - 1) == '=') {
+            end--;
+        }
+        return heading.substring(0, end);
+    }
+
+    @Override
+    public <T extends Link> void findLinks(Document<T> doc, CharSequence text, LineIndex lineIndex) {
+        lineIndex = this.getLineIndex(text, lineIndex);
+        AnchorIndex anchors = new AnchorIndex();
         Matcher linkMatcher = linkRegex.matcher(text);
-        while (linkMatcher.find()) {
+        int from = 0;
+        while (linkMatcher.find(from)) {
             MatchResult linkMatch = linkMatcher.toMatchResult();
+            if (linkMatch.group(1) != null) {
+                // Heading, continue from its text since it may contain links
+                anchors.add(getHeading(linkMatch.group(1)));
+                from = linkMatch.start(1);
+                continue;
+            }
+            from = linkMatch.end();
 
             // Find position
-            int line = this.calculateLine(lineData, linkMatch.start());
-            int col = this.calculateColumn(lineData, linkMatch.start());
+            int line = this.calculateLine(lineIndex, linkMatch.start());
+            int col = this.calculateColumn(lineIndex, linkMatch.start());
 
             // Find link information and track as a link
-            String linkText = linkMatch.group().toString();
+            String linkText = linkMatch.group();
             linkText = linkText.substring(2, linkText.length() - 2);
             if (linkText.contains("|")) {
                 String linkPath = linkText.substring(0, linkText.lastIndexOf('|'));
@@ -61,6 +108,7 @@ public class CreoleLinkDetector extends BaseLinkDetector {
                 doc.addOutboundLink(doc.createLink(linkText, line, col));
             }
         }
+        doc.setAnchorIndex(anchors);
     }
 
 }
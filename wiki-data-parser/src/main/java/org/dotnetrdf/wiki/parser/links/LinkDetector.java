@@ -23,6 +23,7 @@ package org.dotnetrdf.wiki.parser.links;
 
 import org.dotnetrdf.wiki.data.documents.Document;
 import org.dotnetrdf.wiki.data.links.Link;
+import org.dotnetrdf.wiki.parser.text.LineIndex;
 
 /**
  * Interface for classes which can detect links in a page
@@ -34,6 +35,11 @@ public interface LinkDetector {
 
     /**
      * Finds links in the page
+     * <p>
+     * This is equivalent to calling
+     * {@link #findLinks(Document, CharSequence, LineIndex)} with no line
+     * index
+     * </p>
      * 
      * @param doc
      *            Document
@@ -41,4 +47,48 @@ public interface LinkDetector {
      *            Document Text
      */
     <T extends Link> void findLinks(Document<T> doc, String text);
+
+    /**
+     * Finds links in the page
+     * <p>
+     * The text is scanned in place so content such as a memory mapped file or
+     * cached content need not be copied into a {@link String} first
+     * </p>
+     * 
+     * @param doc
+     *            Document
+     * @param text
+     *            Document Text
+     * @param lineIndex
+     *            Line index for the text, may be null in which case the
+     *            detector builds one if it needs it
+     * @throws IllegalArgumentException
+     *             Thrown if the line index does not match the text
+     */
+    <T extends Link> void findLinks(Document<T> doc, CharSequence text, LineIndex lineIndex);
+
+    /**
+     * Gets whether the detector finds the anchors i.e. headings of pages, if
+     * not documents it detects links for never have an anchor index
+     * 
+     * @return True if anchors are found, false otherwise
+     */
+    boolean detectsAnchors();
+
+    /**
+     * Finds the anchors i.e. headings in the page without finding its links
+     * and sets them as the anchor index of the document
+     * <p>
+     * Detectors which find anchors do so in the same pass as finding links so
+     * this need only be called for documents whose links were not detected,
+     * e.g. because they were restored from a cache. Detectors which do not
+     * find anchors do nothing.
+     * </p>
+     * 
+     * @param doc
+     *            Document
+     * @param text
+     *            Document Text
+     */
+    <T extends Link> void findAnchors(Document<T> doc, CharSequence text);
 }
@@ -36,7 +36,7 @@ import org.dotnetrdf.wiki.data.documents.formats.Format;
  */
 public class LinkDetectorRegistry {
 
-    private static boolean init = false;
+    private static volatile boolean init = false;
     private static Map<Format, LinkDetector> detectors;
 
     /**
@@ -58,7 +58,7 @@ public class LinkDetectorRegistry {
         detectors.put(Format.CREOLE, new CreoleLinkDetector());
 
         // Markdown
-        detectors.put(Format.MARKDOWN, new MarkdownLinkDetector());
+        detectors.put(Format.MARKDOWN, new SinglePassMarkdownLinkDetector());
 
         // Restructured Text
         // detectors.put(Format.RESTRUCTURED_TEXT, null);
@@ -0,0 +1,162 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.parser.links;
+
+import org.dotnetrdf.wiki.data.documents.AnchorIndex;
+
+/**
+ * Detects Markdown headings line by line so that it can be driven by the
+ * single pass of a link detector
+ * <p>
+ * Both ATX headings ({@code # Heading}) and Setext headings (a line of text
+ * underlined with {@code =} or {@code -} characters) are detected. As in
+ * Markdown the {@code #} characters of an ATX heading must be followed by
+ * whitespace or the end of the line so lines such as {@code #tag} are not
+ * headings, nor are lines starting with more than six {@code #} characters or
+ * pre-formatted lines.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+final class MarkdownHeadings {
+
+    private final CharSequence text;
+    private final AnchorIndex index = new AnchorIndex();
+    private int previousStart = -1, previousEnd = -1;
+
+    /**
+     * Creates a new heading detector
+     * 
+     * @param text
+     *            Text
+     */
+    MarkdownHeadings(CharSequence text) {
+        this.text = text;
+    }
+
+    /**
+     * Detects the headings of a text
+     * 
+     * @param text
+     *            Text
+     * @return Anchor index
+     */
+    static AnchorIndex find(CharSequence text) {
+        MarkdownHeadings headings = new MarkdownHeadings(text);
+        int lineStart = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                headings.line(lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        headings.line(lineStart, text.length());
+        return headings.getIndex();
+    }
+
+    /**
+     * Processes a line, lines must be processed in order
+     * 
+     * @param start
+     *            Offset at which the line starts
+     * @param end
+     *            Offset at which the line ends excluding the line feed
+     */
+    void line(int start, int end) {
+        if (end > start && this.text.charAt(end - 1) == '\r')
+            end--;
+        end = this.trimEnd(start, end);
+        if (end == start || this.isPreformatted(start, end)) {
+            this.previousStart = -1;
+            return;
+        }
+
+        char first = this.text.charAt(start);
+        int i = start;
+        while (i < end && this.text.charAt(i) == '#') {
+            i++;
+        }
+        boolean atx = first == '#' && i - start <= 6
+                && (i == end || this.text.charAt(i) == ' ' || this.text.charAt(i) == '\t');
+        if (atx) {
+            // ATX heading, leading and trailing hashes are not part of it
+            int headingEnd = end;
+            while (headingEnd > i && this.text.charAt(headingEnd - 1) == '#') {
+                headingEnd--;
+            }
+            this.add(i, headingEnd);
+            this.previousStart = -1;
+        } else if ((first == '=' || first == '-') && this.previousStart >= 0 && this.isRepeated(first, start, end)) {
+            // Setext heading underlining the previous line
+            this.add(this.previousStart, this.previousEnd);
+            this.previousStart = -1;
+        } else {
+            this.previousStart = start;
+            this.previousEnd = end;
+        }
+    }
+
+    /**
+     * Gets the index of the headings detected so far
+     * 
+     * @return Anchor index
+     */
+    AnchorIndex getIndex() {
+        return this.index;
+    }
+
+    private void add(int start, int end) {
+        this.index.add(this.text.subSequence(start, end).toString());
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && (this.text.charAt(end - 1) == ' ' || this.text.charAt(end - 1) == '\t')) {
+            end--;
+        }
+        return end;
+    }
+
+    private boolean isRepeated(char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (this.text.charAt(i) != c)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Is the line pre-formatted i.e. does it start with four whitespace
+     * characters?
+     */
+    private boolean isPreformatted(int start, int end) {
+        if (end - start < 4)
+            return false;
+        for (int i = start; i < start + 4; i++) {
+            char c = this.text.charAt(i);
+            if (c != ' ' && c != '\t')
+                return false;
+        }
+        return true;
+    }
+}
@@ -31,6 +31,7 @@ import java.util.regex.Pattern;
 
 import org.dotnetrdf.wiki.data.documents.Document;
 import org.dotnetrdf.wiki.data.links.Link;
+import org.dotnetrdf.wiki.parser.text.LineIndex;
 
 /**
  * Link Detector for Creole pages
@@ -50,22 +51,37 @@ public class MarkdownLinkDetector extends BaseLinkDetector {
     /**
      * Is the current line pre-formatted?
      * 
-     * @param lineData
-     *            Line data
+     * @param text
+     *            Text
+     * @param lineIndex
+     *            Line index for the text
      * @param line
      *            Line number (1 based index)
      * @return True if the line is pre-formatted and thus links on it should be
      *         ignored, false otherwise
      */
-    private boolean isPreformattedLine(String[] lineData, int line) {
-        String lineText = lineData[line - 1];
-        if (lineText.length() < 4)
+    private boolean isPreformattedLine(CharSequence text, LineIndex lineIndex, int line) {
+        int start = lineIndex.getLineStart(line);
+        if (lineIndex.getLineEnd(line) - start < 4)
             return false;
+        return isPreformatted(text, start);
+    }
 
-        char[] cs = lineText.toCharArray();
-        for (int i = 0; i < 4; i++) {
-            char c = cs[i];
-            switch (c) {
+    /**
+     * Is the line starting at the given offset pre-formatted i.e. does it start
+     * with four whitespace characters?
+     * 
+     * @param text
+     *            Text
+     * @param lineStart
+     *            Offset at which the line starts
+     * @return True if pre-formatted, false otherwise
+     */
+    private static boolean isPreformatted(CharSequence text, int lineStart) {
+        if (lineStart + 4 > text.length())
+            return false;
+        for (int i = lineStart; i < lineStart + 4; i++) {
+            switch (text.charAt(i)) {
             case ' ':
             case '\t':
                 continue;
@@ -76,46 +92,94 @@ public class MarkdownLinkDetector extends BaseLinkDetector {
         return true;
     }
 
-    private String applyMarkdownEscapes(String[] lineData, String text) {
-        // Escape backslash first
-        text = applyEscape(lineData, text, "\\\\", "&#5C;");
-        // Escape \[
-        text = applyEscape(lineData, text, "\\[", "&#5B;");
-        // Escape \]
-        text = applyEscape(lineData, text, "\\]", "&#5D;");
-        // Escape \(
-        text = applyEscape(lineData, text, "\\(", "&#28;");
-        // Escape \)
-        text = applyEscape(lineData, text, "\\)", "&#29;");
-        return text;
+    /**
+     * Gets the replacement for an escaped character
+     * 
+     * @param c
+     *            Character following a backslash
+     * @return Replacement or null if not a relevant escape
+     */
+    private static String getEscape(char c) {
+        switch (c) {
+        case '\\':
+            return "&#5C;";
+        case '[':
+            return "&#5B;";
+        case ']':
+            return "&#5D;";
+        case '(':
+            return "&#28;";
+        case ')':
+            return "&#29;";
+        default:
+            return null;
+        }
     }
 
-    private String applyEscape(String[] lineData, String text, String find, String replace) {
-        int start = 0;
-        int index = text.indexOf(find, start);
-        while (index >= 0 && start < text.length()) {
-            int line = this.calculateLine(lineData, index);
-            int column = this.calculateColumn(lineData, index);
-            if (this.isPreformattedLine(lineData, line)) {
-                start += find.length();
+    /**
+     * Applies the relevant Markdown escapes in a single pass over the text,
+     * escapes on pre-formatted lines are left as-is
+     * 
+     * @param text
+     *            Text
+     * @return Escaped text, the original text if there were no escapes
+     */
+    private CharSequence applyMarkdownEscapes(CharSequence text) {
+        int length = text.length();
+        int first = 0;
+        while (first < length && text.charAt(first) != '\\') {
+            first++;
+        }
+        if (first == length)
+            return text;
+
+        StringBuilder builder = new StringBuilder(length + 64);
+        boolean preformatted = isPreformatted(text, 0);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                builder.append(c);
+                preformatted = isPreformatted(text, i + 1);
+            } else if (c == '\\' && !preformatted && i + 1 < length) {
+                String replace = getEscape(text.charAt(i + 1));
+                if (replace != null) {
+                    // Escaping never introduces new lines so line numbers are
+                    // unaffected
+                    builder.append(replace);
+                    i++;
+                } else {
+                    builder.append(c);
+                }
             } else {
-                lineData[line - 1] = lineData[line - 1].substring(0, column - 1) + replace
-                        + lineData[line - 1].substring(column - 1 + find.length());
-                text = text.substring(0, index) + replace + text.substring(index + find.length());
-                start += replace.length();
+                builder.append(c);
             }
-            index = text.indexOf(find, start);
         }
+        return builder;
+    }
 
-        return text;
+    @Override
+    public boolean detectsAnchors() {
+        return true;
     }
 
     @Override
-    public <T extends Link> void findLinks(Document<T> doc, String text) {
-        // Apply relevant escapes
-        String[] lineData = text.split("\n");
-        text = applyMarkdownEscapes(lineData, text);
-        lineData = text.split("\n");
+    public <T extends Link> void findAnchors(Document<T> doc, CharSequence text) {
+        doc.setAnchorIndex(MarkdownHeadings.find(text));
+    }
+
+    @Override
+    public <T extends Link> void findLinks(Document<T> doc, CharSequence text, LineIndex lineIndex) {
+        this.findAnchors(doc, text);
+
+        // Apply relevant escapes, escaping never changes line numbers but
+        // does change columns so escaped text needs its own index
+        CharSequence escaped = applyMarkdownEscapes(text);
+        if (escaped == text) {
+            lineIndex = this.getLineIndex(text, lineIndex);
+        } else {
+            text = escaped;
+            lineIndex = LineIndex.build(text);
+        }
 
         // First off we want to find reference link mappings
         Map<String, String> references = new HashMap<String, String>();
@@ -125,8 +189,8 @@ public class MarkdownLinkDetector extends BaseLinkDetector {
             MatchResult refMatch = referencesMatcher.toMatchResult();
 
             // Find position
-            int line = this.calculateLine(lineData, refMatch.start());
-            if (this.isPreformattedLine(lineData, line))
+            int line = this.calculateLine(lineIndex, refMatch.start());
+            if (this.isPreformattedLine(text, lineIndex, line))
                 continue;
             refLines.add(line);
 
@@ -145,10 +209,10 @@ public class MarkdownLinkDetector extends BaseLinkDetector {
             MatchResult linkMatch = linkMatcher.toMatchResult();
 
             // Find position
-            int line = this.calculateLine(lineData, linkMatch.start());
-            int col = this.calculateColumn(lineData, linkMatch.start());
+            int line = this.calculateLine(lineIndex, linkMatch.start());
+            int col = this.calculateColumn(lineIndex, linkMatch.start());
 
-            if (this.isPreformattedLine(lineData, line))
+            if (this.isPreformattedLine(text, lineIndex, line))
                 continue;
 
             // Track as a link
@@ -170,10 +234,10 @@ public class MarkdownLinkDetector extends BaseLinkDetector {
             MatchResult linkMatch = linkMatcher.toMatchResult();
 
             // Find position
-            int line = this.calculateLine(lineData, linkMatch.start());
-            int col = this.calculateColumn(lineData, linkMatch.start());
+            int line = this.calculateLine(lineIndex, linkMatch.start());
+            int col = this.calculateColumn(lineIndex, linkMatch.start());
 
-            if (this.isPreformattedLine(lineData, line))
+            if (this.isPreformattedLine(text, lineIndex, line))
                 continue;
 
             // Track as a link
@@ -188,10 +252,10 @@ public class MarkdownLinkDetector extends BaseLinkDetector {
             MatchResult linkMatch = linkMatcher.toMatchResult();
 
             // Find position
-            int line = this.calculateLine(lineData, linkMatch.start());
-            int col = this.calculateColumn(lineData, linkMatch.start());
+            int line = this.calculateLine(lineIndex, linkMatch.start());
+            int col = this.calculateColumn(lineIndex, linkMatch.start());
 
-            if (this.isPreformattedLine(lineData, line))
+            if (this.isPreformattedLine(text, lineIndex, line))
                 continue;
 
             // Ignore if this is actually just a link reference
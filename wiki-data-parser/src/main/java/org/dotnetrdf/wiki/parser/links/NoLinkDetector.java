@@ -23,6 +23,7 @@ package org.dotnetrdf.wiki.parser.links;
 
 import org.dotnetrdf.wiki.data.documents.Document;
 import org.dotnetrdf.wiki.data.links.Link;
+import org.dotnetrdf.wiki.parser.text.LineIndex;
 
 /**
  * A link detector that does nothing, used for formats that do not allow links
@@ -36,4 +37,19 @@ public class NoLinkDetector implements LinkDetector {
     public <T extends Link> void findLinks(Document<T> page, String text) {
         // No-op
     }
+
+    @Override
+    public <T extends Link> void findLinks(Document<T> page, CharSequence text, LineIndex lineIndex) {
+        // No-op
+    }
+
+    @Override
+    public boolean detectsAnchors() {
+        return false;
+    }
+
+    @Override
+    public <T extends Link> void findAnchors(Document<T> page, CharSequence text) {
+        // No-op
+    }
 }
@@ -28,6 +28,7 @@ import java.util.regex.Pattern;
 
 import org.dotnetrdf.wiki.data.documents.Document;
 import org.dotnetrdf.wiki.data.links.Link;
+import org.dotnetrdf.wiki.parser.text.LineIndex;
 
 /**
  * Simple link detector for files, this simply finds http://, https:// and
@@ -41,19 +42,18 @@ public class SimpleLinkDetector extends BaseLinkDetector {
     private Pattern linkRegex = Pattern.compile("(https?://|mailto:)[^\\s]+");
 
     @Override
-    public <T extends Link> void findLinks(Document<T> doc, String text) {
-        String[] lineData = text.split("\n");
+    public <T extends Link> void findLinks(Document<T> doc, CharSequence text, LineIndex lineIndex) {
+        lineIndex = this.getLineIndex(text, lineIndex);
         Matcher linkMatcher = linkRegex.matcher(text);
         while (linkMatcher.find()) {
             MatchResult linkMatch = linkMatcher.toMatchResult();
 
             // Find position
-            int line = this.calculateLine(lineData, linkMatch.start());
-            int col = this.calculateColumn(lineData, linkMatch.start());
+            int line = this.calculateLine(lineIndex, linkMatch.start());
+            int col = this.calculateColumn(lineIndex, linkMatch.start());
 
-            // Find link information and track as a link
-            String linkText = linkMatch.group().toString();
-            linkText = linkText.substring(2, linkText.length() - 2);
+            // Track as a link
+            String linkText = linkMatch.group();
             doc.addOutboundLink(doc.createLink(linkText, line, col));
         }
     }
@@ -0,0 +1,564 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.parser.links;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.dotnetrdf.wiki.data.documents.Document;
+import org.dotnetrdf.wiki.data.links.Link;
+import org.dotnetrdf.wiki.parser.text.LineIndex;
+
+/**
+ * Link Detector for Markdown pages which finds links with a single hand
+ * written pass over the text
+ * <p>
+ * This detects exactly the same links as the regular expression based
+ * {@link MarkdownLinkDetector} but does not build an escaped copy of the text
+ * and does not rescan the text once per kind of link. Escapes are tracked as
+ * they are encountered and only applied to the text of the links that are
+ * actually emitted, line and column numbers are reported as if the escapes had
+ * been applied to the whole text so links are positioned identically to the
+ * regular expression based detector.
+ * </p>
+ * <p>
+ * Headings are detected in the same pass and set as the anchor index of the
+ * document.
+ * </p>
+ *
+ * @author rvesse
+ *
+ */
+public class SinglePassMarkdownLinkDetector extends BaseLinkDetector {
+
+    @Override
+    public <T extends Link> void findLinks(Document<T> doc, CharSequence text, LineIndex lineIndex) {
+        Lexer lexer = new Lexer(text, lineIndex != null ? this.getLineIndex(text, lineIndex) : null);
+        lexer.lex();
+        lexer.emit(doc);
+    }
+
+    @Override
+    public boolean detectsAnchors() {
+        return true;
+    }
+
+    @Override
+    public <T extends Link> void findAnchors(Document<T> doc, CharSequence text) {
+        doc.setAnchorIndex(MarkdownHeadings.find(text));
+    }
+
+    /**
+     * Is the line starting at the given offset pre-formatted i.e. does it start
+     * with four whitespace characters?
+     *
+     * @param text
+     *            Text
+     * @param lineStart
+     *            Offset at which the line starts
+     * @return True if pre-formatted, false otherwise
+     */
+    private static boolean isPreformatted(CharSequence text, int lineStart) {
+        if (lineStart + 4 > text.length())
+            return false;
+        for (int i = lineStart; i < lineStart + 4; i++) {
+            switch (text.charAt(i)) {
+            case ' ':
+            case '\t':
+                continue;
+            default:
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets whether a character may be escaped with a preceding backslash
+     *
+     * @param c
+     *            Character
+     * @return True if escapable, false otherwise
+     */
+    private static boolean isEscapable(char c) {
+        switch (c) {
+        case '\\':
+        case '[':
+        case ']':
+        case '(':
+        case ')':
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Gets the replacement for an escaped character
+     *
+     * @param c
+     *            Character following a backslash
+     * @return Replacement
+     */
+    private static String getEscape(char c) {
+        switch (c) {
+        case '\\':
+            return "&#5C;";
+        case '[':
+            return "&#5B;";
+        case ']':
+            return "&#5D;";
+        case '(':
+            return "&#28;";
+        default:
+            return "&#29;";
+        }
+    }
+
+    /**
+     * Gets whether a character is whitespace, this uses the same definition of
+     * whitespace as the {@code \s} regular expression class
+     *
+     * @param c
+     *            Character
+     * @return True if whitespace, false otherwise
+     */
+    private static boolean isWhitespace(char c) {
+        switch (c) {
+        case ' ':
+        case '\t':
+        case '\n':
+        case '\u000B':
+        case '\f':
+        case '\r':
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * A link found by the lexer, the strings for the link are only extracted
+     * once the whole text has been lexed since escapes beyond the current
+     * position may not yet be known
+     */
+    private static class Candidate {
+        final int offset, line, lineStart, start1, end1, start2, end2;
+
+        Candidate(int offset, int line, int lineStart, int start1, int end1, int start2, int end2) {
+            this.offset = offset;
+            this.line = line;
+            this.lineStart = lineStart;
+            this.start1 = start1;
+            this.end1 = end1;
+            this.start2 = start2;
+            this.end2 = end2;
+        }
+    }
+
+    /**
+     * Lexer state for a single text
+     * <p>
+     * Each kind of link tracks the offset from which it may next match, this
+     * mirrors the behaviour of running a separate regular expression for each
+     * kind of link and means that the same text may contribute to several
+     * kinds of link exactly as it did with the regular expression based
+     * detector.
+     * </p>
+     */
+    private static class Lexer {
+
+        private static final String CACHED_CHARS = "]()>\"'";
+
+        private final CharSequence text;
+        private final int length;
+        private LineIndex lineIndex;
+
+        // Offsets of the backslash of each escape in ascending order
+        private int[] escapes = new int[16];
+        private int escapeCount = 0;
+
+        // Next offset each kind of link may match from
+        private int nextReference = 0, nextReferenceLink = 0, nextInlineLink = 0, nextAutoLink = 0;
+
+        // Cached results of looking ahead for the next occurrence of a
+        // character
+        private final int[] cacheFrom = new int[CACHED_CHARS.length()];
+        private final int[] cacheAt = new int[CACHED_CHARS.length()];
+
+        private final List<Candidate> references = new ArrayList<Candidate>();
+        private final List<Candidate> referenceLinks = new ArrayList<Candidate>();
+        private final List<Candidate> inlineLinks = new ArrayList<Candidate>();
+        private final List<Candidate> autoLinks = new ArrayList<Candidate>();
+        private final MarkdownHeadings headings;
+
+        Lexer(CharSequence text, LineIndex lineIndex) {
+            this.text = text;
+            this.headings = new MarkdownHeadings(text);
+            this.lineIndex = lineIndex;
+            this.length = text.length();
+            Arrays.fill(this.cacheFrom, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Makes the single pass over the text
+         */
+        void lex() {
+            int line = 1, lineStart = 0;
+            boolean preformatted = isPreformatted(this.text, 0);
+            int segmentStart = 0;
+            for (int i = 0; i < this.length; i++) {
+                switch (this.text.charAt(i)) {
+                case '\n':
+                    this.headings.line(lineStart, i);
+                    line++;
+                    lineStart = i + 1;
+                    preformatted = isPreformatted(this.text, i + 1);
+                    segmentStart = i + 1;
+                    break;
+                case '\r':
+                    segmentStart = i + 1;
+                    break;
+                case '\\':
+                    if (!preformatted && i + 1 < this.length && isEscapable(this.text.charAt(i + 1))) {
+                        this.addEscape(i);
+                        i++;
+                    }
+                    break;
+                case '[':
+                    if (i >= this.nextReference)
+                        this.lexReference(i, line, lineStart, preformatted);
+                    if (i >= this.nextReferenceLink)
+                        this.lexReferenceLink(i, line, lineStart, preformatted);
+                    if (i >= this.nextInlineLink)
+                        this.lexInlineLink(i, line, lineStart, preformatted);
+                    break;
+                case '<':
+                    // An auto link match starts at the earliest point on the
+                    // line that is not already consumed by a previous auto
+                    // link or separated from this bracket by another bracket
+                    if (i >= this.nextAutoLink)
+                        this.lexAutoLink(Math.max(segmentStart, this.nextAutoLink), i, line, lineStart,
+                                preformatted);
+                    segmentStart = i + 1;
+                    break;
+                default:
+                    break;
+                }
+            }
+            this.headings.line(lineStart, this.length);
+        }
+
+        private void addEscape(int offset) {
+            if (this.escapeCount == this.escapes.length)
+                this.escapes = Arrays.copyOf(this.escapes, this.escapes.length * 2);
+            this.escapes[this.escapeCount++] = offset;
+        }
+
+        /**
+         * Lexes a reference definition of the form {@code [id]: uri "title"}
+         */
+        private void lexReference(int start, int line, int lineStart, boolean preformatted) {
+            int close = this.findNext(']', start + 1);
+            if (close < start + 2)
+                return;
+            int i = close + 1;
+            if (i >= this.length || this.text.charAt(i) != ':')
+                return;
+            i = this.skipWhitespace(i + 1);
+            if (i == close + 2)
+                return;
+            int uriStart = i;
+            while (i < this.length && !isWhitespace(this.text.charAt(i))) {
+                i++;
+            }
+            if (i == uriStart)
+                return;
+            int uriEnd = i;
+
+            // Optional title
+            int end = uriEnd;
+            int titleStart = this.skipWhitespace(uriEnd);
+            if (titleStart > uriEnd && titleStart < this.length) {
+                char open = this.text.charAt(titleStart);
+                if (open == '"' || open == '\'') {
+                    int titleEnd = this.findNext(open, titleStart + 1);
+                    if (titleEnd >= titleStart + 2)
+                        end = titleEnd + 1;
+                } else if (open == '(') {
+                    // Title runs up to the last closing parenthesis before the
+                    // next opening parenthesis
+                    int limit = this.findNext('(', titleStart + 1);
+                    if (limit < 0)
+                        limit = this.length;
+                    for (int j = limit - 1; j >= titleStart + 2; j--) {
+                        if (this.text.charAt(j) == ')' && !this.isEscaped(j)) {
+                            end = j + 1;
+                            break;
+                        }
+                    }
+                }
+            }
+            this.nextReference = end;
+
+            if (preformatted)
+                return;
+            this.references.add(new Candidate(start, line, lineStart, start + 1, close, uriStart, uriEnd));
+        }
+
+        /**
+         * Lexes a reference link of the form {@code [text][id]}
+         */
+        private void lexReferenceLink(int start, int line, int lineStart, boolean preformatted) {
+            int close = this.findNext(']', start + 1);
+            if (close < start + 2)
+                return;
+            int i = close + 1;
+            if (i < this.length && this.text.charAt(i) == ' ')
+                i++;
+            if (i >= this.length || this.text.charAt(i) != '[')
+                return;
+            int refClose = this.findNext(']', i + 1);
+            if (refClose < 0)
+                return;
+            this.nextReferenceLink = refClose + 1;
+
+            if (preformatted)
+                return;
+            this.referenceLinks.add(new Candidate(start, line, lineStart, start + 1, close, i + 1, refClose));
+        }
+
+        /**
+         * Lexes an inline link of the form {@code [text](path "title")}
+         */
+        private void lexInlineLink(int start, int line, int lineStart, boolean preformatted) {
+            int close = this.findNext(']', start + 1);
+            if (close < start + 2)
+                return;
+            int i = close + 1;
+            if (i >= this.length || this.text.charAt(i) != '(')
+                return;
+            int pathStart = ++i;
+            while (i < this.length) {
+                char c = this.text.charAt(i);
+                if (isWhitespace(c) || (c == ')' && !this.isEscaped(i)))
+                    break;
+                i++;
+            }
+            if (i == pathStart || i >= this.length)
+                return;
+            int pathEnd = i;
+
+            int end;
+            if (this.text.charAt(i) == ')') {
+                end = i + 1;
+            } else {
+                // Optional title preceded by exactly one whitespace character
+                int titleStart = i + 1;
+                if (titleStart >= this.length)
+                    return;
+                int titleEnd = -1;
+                char open = this.text.charAt(titleStart);
+                if (open == '"' || open == '\'') {
+                    titleEnd = this.findNext(open, titleStart + 1);
+                } else if (open == '(') {
+                    titleEnd = this.findNext(')', titleStart + 1);
+                }
+                if (titleEnd < titleStart + 2 || titleEnd + 1 >= this.length || this.text.charAt(titleEnd + 1) != ')')
+                    return;
+                end = titleEnd + 2;
+            }
+            this.nextInlineLink = end;
+
+            if (preformatted)
+                return;
+            this.inlineLinks.add(new Candidate(start, line, lineStart, start + 1, close, pathStart, pathEnd));
+        }
+
+        /**
+         * Lexes an auto link of the form {@code <uri>}
+         */
+        private void lexAutoLink(int start, int open, int line, int lineStart, boolean preformatted) {
+            if (open + 1 >= this.length || this.text.charAt(open + 1) == '>')
+                return;
+            int close = this.findNext('>', open + 1);
+            if (close < 0)
+                return;
+            this.nextAutoLink = close + 1;
+
+            if (preformatted)
+                return;
+            this.autoLinks.add(new Candidate(start, line, lineStart, open + 1, close, -1, -1));
+        }
+
+        private int skipWhitespace(int i) {
+            while (i < this.length && isWhitespace(this.text.charAt(i))) {
+                i++;
+            }
+            return i;
+        }
+
+        /**
+         * Finds the next unescaped occurrence of a character at or after the
+         * given offset
+         * <p>
+         * The last result for each character is cached so repeatedly looking
+         * ahead from increasing offsets does not rescan the same text.
+         * </p>
+         *
+         * @param c
+         *            Character
+         * @param from
+         *            Offset to search from
+         * @return Offset of the character or -1 if there is no further
+         *         occurrence
+         */
+        private int findNext(char c, int from) {
+            int slot = CACHED_CHARS.indexOf(c);
+            int at = this.cacheAt[slot];
+            if (from >= this.cacheFrom[slot] && (at < 0 || from <= at))
+                return at;
+
+            at = -1;
+            for (int i = from; i < this.length; i++) {
+                if (this.text.charAt(i) == c && !this.isEscaped(i)) {
+                    at = i;
+                    break;
+                }
+            }
+            this.cacheFrom[slot] = from;
+            this.cacheAt[slot] = at;
+            return at;
+        }
+
+        /**
+         * Gets whether the character at the given offset is escaped, this may
+         * be called for offsets the lexer has not yet reached
+         */
+        private boolean isEscaped(int offset) {
+            if (!isEscapable(this.text.charAt(offset)))
+                return false;
+            int i = offset - 1;
+            while (i >= 0 && this.text.charAt(i) == '\\') {
+                i--;
+            }
+            if (((offset - 1 - i) & 1) == 0)
+                return false;
+            return !isPreformatted(this.text, this.getLineStart(offset));
+        }
+
+        private int getLineStart(int offset) {
+            if (this.lineIndex == null)
+                this.lineIndex = LineIndex.build(this.text);
+            return this.lineIndex.getLineStart(this.lineIndex.getLine(offset));
+        }
+
+        /**
+         * Counts the escapes starting before the given offset, only valid once
+         * the text has been fully lexed
+         */
+        private int countEscapes(int offset) {
+            int index = Arrays.binarySearch(this.escapes, 0, this.escapeCount, offset);
+            return index >= 0 ? index : -(index + 1);
+        }
+
+        /**
+         * Extracts a portion of the text applying any escapes within it
+         */
+        private String extract(int start, int end) {
+            int first = this.countEscapes(start);
+            int last = this.countEscapes(end);
+            if (first == last)
+                return this.text.subSequence(start, end).toString();
+
+            StringBuilder builder = new StringBuilder(end - start + 4 * (last - first));
+            int i = start;
+            for (int e = first; e < last; e++) {
+                int escape = this.escapes[e];
+                builder.append(this.text, i, escape);
+                builder.append(getEscape(this.text.charAt(escape + 1)));
+                i = escape + 2;
+            }
+            builder.append(this.text, i, end);
+            return builder.toString();
+        }
+
+        /**
+         * Calculates the column as it would be if escapes had been applied to
+         * the whole text
+         */
+        private int getColumn(Candidate candidate) {
+            int escaped = this.countEscapes(candidate.offset) - this.countEscapes(candidate.lineStart);
+            // Each escape of two characters becomes five characters
+            return candidate.offset - candidate.lineStart + 1 + 3 * escaped;
+        }
+
+        /**
+         * Emits the found links in the same order as the regular expression
+         * based detector
+         */
+        <T extends Link> void emit(Document<T> doc) {
+            doc.setAnchorIndex(this.headings.getIndex());
+
+            Map<String, String> refs = new HashMap<String, String>();
+            Set<Integer> refLines = new HashSet<Integer>();
+            for (Candidate ref : this.references) {
+                refLines.add(ref.line);
+                String uri = this.extract(ref.start2, ref.end2);
+                // Strip off optional angle brackets
+                if (uri.startsWith("<") && uri.endsWith(">"))
+                    uri = uri.substring(1, uri.length() - 1);
+                refs.put(this.extract(ref.start1, ref.end1), uri);
+            }
+
+            for (Candidate link : this.referenceLinks) {
+                String linkText = this.extract(link.start1, link.end1);
+                String refId = this.extract(link.start2, link.end2);
+                // Empty reference uses the link text as the reference
+                if (refId.length() == 0)
+                    refId = linkText;
+                if (refs.containsKey(refId)) {
+                    doc.addOutboundLink(doc.createLink(refs.get(refId), linkText, link.line, this.getColumn(link)));
+                }
+            }
+
+            for (Candidate link : this.inlineLinks) {
+                doc.addOutboundLink(doc.createLink(this.extract(link.start2, link.end2),
+                        this.extract(link.start1, link.end1), link.line, this.getColumn(link)));
+            }
+
+            for (Candidate link : this.autoLinks) {
+                // Ignore if this is actually just a link reference
+                if (refLines.contains(link.line))
+                    continue;
+                doc.addOutboundLink(doc.createLink(this.extract(link.start1, link.end1), link.line,
+                        this.getColumn(link)));
+            }
+        }
+    }
+}
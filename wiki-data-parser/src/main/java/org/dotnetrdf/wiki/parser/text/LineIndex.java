@@ -0,0 +1,144 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.parser.text;
+
+import java.util.Arrays;
+
+/**
+ * An index of the line start offsets within some text
+ * <p>
+ * The index is built with a single pass over the text and then allows offsets
+ * to be converted into line and column numbers in {@code O(log n)} time via a
+ * binary search. Lines are delimited by {@code \n} characters and both line
+ * and column numbers are 1 based.
+ * </p>
+ * 
+ * @author rvesse
+ * 
+ */
+public final class LineIndex {
+
+    private final int[] lineStarts;
+    private final int lineCount;
+    private final int length;
+
+    private LineIndex(int[] lineStarts, int lineCount, int length) {
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+        this.length = length;
+    }
+
+    /**
+     * Builds a line index for the given text
+     * 
+     * @param text
+     *            Text
+     * @return Line index
+     */
+    public static LineIndex build(CharSequence text) {
+        int length = text.length();
+        int[] starts = new int[Math.max(16, length / 32)];
+        int count = 1;
+        starts[0] = 0;
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == '\n') {
+                if (count == starts.length)
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                starts[count++] = i + 1;
+            }
+        }
+        return new LineIndex(starts, count, length);
+    }
+
+    /**
+     * Gets the length of the indexed text
+     * 
+     * @return Length
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Gets the number of lines in the indexed text
+     * 
+     * @return Number of lines, always at least 1
+     */
+    public int getLineCount() {
+        return this.lineCount;
+    }
+
+    /**
+     * Gets the line number for an offset
+     * 
+     * @param offset
+     *            Offset
+     * @return Line number (1 based)
+     */
+    public int getLine(int offset) {
+        if (offset < 0)
+            throw new IndexOutOfBoundsException("Offset must be >= 0");
+        int index = Arrays.binarySearch(this.lineStarts, 0, this.lineCount, offset);
+        // When not an exact line start the search gives us the insertion
+        // point which is the line after the one containing the offset
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Gets the column number for an offset
+     * 
+     * @param offset
+     *            Offset
+     * @return Column number (1 based)
+     */
+    public int getColumn(int offset) {
+        return offset - this.lineStarts[this.getLine(offset) - 1] + 1;
+    }
+
+    /**
+     * Gets the offset at which a line starts
+     * 
+     * @param line
+     *            Line number (1 based)
+     * @return Start offset
+     */
+    public int getLineStart(int line) {
+        if (line < 1 || line > this.lineCount)
+            throw new IndexOutOfBoundsException("Line " + line + " is not in the range 1 to " + this.lineCount);
+        return this.lineStarts[line - 1];
+    }
+
+    /**
+     * Gets the offset at which a line ends, this is the offset of the
+     * terminating {@code \n} character or the text length for the last line
+     * 
+     * @param line
+     *            Line number (1 based)
+     * @return End offset (exclusive)
+     */
+    public int getLineEnd(int line) {
+        if (line < 1 || line > this.lineCount)
+            throw new IndexOutOfBoundsException("Line " + line + " is not in the range 1 to " + this.lineCount);
+        return line == this.lineCount ? this.length : this.lineStarts[line] - 1;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.parser;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.dotnetrdf.wiki.data.documents.AsciiCharSequence;
+import org.dotnetrdf.wiki.data.documents.BasicDocument;
+import org.dotnetrdf.wiki.data.documents.formats.Format;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for reading document content
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestDocumentContent {
+
+    private static BasicDocument createDocument(byte[] data) throws IOException {
+        File f = File.createTempFile("content", ".md");
+        f.deleteOnExit();
+        FileOutputStream output = new FileOutputStream(f);
+        output.write(data);
+        output.close();
+        return new BasicDocument("content.md", f, Format.MARKDOWN);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] data = new byte[a.length + b.length];
+        System.arraycopy(a, 0, data, 0, a.length);
+        System.arraycopy(b, 0, data, a.length, b.length);
+        return data;
+    }
+
+    /**
+     * Tests that pure ASCII content is exposed without decoding
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void asciiContent() throws IOException {
+        BasicDocument doc = createDocument("[Test](http://example.org)\n".getBytes(StandardCharsets.US_ASCII));
+        CharSequence content = doc.getContent();
+        Assert.assertTrue(content instanceof AsciiCharSequence);
+        Assert.assertEquals(content.toString(), "[Test](http://example.org)\n");
+        Assert.assertEquals(content.subSequence(1, 5).toString(), "Test");
+        Assert.assertEquals(doc.getText(), "[Test](http://example.org)\n");
+    }
+
+    /**
+     * Tests that content is decoded with the document charset
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void charsetContent() throws IOException {
+        String text = "Caf\u00e9 \u00fcber";
+        BasicDocument doc = createDocument(text.getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(doc.getText(), text);
+
+        doc = createDocument(text.getBytes(StandardCharsets.ISO_8859_1));
+        doc.setCharset(StandardCharsets.ISO_8859_1);
+        Assert.assertEquals(doc.getText(), text);
+    }
+
+    /**
+     * Tests that a byte order mark overrides the document charset and is not
+     * included in the content
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void bomContent() throws IOException {
+        String text = "Caf\u00e9";
+        BasicDocument doc = createDocument(concat(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF },
+                text.getBytes(StandardCharsets.UTF_8)));
+        doc.setCharset(StandardCharsets.ISO_8859_1);
+        Assert.assertEquals(doc.getText(), text);
+
+        doc = createDocument(concat(new byte[] { (byte) 0xFF, (byte) 0xFE }, text.getBytes(StandardCharsets.UTF_16LE)));
+        Assert.assertEquals(doc.getText(), text);
+
+        doc = createDocument(concat(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF }, "ascii".getBytes(StandardCharsets.US_ASCII)));
+        Assert.assertEquals(doc.getText(), "ascii");
+    }
+}
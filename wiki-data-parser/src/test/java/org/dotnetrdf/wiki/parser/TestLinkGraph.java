@@ -0,0 +1,134 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.parser;
+
+import org.dotnetrdf.wiki.data.AbstractWiki;
+import org.dotnetrdf.wiki.data.Wiki;
+import org.dotnetrdf.wiki.data.documents.BasicDocument;
+import org.dotnetrdf.wiki.data.documents.formats.Format;
+import org.dotnetrdf.wiki.data.graph.LinkGraph;
+import org.dotnetrdf.wiki.data.links.BasicLink;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the link graph
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestLinkGraph {
+
+    private static BasicDocument addDocument(Wiki<BasicLink, BasicDocument> wiki, String path, String... links) {
+        BasicDocument doc = new BasicDocument(path + ".md", Format.MARKDOWN);
+        wiki.addDocument(doc);
+        int line = 1;
+        for (String link : links) {
+            doc.addOutboundLink(doc.createLink(link, link, line++, 1));
+        }
+        return doc;
+    }
+
+    /**
+     * Tests that degrees and neighbours reflect the links between documents
+     */
+    @Test
+    public void degrees() {
+        Wiki<BasicLink, BasicDocument> wiki = new AbstractWiki<BasicLink, BasicDocument>() {
+        };
+        BasicDocument home = addDocument(wiki, "Home", "Guide", "Guide", "Home", "http://example.org", "Missing");
+        BasicDocument guide = addDocument(wiki, "Guide", "Home", "Api");
+        BasicDocument api = addDocument(wiki, "Api");
+        BasicDocument orphan = addDocument(wiki, "Orphan", "Api");
+        Assert.assertNull(wiki.getLinkGraph());
+
+        LinkGraph<BasicDocument> graph = LinkGraph.build(wiki);
+        Assert.assertEquals(graph.getDocumentCount(), 4);
+        Assert.assertEquals(graph.getEdgeCount(), 4);
+
+        int homeId = graph.getId(home), guideId = graph.getId(guide), apiId = graph.getId(api), orphanId = graph
+                .getId(orphan);
+        Assert.assertSame(graph.getDocument(homeId), home);
+
+        // Self links, external links, links to missing documents and repeated
+        // links are not edges
+        Assert.assertEquals(graph.getOutDegree(homeId), 1);
+        Assert.assertEquals(graph.getOutNeighbour(homeId, 0), guideId);
+        Assert.assertEquals(graph.getInDegree(homeId), 1);
+        Assert.assertEquals(graph.getInNeighbour(homeId, 0), guideId);
+
+        Assert.assertEquals(graph.getInDegree(guideId), 1);
+        Assert.assertEquals(graph.getInDegree(apiId), 2);
+        Assert.assertEquals(graph.getOutDegree(apiId), 0);
+        Assert.assertEquals(graph.getInDegree(orphanId), 0);
+
+        // Reachability
+        boolean[] reachable = graph.getReachable(homeId);
+        Assert.assertTrue(reachable[guideId]);
+        Assert.assertTrue(reachable[apiId]);
+        Assert.assertFalse(reachable[orphanId]);
+
+        // Adding a document discards any graph held by the wiki
+        wiki.setLinkGraph(graph);
+        Assert.assertSame(wiki.getLinkGraph(), graph);
+        BasicDocument other = addDocument(wiki, "Other");
+        Assert.assertNull(wiki.getLinkGraph());
+        Assert.assertEquals(graph.getId(other), -1);
+    }
+
+    /**
+     * Tests that a document linked to several times from one document counts
+     * that document once
+     */
+    @Test
+    public void repeatedLinks() {
+        Wiki<BasicLink, BasicDocument> wiki = new AbstractWiki<BasicLink, BasicDocument>() {
+        };
+        BasicDocument target = addDocument(wiki, "Target");
+        BasicDocument first = addDocument(wiki, "First", "Target", "Target", "Other", "Target");
+        BasicDocument second = addDocument(wiki, "Second", "Target");
+        BasicDocument other = addDocument(wiki, "Other");
+
+        LinkGraph<BasicDocument> graph = LinkGraph.build(wiki);
+        int targetId = graph.getId(target);
+        Assert.assertEquals(graph.getInDegree(targetId), 2);
+        Assert.assertEquals(graph.getInNeighbour(targetId, 0) + graph.getInNeighbour(targetId, 1), graph.getId(first)
+                + graph.getId(second));
+        Assert.assertTrue(graph.getInNeighbour(targetId, 0) != graph.getInNeighbour(targetId, 1));
+        Assert.assertEquals(graph.getOutDegree(graph.getId(first)), 2);
+        Assert.assertEquals(graph.getInDegree(graph.getId(other)), 1);
+        Assert.assertEquals(graph.getEdgeCount(), 3);
+    }
+
+    /**
+     * Tests that neighbour access is bounds checked
+     */
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void badNeighbour() {
+        Wiki<BasicLink, BasicDocument> wiki = new AbstractWiki<BasicLink, BasicDocument>() {
+        };
+        BasicDocument home = addDocument(wiki, "Home");
+        LinkGraph<BasicDocument> graph = LinkGraph.build(wiki);
+        graph.getOutNeighbour(graph.getId(home), 0);
+    }
+}
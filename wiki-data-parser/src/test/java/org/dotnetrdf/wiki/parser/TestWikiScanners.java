@@ -0,0 +1,241 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.parser;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.dotnetrdf.wiki.data.AbstractWiki;
+import org.dotnetrdf.wiki.data.Wiki;
+import org.dotnetrdf.wiki.data.documents.BasicDocument;
+import org.dotnetrdf.wiki.data.links.BasicLink;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the wiki scanners
+ *
+ * @author rvesse
+ *
+ */
+public class TestWikiScanners {
+
+    private File wikiDir;
+
+    /**
+     * Creates a small wiki on disk
+     *
+     * @throws IOException
+     */
+    @BeforeClass
+    public void setup() throws IOException {
+        this.wikiDir = File.createTempFile("wiki", "");
+        this.wikiDir.delete();
+        this.wikiDir.mkdir();
+
+        createFile("Home.wiki");
+        createFile("Home.md");
+        createFile("notes.txt");
+        createFile("logo.png");
+        createFile(".hidden.wiki");
+        createFile(".hg/store.wiki");
+        createFile("docs/Guide.md");
+        createFile("docs/.secret.md");
+        createFile("docs/api/Index.wiki");
+        createFile("docs/api/v1.0/Changes.md");
+        createFile("docs/.drafts/Draft.md");
+        for (int i = 0; i < 20; i++) {
+            createFile("pages/" + i + "/Page" + i + ".wiki");
+        }
+    }
+
+    /**
+     * Removes the wiki from disk
+     */
+    @AfterClass
+    public void teardown() {
+        delete(this.wikiDir);
+    }
+
+    private void createFile(String path) throws IOException {
+        File f = new File(this.wikiDir, path.replace('/', File.separatorChar));
+        f.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(f);
+        writer.write("Content of " + path);
+        writer.close();
+    }
+
+    private static void delete(File f) {
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        f.delete();
+    }
+
+    private static Wiki<BasicLink, BasicDocument> createWiki() {
+        return new AbstractWiki<BasicLink, BasicDocument>() {
+        };
+    }
+
+    private static Map<String, File> getDocuments(Wiki<BasicLink, BasicDocument> wiki) {
+        Map<String, File> docs = new TreeMap<String, File>();
+        Iterator<BasicDocument> iter = wiki.getDocuments();
+        while (iter.hasNext()) {
+            BasicDocument doc = iter.next();
+            docs.put(doc.getPath(), doc.getFile());
+        }
+        return docs;
+    }
+
+    private Map<String, File> scan(WikiScanner<BasicLink, BasicDocument> scanner) throws FileNotFoundException {
+        Wiki<BasicLink, BasicDocument> wiki = createWiki();
+        scanner.scan(wiki, this.wikiDir.getAbsolutePath());
+        return getDocuments(wiki);
+    }
+
+    /**
+     * Tests that a sequential scan finds the expected documents
+     *
+     * @throws FileNotFoundException
+     */
+    @Test
+    public void sequentialScan() throws FileNotFoundException {
+        Map<String, File> docs = this.scan(new BasicWikiScanner<BasicDocument>());
+
+        Assert.assertEquals(docs.size(), 26);
+        Assert.assertTrue(docs.containsKey("Home"));
+        Assert.assertTrue(docs.containsKey("notes.txt"));
+        Assert.assertTrue(docs.containsKey("logo.png"));
+        Assert.assertTrue(docs.containsKey("docs/Guide"));
+        Assert.assertTrue(docs.containsKey("docs/api/Index"));
+        Assert.assertTrue(docs.containsKey("docs/api/v1.0/Changes"));
+        Assert.assertTrue(docs.containsKey("pages/7/Page7"));
+        Assert.assertFalse(docs.containsKey(".hidden"));
+        Assert.assertFalse(docs.containsKey("docs/.secret"));
+        Assert.assertFalse(docs.containsKey("docs/.drafts/Draft"));
+    }
+
+    /**
+     * Tests that a parallel scan finds exactly the same documents as a
+     * sequential scan
+     *
+     * @throws FileNotFoundException
+     */
+    @Test
+    public void parallelScanMatchesSequential() throws FileNotFoundException {
+        Map<String, File> expected = this.scan(new BasicWikiScanner<BasicDocument>());
+
+        for (int parallelism = 2; parallelism <= 8; parallelism *= 2) {
+            BasicWikiScanner<BasicDocument> scanner = new BasicWikiScanner<BasicDocument>();
+            scanner.setParallelism(parallelism);
+            Assert.assertEquals(this.scan(scanner), expected);
+        }
+    }
+
+    /**
+     * Tests that a NIO scan finds exactly the same documents as a sequential
+     * scan
+     * 
+     * @throws FileNotFoundException
+     */
+    @Test
+    public void nioScanMatchesSequential() throws FileNotFoundException {
+        Map<String, File> expected = this.scan(new BasicWikiScanner<BasicDocument>());
+        Assert.assertEquals(this.scan(new BasicNioWikiScanner<BasicDocument>()), expected);
+    }
+
+    /**
+     * Tests that a NIO scan retains the file attributes on the documents
+     * 
+     * @throws FileNotFoundException
+     */
+    @Test
+    public void nioScanRetainsAttributes() throws FileNotFoundException {
+        Wiki<BasicLink, BasicDocument> wiki = createWiki();
+        new BasicNioWikiScanner<BasicDocument>().scan(wiki, this.wikiDir.getAbsolutePath());
+
+        BasicDocument doc = wiki.getDocument("docs/Guide");
+        Assert.assertNotNull(doc);
+        Assert.assertEquals(doc.getSize(), doc.getFile().length());
+        Assert.assertEquals(doc.getLastModified(), doc.getFile().lastModified());
+
+        // Attributes of a document without a file are unknown
+        BasicDocument missing = new BasicDocument("Missing.wiki", new File(this.wikiDir, "Missing.wiki"), null);
+        Assert.assertEquals(missing.getSize(), -1);
+        Assert.assertEquals(missing.getLastModified(), -1);
+        Assert.assertNull(missing.getFileKey());
+    }
+
+    /**
+     * Tests that scanned documents share the symbol table of the wiki and can
+     * be found by path id
+     * 
+     * @throws FileNotFoundException
+     */
+    @Test
+    public void sharedSymbolTable() throws FileNotFoundException {
+        Wiki<BasicLink, BasicDocument> wiki = createWiki();
+        new BasicNioWikiScanner<BasicDocument>().scan(wiki, this.wikiDir.getAbsolutePath());
+
+        BasicDocument doc = wiki.getDocument("docs/Guide");
+        Assert.assertSame(doc.getSymbolTable(), wiki.getSymbolTable());
+        Assert.assertSame(wiki.getDocument(doc.getPathId()), doc);
+        Assert.assertEquals(wiki.getSymbolTable().getId("docs/Guide"), doc.getPathId());
+
+        // Links added to the document are interned in the wiki symbol table
+        doc.addOutboundLink(doc.createLink("Home", "Go Home", 1, 1));
+        BasicLink link = doc.getOutboundLinks().next();
+        Assert.assertSame(wiki.getDocument(link.getPathId()), wiki.getDocument("Home"));
+        Assert.assertNull(wiki.getDocument(wiki.getSymbolTable().intern("Go Home")));
+    }
+
+    /**
+     * Tests that an invalid parallelism is rejected
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void badParallelism() {
+        new BasicWikiScanner<BasicDocument>().setParallelism(0);
+    }
+
+    /**
+     * Tests that a missing directory is reported
+     *
+     * @throws FileNotFoundException
+     */
+    @Test(expectedExceptions = FileNotFoundException.class)
+    public void missingDirectory() throws FileNotFoundException {
+        BasicWikiScanner<BasicDocument> scanner = new BasicWikiScanner<BasicDocument>();
+        scanner.setParallelism(4);
+        scanner.scan(createWiki(), new File(this.wikiDir, "missing").getAbsolutePath());
+    }
+}
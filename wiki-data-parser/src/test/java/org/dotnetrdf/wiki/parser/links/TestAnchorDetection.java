@@ -0,0 +1,153 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.parser.links;
+
+import org.dotnetrdf.wiki.data.documents.AnchorIndex;
+import org.dotnetrdf.wiki.data.documents.BasicDocument;
+import org.dotnetrdf.wiki.data.documents.Document;
+import org.dotnetrdf.wiki.data.documents.formats.Format;
+import org.dotnetrdf.wiki.data.links.BasicLink;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that link detectors detect headings as anchors in the same pass as
+ * they detect links
+ *
+ * @author rvesse
+ *
+ */
+public class TestAnchorDetection {
+
+    private static final String MARKDOWN = "# Getting Started #\n\nSee [Setup](Setup#Install)\n\nSetext Heading\r\n==============\r\n\nSub Heading\n---\n\n    # Not a heading\n\n####### Too deep\n\n#tag\n#123 issue\n";
+
+    private static AnchorIndex findAnchors(LinkDetector detector, String text, Format format) {
+        Document<BasicLink> doc = new BasicDocument("Home", format);
+        Assert.assertNull(doc.getAnchorIndex());
+        detector.findLinks(doc, text);
+        AnchorIndex index = doc.getAnchorIndex();
+        Assert.assertNotNull(index);
+
+        // Finding only the anchors should give the same index
+        Document<BasicLink> anchorsOnly = new BasicDocument("Home", format);
+        detector.findAnchors(anchorsOnly, text);
+        Assert.assertEquals(anchorsOnly.getOutboundLinkCount(), 0);
+        Assert.assertEquals(anchorsOnly.getAnchorIndex().toString(), index.toString());
+        return index;
+    }
+
+    private static void checkMarkdown(LinkDetector detector) {
+        Assert.assertTrue(detector.detectsAnchors());
+        AnchorIndex index = findAnchors(detector, MARKDOWN, Format.MARKDOWN);
+        Assert.assertEquals(index.size(), 3);
+        Assert.assertTrue(index.contains("getting-started"));
+        Assert.assertTrue(index.contains("Getting Started"));
+        Assert.assertTrue(index.contains("setext-heading"));
+        Assert.assertTrue(index.contains("sub-heading"));
+        Assert.assertFalse(index.contains("not-a-heading"));
+        Assert.assertFalse(index.contains("too-deep"));
+        Assert.assertFalse(index.contains("tag"));
+        Assert.assertFalse(index.contains("123-issue"));
+    }
+
+    /**
+     * Tests Markdown heading detection
+     */
+    @Test
+    public void markdown() {
+        checkMarkdown(new MarkdownLinkDetector());
+    }
+
+    /**
+     * Tests single pass Markdown heading detection
+     */
+    @Test
+    public void singlePassMarkdown() {
+        checkMarkdown(new SinglePassMarkdownLinkDetector());
+    }
+
+    /**
+     * Tests Creole heading detection, links within headings must still be
+     * detected
+     */
+    @Test
+    public void creole() {
+        LinkDetector detector = new CreoleLinkDetector();
+        Assert.assertTrue(detector.detectsAnchors());
+        String text = "= Top Level =\n\nText [[Setup#Install]]\n\n== See [[Other]] ==\n  === Indented\n";
+        AnchorIndex index = findAnchors(detector, text, Format.CREOLE);
+        Assert.assertEquals(index.size(), 3);
+        Assert.assertTrue(index.contains("top-level"));
+        Assert.assertTrue(index.contains("indented"));
+
+        Document<BasicLink> doc = new BasicDocument("Home", Format.CREOLE);
+        detector.findLinks(doc, text);
+        Assert.assertEquals(doc.getOutboundLinkCount(), 2);
+    }
+
+    /**
+     * Tests that detectors which do not understand headings do not produce an
+     * index
+     */
+    @Test
+    public void unsupported() {
+        LinkDetector detector = new NoLinkDetector();
+        Assert.assertFalse(detector.detectsAnchors());
+        Document<BasicLink> doc = new BasicDocument("Home", Format.PLAIN_TEXT);
+        detector.findLinks(doc, "= Heading =");
+        Assert.assertNull(doc.getAnchorIndex());
+    }
+
+    /**
+     * Tests that repeated headings are numbered
+     */
+    @Test
+    public void repeated() {
+        AnchorIndex index = findAnchors(new SinglePassMarkdownLinkDetector(),
+                "# Usage\n\n## Usage\n\n## Usage 1\n\n## usage\n", Format.MARKDOWN);
+        Assert.assertEquals(index.size(), 4);
+        Assert.assertTrue(index.contains("usage"));
+        Assert.assertTrue(index.contains("usage-1"));
+        Assert.assertTrue(index.contains("usage-2"));
+        Assert.assertFalse(index.contains("usage-3"));
+
+        // A repeat must skip numbers already taken by other headings
+        index = new AnchorIndex();
+        index.add("Usage");
+        index.add("Usage 1");
+        index.add("Usage");
+        Assert.assertTrue(index.contains("usage-1"));
+        Assert.assertTrue(index.contains("usage-2"));
+        Assert.assertEquals(index.size(), 3);
+    }
+
+    /**
+     * Tests heading normalization
+     */
+    @Test
+    public void normalize() {
+        Assert.assertEquals(AnchorIndex.normalize("  Hello, World!  "), "hello-world");
+        Assert.assertEquals(AnchorIndex.normalize("API_v2 Usage"), "api_v2-usage");
+        Assert.assertEquals(AnchorIndex.normalize("a - b"), "a---b");
+    }
+}
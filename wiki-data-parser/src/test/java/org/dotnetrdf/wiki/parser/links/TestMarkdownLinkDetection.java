@@ -40,7 +40,16 @@ import org.testng.annotations.Test;
  */
 public class TestMarkdownLinkDetection {
 
-    private LinkDetector linkDetector = new MarkdownLinkDetector();
+    private LinkDetector linkDetector = this.createLinkDetector();
+
+    /**
+     * Creates the link detector to test
+     * 
+     * @return Link detector
+     */
+    protected LinkDetector createLinkDetector() {
+        return new MarkdownLinkDetector();
+    }
 
     /**
      * Tests reference link detection
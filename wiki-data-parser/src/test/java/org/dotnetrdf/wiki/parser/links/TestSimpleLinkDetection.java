@@ -0,0 +1,119 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.parser.links;
+
+import java.util.Iterator;
+
+import org.dotnetrdf.wiki.data.documents.BasicDocument;
+import org.dotnetrdf.wiki.data.documents.Document;
+import org.dotnetrdf.wiki.data.documents.formats.Format;
+import org.dotnetrdf.wiki.data.links.BasicLink;
+import org.dotnetrdf.wiki.data.links.Link;
+import org.dotnetrdf.wiki.parser.text.LineIndex;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the {@link SimpleLinkDetector}
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestSimpleLinkDetection {
+
+    private LinkDetector linkDetector = new SimpleLinkDetector();
+
+    /**
+     * Tests simple link detection
+     */
+    @Test
+    public void simpleLinks01() {
+        Document<BasicLink> doc = new BasicDocument("notes.txt", Format.PLAIN_TEXT);
+        Assert.assertEquals(doc.getOutboundLinkCount(), 0);
+
+        String text = "See http://example.org for details";
+        linkDetector.findLinks(doc, text);
+
+        Assert.assertEquals(doc.getOutboundLinkCount(), 1);
+        Link link = doc.getOutboundLinks().next();
+        Assert.assertEquals(link.getPath(), "http://example.org");
+        Assert.assertEquals(link.getLine(), 1);
+        Assert.assertEquals(link.getColumn(), 5);
+    }
+
+    /**
+     * Tests simple link detection over a character sequence with a
+     * precomputed line index
+     */
+    @Test
+    public void simpleLinks02() {
+        Document<BasicLink> doc = new BasicDocument("notes.txt", Format.PLAIN_TEXT);
+        Assert.assertEquals(doc.getOutboundLinkCount(), 0);
+
+        CharSequence text = new StringBuilder("Contact\n  mailto:someone@example.org");
+        linkDetector.findLinks(doc, text, LineIndex.build(text));
+
+        Assert.assertEquals(doc.getOutboundLinkCount(), 1);
+        Link link = doc.getOutboundLinks().next();
+        Assert.assertEquals(link.getPath(), "mailto:someone@example.org");
+        Assert.assertEquals(link.getLine(), 2);
+        Assert.assertEquals(link.getColumn(), 3);
+    }
+
+    /**
+     * Tests that repeated links to the same target are all retained while
+     * detecting the same links again does not duplicate them
+     */
+    @Test
+    public void repeatedLinks() {
+        Document<BasicLink> doc = new BasicDocument("notes.txt", Format.PLAIN_TEXT);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("http://example.org http://example.org\n");
+        }
+        linkDetector.findLinks(doc, text.toString());
+        Assert.assertEquals(doc.getOutboundLinkCount(), 1000);
+        Assert.assertEquals(doc.getOutboundExternalLinkCount(), 1000);
+        Assert.assertEquals(doc.getOutboundWikiLinkCount(), 0);
+
+        linkDetector.findLinks(doc, text.toString());
+        Assert.assertEquals(doc.getOutboundLinkCount(), 1000);
+
+        Iterator<BasicLink> links = doc.getOutboundLinks();
+        Link link = links.next();
+        Assert.assertEquals(link.getLine(), 1);
+        Assert.assertEquals(link.getColumn(), 1);
+        link = links.next();
+        Assert.assertEquals(link.getLine(), 1);
+        Assert.assertEquals(link.getColumn(), 20);
+    }
+
+    /**
+     * Tests that a line index for different text is rejected
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void mismatchedLineIndex() {
+        Document<BasicLink> doc = new BasicDocument("notes.txt", Format.PLAIN_TEXT);
+        linkDetector.findLinks(doc, "http://example.org", LineIndex.build("other"));
+    }
+}
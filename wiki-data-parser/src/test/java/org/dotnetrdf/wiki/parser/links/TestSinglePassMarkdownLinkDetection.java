@@ -0,0 +1,101 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.parser.links;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.dotnetrdf.wiki.data.documents.BasicDocument;
+import org.dotnetrdf.wiki.data.documents.Document;
+import org.dotnetrdf.wiki.data.documents.formats.Format;
+import org.dotnetrdf.wiki.data.links.BasicLink;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the {@link SinglePassMarkdownLinkDetector}, this runs all the
+ * Markdown link detection tests plus additional tests which check it detects
+ * exactly the same links as the {@link MarkdownLinkDetector}
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestSinglePassMarkdownLinkDetection extends TestMarkdownLinkDetection {
+
+    private static final String[] FRAGMENTS = { "[", "]", "(", ")", "<", ">", "\"", "'", " ", "\t", "\n", "\r\n",
+            "    ", "\\", ":", "a", "b", "http://example.org", "[1]: ", "][", "](" };
+
+    @Override
+    protected LinkDetector createLinkDetector() {
+        return new SinglePassMarkdownLinkDetector();
+    }
+
+    private static List<String> findLinks(LinkDetector detector, String text) {
+        Document<BasicLink> doc = new BasicDocument("Home.md", Format.MARKDOWN);
+        detector.findLinks(doc, text);
+        List<String> links = new ArrayList<String>();
+        Iterator<BasicLink> iter = doc.getOutboundLinks();
+        while (iter.hasNext()) {
+            BasicLink link = iter.next();
+            links.add(link.getPath() + "|" + link.getText() + "|" + link.getLine() + "|" + link.getColumn());
+        }
+        Collections.sort(links);
+        return links;
+    }
+
+    private static void check(String text) {
+        Assert.assertEquals(findLinks(new SinglePassMarkdownLinkDetector(), text),
+                findLinks(new MarkdownLinkDetector(), text), "Different links detected for text: " + text);
+    }
+
+    /**
+     * Tests that links are positioned the same as the regular expression
+     * detector positions them
+     */
+    @Test
+    public void positions() {
+        check("Some [text](http://example.org) and <http://example.org/auto>\n    [code](ignored)\n[A][1] [B][]\n\n[1]: http://example.org/1 \"Title\"\n[B]: <http://example.org/b>");
+        check("Escaped \\[not a link\\](nope) then \\\\[a link](http://example.org/\\(1\\)) and <x>");
+        check("[a\nb]: http://example.org (title) more) text (x)\n[a\nb][] <y>");
+    }
+
+    /**
+     * Tests that randomly generated texts made up of Markdown syntax fragments
+     * produce the same links as the regular expression detector
+     */
+    @Test
+    public void randomTexts() {
+        Random random = new Random(20131018L);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int fragments = random.nextInt(30);
+            for (int j = 0; j < fragments; j++) {
+                builder.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            check(builder.toString());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+Copyright (c) 2013 dotNetRDF Project (dotnetrdf-develop@lists.sf.net)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is furnished
+to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ */
+
+package org.dotnetrdf.wiki.parser.text;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the {@link LineIndex}
+ * 
+ * @author rvesse
+ * 
+ */
+public class TestLineIndex {
+
+    /**
+     * Tests positions in single line text
+     */
+    @Test
+    public void singleLine() {
+        LineIndex index = LineIndex.build("abc");
+        Assert.assertEquals(index.getLineCount(), 1);
+        Assert.assertEquals(index.getLine(0), 1);
+        Assert.assertEquals(index.getColumn(0), 1);
+        Assert.assertEquals(index.getLine(2), 1);
+        Assert.assertEquals(index.getColumn(2), 3);
+        Assert.assertEquals(index.getLineEnd(1), 3);
+    }
+
+    /**
+     * Tests positions in multi-line text
+     */
+    @Test
+    public void multipleLines() {
+        String text = "ab\n\ncdef\ng";
+        LineIndex index = LineIndex.build(text);
+        Assert.assertEquals(index.getLineCount(), 4);
+
+        // The new line character belongs to the line it terminates
+        Assert.assertEquals(index.getLine(2), 1);
+        Assert.assertEquals(index.getColumn(2), 3);
+
+        // Empty line
+        Assert.assertEquals(index.getLine(3), 2);
+        Assert.assertEquals(index.getColumn(3), 1);
+        Assert.assertEquals(index.getLineStart(2), 3);
+        Assert.assertEquals(index.getLineEnd(2), 3);
+
+        // Beyond the first line
+        Assert.assertEquals(index.getLine(text.indexOf('e')), 3);
+        Assert.assertEquals(index.getColumn(text.indexOf('e')), 3);
+        Assert.assertEquals(index.getLine(text.indexOf('g')), 4);
+        Assert.assertEquals(index.getColumn(text.indexOf('g')), 1);
+        Assert.assertEquals(index.getLineEnd(4), text.length());
+    }
+
+    /**
+     * Tests that a trailing new line produces a final empty line
+     */
+    @Test
+    public void trailingNewLine() {
+        LineIndex index = LineIndex.build("a\n");
+        Assert.assertEquals(index.getLineCount(), 2);
+        Assert.assertEquals(index.getLine(2), 2);
+        Assert.assertEquals(index.getLineStart(2), 2);
+        Assert.assertEquals(index.getLineEnd(2), 2);
+    }
+
+    /**
+     * Tests that text with many lines is indexed correctly
+     */
+    @Test
+    public void manyLines() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append("line ").append(i).append('\n');
+        }
+        String text = builder.toString();
+        LineIndex index = LineIndex.build(text);
+        Assert.assertEquals(index.getLineCount(), 1001);
+
+        int offset = text.indexOf("line 500");
+        Assert.assertEquals(index.getLine(offset), 501);
+        Assert.assertEquals(index.getColumn(offset + 5), 6);
+    }
+
+    /**
+     * Tests that bad lines are rejected
+     */
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void badLine() {
+        LineIndex.build("a\nb").getLineStart(3);
+    }
+}
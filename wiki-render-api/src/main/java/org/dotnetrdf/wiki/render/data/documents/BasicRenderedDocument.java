@@ -55,6 +55,11 @@ public class BasicRenderedDocument extends AbstractRenderedDocument<BasicLink> {
         return new BasicLink(path, text, line, column);
     }
 
+    @Override
+    protected BasicLink createLink(String path, String text, int line, int column, int pathId) {
+        return new BasicLink(path, text, line, column, pathId);
+    }
+
     @Override
     public BasicLink createLink(String path, int line, int column) {
         return new BasicLink(path, line, column);